@@ -0,0 +1,472 @@
+package org.netbeans.gradle.project.benchmark;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.model.ProjectId;
+import org.netbeans.gradle.model.java.JarOutput;
+import org.netbeans.gradle.model.java.JarOutputsModel;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaSourcesModel;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+import org.netbeans.gradle.project.api.entry.ModelLoadResult;
+import org.netbeans.gradle.project.java.model.JavaModelSource;
+import org.netbeans.gradle.project.java.model.JavaParsingUtils;
+import org.netbeans.gradle.project.java.model.JavaProjectDependency;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGenericModelInfo;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleMultiProjectDef;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+
+/**
+ * Defines a generated multi-project Java build for the benchmarks. The
+ * generated build resembles a large real build: The subprojects are grouped
+ * into parent projects, each subproject depends on a few other subprojects
+ * and on external jars shared by many subprojects (stored in a directory
+ * structure similar to the dependency cache of Gradle).
+ * <P>
+ * The files of the build are not created, only the models describing them.
+ * The generated models are the same for the same arguments.
+ */
+public final class SyntheticBuild {
+    public static final String JAVA_EXTENSION_NAME = "org.netbeans.gradle.project.java.JavaExtension";
+
+    private static final int PROJECTS_PER_GROUP = 50;
+    private static final int PROJECT_DEPENDENCY_COUNT = 8;
+    private static final int EXTERNAL_JAR_COUNT = 30;
+    private static final int EXTERNAL_JAR_POOL_SIZE = 400;
+    private static final String[] SOURCE_SET_NAMES = {JavaSourceSet.NAME_MAIN, JavaSourceSet.NAME_TEST};
+
+    private final File rootDir;
+    private final File gradleUserHome;
+    private final List<File> externalJars;
+
+    private final GenericProjectProperties rootProperties;
+    private final List<GenericProjectProperties> projectProperties;
+    private final List<int[]> projectDependencies;
+    private final List<JavaSourcesModel> sourcesModels;
+
+    private NbGradleProjectTree rootTree;
+    private List<NbGradleProjectTree> projectTrees;
+    private List<NbJavaModule> javaModules;
+
+    private SyntheticBuild(File rootDir, int projectCount) {
+        this.rootDir = rootDir;
+        this.gradleUserHome = new File(rootDir.getParentFile(), "gradle-user-home");
+        this.externalJars = createExternalJars(gradleUserHome);
+
+        this.rootProperties = createProperties(rootDir, rootDir.getName(), ":");
+        this.projectProperties = new ArrayList<>(projectCount);
+        this.projectDependencies = new ArrayList<>(projectCount);
+        this.sourcesModels = new ArrayList<>(projectCount);
+
+        for (int i = 0; i < projectCount; i++) {
+            String groupName = getGroupName(i);
+            String projectName = String.format(Locale.ROOT, "project%04d", i);
+            File projectDir = new File(new File(rootDir, groupName), projectName);
+
+            projectProperties.add(createProperties(projectDir, projectName, ":" + groupName + ":" + projectName));
+            projectDependencies.add(selectDependencies(i));
+        }
+
+        for (int i = 0; i < projectCount; i++) {
+            sourcesModels.add(createSourcesModel(i));
+        }
+    }
+
+    /**
+     * Creates the models of a build with the given number of subprojects.
+     *
+     * @param rootDir the root directory of the build. It is recommended to
+     *   be an absolute and normalized path. This argument cannot be
+     *   {@code null}.
+     * @param projectCount the number of subprojects of the build (not
+     *   counting the root project and the projects grouping the subprojects).
+     *   This argument must be greater than zero.
+     * @return the models of a build with the given number of subprojects.
+     *   This method never returns {@code null}.
+     */
+    public static SyntheticBuild create(File rootDir, int projectCount) {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+        ExceptionHelper.checkArgumentInRange(projectCount, 1, Integer.MAX_VALUE, "projectCount");
+
+        return new SyntheticBuild(rootDir, projectCount);
+    }
+
+    /**
+     * Creates the models of a build with the given number of subprojects
+     * in a (not existing) directory in the temporary directory.
+     */
+    public static SyntheticBuild create(int projectCount) {
+        File tmpDir = new File(System.getProperty("java.io.tmpdir")).getAbsoluteFile();
+        return create(new File(new File(tmpDir, "nb-gradle-synthetic"), "build" + projectCount), projectCount);
+    }
+
+    private static String getGroupName(int projectIndex) {
+        return String.format(Locale.ROOT, "group%02d", projectIndex / PROJECTS_PER_GROUP);
+    }
+
+    private static GenericProjectProperties createProperties(File projectDir, String name, String fullName) {
+        return new GenericProjectProperties(
+                new ProjectId("org.example", name, "1.0"),
+                fullName,
+                projectDir,
+                new File(projectDir, "build.gradle"),
+                new File(projectDir, "build"));
+    }
+
+    private static List<File> createExternalJars(File gradleUserHome) {
+        File cacheDir = new File(gradleUserHome, "caches/modules-2/files-2.1");
+
+        List<File> result = new ArrayList<>(EXTERNAL_JAR_POOL_SIZE);
+        for (int i = 0; i < EXTERNAL_JAR_POOL_SIZE; i++) {
+            String group = "org.example.lib" + (i % 40);
+            String artifact = "artifact" + i;
+            String version = "1." + (i % 7);
+            String hash = Integer.toHexString(0x10000000 + i * 7919);
+
+            File versionDir = new File(new File(new File(cacheDir, group), artifact), version);
+            result.add(new File(new File(versionDir, hash), artifact + "-" + version + ".jar"));
+        }
+        return result;
+    }
+
+    private static int[] selectDependencies(int projectIndex) {
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int i = 1; i <= PROJECT_DEPENDENCY_COUNT && result.size() < projectIndex; i++) {
+            int candidate = (projectIndex * 31 + i * 17) % projectIndex;
+            result.add(candidate);
+        }
+
+        int[] resultArray = new int[result.size()];
+        int index = 0;
+        for (Integer dependency: result) {
+            resultArray[index] = dependency;
+            index++;
+        }
+        return resultArray;
+    }
+
+    private List<File> getExternalJarsOfProject(int projectIndex) {
+        List<File> result = new ArrayList<>(EXTERNAL_JAR_COUNT);
+        for (int i = 0; i < EXTERNAL_JAR_COUNT; i++) {
+            // The first few jars are used by every project (e.g., logging).
+            int jarIndex = i < 5 ? i : (projectIndex * 13 + i * 29) % EXTERNAL_JAR_POOL_SIZE;
+            result.add(externalJars.get(jarIndex));
+        }
+        return result;
+    }
+
+    private static File getSourceSetDir(File projectDir, String sourceSetName) {
+        return new File(new File(projectDir, "src"), sourceSetName);
+    }
+
+    private static JavaOutputDirs getOutputDirs(File projectDir, String sourceSetName) {
+        File buildDir = new File(projectDir, "build");
+        return new JavaOutputDirs(
+                new File(new File(buildDir, "classes"), sourceSetName),
+                new File(new File(buildDir, "resources"), sourceSetName),
+                Collections.<File>emptyList());
+    }
+
+    /**
+     * Returns the jar built from the main source set of the given subproject.
+     */
+    public File getProjectJar(int projectIndex) {
+        GenericProjectProperties properties = projectProperties.get(projectIndex);
+        File libsDir = new File(properties.getBuildDir(), "libs");
+        return new File(libsDir, properties.getProjectName() + ".jar");
+    }
+
+    private JavaSourcesModel createSourcesModel(int projectIndex) {
+        File projectDir = projectProperties.get(projectIndex).getProjectDir();
+
+        List<File> mainClasspath = new ArrayList<>();
+        mainClasspath.addAll(getExternalJarsOfProject(projectIndex));
+        for (int dependency: projectDependencies.get(projectIndex)) {
+            mainClasspath.add(getProjectJar(dependency));
+        }
+
+        JavaOutputDirs mainOutput = getOutputDirs(projectDir, JavaSourceSet.NAME_MAIN);
+        List<File> testClasspath = new ArrayList<>(mainClasspath);
+        testClasspath.add(mainOutput.getClassesDir());
+        testClasspath.add(mainOutput.getResourcesDir());
+        testClasspath.add(externalJars.get(EXTERNAL_JAR_POOL_SIZE - 1));
+
+        List<JavaSourceSet> sourceSets = new ArrayList<>(SOURCE_SET_NAMES.length);
+        for (String sourceSetName: SOURCE_SET_NAMES) {
+            boolean main = JavaSourceSet.NAME_MAIN.equals(sourceSetName);
+            JavaSourceSet.Builder sourceSet = new JavaSourceSet.Builder(
+                    sourceSetName,
+                    getOutputDirs(projectDir, sourceSetName));
+
+            File sourceSetDir = getSourceSetDir(projectDir, sourceSetName);
+            // Every fifth project filters its sources (e.g., generated code).
+            SourceIncludePatterns patterns = projectIndex % 5 == 0
+                    ? SourceIncludePatterns.create(
+                            Arrays.asList("**/generated/**", "**/*Stub.java"),
+                            Arrays.asList("org/example/**", "**/*.properties"))
+                    : SourceIncludePatterns.ALLOW_ALL;
+            sourceSet.addSourceGroup(new JavaSourceGroup(
+                    JavaSourceGroupName.JAVA,
+                    Arrays.asList(new File(sourceSetDir, "java")),
+                    patterns));
+            sourceSet.addSourceGroup(new JavaSourceGroup(
+                    JavaSourceGroupName.RESOURCES,
+                    Arrays.asList(new File(sourceSetDir, "resources"))));
+
+            List<File> classpath = main ? mainClasspath : testClasspath;
+            sourceSet.setClasspaths(new JavaClassPaths(classpath, classpath));
+            sourceSets.add(sourceSet.create());
+        }
+
+        return new JavaSourcesModel(sourceSets);
+    }
+
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    /**
+     * Returns the directory where the external jars of the build are.
+     */
+    public File getGradleUserHome() {
+        return gradleUserHome;
+    }
+
+    public Path getSettingsFile() {
+        return new File(rootDir, "settings.gradle").toPath();
+    }
+
+    public int getProjectCount() {
+        return projectProperties.size();
+    }
+
+    public List<File> getExternalJars() {
+        return Collections.unmodifiableList(externalJars);
+    }
+
+    public GenericProjectProperties getProjectProperties(int projectIndex) {
+        return projectProperties.get(projectIndex);
+    }
+
+    public File getProjectDir(int projectIndex) {
+        return projectProperties.get(projectIndex).getProjectDir();
+    }
+
+    public JavaSourcesModel getSourcesModel(int projectIndex) {
+        return sourcesModels.get(projectIndex);
+    }
+
+    /**
+     * Returns a (not existing) source file of the given subproject.
+     */
+    public File getSourceFile(int projectIndex, String sourceSetName, int fileIndex) {
+        File javaDir = new File(getSourceSetDir(getProjectDir(projectIndex), sourceSetName), "java");
+        File packageDir = new File(new File(new File(javaDir, "org"), "example"), "pkg" + (fileIndex % 10));
+        return new File(packageDir, "Class" + fileIndex + ".java");
+    }
+
+    private static NbGradleProjectTree createTree(
+            GenericProjectProperties properties,
+            Collection<NbGradleProjectTree> children) {
+
+        String fullName = properties.getProjectFullName();
+        String taskPrefix = fullName.endsWith(":") ? fullName : fullName + ":";
+
+        List<GradleTaskID> tasks = Arrays.asList(
+                new GradleTaskID("build", taskPrefix + "build"),
+                new GradleTaskID("test", taskPrefix + "test"),
+                new GradleTaskID("jar", taskPrefix + "jar"));
+        return new NbGradleProjectTree(properties, tasks, children);
+    }
+
+    private void ensureProjectTrees() {
+        if (rootTree != null) {
+            return;
+        }
+
+        List<NbGradleProjectTree> trees = new ArrayList<>(getProjectCount());
+        List<NbGradleProjectTree> groups = new ArrayList<>();
+
+        List<NbGradleProjectTree> groupChildren = new ArrayList<>();
+        for (int i = 0; i < getProjectCount(); i++) {
+            NbGradleProjectTree tree = createTree(projectProperties.get(i), Collections.<NbGradleProjectTree>emptyList());
+            trees.add(tree);
+            groupChildren.add(tree);
+
+            if (groupChildren.size() == PROJECTS_PER_GROUP || i == getProjectCount() - 1) {
+                String groupName = getGroupName(i);
+                GenericProjectProperties groupProperties
+                        = createProperties(new File(rootDir, groupName), groupName, ":" + groupName);
+                groups.add(createTree(groupProperties, groupChildren));
+                groupChildren = new ArrayList<>();
+            }
+        }
+
+        projectTrees = trees;
+        rootTree = createTree(rootProperties, groups);
+    }
+
+    public NbGradleProjectTree getRootTree() {
+        ensureProjectTrees();
+        return rootTree;
+    }
+
+    /**
+     * Returns the generic model of the given subproject. The returned model
+     * contains the project tree of the whole build (as the models loaded by
+     * the plugin).
+     */
+    public NbGenericModelInfo getGenericInfo(int projectIndex) {
+        ensureProjectTrees();
+        NbGradleMultiProjectDef projectDef = new NbGradleMultiProjectDef(rootTree, projectTrees.get(projectIndex));
+        return new NbGenericModelInfo(projectDef, getSettingsFile());
+    }
+
+    /**
+     * Returns the Java modules of all the subprojects as
+     * {@link JavaParsingUtils#parseModules(ModelLoadResult) parseModules}
+     * would return them.
+     */
+    public List<NbJavaModule> getJavaModules() {
+        if (javaModules == null) {
+            List<NbJavaModule> modules = new ArrayList<>(getProjectCount());
+            for (int i = 0; i < getProjectCount(); i++) {
+                modules.add(createJavaModule(i));
+            }
+            javaModules = modules;
+        }
+        return javaModules;
+    }
+
+    private NbJavaModule createJavaModule(int projectIndex) {
+        GenericProjectProperties properties = projectProperties.get(projectIndex);
+        JavaSourcesModel sourcesModel = sourcesModels.get(projectIndex);
+
+        // Replace the jars of the other projects with their output directories,
+        // the same way parseModules does.
+        List<JavaSourceSet> sourceSets = new ArrayList<>();
+        for (JavaSourceSet sourceSet: sourcesModel.getSourceSets()) {
+            JavaSourceSet.Builder adjusted = new JavaSourceSet.Builder(sourceSet.getName(), sourceSet.getOutputDirs());
+            for (JavaSourceGroup group: sourceSet.getSourceGroups()) {
+                adjusted.addSourceGroup(group);
+            }
+
+            List<File> classpath = new ArrayList<>();
+            for (File entry: sourceSet.getClasspaths().getCompileClasspaths()) {
+                int dependency = tryGetProjectOfJar(entry);
+                if (dependency >= 0) {
+                    JavaOutputDirs outputDirs = getOutputDirs(getProjectDir(dependency), JavaSourceSet.NAME_MAIN);
+                    classpath.add(outputDirs.getClassesDir());
+                    classpath.add(outputDirs.getResourcesDir());
+                }
+                else {
+                    classpath.add(entry);
+                }
+            }
+            adjusted.setClasspaths(new JavaClassPaths(classpath, classpath));
+            sourceSets.add(adjusted.create());
+        }
+
+        return new NbJavaModule(
+                properties,
+                new JavaCompatibilityModel("1.7", "1.7"),
+                sourceSets,
+                Collections.<NbListedDir>emptyList(),
+                JavaTestModel.getDefaulTestModel(properties.getProjectDir()));
+    }
+
+    private int tryGetProjectOfJar(File jar) {
+        File libsDir = jar.getParentFile();
+        if (libsDir == null || !"libs".equals(libsDir.getName())) {
+            return -1;
+        }
+
+        String name = jar.getName();
+        if (!name.startsWith("project") || !name.endsWith(".jar")) {
+            return -1;
+        }
+        return Integer.parseInt(name.substring("project".length(), name.length() - ".jar".length()));
+    }
+
+    /**
+     * Returns the Java model of the given subproject containing the
+     * subprojects it depends on as project dependencies.
+     */
+    public NbJavaModel getJavaModel(int projectIndex) {
+        List<NbJavaModule> modules = getJavaModules();
+
+        List<NbJavaModule> dependencies = new ArrayList<>();
+        for (int dependency: projectDependencies.get(projectIndex)) {
+            dependencies.add(modules.get(dependency));
+        }
+
+        Map<File, JavaProjectDependency> dependencyMap = JavaParsingUtils.asDependencies(dependencies);
+        return NbJavaModel.createModel(JavaModelSource.GRADLE_1_8_API, modules.get(projectIndex), dependencyMap);
+    }
+
+    /**
+     * Returns the models of every subproject as they are stored in the
+     * persistent model cache.
+     */
+    public List<NbGradleModel> getGradleModels() {
+        List<NbGradleModel> result = new ArrayList<>(getProjectCount());
+        for (int i = 0; i < getProjectCount(); i++) {
+            Map<String, Object> extensionModels = Collections.<String, Object>singletonMap(
+                    JAVA_EXTENSION_NAME,
+                    getJavaModel(i));
+            result.add(new NbGradleModel(getGenericInfo(i), extensionModels));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the models retrieved by the Java extension from the Gradle
+     * daemon for all the subprojects of this build.
+     */
+    public ModelLoadResult getModelLoadResult() {
+        Map<File, Lookup> projectModels = new HashMap<>();
+        projectModels.put(rootDir, Lookups.fixed(rootProperties));
+
+        for (int i = 0; i < getProjectCount(); i++) {
+            GenericProjectProperties properties = projectProperties.get(i);
+            JarOutput jar = new JarOutput(
+                    "jar",
+                    getProjectJar(i),
+                    Collections.singleton(JavaSourceSet.NAME_MAIN));
+
+            projectModels.put(properties.getProjectDir(), Lookups.fixed(
+                    properties,
+                    new JavaCompatibilityModel("1.7", "1.7"),
+                    sourcesModels.get(i),
+                    new JarOutputsModel(Collections.singletonList(jar)),
+                    JavaTestModel.getDefaulTestModel(properties.getProjectDir())));
+        }
+
+        return new ModelLoadResult(rootDir, projectModels);
+    }
+}
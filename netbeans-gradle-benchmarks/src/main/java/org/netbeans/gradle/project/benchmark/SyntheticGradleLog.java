@@ -0,0 +1,143 @@
+package org.netbeans.gradle.project.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a generated output of a Gradle build. The output resembles the
+ * output of building a large multi-project build with some compiler warnings
+ * and failing tests: Most lines contain nothing the output window could
+ * link, only a small portion of the lines are stack trace frames, compiler
+ * messages or URLs.
+ * <P>
+ * The generated output is the same for the same arguments.
+ */
+public final class SyntheticGradleLog {
+    private static final String[] TASK_NAMES = {
+        "compileJava", "processResources", "classes", "jar",
+        "compileTestJava", "processTestResources", "testClasses", "test", "check", "build"
+    };
+
+    private static final String[] TASK_STATES = {
+        "", " UP-TO-DATE", " UP-TO-DATE", " NO-SOURCE"
+    };
+
+    private static final String[] FRAME_CLASSES = {
+        "org.example.pkg1.Class12.compute(Class12.java:%d)",
+        "org.example.pkg4.Class7.run(Class7.java:%d)",
+        "sun.reflect.NativeMethodAccessorImpl.invoke0(Native Method)",
+        "java.lang.reflect.Method.invoke(Method.java:%d)",
+        "org.junit.runners.model.FrameworkMethod$1.runReflectiveCall(FrameworkMethod.java:%d)",
+        "org.gradle.api.internal.tasks.testing.junit.JUnitTestClassExecuter.run(JUnitTestClassExecuter.java:%d)",
+        "org.gradle.messaging.dispatch.ReflectionDispatch.dispatch(ReflectionDispatch.java:%d)"
+    };
+
+    private final List<String> lines;
+
+    private SyntheticGradleLog(List<String> lines) {
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Creates the output of building the given number of projects.
+     *
+     * @param rootDir the root directory of the build. This argument cannot
+     *   be {@code null}.
+     * @param projectCount the number of projects built. This argument must
+     *   be greater than zero.
+     * @return the output of building the given number of projects. This
+     *   method never returns {@code null}.
+     */
+    public static SyntheticGradleLog create(String rootDir, int projectCount) {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+        ExceptionHelper.checkArgumentInRange(projectCount, 1, Integer.MAX_VALUE, "projectCount");
+
+        Random random = new Random(projectCount);
+        List<String> lines = new ArrayList<>();
+
+        lines.add("Parallel execution is an incubating feature.");
+        lines.add(":buildSrc:compileJava UP-TO-DATE");
+        for (int projectIndex = 0; projectIndex < projectCount; projectIndex++) {
+            String projectPath = String.format(Locale.ROOT, ":group%02d:project%04d", projectIndex / 50, projectIndex);
+            String srcDir = rootDir + projectPath.replace(':', '/') + "/src/main/java/org/example/";
+
+            for (String taskName: TASK_NAMES) {
+                lines.add(projectPath + ":" + taskName + TASK_STATES[random.nextInt(TASK_STATES.length)]);
+
+                if ("compileJava".equals(taskName) && random.nextInt(4) == 0) {
+                    addCompilerWarnings(random, srcDir, lines);
+                }
+                if ("test".equals(taskName)) {
+                    addTestOutput(random, lines);
+                }
+            }
+        }
+
+        lines.add("");
+        lines.add("BUILD SUCCESSFUL");
+        lines.add("");
+        lines.add("Total time: 4 mins 12.345 secs");
+        lines.add("");
+        lines.add("This build could be faster, please consider using the Gradle Daemon: "
+                + "https://docs.gradle.org/2.4/userguide/gradle_daemon.html");
+
+        return new SyntheticGradleLog(lines);
+    }
+
+    private static void addCompilerWarnings(Random random, String srcDir, List<String> lines) {
+        int warningCount = 1 + random.nextInt(3);
+        for (int i = 0; i < warningCount; i++) {
+            String file = srcDir + "pkg" + random.nextInt(10) + "/Class" + random.nextInt(40) + ".java";
+            lines.add(file + ":" + (1 + random.nextInt(300)) + ": warning: [unchecked] unchecked conversion");
+            lines.add("        List<String> result = new ArrayList();");
+            lines.add("                              ^");
+        }
+        lines.add("Note: Some input files use unchecked or unsafe operations.");
+        lines.add("Note: Recompile with -Xlint:unchecked for details.");
+    }
+
+    private static void addTestOutput(Random random, List<String> lines) {
+        int testCount = 5 + random.nextInt(20);
+        for (int i = 0; i < testCount; i++) {
+            lines.add("Running test: Test testMethod" + i + "(org.example.pkg" + (i % 10) + ".Class" + i + "Test)");
+        }
+
+        if (random.nextInt(8) == 0) {
+            lines.add("");
+            lines.add("org.example.pkg1.Class12Test > testCompute FAILED");
+            lines.add("    java.lang.AssertionError: expected:<1> but was:<2>");
+
+            int frameCount = 10 + random.nextInt(30);
+            for (int i = 0; i < frameCount; i++) {
+                String frame = FRAME_CLASSES[random.nextInt(FRAME_CLASSES.length)];
+                lines.add("\tat " + String.format(Locale.ROOT, frame, 1 + random.nextInt(500)));
+            }
+            lines.add("");
+        }
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the lines of the output joined by the given line separator.
+     */
+    public String getText(String lineSeparator) {
+        int length = 0;
+        for (String line: lines) {
+            length += line.length() + lineSeparator.length();
+        }
+
+        StringBuilder result = new StringBuilder(length);
+        for (String line: lines) {
+            result.append(line);
+            result.append(lineSeparator);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.api.entry.ModelLoadResult;
+import org.netbeans.gradle.project.benchmark.SyntheticBuild;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating the Java modules of every project of the build from the
+ * models retrieved from the Gradle daemon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JavaParsingBenchmark {
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    private ModelLoadResult modelLoadResult;
+    private Collection<NbJavaModule> modules;
+
+    @Setup
+    public void setup() {
+        SyntheticBuild build = SyntheticBuild.create(projectCount);
+        modelLoadResult = build.getModelLoadResult();
+        modules = build.getJavaModules();
+    }
+
+    @Benchmark
+    public Collection<NbJavaModule> parseModules() {
+        return JavaParsingUtils.parseModules(modelLoadResult);
+    }
+
+    @Benchmark
+    public Map<File, JavaProjectDependency> asDependencies() {
+        return JavaParsingUtils.asDependencies(modules);
+    }
+}
@@ -0,0 +1,158 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.benchmark.SyntheticBuild;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the work {@link GradleClassPathProvider} does when the class path
+ * of a file is requested ({@code findAssociatedSourceSet}) and when the
+ * class paths are reloaded after the projects of the build are reloaded
+ * ({@code loadAllPathResources}). The {@code legacy} benchmark checks every
+ * class path entry of every source set (as it was done before
+ * {@link SourceSetIndex} was introduced).
+ * <P>
+ * The provider itself needs a loaded project, so these benchmarks call the
+ * methods doing the actual work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClassPathBenchmark {
+    private static final int QUERIED_FILES_PER_SOURCE_SET = 20;
+
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    private NbJavaModel javaModel;
+    private SourceSetIndex sourceSetIndex;
+    private File[] queriedFiles;
+    private List<NbJavaModule> allModules;
+
+    @Setup
+    public void setup() {
+        SyntheticBuild build = SyntheticBuild.create(projectCount);
+
+        int projectIndex = projectCount - 1;
+        javaModel = build.getJavaModel(projectIndex);
+        sourceSetIndex = SourceSetIndex.create(javaModel);
+        allModules = build.getJavaModules();
+
+        // The files the IDE usually asks the class path of: source files,
+        // files on the class path and files not related to the project.
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < QUERIED_FILES_PER_SOURCE_SET; i++) {
+            files.add(build.getSourceFile(projectIndex, JavaSourceSet.NAME_MAIN, i));
+            files.add(build.getSourceFile(projectIndex, JavaSourceSet.NAME_TEST, i));
+        }
+        for (JavaSourceSet sourceSet: javaModel.getMainModule().getSources()) {
+            for (File classpathEntry: sourceSet.getClasspaths().getCompileClasspaths()) {
+                files.add(new File(classpathEntry, "org/example/Dependency.class"));
+            }
+        }
+        for (int i = 0; i < QUERIED_FILES_PER_SOURCE_SET; i++) {
+            files.add(new File(build.getRootDir(), "unrelated/File" + i + ".txt"));
+        }
+        queriedFiles = files.toArray(new File[files.size()]);
+    }
+
+    @Benchmark
+    public SourceSetIndex createSourceSetIndex() {
+        return SourceSetIndex.create(javaModel);
+    }
+
+    @Benchmark
+    public void findAssociatedSourceSet(Blackhole blackhole) {
+        for (File file: queriedFiles) {
+            blackhole.consume(sourceSetIndex.tryFindSourceSet(file));
+        }
+    }
+
+    @Benchmark
+    public void legacyFindAssociatedSourceSet(Blackhole blackhole) {
+        for (File file: queriedFiles) {
+            blackhole.consume(legacyFindAssociatedSourceSet(javaModel, file));
+        }
+    }
+
+    /**
+     * The implementation of {@code findAssociatedSourceSet} before
+     * {@link SourceSetIndex} was introduced.
+     */
+    private static JavaSourceSet legacyFindAssociatedSourceSet(NbJavaModel projectModel, File file) {
+        for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
+            if (isInOneOf(file, sourceSet.getClasspaths().getCompileClasspaths(), null)) {
+                return sourceSet;
+            }
+
+            if (isInOneOf(file, sourceSet.getClasspaths().getRuntimeClasspaths(), null)) {
+                return sourceSet;
+            }
+
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                ExcludeIncludeRules excludeRules = ExcludeIncludeRules.create(sourceGroup);
+                if (isInOneOf(file, sourceGroup.getSourceRoots(), excludeRules)) {
+                    return sourceSet;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isInOneOf(File file, Collection<File> roots, ExcludeIncludeRules excludeRules) {
+        for (File root: roots) {
+            if (NbFileUtils.isParentOrSame(root, file)) {
+                if (excludeRules == null) {
+                    return true;
+                }
+                return excludeRules.isIncluded(root.toPath(), file);
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public void loadAllPathResources(Blackhole blackhole) {
+        for (NbJavaModule module: allModules) {
+            for (JavaSourceSet sourceSet: module.getSources()) {
+                blackhole.consume(GradleClassPathProvider.getPathResources(
+                        sourceSet.getClasspaths().getCompileClasspaths(),
+                        new HashSet<File>(),
+                        ExcludeIncludeRules.ALLOW_ALL));
+
+                for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                    blackhole.consume(GradleClassPathProvider.getPathResources(
+                            sourceGroup.getSourceRoots(),
+                            new HashSet<File>(),
+                            ExcludeIncludeRules.create(sourceGroup)));
+                }
+            }
+        }
+    }
+}
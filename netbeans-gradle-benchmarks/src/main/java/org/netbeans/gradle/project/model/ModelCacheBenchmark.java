@@ -0,0 +1,125 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.benchmark.SyntheticBuild;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading the cached models of projects from the persistent model
+ * caches. Since every cache entry contains the project tree of the whole
+ * build, only the models of (at most) {@link #SAMPLE_SIZE} projects are
+ * stored and read, evenly spread among the projects of the build.
+ * <P>
+ * The {@code cold} benchmarks create a new cache for every invocation,
+ * so they include the cost of opening (and indexing) the cache files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ModelCacheBenchmark {
+    private static final int SAMPLE_SIZE = 100;
+
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    private Path rootProjectDir;
+    private File[] projectDirs;
+
+    private SingleFileModelCache warmSingleFileCache;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticBuild build = SyntheticBuild.create(projectCount);
+        rootProjectDir = build.getRootDir().toPath();
+        deleteCacheDir();
+
+        int sampleSize = Math.min(projectCount, SAMPLE_SIZE);
+        List<NbGradleModel> allModels = build.getGradleModels();
+        List<NbGradleModel> sampledModels = new ArrayList<>(sampleSize);
+        projectDirs = new File[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            NbGradleModel model = allModels.get((int)((long)i * projectCount / sampleSize));
+            sampledModels.add(model);
+            projectDirs[i] = model.getProjectDir();
+        }
+
+        new MultiFileModelCache().saveGradleModels(sampledModels, null);
+        new SingleFileModelCache().saveGradleModels(sampledModels, null);
+
+        warmSingleFileCache = new SingleFileModelCache();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        deleteCacheDir();
+    }
+
+    private void deleteCacheDir() throws IOException {
+        Path cacheDir = SettingsFiles.getCacheDir(rootProjectDir);
+        if (!Files.exists(cacheDir)) {
+            return;
+        }
+
+        Files.walkFileTree(cacheDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Benchmark
+    public void multiFileRead(Blackhole blackhole) throws IOException {
+        MultiFileModelCache cache = new MultiFileModelCache();
+        for (File projectDir: projectDirs) {
+            blackhole.consume(cache.tryGetSerializedModel(rootProjectDir, projectDir));
+        }
+    }
+
+    @Benchmark
+    public void singleFileColdRead(Blackhole blackhole) throws IOException {
+        SingleFileModelCache cache = new SingleFileModelCache();
+        for (File projectDir: projectDirs) {
+            blackhole.consume(cache.tryGetSerializedModel(rootProjectDir, projectDir));
+        }
+    }
+
+    @Benchmark
+    public void singleFileWarmRead(Blackhole blackhole) throws IOException {
+        for (File projectDir: projectDirs) {
+            blackhole.consume(warmSingleFileCache.tryGetSerializedModel(rootProjectDir, projectDir));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.model.util.SerializationUtils;
+import org.netbeans.gradle.project.benchmark.SyntheticBuild;
+import org.netbeans.gradle.project.java.model.JavaModelCompactFormat;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing and reading the model of a single project of the build
+ * in the format of the persistent model cache and with Java serialization
+ * (the format used before the compact format). The sizes of the different
+ * formats are printed when setting up the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializedModelsBenchmark {
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    private NbGradleModel gradleModel;
+    private NbJavaModel javaModel;
+
+    private byte[] cacheEntryBytes;
+    private byte[] compactJavaModelBytes;
+    private byte[] serializedJavaModelBytes;
+    private byte[] serializedGradleModelBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticBuild build = SyntheticBuild.create(projectCount);
+
+        int projectIndex = projectCount - 1;
+        javaModel = build.getJavaModel(projectIndex);
+        gradleModel = new NbGradleModel(
+                build.getGenericInfo(projectIndex),
+                Collections.<String, Object>singletonMap(SyntheticBuild.JAVA_EXTENSION_NAME, javaModel));
+
+        cacheEntryBytes = writeCacheEntry();
+        compactJavaModelBytes = writeCompactJavaModel();
+        serializedJavaModelBytes = SerializationUtils.serializeObject(javaModel);
+        serializedGradleModelBytes = SerializationUtils.serializeObject(new Object[]{
+            gradleModel.getGenericInfo(),
+            javaModel
+        });
+
+        System.out.format(Locale.ROOT,
+                "%nprojectCount=%d: cache entry %d bytes (Java serialization: %d bytes), "
+                + "Java model %d bytes (Java serialization: %d bytes)%n",
+                projectCount,
+                cacheEntryBytes.length,
+                serializedGradleModelBytes.length,
+                compactJavaModelBytes.length,
+                serializedJavaModelBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writeCacheEntry() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(4096);
+        SerializedNbGradleModels.createSerialized(gradleModel).writeTo(output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public SerializedNbGradleModels readCacheEntry() throws IOException {
+        return SerializedNbGradleModels.tryReadFrom(new ByteArrayInputStream(cacheEntryBytes));
+    }
+
+    @Benchmark
+    public byte[] writeCompactJavaModel() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        CompactModelOutput output = new CompactModelOutput(bytes);
+        JavaModelCompactFormat.INSTANCE.writeModel(javaModel, output);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public NbJavaModel readCompactJavaModel() throws IOException {
+        CompactModelInput input = new CompactModelInput(new ByteArrayInputStream(compactJavaModelBytes));
+        return JavaModelCompactFormat.INSTANCE.readModel(input);
+    }
+
+    @Benchmark
+    public byte[] writeSerializedJavaModel() {
+        return SerializationUtils.serializeObject(javaModel);
+    }
+
+    @Benchmark
+    public Object readSerializedJavaModel() throws ClassNotFoundException {
+        return SerializationUtils.deserializeObject(serializedJavaModelBytes);
+    }
+
+    @Benchmark
+    public byte[] writeSerializedGradleModel() {
+        return SerializationUtils.serializeObject(new Object[]{
+            gradleModel.getGenericInfo(),
+            javaModel
+        });
+    }
+
+    @Benchmark
+    public Object readSerializedGradleModel() throws ClassNotFoundException {
+        return SerializationUtils.deserializeObject(serializedGradleModelBytes);
+    }
+}
@@ -0,0 +1,87 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jtrim.utils.ExceptionHelper;
+
+final class BenchmarkLinkFinders {
+    private static final Runnable NO_ACTION = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    /**
+     * Returns the link finders of the output window usable without a project.
+     */
+    public static OutputLinkFinder[] getDefaultFinders() {
+        return new OutputLinkFinder[]{
+            new OutputUrlConsumer(),
+            new StackFrameFinder()
+        };
+    }
+
+    /**
+     * Returns the given link finders declaring that they must be called for
+     * every line. That is, the returned finders behave as the finders before
+     * {@link LineFeatures} were introduced.
+     */
+    public static OutputLinkFinder[] withoutLineFeatures(OutputLinkFinder[] finders) {
+        OutputLinkFinder[] result = new OutputLinkFinder[finders.length];
+        for (int i = 0; i < finders.length; i++) {
+            result[i] = new UnfilteredLinkFinder(finders[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Does the same as {@link StackTraceConsumer} except that it assumes
+     * that only the classes of the "org.example" package have source files.
+     * {@code StackTraceConsumer} cannot be used because it needs a project
+     * to look up the source files.
+     */
+    private static final class StackFrameFinder implements OutputLinkFinder {
+        private static final Pattern LINE_PATTERN = Pattern.compile("(?:\\[catch\\])?\\sat (.*)\\((.*)\\.java\\:(\\d+)\\)");
+
+        @Override
+        public int getRequiredLineFeatures() {
+            return LineFeatures.STACK_FRAME | LineFeatures.COLON;
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            Matcher match = LINE_PATTERN.matcher(line);
+            if (!match.matches()) {
+                return null;
+            }
+
+            String method = match.group(1);
+            return method.startsWith("org.example.")
+                    ? new OutputLinkDef(match.start(), match.end(), NO_ACTION)
+                    : null;
+        }
+    }
+
+    private static final class UnfilteredLinkFinder implements OutputLinkFinder {
+        private final OutputLinkFinder wrapped;
+
+        public UnfilteredLinkFinder(OutputLinkFinder wrapped) {
+            ExceptionHelper.checkNotNullArgument(wrapped, "wrapped");
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public int getRequiredLineFeatures() {
+            return LineFeatures.NONE;
+        }
+
+        @Override
+        public OutputLinkDef tryFindLink(String line) {
+            return wrapped.tryFindLink(line);
+        }
+    }
+
+    private BenchmarkLinkFinders() {
+        throw new AssertionError();
+    }
+}
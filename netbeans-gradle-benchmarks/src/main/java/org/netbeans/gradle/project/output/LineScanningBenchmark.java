@@ -0,0 +1,72 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.benchmark.SyntheticGradleLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures searching for links in the lines of a large Gradle output. The
+ * {@code unfiltered} benchmark calls every link finder for every line (as
+ * it was done before lines were prefiltered by their {@link LineFeatures}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LineScanningBenchmark {
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    private List<String> lines;
+    private OutputLinkPrinter prefilteredPrinter;
+    private OutputLinkPrinter unfilteredPrinter;
+
+    @Setup
+    public void setup() {
+        lines = SyntheticGradleLog.create("/home/user/example-build", projectCount).getLines();
+
+        OutputLinkFinder[] finders = BenchmarkLinkFinders.getDefaultFinders();
+        prefilteredPrinter = new OutputLinkPrinter(finders);
+        unfilteredPrinter = new OutputLinkPrinter(BenchmarkLinkFinders.withoutLineFeatures(finders));
+    }
+
+    private void scanLines(OutputLinkPrinter printer, Blackhole blackhole) {
+        for (String line: lines) {
+            SmartOutputHandler.LinePrinter linePrinter = printer.tryConsumeLine(line);
+            if (linePrinter != null) {
+                blackhole.consume(linePrinter.resolve());
+            }
+        }
+    }
+
+    @Benchmark
+    public void prefiltered(Blackhole blackhole) {
+        scanLines(prefilteredPrinter, blackhole);
+    }
+
+    @Benchmark
+    public void unfiltered(Blackhole blackhole) {
+        scanLines(unfilteredPrinter, blackhole);
+    }
+
+    @Benchmark
+    public void lineFeatures(Blackhole blackhole) {
+        for (String line: lines) {
+            blackhole.consume(LineFeatures.getFeatures(line));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.netbeans.gradle.project.benchmark.SyntheticGradleLog;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of forwarding a large Gradle output to the output
+ * window: Splitting the output to lines, finding the links in them and
+ * printing them. The output of the output window is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OutputHandlerBenchmark {
+    // The size of the buffer used to forward the output of Gradle.
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    @Param({"false", "true"})
+    public boolean recordMetrics;
+
+    private char[] text;
+
+    @Setup
+    public void setup() {
+        SyntheticGradleLog log = SyntheticGradleLog.create("/home/user/example-build", projectCount);
+        text = log.getText("\n").toCharArray();
+    }
+
+    @Benchmark
+    public void writeOutput() throws IOException {
+        OutputMetrics metrics = recordMetrics ? new OutputMetrics() : null;
+
+        List<TaskOutputProcessor> visitors = Collections.emptyList();
+        List<SmartOutputHandler.Consumer> consumers = Arrays.<SmartOutputHandler.Consumer>asList(
+                new OutputLinkPrinter(BenchmarkLinkFinders.getDefaultFinders()));
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                newDummyInputOutput(),
+                new DiscardingOutputWriter(),
+                visitors,
+                consumers,
+                SyncTaskExecutor.getSimpleExecutor(),
+                metrics);
+
+        try (Writer writer = new LineOutputWriter(handler, metrics)) {
+            for (int offset = 0; offset < text.length; offset += CHUNK_SIZE) {
+                writer.write(text, offset, Math.min(CHUNK_SIZE, text.length - offset));
+            }
+        }
+    }
+
+    private static InputOutput newDummyInputOutput() {
+        // The handler only passes the InputOutput to the printers of the
+        // links, so a dummy implementation will do.
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "DummyInputOutput";
+                    default:
+                        return method.getReturnType() == boolean.class ? false : null;
+                }
+            }
+        };
+        return (InputOutput)Proxy.newProxyInstance(
+                InputOutput.class.getClassLoader(),
+                new Class<?>[]{InputOutput.class},
+                handler);
+    }
+
+    private static final class DiscardingOutputWriter extends OutputWriter {
+        public DiscardingOutputWriter() {
+            super(new NullWriter());
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+        }
+
+        @Override
+        public void reset() throws IOException {
+        }
+    }
+
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.netbeans.gradle.project.properties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Measures parsing and creating the project settings files. The settings
+ * contain the given number of custom tasks (and the usual properties of a
+ * settings file).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConfigXmlBenchmark {
+    @Param({"1", "10", "100"})
+    public int taskCount;
+
+    private byte[] xmlContent;
+    private Document document;
+    private ConfigTree tree;
+
+    @Setup
+    public void setup() throws Exception {
+        xmlContent = createSettingsXml(taskCount).getBytes(StringUtils.UTF8);
+        document = readXml();
+        tree = parseDocument();
+    }
+
+    private static String createSettingsXml(int taskCount) {
+        StringBuilder result = new StringBuilder(1024 + 300 * taskCount);
+        result.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+        result.append("<gradle-project-properties>\n");
+        result.append("  <!--DO NOT EDIT THIS FILE! - Used by the Gradle plugin of NetBeans.-->\n");
+        result.append("  <source-encoding>UTF-8</source-encoding>\n");
+        result.append("  <target-platform-name>j2se</target-platform-name>\n");
+        result.append("  <target-platform>1.7</target-platform>\n");
+        result.append("  <source-level>1.7</source-level>\n");
+        result.append("  <common-tasks>\n");
+        for (int i = 0; i < taskCount; i++) {
+            result.append("    <task>\n");
+            result.append("      <display-name>Custom task ").append(i).append("</display-name>\n");
+            result.append("      <non-blocking>yes</non-blocking>\n");
+            result.append("      <task-names>\n");
+            result.append("        <name must-exist=\"no\">clean</name>\n");
+            result.append("        <name must-exist=\"yes\">task").append(i).append("</name>\n");
+            result.append("      </task-names>\n");
+            result.append("      <task-args>\n");
+            result.append("        <arg>-PcustomArg=").append(i).append("</arg>\n");
+            result.append("      </task-args>\n");
+            result.append("      <task-jvm-args/>\n");
+            result.append("    </task>\n");
+        }
+        result.append("  </common-tasks>\n");
+        result.append("  <script-platform>\n");
+        result.append("    <spec-name>j2se</spec-name>\n");
+        result.append("    <spec-version>1.7</spec-version>\n");
+        result.append("  </script-platform>\n");
+        result.append("  <gradle-home>?VER=2.4</gradle-home>\n");
+        result.append("  <license-header>\n");
+        result.append("    <name>my-license</name>\n");
+        result.append("    <template>license2.txt</template>\n");
+        result.append("    <property name=\"organization\">MyCompany</property>\n");
+        result.append("  </license-header>\n");
+        result.append("  <auxiliary>\n");
+        result.append("    <com-junichi11-netbeans-changelf.enable>true</com-junichi11-netbeans-changelf.enable>\n");
+        result.append("    <com-junichi11-netbeans-changelf.lf-kind>LF</com-junichi11-netbeans-changelf.lf-kind>\n");
+        result.append("  </auxiliary>\n");
+        result.append("</gradle-project-properties>\n");
+        return result.toString();
+    }
+
+    @Benchmark
+    public Document readXml() throws ParserConfigurationException, SAXException, IOException {
+        return DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xmlContent));
+    }
+
+    @Benchmark
+    public ConfigTree parseDocument() {
+        return ConfigXmlUtils.parseDocument(document, ConfigXmlUtils.AUXILIARY_NODE_NAME).create();
+    }
+
+    @Benchmark
+    public ConfigTree readAndParse() throws ParserConfigurationException, SAXException, IOException {
+        return ConfigXmlUtils.parseDocument(readXml(), ConfigXmlUtils.AUXILIARY_NODE_NAME).create();
+    }
+
+    @Benchmark
+    public Document createXml() throws ParserConfigurationException {
+        return ConfigXmlUtils.createXml(tree);
+    }
+}
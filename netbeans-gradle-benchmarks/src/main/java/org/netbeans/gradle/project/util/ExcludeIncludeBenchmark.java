@@ -0,0 +1,162 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.gradle.project.benchmark.SyntheticBuild;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures filtering the source files of a build with the exclude / include
+ * patterns of its source groups. The {@code legacy} benchmark measures the
+ * previous implementation creating a glob {@code PathMatcher} for every
+ * pattern for every tested file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExcludeIncludeBenchmark {
+    private static final int FILES_PER_PROJECT = 40;
+
+    @Param({"10", "100", "500", "2000"})
+    public int projectCount;
+
+    private Path[] files;
+    private Path[] roots;
+
+    private List<String> excludePatterns;
+    private List<String> includePatterns;
+
+    @Setup
+    public void setup() {
+        SyntheticBuild build = SyntheticBuild.create(projectCount);
+
+        excludePatterns = Arrays.asList("**/generated/**", "**/*Stub.java", "org/example/pkg3/");
+        includePatterns = Arrays.asList("org/example/**", "**/*.properties");
+
+        List<Path> fileList = new ArrayList<>();
+        List<Path> rootList = new ArrayList<>();
+        for (int projectIndex = 0; projectIndex < projectCount; projectIndex++) {
+            for (int fileIndex = 0; fileIndex < FILES_PER_PROJECT; fileIndex++) {
+                File file = build.getSourceFile(projectIndex, "main", fileIndex);
+                File root = file.getParentFile().getParentFile().getParentFile().getParentFile();
+
+                fileList.add(file.toPath());
+                rootList.add(root.toPath());
+            }
+        }
+
+        files = fileList.toArray(new Path[fileList.size()]);
+        roots = rootList.toArray(new Path[rootList.size()]);
+    }
+
+    @Benchmark
+    public void includeFile(Blackhole blackhole) {
+        for (int i = 0; i < files.length; i++) {
+            blackhole.consume(ExcludeInclude.includeFile(files[i], roots[i], excludePatterns, includePatterns));
+        }
+    }
+
+    @Benchmark
+    public void legacyIncludeFile(Blackhole blackhole) {
+        for (int i = 0; i < files.length; i++) {
+            blackhole.consume(LegacyExcludeInclude.includeFile(files[i], roots[i], excludePatterns, includePatterns));
+        }
+    }
+
+    /**
+     * The implementation of {@code ExcludeInclude} before the patterns were
+     * compiled and cached.
+     */
+    private static final class LegacyExcludeInclude {
+        public static boolean includeFile(
+                Path file,
+                Path rootPath,
+                Collection<String> excludePatterns,
+                Collection<String> includePatterns) {
+
+            Path absoluteRoot = rootPath.toAbsolutePath();
+            Path testedPath = file.toAbsolutePath();
+
+            if (!testedPath.startsWith(absoluteRoot)) {
+                return false;
+            }
+
+            Path relTestedPath = absoluteRoot.relativize(testedPath);
+
+            if (!includePatterns.isEmpty()) {
+                if (!matchesAnyAntPattern(relTestedPath, includePatterns)) {
+                    return false;
+                }
+            }
+
+            return !matchesAnyAntPattern(relTestedPath, excludePatterns);
+        }
+
+        private static boolean matchesAnyAntPattern(
+                Path path,
+                Collection<String> patterns) {
+
+            for (String pattern: patterns) {
+                if (matchesAntPattern(path, pattern)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean matchesAntPattern(Path path, String pattern) {
+            FileSystem fileSystem = path.getFileSystem();
+            PathMatcher matcher = fileSystem.getPathMatcher(toMatchStr(pattern));
+            return matcher.matches(path);
+        }
+
+        private static String toMatchStr(String pattern) {
+            String normPattern = pattern.replace("\\\\", "/");
+
+            // 7 = "glob:".length() + "**".length()
+            StringBuilder result = new StringBuilder(pattern.length() + 7);
+            result.append("glob:");
+
+            String normedDirMatches = normPattern;
+            if (normedDirMatches.startsWith("/")) {
+                normedDirMatches = normedDirMatches.substring(1);
+            }
+
+            normedDirMatches = normedDirMatches.replace("/**/", "{/**/,/}");
+            if (normedDirMatches.startsWith("**/")) {
+                normedDirMatches = "{**/,}" + normedDirMatches.substring(3);
+            }
+
+            result.append(normedDirMatches);
+            if (normPattern.endsWith("/")) {
+                result.append("**");
+            }
+            return result.toString();
+        }
+
+        private LegacyExcludeInclude() {
+            throw new AssertionError();
+        }
+    }
+}
@@ -8,14 +8,18 @@ import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.gradle.tooling.BuildAction;
 import org.gradle.tooling.BuildActionExecuter;
 import org.gradle.tooling.BuildController;
@@ -32,9 +36,8 @@ import org.netbeans.gradle.model.util.BasicFileUtils;
 import org.netbeans.gradle.model.util.BuilderUtils;
 import org.netbeans.gradle.model.util.ClassLoaderUtils;
 import org.netbeans.gradle.model.util.CollectionUtils;
+import org.netbeans.gradle.model.util.PersistentFileStore;
 import org.netbeans.gradle.model.util.SerializationUtils;
-import org.netbeans.gradle.model.util.TemporaryFileManager;
-import org.netbeans.gradle.model.util.TemporaryFileRef;
 
 public final class GenericModelFetcher {
     private static final Charset INIT_SCRIPT_ENCODING = Charset.forName("UTF-8");
@@ -42,6 +45,24 @@ public final class GenericModelFetcher {
 
     private static final AtomicReference<String> INIT_SCRIPT_REF = new AtomicReference<String>(null);
 
+    private static final String MODEL_INPUT_SUFFIX = ".bin";
+    private static final String INIT_SCRIPT_SUFFIX = ".gradle";
+
+    // The number of recently used init scripts whose file is remembered,
+    // so that we do not have to generate their content again.
+    private static final int INIT_SCRIPT_CACHE_SIZE = 16;
+    private static final Lock INIT_SCRIPT_FILES_LOCK = new ReentrantLock();
+    // (init script prefix, model input file) -> init script file
+    private static final Map<List<Object>, File> INIT_SCRIPT_FILES = new LinkedHashMap<List<Object>, File>(
+            INIT_SCRIPT_CACHE_SIZE, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, File> eldest) {
+            return size() > INIT_SCRIPT_CACHE_SIZE;
+        }
+    };
+
     private static final String DEFAULT_MODEL_INPUT_PREFIX = "model-input";
     private static final String DEFAULT_INIT_SCRIPT_PREFIX = "dyn-model-gradle-init";
 
@@ -57,6 +78,8 @@ public final class GenericModelFetcher {
     // TODO: These classes must be key based as well.
     private final Set<Class<?>> modelClasses;
 
+    private volatile PreparedInitScript preparedInitScript;
+
     public GenericModelFetcher(
             Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests,
             Map<Object, List<GradleProjectInfoQuery<?>>> projectInfoRequests,
@@ -67,6 +90,8 @@ public final class GenericModelFetcher {
         this.modelClasses = Collections.unmodifiableSet(new HashSet<Class<?>>(modelClasses));
 
         CollectionUtils.checkNoNullElements(this.modelClasses, "modelClasses");
+
+        this.preparedInitScript = null;
     }
 
     public static void setDefaultPrefixes() {
@@ -127,8 +152,35 @@ public final class GenericModelFetcher {
     }
 
     public FetchedModelsOrError getModels(ProjectConnection connection, OperationInitializer init) throws IOException {
+        return getModels(connection, init, null);
+    }
+
+    /**
+     * Fetches the models of the default project and the projects having the
+     * given paths. The project tree is always fetched for all the projects
+     * but the project infos and tooling models are only fetched for the
+     * default project and for the specified projects.
+     *
+     * @param connection the connection to the Gradle project to fetch the
+     *   models from. This argument cannot be {@code null}.
+     * @param init the initializer of the build operation. This argument
+     *   cannot be {@code null}.
+     * @param projectPaths the paths (e.g.: ":subproject") of the projects
+     *   whose models are to be fetched. This argument can be {@code null},
+     *   in which case the models of all the projects are fetched.
+     * @return the fetched models. This method never returns {@code null}.
+     */
+    public FetchedModelsOrError getModels(
+            ProjectConnection connection,
+            OperationInitializer init,
+            Collection<String> projectPaths) throws IOException {
+
+        Set<String> requestedPaths = projectPaths != null
+                ? new HashSet<String>(projectPaths)
+                : null;
+
         BuildActionExecuter<ActionFetchedModelsOrError> executer = connection.action(
-                new ModelFetcherBuildAction(buildInfoBuilders, modelClasses));
+                new ModelFetcherBuildAction(buildInfoBuilders, modelClasses, requestedPaths));
 
         BuildOperationArgs buildOPArgs = new BuildOperationArgs();
         init.initOperation(buildOPArgs);
@@ -139,37 +191,86 @@ public final class GenericModelFetcher {
             userArgs = new String[0];
         }
 
-        String initScript = getInitScript();
+        File initScript = getInitScriptFile();
+
+        int extraArgCount = requestedPaths != null ? 3 : 2;
+        String[] executerArgs = new String[userArgs.length + extraArgCount];
+        System.arraycopy(userArgs, 0, executerArgs, 0, userArgs.length);
+
+        int argIndex = userArgs.length;
+        executerArgs[argIndex++] = "--init-script";
+        executerArgs[argIndex++] = initScript.getPath();
+        if (requestedPaths != null) {
+            // The requested paths are not part of the model input file,
+            // so that the same file can be used regardless of the projects
+            // we need.
+            executerArgs[argIndex++] = "-P" + ModelQueryInput.REQUESTED_PROJECT_PATHS_PROPERTY
+                    + "=" + ModelQueryInput.encodeProjectPaths(requestedPaths);
+        }
+
+        executer.withArguments(executerArgs);
 
-        initScript = initScript.replace(
-                "$NB_BOOT_CLASSPATH",
-                toPastableString(ClassLoaderUtils.getLocationOfClassPath().getPath()));
+        return transformActionModels(executer.run());
+    }
+
+    /**
+     * Returns the init script file which makes the project info builders of
+     * this fetcher available to Gradle. The init script and the model input
+     * file it references are content addressed and are not removed after
+     * the models were fetched, so subsequent model loads requesting the same
+     * project infos can reuse them.
+     */
+    private File getInitScriptFile() throws IOException {
+        String currentInputPrefix = modelInputPrefix;
+        String currentScriptPrefix = initScriptPrefix;
+
+        PreparedInitScript prepared = preparedInitScript;
+        if (prepared != null
+                && prepared.isPreparedFor(currentInputPrefix, currentScriptPrefix)
+                && prepared.initScriptFile.isFile()) {
+            return prepared.initScriptFile;
+        }
 
-        TemporaryFileManager fileManager = TemporaryFileManager.getDefault();
+        PersistentFileStore fileStore = PersistentFileStore.getDefault();
 
         ModelQueryInput modelInput = new ModelQueryInput(projectInfoBuilders.getSerializableBuilderMap());
-        TemporaryFileRef modelInputFile = fileManager.createFileFromSerialized(modelInputPrefix, modelInput);
-        try {
-            initScript = initScript.replace("$INPUT_FILE", toPastableString(modelInputFile.getFile()));
+        File modelInputFile = fileStore.getFileFromSerialized(currentInputPrefix, MODEL_INPUT_SUFFIX, modelInput);
+        File initScriptFile = getInitScriptFile(fileStore, currentScriptPrefix, modelInputFile);
 
-            TemporaryFileRef initScriptRef = fileManager
-                    .createFile(initScriptPrefix, initScript, INIT_SCRIPT_ENCODING);
-            try {
-                String[] executerArgs = new String[userArgs.length + 2];
-                System.arraycopy(userArgs, 0, executerArgs, 0, userArgs.length);
+        preparedInitScript = new PreparedInitScript(currentInputPrefix, currentScriptPrefix, initScriptFile);
+        return initScriptFile;
+    }
 
-                executerArgs[executerArgs.length - 2] = "--init-script";
-                executerArgs[executerArgs.length - 1] = initScriptRef.getFile().getPath();
+    private static File getInitScriptFile(
+            PersistentFileStore fileStore,
+            String scriptPrefix,
+            File modelInputFile) throws IOException {
 
-                executer.withArguments(executerArgs);
+        List<Object> key = Arrays.<Object>asList(scriptPrefix, modelInputFile);
 
-                return transformActionModels(executer.run());
-            } finally {
-                initScriptRef.close();
-            }
+        File result;
+        INIT_SCRIPT_FILES_LOCK.lock();
+        try {
+            result = INIT_SCRIPT_FILES.get(key);
+        } finally {
+            INIT_SCRIPT_FILES_LOCK.unlock();
+        }
+
+        if (result != null && result.isFile()) {
+            return result;
+        }
+
+        String initScript = getInitScript()
+                .replace("$INPUT_FILE", toPastableString(modelInputFile));
+        result = fileStore.getFile(scriptPrefix, INIT_SCRIPT_SUFFIX, initScript, INIT_SCRIPT_ENCODING);
+
+        INIT_SCRIPT_FILES_LOCK.lock();
+        try {
+            INIT_SCRIPT_FILES.put(key, result);
         } finally {
-            modelInputFile.close();
+            INIT_SCRIPT_FILES_LOCK.unlock();
         }
+        return result;
     }
 
     private static String toPastableString(File file) {
@@ -221,6 +322,10 @@ public final class GenericModelFetcher {
         }
     }
 
+    /**
+     * Returns the init script with the boot classpath already substituted but
+     * without the path of the model input file.
+     */
     private static String getInitScript() {
         String result = INIT_SCRIPT_REF.get();
         if (result == null) {
@@ -229,6 +334,9 @@ public final class GenericModelFetcher {
             } catch (IOException ex) {
                 throw new IllegalStateException("Missing init-script file from resource.", ex);
             }
+            result = result.replace(
+                    "$NB_BOOT_CLASSPATH",
+                    toPastableString(ClassLoaderUtils.getLocationOfClassPath().getPath()));
             INIT_SCRIPT_REF.set(result);
             result = INIT_SCRIPT_REF.get();
         }
@@ -279,12 +387,16 @@ public final class GenericModelFetcher {
         // key -> list of BuildInfoBuilder
         private final CustomSerializedMap.Deserializer serializedBuildInfoRequests;
         private final Set<Class<?>> modelClasses;
+        // null means all projects
+        private final Set<String> requestedProjectPaths;
 
         public ModelFetcherBuildAction(
                 GradleInfoQueryMap buildInfoRequests,
-                Set<Class<?>> modelClasses) {
+                Set<Class<?>> modelClasses,
+                Set<String> requestedProjectPaths) {
             this.serializedBuildInfoRequests = buildInfoRequests.getSerializableBuilderMap();
             this.modelClasses = modelClasses;
+            this.requestedProjectPaths = requestedProjectPaths;
         }
 
         private CustomSerializedMap getBuildInfoResults(BuildController controller) {
@@ -325,7 +437,7 @@ public final class GenericModelFetcher {
         }
 
         public ActionFetchedModels executeUnsafe(EvaluatedBuild evaluatedBuild, BuildController controller) {
-            AllProjectInfoBuilder builder = new AllProjectInfoBuilder(modelClasses, evaluatedBuild);
+            AllProjectInfoBuilder builder = new AllProjectInfoBuilder(modelClasses, requestedProjectPaths, evaluatedBuild);
 
             Map<String, ActionFetchedProjectModels> fetchedModels = builder.buildProjectModels(controller);
             ActionFetchedProjectModels defaultModels = fetchedModels.remove(builder.getDefaultProjectPath());
@@ -371,14 +483,19 @@ public final class GenericModelFetcher {
 
     private static final class AllProjectInfoBuilder {
         private final Set<Class<?>> modelClasses;
+        private final Set<String> requestedProjectPaths;
         private final Map<String, BasicGradleProject> basicInfos;
         private final Map<String, ModelQueryOutput> customInfos;
         private final BasicGradleProject basicRootProject;
         private final String defaultProjectPath;
 
-        public AllProjectInfoBuilder(Set<Class<?>> modelClasses, EvaluatedBuild evaluatedBuild) {
+        public AllProjectInfoBuilder(
+                Set<Class<?>> modelClasses,
+                Set<String> requestedProjectPaths,
+                EvaluatedBuild evaluatedBuild) {
             int projectCount = evaluatedBuild.allProjects.size();
             this.modelClasses = modelClasses;
+            this.requestedProjectPaths = requestedProjectPaths;
             this.basicInfos = CollectionUtils.newHashMap(projectCount);
             this.customInfos = CollectionUtils.newHashMap(projectCount);
             this.basicRootProject = evaluatedBuild.buildModel.getRootProject();
@@ -407,6 +524,12 @@ public final class GenericModelFetcher {
             return defaultProjectPath;
         }
 
+        private boolean isRequested(String projectPath) {
+            return requestedProjectPaths == null
+                    || requestedProjectPaths.contains(projectPath)
+                    || defaultProjectPath.equals(projectPath);
+        }
+
         // Note: We expect the result of this method to be mutable.
         public Map<String, ActionFetchedProjectModels> buildProjectModels(BuildController controller) {
             for (Map.Entry<String, BasicGradleProject> entry: basicInfos.entrySet()) {
@@ -436,6 +559,10 @@ public final class GenericModelFetcher {
 
             Map<String, ActionFetchedProjectModels> result = CollectionUtils.newHashMap(basicInfos.size());
             for (Map.Entry<String, BasicGradleProject> entry: basicInfos.entrySet()) {
+                if (!isRequested(entry.getKey())) {
+                    continue;
+                }
+
                 ActionFetchedProjectModels fetchedModels
                         = getFetchedProjectModels(controller, entry, rootTree, projectTrees);
                 result.put(entry.getKey(), fetchedModels);
@@ -526,6 +653,23 @@ public final class GenericModelFetcher {
         }
     }
 
+    private static final class PreparedInitScript {
+        private final String modelInputPrefix;
+        private final String initScriptPrefix;
+        public final File initScriptFile;
+
+        public PreparedInitScript(String modelInputPrefix, String initScriptPrefix, File initScriptFile) {
+            this.modelInputPrefix = modelInputPrefix;
+            this.initScriptPrefix = initScriptPrefix;
+            this.initScriptFile = initScriptFile;
+        }
+
+        public boolean isPreparedFor(String modelInputPrefix, String initScriptPrefix) {
+            return this.modelInputPrefix.equals(modelInputPrefix)
+                    && this.initScriptPrefix.equals(initScriptPrefix);
+        }
+    }
+
     private interface ModelGetter {
         public <T> T findModel(Class<T> modelClass);
     }
@@ -126,7 +126,9 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
 
         ModelQueryOutput output;
         try {
-            CustomSerializedMap projectInfos = fetchProjectInfos(project);
+            CustomSerializedMap projectInfos = input.isProjectInfoRequested(project.getPath())
+                    ? fetchProjectInfos(project)
+                    : CustomSerializedMap.EMPTY;
             output = new ModelQueryOutput(basicInfo.info, projectInfos, basicInfo.error);
         } catch (Throwable ex) {
             if (basicInfo.error != null) {
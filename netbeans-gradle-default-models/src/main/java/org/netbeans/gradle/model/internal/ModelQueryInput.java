@@ -1,8 +1,13 @@
 package org.netbeans.gradle.model.internal;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.gradle.api.Project;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder;
 import org.netbeans.gradle.model.util.TransferableExceptionWrapper;
@@ -10,12 +15,109 @@ import org.netbeans.gradle.model.util.TransferableExceptionWrapper;
 public final class ModelQueryInput implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The name of the project property through which the requested project
+     * paths are passed to the init script. The value of the property is
+     * expected to be created by {@link #encodeProjectPaths(Collection)}.
+     */
+    public static final String REQUESTED_PROJECT_PATHS_PROPERTY = "nbRequestedProjectPathsForDynamicGradleModel";
+
+    private static final char PATH_SEPARATOR = ',';
+    private static final char ESCAPE_CHAR = '\\';
+
     // Object -> List of ProjectInfoBuilder<?>
     private final CustomSerializedMap.Deserializer projectInfoRequests;
+    // null means all projects
+    private final Set<String> requestedProjectPaths;
 
     public ModelQueryInput(CustomSerializedMap.Deserializer projectInfoRequests) {
+        this(projectInfoRequests, null);
+    }
+
+    /**
+     * Creates a new input requesting the project infos only for the
+     * projects having the given paths.
+     *
+     * @param projectInfoRequests the project info builders to be run for
+     *   the requested projects. This argument cannot be {@code null}.
+     * @param requestedProjectPaths the paths (e.g.: ":subproject") of the
+     *   projects for which the project infos are requested. This argument can
+     *   be {@code null}, in which case project infos are requested for every
+     *   project.
+     */
+    public ModelQueryInput(
+            CustomSerializedMap.Deserializer projectInfoRequests,
+            Collection<String> requestedProjectPaths) {
         if (projectInfoRequests == null) throw new NullPointerException("projectInfoRequests");
+
         this.projectInfoRequests = projectInfoRequests;
+        this.requestedProjectPaths = requestedProjectPaths != null
+                ? Collections.unmodifiableSet(new HashSet<String>(requestedProjectPaths))
+                : null;
+    }
+
+    /**
+     * Returns a new input with the same project info requests as this input
+     * but requesting them only for the given projects. This method is
+     * called by the init script, so that the serialized input only depends
+     * on the requested project infos and can be reused across model loads.
+     *
+     * @param encodedProjectPaths the requested project paths as returned by
+     *   {@link #encodeProjectPaths(Collection)}. This argument cannot be
+     *   {@code null}.
+     * @return the new input. This method never returns {@code null}.
+     */
+    public ModelQueryInput withEncodedRequestedProjectPaths(String encodedProjectPaths) {
+        return new ModelQueryInput(projectInfoRequests, decodeProjectPaths(encodedProjectPaths));
+    }
+
+    public static String encodeProjectPaths(Collection<String> projectPaths) {
+        StringBuilder result = new StringBuilder(projectPaths.size() * 16);
+        for (String path: projectPaths) {
+            if (result.length() > 0) {
+                result.append(PATH_SEPARATOR);
+            }
+
+            for (int i = 0; i < path.length(); i++) {
+                char ch = path.charAt(i);
+                if (ch == PATH_SEPARATOR || ch == ESCAPE_CHAR) {
+                    result.append(ESCAPE_CHAR);
+                }
+                result.append(ch);
+            }
+        }
+        return result.toString();
+    }
+
+    public static List<String> decodeProjectPaths(String encodedProjectPaths) {
+        if (encodedProjectPaths == null) throw new NullPointerException("encodedProjectPaths");
+
+        List<String> result = new ArrayList<String>();
+        if (encodedProjectPaths.length() == 0) {
+            return result;
+        }
+
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < encodedProjectPaths.length(); i++) {
+            char ch = encodedProjectPaths.charAt(i);
+            if (ch == ESCAPE_CHAR && i + 1 < encodedProjectPaths.length()) {
+                i++;
+                path.append(encodedProjectPaths.charAt(i));
+            }
+            else if (ch == PATH_SEPARATOR) {
+                result.add(path.toString());
+                path.setLength(0);
+            }
+            else {
+                path.append(ch);
+            }
+        }
+        result.add(path.toString());
+        return result;
+    }
+
+    public boolean isProjectInfoRequested(String projectPath) {
+        return requestedProjectPaths == null || requestedProjectPaths.contains(projectPath);
     }
 
     public Map<Object, List<?>> getProjectInfoRequests(ClassLoader parent) {
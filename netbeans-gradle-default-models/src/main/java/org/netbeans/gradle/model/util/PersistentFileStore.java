@@ -0,0 +1,227 @@
+package org.netbeans.gradle.model.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defines a directory of content addressed files. Unlike the files of the
+ * {@link TemporaryFileManager}, files of this store are not removed after
+ * use, so the same file can be reused by subsequent requests (even after
+ * restarting the JVM) without writing it again.
+ * <P>
+ * Since the name of the files depends on their content, the content of the
+ * files never changes once written. Files not used for a long time are removed
+ * when the store is first accessed.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class PersistentFileStore {
+    private static final Logger LOGGER = Logger.getLogger(PersistentFileStore.class.getName());
+
+    private static final String DEFAULT_DIR_NAME = "persistent";
+    private static final long DEFAULT_EXPIRE_TIME_MS = TimeUnit.DAYS.toMillis(7);
+    private static final long TOUCH_INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final Lock DEFAULT_LOCK = new ReentrantLock();
+    private static PersistentFileStore defaultStore = null;
+
+    private final File directory;
+    private final long expireTimeMs;
+
+    private final Lock mainLock;
+    // file name -> last time the file was found to be valid
+    private final Map<String, Long> verifiedFiles;
+
+    public PersistentFileStore(File directory, long expireTimeMs) {
+        if (directory == null) throw new NullPointerException("directory");
+        if (expireTimeMs <= 0) throw new IllegalArgumentException("expireTimeMs must be positive");
+
+        this.directory = directory;
+        this.expireTimeMs = expireTimeMs;
+        this.mainLock = new ReentrantLock();
+        this.verifiedFiles = new HashMap<String, Long>();
+    }
+
+    public static PersistentFileStore getDefault() {
+        DEFAULT_LOCK.lock();
+        try {
+            if (defaultStore == null) {
+                File dir = BasicFileUtils.getSubPath(BasicFileUtils.getPluginTmpDir(), DEFAULT_DIR_NAME);
+                defaultStore = new PersistentFileStore(dir, DEFAULT_EXPIRE_TIME_MS);
+                defaultStore.removeExpiredFiles();
+            }
+            return defaultStore;
+        } finally {
+            DEFAULT_LOCK.unlock();
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Removes the files of this store which were not used for the expire
+     * time of this store.
+     */
+    public void removeExpiredFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (File file: files) {
+            if (file.isFile() && now - file.lastModified() > expireTimeMs) {
+                if (!file.delete()) {
+                    LOGGER.log(Level.FINE, "Failed to remove expired file: {0}", file);
+                }
+            }
+        }
+    }
+
+    public File getFile(String namePrefix, String nameSuffix, String strContent, Charset charset) throws IOException {
+        return getFile(namePrefix, nameSuffix, strContent.getBytes(charset.name()));
+    }
+
+    public File getFileFromSerialized(String namePrefix, String nameSuffix, Object contentObj) throws IOException {
+        return getFile(namePrefix, nameSuffix, SerializationUtils.serializeObject(contentObj));
+    }
+
+    /**
+     * Returns a file with the given content, creating it if there is no such
+     * file in this store yet. The name of the returned file is the given
+     * prefix followed by the digest of the content and the given suffix.
+     * <P>
+     * The returned file must not be modified or removed by the caller.
+     *
+     * @param namePrefix the string the name of the file starts with. This
+     *   argument cannot be {@code null}.
+     * @param nameSuffix the string the name of the file ends with (e.g.:
+     *   ".gradle"). This argument cannot be {@code null}.
+     * @param content the content of the file. This argument cannot be
+     *   {@code null}.
+     * @return the file with the given content. This method never returns
+     *   {@code null}.
+     */
+    public File getFile(String namePrefix, String nameSuffix, byte[] content) throws IOException {
+        if (namePrefix == null) throw new NullPointerException("namePrefix");
+        if (nameSuffix == null) throw new NullPointerException("nameSuffix");
+        if (content == null) throw new NullPointerException("content");
+
+        String fileName = namePrefix + "-" + BasicFileUtils.getMD5(content) + nameSuffix;
+        File file = BasicFileUtils.getSubPath(directory, fileName);
+
+        long now = System.currentTimeMillis();
+        if (isVerifiedRecently(fileName, now) && file.isFile()) {
+            return file;
+        }
+
+        if (!hasContent(file, content)) {
+            writeFile(file, content);
+        }
+        else if (!file.setLastModified(now)) {
+            LOGGER.log(Level.FINE, "Failed to update the last modified time of {0}", file);
+        }
+
+        mainLock.lock();
+        try {
+            verifiedFiles.put(fileName, now);
+        } finally {
+            mainLock.unlock();
+        }
+
+        return file;
+    }
+
+    private boolean isVerifiedRecently(String fileName, long now) {
+        Long verifyTime;
+        mainLock.lock();
+        try {
+            verifyTime = verifiedFiles.get(fileName);
+        } finally {
+            mainLock.unlock();
+        }
+
+        // We have to touch the file periodically, so that other processes
+        // won't consider it expired.
+        return verifyTime != null && now - verifyTime < TOUCH_INTERVAL_MS;
+    }
+
+    private static boolean hasContent(File file, byte[] content) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+
+        InputStream input;
+        try {
+            input = new FileInputStream(file);
+        } catch (IOException ex) {
+            // The file was removed after we have checked for its existence.
+            return false;
+        }
+
+        try {
+            byte[] fileContent = new byte[content.length];
+            int offset = 0;
+            while (offset < fileContent.length) {
+                int readCount = input.read(fileContent, offset, fileContent.length - offset);
+                if (readCount < 0) {
+                    return false;
+                }
+                offset += readCount;
+            }
+            return input.read() < 0 && Arrays.equals(content, fileContent);
+        } finally {
+            input.close();
+        }
+    }
+
+    private void writeFile(File file, byte[] content) throws IOException {
+        if (!directory.isDirectory()) {
+            if (!directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Could not create directory: " + directory);
+            }
+        }
+
+        // Write to a temporary file first and rename it, so that concurrent
+        // readers (possibly in other processes) never see a partial file.
+        File tmpFile = File.createTempFile(file.getName(), ".part", directory);
+        try {
+            FileOutputStream output = new FileOutputStream(tmpFile);
+            try {
+                output.write(content);
+                output.getFD().sync();
+            } finally {
+                output.close();
+            }
+
+            if (!tmpFile.renameTo(file)) {
+                // The rename might fail on some platforms if the target
+                // exists, which is fine if someone else created it meanwhile.
+                if (!hasContent(file, content)) {
+                    if (!file.delete() || !tmpFile.renameTo(file)) {
+                        throw new IOException("Failed to create file: " + file);
+                    }
+                }
+            }
+        } finally {
+            if (tmpFile.exists() && !tmpFile.delete()) {
+                LOGGER.log(Level.WARNING, "Failed to remove temporary file: {0}", tmpFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.netbeans.gradle.model.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PersistentFileStoreTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File storeDir;
+    private PersistentFileStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        storeDir = BasicFileUtils.getSubPath(BasicFileUtils.getPluginTmpDir(),
+                "test-store-" + Long.toHexString(System.nanoTime()));
+        store = new PersistentFileStore(storeDir, TimeUnit.DAYS.toMillis(1));
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = storeDir.listFiles();
+        if (files != null) {
+            for (File file: files) {
+                file.delete();
+            }
+        }
+        storeDir.delete();
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8 * 1024];
+            ByteArrayOutputStream result = new ByteArrayOutputStream(256);
+
+            int readCount = input.read(buffer);
+            while (readCount > 0) {
+                result.write(buffer, 0, readCount);
+                readCount = input.read(buffer);
+            }
+            return result.toByteArray();
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void assertContent(File file, String expectedContent) throws IOException {
+        assertEquals(expectedContent, new String(readAll(file), UTF8.name()));
+    }
+
+    @Test
+    public void testFileContainsText() throws Exception {
+        String content = "EXPECTED FILE content: testFileContainsText";
+        File file = store.getFile("test", ".txt", content, UTF8);
+
+        assertContent(file, content);
+        assertTrue(file.getName().startsWith("test-"));
+        assertTrue(file.getName().endsWith(".txt"));
+    }
+
+    @Test
+    public void testSameContentReusesFile() throws Exception {
+        String content = "EXPECTED FILE content: testSameContentReusesFile";
+        File file1 = store.getFile("test", ".txt", content, UTF8);
+        File file2 = store.getFile("test", ".txt", content, UTF8);
+
+        assertEquals(file1, file2);
+        assertContent(file2, content);
+    }
+
+    @Test
+    public void testDifferentContentUsesDifferentFile() throws Exception {
+        File file1 = store.getFile("test", ".txt", "content1", UTF8);
+        File file2 = store.getFile("test", ".txt", "content2", UTF8);
+
+        assertFalse(file1.equals(file2));
+        assertContent(file1, "content1");
+        assertContent(file2, "content2");
+    }
+
+    @Test
+    public void testRecreatesRemovedFile() throws Exception {
+        String content = "EXPECTED FILE content: testRecreatesRemovedFile";
+        File file1 = store.getFile("test", ".txt", content, UTF8);
+        assertTrue(file1.delete());
+
+        File file2 = store.getFile("test", ".txt", content, UTF8);
+        assertEquals(file1, file2);
+        assertContent(file2, content);
+    }
+
+    @Test
+    public void testFixesCorruptedFile() throws Exception {
+        String content = "EXPECTED FILE content: testFixesCorruptedFile";
+        File file = store.getFile("test", ".txt", content, UTF8);
+
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write("corrupted".getBytes(UTF8.name()));
+        } finally {
+            output.close();
+        }
+
+        // A new store does not know that the file was already verified.
+        PersistentFileStore otherStore = new PersistentFileStore(storeDir, TimeUnit.DAYS.toMillis(1));
+        assertEquals(file, otherStore.getFile("test", ".txt", content, UTF8));
+        assertContent(file, content);
+    }
+
+    @Test
+    public void testRemoveExpiredFiles() throws Exception {
+        File oldFile = store.getFile("test", ".txt", "old", UTF8);
+        File newFile = store.getFile("test", ".txt", "new", UTF8);
+        assertTrue(oldFile.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)));
+
+        store.removeExpiredFiles();
+
+        assertFalse(oldFile.exists());
+        assertTrue(newFile.exists());
+    }
+}
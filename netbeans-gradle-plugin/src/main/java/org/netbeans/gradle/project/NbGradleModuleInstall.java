@@ -2,6 +2,7 @@ package org.netbeans.gradle.project;
 
 import java.util.Collections;
 import java.util.Set;
+import org.netbeans.gradle.project.model.GradleConnectionPool;
 
 public final class NbGradleModuleInstall extends Yenta {
     private static final long serialVersionUID = 1L;
@@ -10,4 +11,10 @@ public final class NbGradleModuleInstall extends Yenta {
     protected Set<String> friends() {
         return Collections.singleton("org.netbeans.modules.gsf.testrunner");
     }
+
+    @Override
+    public void close() {
+        GradleConnectionPool.getDefault().closeIdleConnections();
+        super.close();
+    }
 }
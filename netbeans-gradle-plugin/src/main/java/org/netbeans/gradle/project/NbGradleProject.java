@@ -38,6 +38,8 @@ import org.netbeans.gradle.project.model.GradleModelLoader;
 import org.netbeans.gradle.project.model.ModelRefreshListener;
 import org.netbeans.gradle.project.model.ModelRetrievedListener;
 import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.ProjectLoadPriority;
+import org.netbeans.gradle.project.model.ProjectLoadRef;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssue;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssueReporter;
 import org.netbeans.gradle.project.properties.ActiveSettingsQueryEx;
@@ -97,6 +99,7 @@ public final class NbGradleProject implements Project {
     private final String name;
     private final ChangeListenerManager modelChangeListeners;
     private final AtomicBoolean hasModelBeenLoaded;
+    private final AtomicReference<ProjectLoadRef> lastLoadRequestRef;
     private final AtomicReference<NbGradleModel> currentModelRef;
     private final PropertySource<NbGradleModel> currentModel;
     private final PropertySource<String> displayName;
@@ -129,6 +132,7 @@ public final class NbGradleProject implements Project {
         this.combinedExtensionLookup = new DynamicLookup();
 
         this.hasModelBeenLoaded = new AtomicBoolean(false);
+        this.lastLoadRequestRef = new AtomicReference<>(null);
         this.loadErrorRef = new AtomicReference<>(null);
         this.modelChangeListeners = GenericChangeListenerManager.getSwingNotifier();
         this.currentModelRef = new AtomicReference<>(
@@ -398,11 +402,11 @@ public final class NbGradleProject implements Project {
     }
 
     public void reloadProject() {
-        reloadProject(false);
+        loadProject(false, false, ProjectLoadPriority.FOCUSED);
     }
 
     private void reloadProject(boolean mayUseCache) {
-        loadProject(false, mayUseCache);
+        loadProject(false, mayUseCache, ProjectLoadPriority.VISIBLE);
     }
 
     public Path getPreferredSettingsFile() {
@@ -441,14 +445,14 @@ public final class NbGradleProject implements Project {
     public boolean tryWaitForLoadedProject(CancellationToken cancelToken, long timeout, TimeUnit unit) {
         checkCanWaitForProjectLoad();
 
-        ensureLoadRequested();
+        ensureLoadRequested(ProjectLoadPriority.FOCUSED);
         return loadedAtLeastOnceSignal.tryWaitSignal(cancelToken, timeout, unit);
     }
 
     public void waitForLoadedProject(CancellationToken cancelToken) {
         checkCanWaitForProjectLoad();
 
-        ensureLoadRequested();
+        ensureLoadRequested(ProjectLoadPriority.FOCUSED);
         loadedAtLeastOnceSignal.waitSignal(cancelToken);
     }
 
@@ -467,17 +471,35 @@ public final class NbGradleProject implements Project {
     }
 
     public void ensureLoadRequested() {
-        loadProject(true, true);
+        ensureLoadRequested(ProjectLoadPriority.VISIBLE);
     }
 
-    private void loadProject(final boolean onlyIfNotLoaded, final boolean mayUseCache) {
+    /**
+     * Requests the project to be loaded if it has not been requested yet.
+     * If the load has already been requested but not yet started, its
+     * priority is raised to the given priority (if it is higher).
+     */
+    public void ensureLoadRequested(ProjectLoadPriority priority) {
+        loadProject(true, true, priority);
+    }
+
+    private void loadProject(
+            final boolean onlyIfNotLoaded,
+            final boolean mayUseCache,
+            final ProjectLoadPriority priority) {
         if (!hasModelBeenLoaded.compareAndSet(false, true)) {
             if (onlyIfNotLoaded) {
+                ProjectLoadRef lastLoadRequest = lastLoadRequestRef.get();
+                if (lastLoadRequest != null) {
+                    lastLoadRequest.raisePriority(priority);
+                }
                 return;
             }
         }
 
-        GradleModelLoader.fetchModel(NbGradleProject.this, mayUseCache, modelLoadListener);
+        ProjectLoadRef loadRequest = GradleModelLoader.fetchModel(
+                NbGradleProject.this, mayUseCache, priority, modelLoadListener);
+        lastLoadRequestRef.set(loadRequest);
     }
 
     public NbGradleCommonProperties getCommonProperties() {
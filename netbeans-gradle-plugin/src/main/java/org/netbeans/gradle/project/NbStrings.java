@@ -424,6 +424,14 @@ public final class NbStrings {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.ConfirmStopTask", taskName);
     }
 
+    public static String getOutputMovedToDisk(long movedChars) {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.OutputMovedToDisk", movedChars);
+    }
+
+    public static String getExportedOutputTruncated(long omittedChars) {
+        return NbBundle.getMessage(NbStrings.class, "NbStrings.ExportedOutputTruncated", omittedChars);
+    }
+
     public static String getReRunDiffName() {
         return NbBundle.getMessage(NbStrings.class, "NbStrings.ReRunDiffName");
     }
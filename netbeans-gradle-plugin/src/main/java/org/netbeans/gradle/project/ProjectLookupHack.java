@@ -14,6 +14,7 @@ import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.project.ProjectInformation;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.query.GradleClassPathProvider;
+import org.netbeans.gradle.project.output.StackTraceSourceCache;
 import org.netbeans.gradle.project.properties.NbGradleCommonProperties;
 import org.netbeans.gradle.project.properties.NbGradleSingleProjectConfigProvider;
 import org.netbeans.spi.java.classpath.ClassPathProvider;
@@ -104,6 +105,7 @@ public final class ProjectLookupHack extends ProxyLookup {
             typeActions.put(AuxiliaryProperties.class.getName(), wrappedLookup);
             typeActions.put(AuxiliaryConfiguration.class.getName(), wrappedLookup);
             typeActions.put(GradleClassPathProvider.class.getName(), wrappedLookup);
+            typeActions.put(StackTraceSourceCache.class.getName(), wrappedLookup);
             typeActions.put(NbGradleProject.class.getName(), wrappedLookup);
             typeActions.put(FileEncodingQueryImplementation.class.getName(), wrappedLookup);
             typeActions.put(ProjectInformation.class.getName(), wrappedLookup);
@@ -1,5 +1,6 @@
 package org.netbeans.gradle.project.api.task;
 
+import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.CheckForNull;
@@ -81,6 +82,7 @@ public final class CustomCommandActions {
         private ContextAwareGradleTargetVerifier contextAwareGradleTargetVerifier;
         private CommandExceptionHider commandExceptionHider;
         private CancellationToken cancelToken;
+        private File standardInputFile;
 
         /**
          * Creates a new {@code Builder} with the specified task kind and with
@@ -110,6 +112,7 @@ public final class CustomCommandActions {
             this.singleExecutionStdOutProcessor = null;
             this.singleExecutionStdErrProcessor = null;
             this.cancelToken = Cancellation.UNCANCELABLE_TOKEN;
+            this.standardInputFile = null;
         }
 
         /**
@@ -127,6 +130,23 @@ public final class CustomCommandActions {
             this.cancelToken = cancelToken;
         }
 
+        /**
+         * Sets the file whose content is to be streamed to the standard input
+         * of the build. If a file is specified, the content of the file is
+         * read directly by Gradle and the input of the output window of the
+         * task is ignored. This is more efficient than pasting large inputs
+         * into the output window.
+         * <P>
+         * The default value for this property is {@code null}.
+         *
+         * @param standardInputFile the file whose content is to be streamed to
+         *   the standard input of the build. This argument can be {@code null}
+         *   if the standard input is to be read from the output window.
+         */
+        public void setStandardInputFile(@Nullable File standardInputFile) {
+            this.standardInputFile = standardInputFile;
+        }
+
         /**
          * Specified the {@code ContextAwareCommandArguments} which is used
          * to provide additional {@link GradleCommandTemplate#getArguments() arguments}
@@ -391,6 +411,7 @@ public final class CustomCommandActions {
     private final CommandExceptionHider commandExceptionHider;
     private final ContextAwareCommandArguments contextAwareCommandArguments;
     private final CancellationToken cancelToken;
+    private final File standardInputFile;
 
     private CustomCommandActions(Builder builder) {
         this.taskKind = builder.taskKind;
@@ -406,6 +427,7 @@ public final class CustomCommandActions {
         this.commandExceptionHider = builder.commandExceptionHider;
         this.contextAwareCommandArguments = builder.contextAwareCommandArguments;
         this.cancelToken = builder.cancelToken;
+        this.standardInputFile = builder.standardInputFile;
     }
 
     /**
@@ -420,6 +442,21 @@ public final class CustomCommandActions {
         return cancelToken;
     }
 
+    /**
+     * Returns the file whose content is to be streamed to the standard input
+     * of the build or {@code null} if the standard input is to be read from
+     * the output window.
+     *
+     * @return the file whose content is to be streamed to the standard input
+     *   of the build or {@code null} if the standard input is to be read from
+     *   the output window
+     */
+    @Nullable
+    @CheckForNull
+    public File getStandardInputFile() {
+        return standardInputFile;
+    }
+
     /**
      * Returns the {@code ContextAwareCommandArguments} which is used
      * to provide additional {@link GradleCommandTemplate#getArguments() arguments}
@@ -2,7 +2,9 @@ package org.netbeans.gradle.project.api.task;
 
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.model.util.CollectionUtils;
 
@@ -34,6 +36,7 @@ public final class GradleCommandTemplate {
         private List<String> arguments;
         private List<String> jvmArguments;
         private boolean blocking;
+        private String standardInputFile;
 
         /**
          * Creates a new builder whose properties are initially set the
@@ -51,6 +54,7 @@ public final class GradleCommandTemplate {
             this.arguments = command.getArguments();
             this.jvmArguments = command.getJvmArguments();
             this.blocking = command.isBlocking();
+            this.standardInputFile = command.getStandardInputFile();
         }
 
         /**
@@ -83,6 +87,7 @@ public final class GradleCommandTemplate {
          *  <li>{@link #getArguments() Arguments}: Empty list.</li>
          *  <li>{@link #getJvmArguments() JvmArguments}: Empty list.</li>
          *  <li>{@link #isBlocking() Blocking}: {@code true}.</li>
+         *  <li>{@link #getStandardInputFile() StandardInputFile}: {@code null}.</li>
          * </ul>
          *
          * @param displayName the name of the command as displayed to the user.
@@ -108,6 +113,7 @@ public final class GradleCommandTemplate {
             this.arguments = Collections.emptyList();
             this.jvmArguments = Collections.emptyList();
             this.blocking = true;
+            this.standardInputFile = null;
 
             if (this.tasks.isEmpty()) {
                 throw new IllegalArgumentException("Must have at least a single task specified.");
@@ -183,6 +189,24 @@ public final class GradleCommandTemplate {
             this.blocking = blocking;
         }
 
+        /**
+         * Sets the file whose content is to be streamed to the standard input
+         * of the build. If a file is specified, the input of the output
+         * window of the task is ignored. The path may contain
+         * {@link TaskVariable variables to be replaced} and if it is not
+         * absolute, then it is relative to the project directory.
+         * <P>
+         * The default value for this property is {@code null}.
+         *
+         * @param standardInputFile the path of the file whose content is to
+         *   be streamed to the standard input of the build. This argument can
+         *   be {@code null} if the standard input is to be read from the
+         *   output window.
+         */
+        public void setStandardInputFile(@Nullable String standardInputFile) {
+            this.standardInputFile = standardInputFile;
+        }
+
         /**
          * Creates a new {@code GradleCommandTemplate} with the currently
          * specified properties for this builder. Subsequent adjustment to this
@@ -203,6 +227,7 @@ public final class GradleCommandTemplate {
     private final List<String> arguments;
     private final List<String> jvmArguments;
     private final boolean blocking;
+    private final String standardInputFile;
 
     private GradleCommandTemplate(Builder builder) {
         this.displayName = builder.displayName;
@@ -210,6 +235,7 @@ public final class GradleCommandTemplate {
         this.arguments = builder.arguments;
         this.jvmArguments = builder.jvmArguments;
         this.blocking = builder.blocking;
+        this.standardInputFile = builder.standardInputFile;
     }
 
     /**
@@ -319,4 +345,20 @@ public final class GradleCommandTemplate {
     public boolean isBlocking() {
         return blocking;
     }
+
+    /**
+     * Returns the path of the file whose content is to be streamed to the
+     * standard input of the build. The path may contain
+     * {@link TaskVariable variables to be replaced} and if it is not
+     * absolute, then it is relative to the project directory.
+     *
+     * @return the path of the file whose content is to be streamed to the
+     *   standard input of the build or {@code null} if the standard input is
+     *   to be read from the output window
+     */
+    @Nullable
+    @CheckForNull
+    public String getStandardInputFile() {
+        return standardInputFile;
+    }
 }
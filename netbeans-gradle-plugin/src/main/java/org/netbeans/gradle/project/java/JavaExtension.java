@@ -54,6 +54,7 @@ import org.netbeans.gradle.project.java.tasks.GradleJavaBuiltInCommands;
 import org.netbeans.gradle.project.java.tasks.JavaGradleTaskVariableQuery;
 import org.netbeans.gradle.project.model.issue.DependencyResolutionIssue;
 import org.netbeans.gradle.project.model.issue.ModelLoadIssueReporter;
+import org.netbeans.gradle.project.output.StackTraceSourceCache;
 import org.netbeans.gradle.project.util.CloseableAction;
 import org.netbeans.gradle.project.util.CloseableActionContainer;
 import org.netbeans.spi.project.support.LookupProviderSupport;
@@ -198,6 +199,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
                     LookupProviderSupport.createSourcesMerger(),
                     new GradleProjectSources(this),
                     cpProvider,
+                    new StackTraceSourceCache(project, cpProvider),
                     new GradleSourceLevelQueryImplementation(this),
                     new GradleUnitTestFinder(this),
                     new GradleAnnotationProcessingQuery(),
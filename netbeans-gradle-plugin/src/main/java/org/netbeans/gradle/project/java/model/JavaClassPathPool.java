@@ -0,0 +1,164 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.project.properties.WeakValueHashMap;
+
+/**
+ * Defines a pool of class path entries and class paths shared by all the
+ * loaded projects. In a multi-project build, most of the projects reference
+ * the same external dependencies, so without the pool every source set
+ * would retain its own copy of the same files.
+ * <P>
+ * The pool only references its elements weakly: An element is kept as long
+ * as there is a model referencing it, and is removed from the pool after
+ * the last referencing model was garbage collected.
+ * <P>
+ * The methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+public final class JavaClassPathPool {
+    private static final Lock POOL_LOCK = new ReentrantLock();
+    // The keys are the paths of the values (and not the values themselves),
+    // so that the keys do not prevent the values from being collected.
+    private static final WeakValueHashMap<String, File> FILES = new WeakValueHashMap<>();
+    private static final WeakValueHashMap<ClassPathsKey, JavaClassPaths> CLASSPATHS = new WeakValueHashMap<>();
+
+    /**
+     * Returns the shared instance of the given file. The returned file is
+     * {@link File#equals(Object) equal} to the given file.
+     *
+     * @param file the file to be looked up in the pool. This argument cannot
+     *   be {@code null}.
+     * @return the shared instance of the given file. This method never
+     *   returns {@code null}.
+     */
+    public static File internFile(File file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        POOL_LOCK.lock();
+        try {
+            return internFileUnlocked(file);
+        } finally {
+            POOL_LOCK.unlock();
+        }
+    }
+
+    private static File internFileUnlocked(File file) {
+        String path = file.getPath();
+        File result = FILES.get(path);
+        if (result == null) {
+            result = file;
+            FILES.put(path, result);
+        }
+        return result;
+    }
+
+    private static List<File> internFilesUnlocked(Collection<? extends File> files) {
+        List<File> result = new ArrayList<>(files.size());
+        for (File file: new LinkedHashSet<>(files)) {
+            ExceptionHelper.checkNotNullArgument(file, "files[?]");
+            result.add(internFileUnlocked(file));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the shared instance of the class paths with the given entries.
+     * The entries of the returned class paths are shared instances as
+     * returned by {@link #internFile(File) internFile}. If the compile and the
+     * runtime class paths have the same entries, the returned class paths
+     * uses the same set for both of them.
+     *
+     * @param compileClasspaths the class path required to compile the
+     *   associated source set. This argument cannot be {@code null} and cannot
+     *   contain {@code null} elements.
+     * @param runtimeClasspaths the class path required at runtime by the
+     *   associated source set. This argument cannot be {@code null} and cannot
+     *   contain {@code null} elements.
+     * @return the shared instance of the class paths with the given entries.
+     *   This method never returns {@code null}.
+     */
+    public static JavaClassPaths internClassPaths(
+            Collection<? extends File> compileClasspaths,
+            Collection<? extends File> runtimeClasspaths) {
+        ExceptionHelper.checkNotNullArgument(compileClasspaths, "compileClasspaths");
+        ExceptionHelper.checkNotNullArgument(runtimeClasspaths, "runtimeClasspaths");
+
+        POOL_LOCK.lock();
+        try {
+            List<File> compile = internFilesUnlocked(compileClasspaths);
+            List<File> runtime = internFilesUnlocked(runtimeClasspaths);
+            if (compile.equals(runtime)) {
+                runtime = compile;
+            }
+
+            ClassPathsKey key = new ClassPathsKey(compile, runtime);
+            JavaClassPaths result = CLASSPATHS.get(key);
+            if (result == null) {
+                result = compile == runtime
+                        ? new JavaClassPaths(compile)
+                        : new JavaClassPaths(compile, runtime);
+                CLASSPATHS.put(key, result);
+            }
+            return result;
+        } finally {
+            POOL_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Returns the shared instance of the given class paths.
+     *
+     * @param classpaths the class paths to be looked up in the pool. This
+     *   argument cannot be {@code null}.
+     * @return the shared instance of the given class paths. This method never
+     *   returns {@code null}.
+     *
+     * @see #internClassPaths(Collection, Collection)
+     */
+    public static JavaClassPaths internClassPaths(JavaClassPaths classpaths) {
+        ExceptionHelper.checkNotNullArgument(classpaths, "classpaths");
+        return internClassPaths(classpaths.getCompileClasspaths(), classpaths.getRuntimeClasspaths());
+    }
+
+    private static final class ClassPathsKey {
+        private final List<File> compileClasspaths;
+        private final List<File> runtimeClasspaths;
+        private final int hash;
+
+        public ClassPathsKey(List<File> compileClasspaths, List<File> runtimeClasspaths) {
+            this.compileClasspaths = compileClasspaths;
+            this.runtimeClasspaths = runtimeClasspaths;
+            this.hash = 31 * compileClasspaths.hashCode() + runtimeClasspaths.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final ClassPathsKey other = (ClassPathsKey)obj;
+            return this.hash == other.hash
+                    && this.compileClasspaths.equals(other.compileClasspaths)
+                    && this.runtimeClasspaths.equals(other.runtimeClasspaths);
+        }
+    }
+
+    private JavaClassPathPool() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,278 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.model.java.JavaTestTask;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+import org.netbeans.gradle.model.util.CollectionUtils;
+import org.netbeans.gradle.project.model.CompactModelInput;
+import org.netbeans.gradle.project.model.CompactModelOutput;
+import org.netbeans.gradle.project.model.DefaultModelFormats;
+import org.netbeans.gradle.project.model.ExtensionModelFormat;
+
+/**
+ * Defines the compact format of {@link NbJavaModel} in the persistent model
+ * cache. Modules referenced by multiple project dependencies are only
+ * written once.
+ */
+public final class JavaModelCompactFormat implements ExtensionModelFormat<NbJavaModel> {
+    public static final JavaModelCompactFormat INSTANCE = new JavaModelCompactFormat();
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MODULE_NULL = 0;
+    private static final int MODULE_NEW = 1;
+    private static final int MODULE_FIRST_REF = 2;
+
+    private JavaModelCompactFormat() {
+    }
+
+    @Override
+    public int getFormatVersion() {
+        return FORMAT_VERSION;
+    }
+
+    @Override
+    public Class<NbJavaModel> getModelType() {
+        return NbJavaModel.class;
+    }
+
+    @Override
+    public void writeModel(NbJavaModel model, CompactModelOutput output) throws IOException {
+        Map<NbJavaModule, Integer> writtenModules = new IdentityHashMap<>();
+
+        output.writeEnum(model.getModelSource());
+        writeModule(model.getMainModule(), writtenModules, output);
+
+        Map<File, JavaProjectDependency> dependencies = model.getProjectDependencies();
+        output.writeVarInt(dependencies.size());
+        for (Map.Entry<File, JavaProjectDependency> entry: dependencies.entrySet()) {
+            JavaProjectDependency dependency = entry.getValue();
+            JavaProjectReference projectReference = dependency.getProjectReference();
+
+            output.writeFile(entry.getKey());
+            output.writeString(dependency.getSourceSetName());
+            output.writeFile(projectReference.getProjectDir());
+            writeModule(projectReference.tryGetModule(), writtenModules, output);
+        }
+    }
+
+    @Override
+    public NbJavaModel readModel(CompactModelInput input) throws IOException {
+        List<NbJavaModule> readModules = new ArrayList<>();
+
+        JavaModelSource modelSource = input.readEnum(JavaModelSource.class);
+        NbJavaModule mainModule = readModule(readModules, input);
+        if (modelSource == null || mainModule == null) {
+            throw new IOException("Missing main module.");
+        }
+
+        int dependencyCount = input.readVarInt();
+        Map<File, JavaProjectDependency> dependencies = CollectionUtils.newHashMap(dependencyCount);
+        for (int i = 0; i < dependencyCount; i++) {
+            File outputDir = input.readFile();
+            String sourceSetName = input.readString();
+            File projectDir = input.readFile();
+            NbJavaModule module = readModule(readModules, input);
+
+            if (module != null) {
+                JavaProjectReference projectReference = new JavaProjectReference(projectDir, module);
+                dependencies.put(outputDir, new JavaProjectDependency(sourceSetName, projectReference));
+            }
+        }
+
+        return NbJavaModel.createModel(modelSource, mainModule, dependencies);
+    }
+
+    private static void writeModule(
+            NbJavaModule module,
+            Map<NbJavaModule, Integer> writtenModules,
+            CompactModelOutput output) throws IOException {
+
+        if (module == null) {
+            output.writeVarInt(MODULE_NULL);
+            return;
+        }
+
+        Integer index = writtenModules.get(module);
+        if (index != null) {
+            output.writeVarInt(MODULE_FIRST_REF + index);
+            return;
+        }
+
+        writtenModules.put(module, writtenModules.size());
+        output.writeVarInt(MODULE_NEW);
+
+        DefaultModelFormats.writeProjectProperties(module.getProperties(), output);
+
+        JavaCompatibilityModel compatibilityModel = module.getCompatibilityModel();
+        output.writeString(compatibilityModel.getSourceCompatibility());
+        output.writeString(compatibilityModel.getTargetCompatibility());
+
+        List<JavaSourceSet> sources = module.getSources();
+        output.writeVarInt(sources.size());
+        for (JavaSourceSet sourceSet: sources) {
+            writeSourceSet(sourceSet, output);
+        }
+
+        List<NbListedDir> listedDirs = module.getListedDirs();
+        output.writeVarInt(listedDirs.size());
+        for (NbListedDir listedDir: listedDirs) {
+            output.writeString(listedDir.getName());
+            output.writeFile(listedDir.getDirectory());
+        }
+
+        Collection<JavaTestTask> testTasks = module.getTestTasks().getTestTasks();
+        output.writeVarInt(testTasks.size());
+        for (JavaTestTask testTask: testTasks) {
+            output.writeString(testTask.getName());
+            output.writeFile(testTask.getXmlOutputDir());
+        }
+    }
+
+    private static NbJavaModule readModule(
+            List<NbJavaModule> readModules,
+            CompactModelInput input) throws IOException {
+
+        int tag = input.readVarInt();
+        if (tag == MODULE_NULL) {
+            return null;
+        }
+
+        if (tag != MODULE_NEW) {
+            int index = tag - MODULE_FIRST_REF;
+            if (index >= readModules.size()) {
+                throw new IOException("Invalid module reference: " + index);
+            }
+            return readModules.get(index);
+        }
+
+        // Reserve the index of this module, so that indexes match the order
+        // in which the modules were written.
+        int moduleIndex = readModules.size();
+        readModules.add(null);
+
+        GenericProjectProperties properties = DefaultModelFormats.readProjectProperties(input);
+
+        String sourceCompatibility = input.readString();
+        String targetCompatibility = input.readString();
+        JavaCompatibilityModel compatibilityModel
+                = new JavaCompatibilityModel(sourceCompatibility, targetCompatibility);
+
+        int sourceSetCount = input.readVarInt();
+        List<JavaSourceSet> sources = new ArrayList<>(sourceSetCount);
+        for (int i = 0; i < sourceSetCount; i++) {
+            sources.add(readSourceSet(input));
+        }
+
+        int listedDirCount = input.readVarInt();
+        List<NbListedDir> listedDirs = new ArrayList<>(listedDirCount);
+        for (int i = 0; i < listedDirCount; i++) {
+            String name = input.readString();
+            listedDirs.add(new NbListedDir(name, input.readFile()));
+        }
+
+        int testTaskCount = input.readVarInt();
+        List<JavaTestTask> testTasks = new ArrayList<>(testTaskCount);
+        for (int i = 0; i < testTaskCount; i++) {
+            String name = input.readString();
+            testTasks.add(new JavaTestTask(name, input.readFile()));
+        }
+
+        NbJavaModule result = new NbJavaModule(
+                properties,
+                compatibilityModel,
+                sources,
+                listedDirs,
+                new JavaTestModel(testTasks));
+        readModules.set(moduleIndex, result);
+        return result;
+    }
+
+    private static void writeSourceSet(JavaSourceSet sourceSet, CompactModelOutput output) throws IOException {
+        output.writeString(sourceSet.getName());
+
+        JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
+        output.writeFile(outputDirs.getClassesDir());
+        output.writeFile(outputDirs.getResourcesDir());
+        output.writeFiles(outputDirs.getOtherDirs());
+
+        Collection<JavaSourceGroup> sourceGroups = sourceSet.getSourceGroups();
+        output.writeVarInt(sourceGroups.size());
+        for (JavaSourceGroup sourceGroup: sourceGroups) {
+            output.writeEnum(sourceGroup.getGroupName());
+            output.writeFiles(sourceGroup.getSourceRoots());
+
+            SourceIncludePatterns patterns = sourceGroup.getExcludePatterns();
+            output.writeStrings(patterns.getExcludePatterns());
+            output.writeStrings(patterns.getIncludePatterns());
+        }
+
+        JavaClassPaths classpaths = sourceSet.getClasspaths();
+        Set<File> compileClasspaths = classpaths.getCompileClasspaths();
+        Set<File> runtimeClasspaths = classpaths.getRuntimeClasspaths();
+        output.writeFiles(compileClasspaths);
+        if (compileClasspaths == runtimeClasspaths) {
+            output.writeBoolean(true);
+        }
+        else {
+            output.writeBoolean(false);
+            output.writeFiles(runtimeClasspaths);
+        }
+
+        output.writeSerializable(sourceSet.getCompileClassPathProblem());
+        output.writeSerializable(sourceSet.getRuntimeClassPathProblem());
+    }
+
+    private static JavaSourceSet readSourceSet(CompactModelInput input) throws IOException {
+        String name = input.readString();
+
+        File classesDir = input.readFile();
+        File resourcesDir = input.readFile();
+        List<File> otherDirs = input.readFiles();
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(name,
+                new JavaOutputDirs(classesDir, resourcesDir, otherDirs));
+
+        int sourceGroupCount = input.readVarInt();
+        for (int i = 0; i < sourceGroupCount; i++) {
+            JavaSourceGroupName groupName = input.readEnum(JavaSourceGroupName.class);
+            List<File> sourceRoots = input.readFiles();
+            List<String> excludePatterns = input.readStrings();
+            List<String> includePatterns = input.readStrings();
+
+            if (groupName == null) {
+                throw new IOException("Missing source group name.");
+            }
+
+            SourceIncludePatterns patterns = SourceIncludePatterns.create(excludePatterns, includePatterns);
+            result.addSourceGroup(new JavaSourceGroup(groupName, sourceRoots, patterns));
+        }
+
+        List<File> compileClasspaths = input.readFiles();
+        boolean sameRuntimeClasspaths = input.readBoolean();
+        List<File> runtimeClasspaths = sameRuntimeClasspaths
+                ? compileClasspaths
+                : input.readFiles();
+        result.setClasspaths(JavaClassPathPool.internClassPaths(compileClasspaths, runtimeClasspaths));
+
+        ClassLoader classLoader = JavaSourceSet.class.getClassLoader();
+        result.setCompileClassPathProblem((Throwable)input.readSerializable(classLoader));
+        result.setRuntimeClassPathProblem((Throwable)input.readSerializable(classLoader));
+
+        return result.create();
+    }
+}
@@ -0,0 +1,73 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.model.ModelSizeEstimator;
+
+/**
+ * Estimates the memory retained by {@link NbJavaModel} from the number of its
+ * source sets, class path entries and project dependencies. Modules referenced
+ * by multiple project dependencies are only counted once.
+ */
+public final class JavaModelSizeEstimator implements ModelSizeEstimator<NbJavaModel> {
+    public static final JavaModelSizeEstimator INSTANCE = new JavaModelSizeEstimator();
+
+    private static final long OBJECT_SIZE_ESTIMATE = 64;
+    private static final long FILE_SIZE_ESTIMATE = 96;
+
+    private JavaModelSizeEstimator() {
+    }
+
+    @Override
+    public Class<NbJavaModel> getModelType() {
+        return NbJavaModel.class;
+    }
+
+    @Override
+    public long estimateSize(NbJavaModel model) {
+        Set<NbJavaModule> countedModules = Collections.newSetFromMap(new IdentityHashMap<NbJavaModule, Boolean>());
+
+        long result = OBJECT_SIZE_ESTIMATE + estimateModuleSize(model.getMainModule(), countedModules);
+
+        Map<File, JavaProjectDependency> dependencies = model.getProjectDependencies();
+        for (JavaProjectDependency dependency: dependencies.values()) {
+            result += 2 * OBJECT_SIZE_ESTIMATE + FILE_SIZE_ESTIMATE;
+            result += estimateModuleSize(dependency.getProjectReference().tryGetModule(), countedModules);
+        }
+        return result;
+    }
+
+    private static long estimateModuleSize(NbJavaModule module, Set<NbJavaModule> countedModules) {
+        if (module == null || !countedModules.add(module)) {
+            return 0;
+        }
+
+        long result = 4 * OBJECT_SIZE_ESTIMATE;
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            result += 4 * OBJECT_SIZE_ESTIMATE;
+            result += FILE_SIZE_ESTIMATE * (2 + sourceSet.getOutputDirs().getOtherDirs().size());
+
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                result += OBJECT_SIZE_ESTIMATE + FILE_SIZE_ESTIMATE * sourceGroup.getSourceRoots().size();
+            }
+
+            JavaClassPaths classpaths = sourceSet.getClasspaths();
+            Set<File> compileClasspaths = classpaths.getCompileClasspaths();
+            Set<File> runtimeClasspaths = classpaths.getRuntimeClasspaths();
+            result += FILE_SIZE_ESTIMATE * compileClasspaths.size();
+            if (compileClasspaths != runtimeClasspaths) {
+                result += FILE_SIZE_ESTIMATE * runtimeClasspaths.size();
+            }
+        }
+
+        result += (OBJECT_SIZE_ESTIMATE + FILE_SIZE_ESTIMATE) * module.getListedDirs().size();
+        result += (OBJECT_SIZE_ESTIMATE + FILE_SIZE_ESTIMATE) * module.getTestTasks().getTestTasks().size();
+        return result;
+    }
+}
@@ -151,7 +151,9 @@ public final class JavaParsingUtils {
         runtime.remove(sourceSet.getOutputDirs().getClassesDir());
         runtime.remove(sourceSet.getOutputDirs().getResourcesDir());
 
-        JavaClassPaths classPaths = new JavaClassPaths(compile, runtime);
+        // Most of the projects of a multi-project build have (mostly) the same
+        // dependencies, so share them between the models.
+        JavaClassPaths classPaths = JavaClassPathPool.internClassPaths(compile, runtime);
 
         JavaSourceSet.Builder result = new JavaSourceSet.Builder(sourceSet.getName(), sourceSet.getOutputDirs());
         result.setClasspaths(classPaths);
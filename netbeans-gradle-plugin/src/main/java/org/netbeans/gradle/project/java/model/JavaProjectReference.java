@@ -12,6 +12,7 @@ import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
 import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.model.ProjectLoadPriority;
 
 public final class JavaProjectReference implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -44,7 +45,7 @@ public final class JavaProjectReference implements Serializable {
             return;
         }
 
-        gradleProject.ensureLoadRequested();
+        gradleProject.ensureLoadRequested(ProjectLoadPriority.BACKGROUND);
     }
 
     public File getProjectDir() {
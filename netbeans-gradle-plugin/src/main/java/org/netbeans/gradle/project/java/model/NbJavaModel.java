@@ -73,6 +73,10 @@ public final class NbJavaModel implements Serializable {
         return projectDependencies.get(outputDir);
     }
 
+    Map<File, JavaProjectDependency> getProjectDependencies() {
+        return Collections.unmodifiableMap(projectDependencies);
+    }
+
     public JavaModelSource getModelSource() {
         return modelSource;
     }
@@ -0,0 +1,197 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.beans.PropertyChangeSupport;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.FilteringPathResourceImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+
+/**
+ * Stores the resources of the class paths of a project and notifies only
+ * the listeners of the class paths whose resources have actually changed.
+ * <P>
+ * The methods of this class are safe to be called from multiple threads
+ * concurrently.
+ *
+ * @param <K> the type of the keys identifying the class paths
+ */
+final class ClassPathResources<K> {
+    private final Object eventSource;
+    private final PropertyChangeSupport anyChanges;
+    private final ProjectChangeCoordinator changeCoordinator;
+
+    private final Lock resourcesLock;
+    private final ConcurrentMap<K, List<PathResourceImplementation>> resources;
+    private final ConcurrentMap<K, PropertyChangeSupport> changes;
+    private final Set<PropertyChangeSupport> pendingChanges;
+    private final Runnable firePendingChangesTask;
+
+    /**
+     * Creates a new empty set of class paths.
+     *
+     * @param eventSource the source of the change events fired. This
+     *   argument cannot be {@code null}.
+     * @param anyChanges the listeners to be notified once whenever the
+     *   resources of any of the class paths has changed. This argument cannot
+     *   be {@code null}.
+     * @param changeCoordinator the coordinator through which the change
+     *   events are fired. This argument cannot be {@code null}.
+     */
+    public ClassPathResources(
+            Object eventSource,
+            PropertyChangeSupport anyChanges,
+            ProjectChangeCoordinator changeCoordinator) {
+        ExceptionHelper.checkNotNullArgument(eventSource, "eventSource");
+        ExceptionHelper.checkNotNullArgument(anyChanges, "anyChanges");
+        ExceptionHelper.checkNotNullArgument(changeCoordinator, "changeCoordinator");
+
+        this.eventSource = eventSource;
+        this.anyChanges = anyChanges;
+        this.changeCoordinator = changeCoordinator;
+
+        this.resourcesLock = new ReentrantLock();
+        this.resources = new ConcurrentHashMap<>();
+        this.changes = new ConcurrentHashMap<>();
+        this.pendingChanges = new LinkedHashSet<>();
+        this.firePendingChangesTask = new Runnable() {
+            @Override
+            public void run() {
+                firePendingChanges();
+            }
+        };
+    }
+
+    public List<PathResourceImplementation> getResources(K classPathKey) {
+        List<PathResourceImplementation> result = resources.get(classPathKey);
+        return result != null
+                ? result
+                : Collections.<PathResourceImplementation>emptyList();
+    }
+
+    public PropertyChangeSupport getChanges(K classPathKey) {
+        PropertyChangeSupport result = changes.get(classPathKey);
+        if (result == null) {
+            changes.putIfAbsent(classPathKey, new PropertyChangeSupport(eventSource));
+            result = changes.get(classPathKey);
+        }
+        return result;
+    }
+
+    private static Object getResourceKey(PathResourceImplementation path) {
+        if (path instanceof FilteringPathResourceImplementation) {
+            // The filtering resources define equals to compare their rules.
+            return path;
+        }
+
+        // The resources created by ClassPathSupport do not define equals,
+        // so compare them by their roots.
+        URL[] roots = path.getRoots();
+        List<String> result = new ArrayList<>(roots.length);
+        for (URL root: roots) {
+            result.add(root.toExternalForm());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the given new resources replacing the resources with the
+     * already used instances of equivalent resources. Keeping the instances
+     * prevents NetBeans from considering the roots as new roots.
+     */
+    private static List<PathResourceImplementation> reuseResources(
+            List<PathResourceImplementation> prevPaths,
+            List<PathResourceImplementation> newPaths) {
+
+        if (prevPaths == null || prevPaths.isEmpty()) {
+            return newPaths;
+        }
+
+        Map<Object, PathResourceImplementation> prevInstances = new HashMap<>(2 * prevPaths.size());
+        for (PathResourceImplementation path: prevPaths) {
+            prevInstances.put(getResourceKey(path), path);
+        }
+
+        List<PathResourceImplementation> result = new ArrayList<>(newPaths.size());
+        for (PathResourceImplementation path: newPaths) {
+            PathResourceImplementation prevPath = prevInstances.get(getResourceKey(path));
+            result.add(prevPath != null ? prevPath : path);
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the resources of all the class paths. The class paths not
+     * contained in the given map become empty. Change events are fired
+     * (through the change coordinator) only for the class paths whose
+     * resources differ from their previous resources.
+     *
+     * @param newResources the new resources of the class paths. This argument
+     *   cannot be {@code null}.
+     */
+    public void updateResources(Map<K, List<PathResourceImplementation>> newResources) {
+        ExceptionHelper.checkNotNullArgument(newResources, "newResources");
+
+        List<PropertyChangeSupport> changedClassPaths = new ArrayList<>();
+
+        resourcesLock.lock();
+        try {
+            for (Map.Entry<K, List<PathResourceImplementation>> entry: newResources.entrySet()) {
+                K classPathKey = entry.getKey();
+                List<PathResourceImplementation> prevPaths = resources.get(classPathKey);
+                List<PathResourceImplementation> paths = reuseResources(prevPaths, entry.getValue());
+                if (!paths.equals(prevPaths)) {
+                    resources.put(classPathKey, Collections.unmodifiableList(paths));
+                    changedClassPaths.add(getChanges(classPathKey));
+                }
+            }
+
+            for (K classPathKey: new ArrayList<>(resources.keySet())) {
+                if (!newResources.containsKey(classPathKey)) {
+                    resources.remove(classPathKey);
+                    changedClassPaths.add(getChanges(classPathKey));
+                }
+            }
+
+            pendingChanges.addAll(changedClassPaths);
+        } finally {
+            resourcesLock.unlock();
+        }
+
+        if (!changedClassPaths.isEmpty()) {
+            changeCoordinator.fireEventually(firePendingChangesTask);
+        }
+    }
+
+    private void firePendingChanges() {
+        List<PropertyChangeSupport> changedClassPaths;
+        resourcesLock.lock();
+        try {
+            changedClassPaths = new ArrayList<>(pendingChanges);
+            pendingChanges.clear();
+        } finally {
+            resourcesLock.unlock();
+        }
+
+        if (changedClassPaths.isEmpty()) {
+            return;
+        }
+
+        for (PropertyChangeSupport classPathChanges: changedClassPaths) {
+            classPathChanges.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+        }
+        anyChanges.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
+    }
+}
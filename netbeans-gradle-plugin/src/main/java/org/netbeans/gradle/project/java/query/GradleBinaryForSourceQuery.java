@@ -6,7 +6,6 @@ import java.net.URL;
 import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.java.queries.BinaryForSourceQuery;
@@ -16,6 +15,7 @@ import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.query.AbstractBinaryForSourceQuery;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.ChangeSupport;
@@ -78,7 +78,7 @@ implements
 
     @Override
     public void onModelChange() {
-        SwingUtilities.invokeLater(new Runnable() {
+        ProjectChangeCoordinator.getDefault().fireEventually(new Runnable() {
             @Override
             public void run() {
                 changes.fireChange();
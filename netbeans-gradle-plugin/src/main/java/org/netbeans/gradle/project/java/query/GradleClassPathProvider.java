@@ -19,9 +19,10 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.swing.SwingUtilities;
 import org.jtrim.concurrent.UpdateTaskExecutor;
 import org.jtrim.property.PropertySource;
 import org.jtrim.utils.ExceptionHelper;
@@ -40,14 +41,17 @@ import org.netbeans.gradle.project.api.entry.ProjectPlatform;
 import org.netbeans.gradle.project.api.property.GradleProperty;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.JavaModelChangeListener;
+import org.netbeans.gradle.project.java.model.JavaClassPathPool;
 import org.netbeans.gradle.project.java.model.JavaProjectReference;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.properties.NbProperties;
+import org.netbeans.gradle.project.properties.WeakValueHashMap;
 import org.netbeans.gradle.project.query.GradleFilesClassPathProvider;
+import org.netbeans.gradle.project.util.CloseableAction;
 import org.netbeans.gradle.project.util.ExcludeIncludeRules;
 import org.netbeans.gradle.project.util.ListenerRegistrations;
-import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
 import org.netbeans.spi.java.classpath.ClassPathFactory;
 import org.netbeans.spi.java.classpath.ClassPathImplementation;
 import org.netbeans.spi.java.classpath.ClassPathProvider;
@@ -65,22 +69,29 @@ implements
         JavaModelChangeListener {
     private static final Logger LOGGER = Logger.getLogger(GradleClassPathProvider.class.getName());
 
+    // Class path entries are shared by the class paths of all the projects,
+    // so there is only a single resource for each of them.
+    private static final Lock PATH_RESOURCES_LOCK = new ReentrantLock();
+    private static final WeakValueHashMap<PathResourceKey, PathResourceImplementation> PATH_RESOURCES
+            = new WeakValueHashMap<>();
+
     private final JavaExtension javaExt;
-    private volatile Object classpathResourcesChangeId;
-    private final ConcurrentMap<ClassPathKey, List<PathResourceImplementation>> classpathResources;
+    private final ClassPathResources<ClassPathKey> classpathResources;
     private final ConcurrentMap<ClassPathKey, ClassPath> classpaths;
 
+    private final EventSource eventSource;
     private final PropertyChangeSupport changes;
     private final AtomicReference<ProjectPlatform> currentPlatformRef;
 
     private final AtomicReference<ProjectInfoRef> infoRefRef;
+    private final AtomicReference<SourceSetIndex> sourceSetIndexRef;
 
     private final AtomicReference<ClassPath> allSourcesClassPathRef;
-    private volatile List<PathResourceImplementation> allSources;
 
     private volatile boolean loadedOnce;
 
     private final UpdateTaskExecutor classpathUpdateExecutor;
+    private final ProjectChangeCoordinator.PendingUpdate pendingClassPathUpdate;
 
     private final ListenerRegistrations propertyListenerRefs;
 
@@ -90,19 +101,20 @@ implements
         this.javaExt = javaExt;
         this.currentPlatformRef = new AtomicReference<>(null);
         this.infoRefRef = new AtomicReference<>(null);
+        this.sourceSetIndexRef = new AtomicReference<>(null);
         this.loadedOnce = false;
 
-        this.classpathResourcesChangeId = new Object();
-        this.classpathResources = new ConcurrentHashMap<>();
         this.classpaths = new ConcurrentHashMap<>();
-        this.allSources = Collections.emptyList();
         this.allSourcesClassPathRef = new AtomicReference<>(null);
         this.classpathUpdateExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
+        this.pendingClassPathUpdate = new ProjectChangeCoordinator.PendingUpdate(ProjectChangeCoordinator.getDefault());
         this.propertyListenerRefs = new ListenerRegistrations();
 
-        EventSource eventSource = new EventSource();
+        this.eventSource = new EventSource();
         this.changes = new PropertyChangeSupport(eventSource);
-        eventSource.init(this.changes);
+        this.eventSource.init(this.changes);
+        this.classpathResources = new ClassPathResources<>(
+                eventSource, changes, ProjectChangeCoordinator.getDefault());
     }
 
     private ProjectInfoRef getInfoRef() {
@@ -140,7 +152,7 @@ implements
             case ClassPath.SOURCE:
                 ClassPath result = allSourcesClassPathRef.get();
                 if (result == null) {
-                    result = ClassPathFactory.createClassPath(new AllSourcesClassPaths());
+                    result = ClassPathFactory.createClassPath(new GradleClassPaths(SpecialClassPath.ALL_SOURCES));
                     allSourcesClassPathRef.compareAndSet(null, result);
                     result = allSourcesClassPathRef.get();
                 }
@@ -157,16 +169,22 @@ implements
     }
 
     private void scheduleReloadPathResources() {
+        // Keeps the changes of a project reload together, so that the class
+        // paths of all the reloaded projects are published at once.
+        pendingClassPathUpdate.updateScheduled();
         classpathUpdateExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                loadPathResources(javaExt.getCurrentModel());
+                try (CloseableAction.Ref batchRef = pendingClassPathUpdate.updateStarted()) {
+                    loadPathResources(javaExt.getCurrentModel());
+                }
             }
         });
     }
 
     @Override
     public void onModelChange() {
+        sourceSetIndexRef.set(SourceSetIndex.create(javaExt.getCurrentModel()));
         scheduleReloadPathResources();
     }
 
@@ -211,20 +229,14 @@ implements
         changes.removePropertyChangeListener(listener);
     }
 
-    private boolean isInOneOf(File file, Collection<File> roots) {
-        return isInOneOf(file, roots, null);
-    }
-
-    private boolean isInOneOf(File file, Collection<File> roots, ExcludeIncludeRules excludeRules) {
-        for (File root: roots) {
-            if (NbFileUtils.isParentOrSame(root, file)) {
-                if (excludeRules == null) {
-                    return true;
-                }
-                return excludeRules.isIncluded(root.toPath(), file);
-            }
+    private SourceSetIndex getSourceSetIndex(NbJavaModel projectModel) {
+        SourceSetIndex result = sourceSetIndexRef.get();
+        if (result == null || result.getModel() != projectModel) {
+            // The model has changed but onModelChange has not been called yet.
+            result = SourceSetIndex.create(projectModel);
+            sourceSetIndexRef.set(result);
         }
-        return false;
+        return result;
     }
 
     private JavaSourceSet findAssociatedSourceSet(NbJavaModel projectModel, FileObject fileObj) {
@@ -233,27 +245,7 @@ implements
             return null;
         }
 
-        for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
-            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-            outputDirs.getClassesDir();
-
-            if (isInOneOf(file, sourceSet.getClasspaths().getCompileClasspaths())) {
-                return sourceSet;
-            }
-
-            if (isInOneOf(file, sourceSet.getClasspaths().getRuntimeClasspaths())) {
-                return sourceSet;
-            }
-
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                ExcludeIncludeRules excludeRules = ExcludeIncludeRules.create(sourceGroup);
-                if (isInOneOf(file, sourceGroup.getSourceRoots(), excludeRules)) {
-                    return sourceSet;
-                }
-            }
-        }
-
-        return null;
+        return getSourceSetIndex(projectModel).tryFindSourceSet(file);
     }
 
     private ClassPathKey getClassPathType(NbJavaModel projectModel, FileObject fileObj, String type) {
@@ -299,8 +291,7 @@ implements
         }
     }
 
-    private void updateAllSources() {
-        NbJavaModel currentModel = javaExt.getCurrentModel();
+    private static List<PathResourceImplementation> getAllSources(NbJavaModel currentModel) {
         NbJavaModule mainModule = currentModel.getMainModule();
 
         List<PathResourceImplementation> sources = new LinkedList<>();
@@ -313,12 +304,42 @@ implements
             }
         }
 
-        allSources = Collections.unmodifiableList(new ArrayList<>(sources));
+        return new ArrayList<>(sources);
     }
 
     private static PathResourceImplementation toPathResource(File file) {
+        // The URL of an archive differs from the URL of a directory, so the
+        // resource must not be reused if the entry was replaced by the other
+        // kind (e.g., a not yet existing class path entry was created).
+        PathResourceKey key = new PathResourceKey(file, file.isFile());
+
+        PATH_RESOURCES_LOCK.lock();
+        try {
+            PathResourceImplementation result = PATH_RESOURCES.get(key);
+            if (result != null) {
+                return result;
+            }
+        } finally {
+            PATH_RESOURCES_LOCK.unlock();
+        }
+
         URL url = FileUtil.urlForArchiveOrDir(file);
-        return url != null ? ClassPathSupport.createResource(url) : null;
+        if (url == null) {
+            return null;
+        }
+
+        PathResourceImplementation result = ClassPathSupport.createResource(url);
+        PATH_RESOURCES_LOCK.lock();
+        try {
+            PathResourceImplementation prevResult = PATH_RESOURCES.get(key);
+            if (prevResult != null) {
+                return prevResult;
+            }
+            PATH_RESOURCES.put(new PathResourceKey(JavaClassPathPool.internFile(file), key.archive), result);
+        } finally {
+            PATH_RESOURCES_LOCK.unlock();
+        }
+        return result;
     }
 
     private static PathResourceImplementation toPathResource(File file, ExcludeIncludeRules includeRules) {
@@ -331,7 +352,8 @@ implements
         return getPathResources(files, invalid, ExcludeIncludeRules.ALLOW_ALL);
     }
 
-    private static List<PathResourceImplementation> getPathResources(
+    // For benchmarking purposes
+    static List<PathResourceImplementation> getPathResources(
             Collection<File> files,
             Set<File> invalid,
             ExcludeIncludeRules includeRules) {
@@ -353,20 +375,13 @@ implements
         return result;
     }
 
-    private void setClassPathResources(
-            ClassPathKey classPathKey,
-            List<PathResourceImplementation> paths) {
-        classpathResources.put(classPathKey, Collections.unmodifiableList(paths));
-    }
-
-    private void setClassPathResources(
-            ClassPathKey classPathKey,
+    private static List<PathResourceImplementation> concat(
             List<PathResourceImplementation> paths1,
             List<PathResourceImplementation> paths2) {
         List<PathResourceImplementation> paths = new ArrayList<>(paths1.size() + paths2.size());
         paths.addAll(paths1);
         paths.addAll(paths2);
-        setClassPathResources(classPathKey, paths);
+        return paths;
     }
 
     private static List<PathResourceImplementation> getBuildOutputDirsAsPathResources(JavaSourceSet sourceSet) {
@@ -380,17 +395,20 @@ implements
         return result;
     }
 
-    private void loadPathResources(JavaSourceSet sourceSet, Set<File> invalid) {
+    private void loadPathResources(
+            JavaSourceSet sourceSet,
+            Set<File> invalid,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
+
         Set<File> compileCP = sourceSet.getClasspaths().getCompileClasspaths();
-        setClassPathResources(
+        result.put(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.COMPILE),
                 getPathResources(compileCP, invalid));
 
         Set<File> runtimeCP = sourceSet.getClasspaths().getCompileClasspaths();
-        setClassPathResources(
+        result.put(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.RUNTIME),
-                getPathResources(runtimeCP, invalid),
-                getBuildOutputDirsAsPathResources(sourceSet));
+                concat(getPathResources(runtimeCP, invalid), getBuildOutputDirsAsPathResources(sourceSet)));
 
         List<PathResourceImplementation> sourcePaths = new LinkedList<>();
         for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
@@ -400,30 +418,35 @@ implements
             sourcePaths.addAll(getPathResources(sourceRoots, invalid, includeRules));
         }
 
-        setClassPathResources(
+        result.put(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.SOURCES),
                 sourcePaths);
     }
 
-    private void loadBootClassPath() {
+    private void loadBootClassPath(Map<ClassPathKey, List<PathResourceImplementation>> result) {
         List<PathResourceImplementation> platformResources = new LinkedList<>();
         ProjectPlatform platform = getCurrentPlatform();
         for (URL url: platform.getBootLibraries()) {
             platformResources.add(ClassPathSupport.createResource(url));
         }
 
-        setClassPathResources(SpecialClassPath.BOOT, platformResources);
+        result.put(SpecialClassPath.BOOT, platformResources);
     }
 
-    private void loadAllRuntimeClassPath(NbJavaModule mainModule) {
-        Set<File> classPaths = new HashSet<>();
+    private void loadAllRuntimeClassPath(
+            NbJavaModule mainModule,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
+
+        // Keep the order stable, so that equivalent class paths are not
+        // considered to be changed.
+        Set<File> classPaths = new LinkedHashSet<>();
 
         for (JavaSourceSet sourceSet: mainModule.getSources()) {
             classPaths.add(sourceSet.getOutputDirs().getClassesDir());
             classPaths.addAll(sourceSet.getClasspaths().getRuntimeClasspaths());
         }
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.ALL_RUNTIME,
                 getPathResources(classPaths, new HashSet<File>()));
     }
@@ -439,8 +462,11 @@ implements
         }
     }
 
-    private void loadRuntimeForGlobalClassPath(NbJavaModel projectModel) {
-        Set<File> classPaths = new HashSet<>();
+    private void loadRuntimeForGlobalClassPath(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
+
+        Set<File> classPaths = new LinkedHashSet<>();
 
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
             classPaths.addAll(sourceSet.getClasspaths().getRuntimeClasspaths());
@@ -448,13 +474,16 @@ implements
 
         removeOtherBuildOutputDirs(projectModel, classPaths);
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.RUNTIME_FOR_GLOBAL,
                 getPathResources(classPaths, new HashSet<File>()));
     }
 
-    private void loadCompileForGlobalClassPath(NbJavaModel projectModel) {
-        Set<File> classPaths = new HashSet<>();
+    private void loadCompileForGlobalClassPath(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
+
+        Set<File> classPaths = new LinkedHashSet<>();
 
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
             classPaths.addAll(sourceSet.getClasspaths().getCompileClasspaths());
@@ -462,13 +491,16 @@ implements
 
         removeOtherBuildOutputDirs(projectModel, classPaths);
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.COMPILE_FOR_GLOBAL,
                 getPathResources(classPaths, new HashSet<File>()));
     }
 
-    private void loadAllBuildOutputClassPath(NbJavaModel projectModel) {
-        Set<File> classPaths = new HashSet<>();
+    private void loadAllBuildOutputClassPath(
+            NbJavaModel projectModel,
+            Map<ClassPathKey, List<PathResourceImplementation>> result) {
+
+        Set<File> classPaths = new LinkedHashSet<>();
 
         for (JavaSourceSet sourceSet: projectModel.getMainModule().getSources()) {
             classPaths.add(sourceSet.getOutputDirs().getClassesDir());
@@ -485,7 +517,7 @@ implements
             }
         }
 
-        setClassPathResources(
+        result.put(
                 SpecialClassPath.ALL_BUILD_OUTPUT,
                 getPathResources(classPaths, new HashSet<File>()));
     }
@@ -494,24 +526,20 @@ implements
         // TODO: This method must be called whenever any of the dependent projects
         //   is reloaded.
 
-        Object newChangeId = new Object();
-        classpathResourcesChangeId = newChangeId;
-
-        Map<?, ?> classpathResourcesSnapshot = new HashMap<>(classpathResources);
-
+        Map<ClassPathKey, List<PathResourceImplementation>> newResources = new HashMap<>();
         Set<File> missing = new HashSet<>();
 
         NbJavaModule mainModule = projectModel.getMainModule();
         for (JavaSourceSet sourceSet: mainModule.getSources()) {
-            loadPathResources(sourceSet, missing);
+            loadPathResources(sourceSet, missing, newResources);
         }
 
-        loadBootClassPath();
-        loadAllRuntimeClassPath(mainModule);
-        loadAllBuildOutputClassPath(projectModel);
+        loadBootClassPath(newResources);
+        loadAllRuntimeClassPath(mainModule, newResources);
+        loadAllBuildOutputClassPath(projectModel, newResources);
 
-        loadCompileForGlobalClassPath(projectModel);
-        loadRuntimeForGlobalClassPath(projectModel);
+        loadCompileForGlobalClassPath(projectModel, newResources);
+        loadRuntimeForGlobalClassPath(projectModel, newResources);
 
         // TODO: Should we report all invalid?
 
@@ -527,18 +555,8 @@ implements
             getInfoRef().setInfo(new ProjectInfo(infos));
         }
 
-        updateAllSources();
-
-        boolean changed = newChangeId != classpathResourcesChangeId
-                || !classpathResourcesSnapshot.equals(new HashMap<>(classpathResources));
-        if (changed) {
-            SwingUtilities.invokeLater(new Runnable() {
-                @Override
-                public void run() {
-                    changes.firePropertyChange(ClassPathImplementation.PROP_RESOURCES, null, null);
-                }
-            });
-        }
+        newResources.put(SpecialClassPath.ALL_SOURCES, getAllSources(projectModel));
+        classpathResources.updateResources(newResources);
 
         loadedOnce = true;
     }
@@ -586,21 +604,16 @@ implements
     }
 
     private abstract class AbstractGradleClassPaths implements ClassPathImplementation {
+        protected abstract PropertyChangeSupport getChanges();
+
         @Override
         public final void addPropertyChangeListener(PropertyChangeListener listener) {
-            changes.addPropertyChangeListener(listener);
+            getChanges().addPropertyChangeListener(listener);
         }
 
         @Override
         public final void removePropertyChangeListener(PropertyChangeListener listener) {
-            changes.removePropertyChangeListener(listener);
-        }
-    }
-
-    private class AllSourcesClassPaths extends AbstractGradleClassPaths {
-        @Override
-        public List<PathResourceImplementation> getResources() {
-            return allSources;
+            getChanges().removePropertyChangeListener(listener);
         }
     }
 
@@ -612,12 +625,14 @@ implements
             this.classPathKey = classPathKey;
         }
 
+        @Override
+        protected PropertyChangeSupport getChanges() {
+            return classpathResources.getChanges(classPathKey);
+        }
+
         @Override
         public List<PathResourceImplementation> getResources() {
-            List<PathResourceImplementation> result = classpathResources.get(classPathKey);
-            return result != null
-                    ? result
-                    : Collections.<PathResourceImplementation>emptyList();
+            return classpathResources.getResources(classPathKey);
         }
     }
 
@@ -664,6 +679,7 @@ implements
     }
 
     private enum SpecialClassPath implements ClassPathKey {
+        ALL_SOURCES,
         BOOT,
         ALL_RUNTIME,
         ALL_BUILD_OUTPUT,
@@ -671,6 +687,37 @@ implements
         RUNTIME_FOR_GLOBAL,
     }
 
+    private static final class PathResourceKey {
+        private final File file;
+        private final boolean archive;
+
+        public PathResourceKey(File file, boolean archive) {
+            assert file != null;
+
+            this.file = file;
+            this.archive = archive;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 79 * hash + file.hashCode();
+            hash = 79 * hash + (archive ? 1 : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final PathResourceKey other = (PathResourceKey)obj;
+
+            return this.archive == other.archive
+                    && this.file.equals(other.file);
+        }
+    }
+
     private static final class EventSource implements ClassPathImplementation {
         private volatile PropertyChangeSupport changes;
 
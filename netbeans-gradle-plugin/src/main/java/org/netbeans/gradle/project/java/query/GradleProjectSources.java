@@ -34,8 +34,10 @@ import org.netbeans.gradle.project.java.model.NamedSourceRoot;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.util.CloseableAction;
 import org.netbeans.gradle.project.util.ExcludeIncludeRules;
 import org.netbeans.gradle.project.util.GradleFileUtils;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
 import org.netbeans.spi.java.project.support.ui.PackageView;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -54,6 +56,7 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
 
     private final AtomicBoolean hasScanned;
     private final UpdateTaskExecutor scanSourcesExecutor;
+    private final ProjectChangeCoordinator.PendingUpdate pendingSourcesUpdate;
 
     public GradleProjectSources(JavaExtension javaExt) {
         ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
@@ -63,6 +66,7 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         this.currentGroups = Collections.emptyMap();
         this.hasScanned = new AtomicBoolean(false);
         this.scanSourcesExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
+        this.pendingSourcesUpdate = new ProjectChangeCoordinator.PendingUpdate(ProjectChangeCoordinator.getDefault());
 
         javaExt.getSourceDirsHandler().addDirsCreatedListener(new Runnable() {
             @Override
@@ -164,6 +168,7 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
 
     @Override
     public void onModelChange() {
+        pendingSourcesUpdate.updateScheduled();
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -190,17 +195,19 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
         scanSourcesExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                Map<String, SourceGroup[]> groups = findSourceGroups(javaExt);
-
-                currentGroups = groups;
-                LOGGER.log(Level.FINE, "Location of the sources of {0} has been updated.", javaExt.getName());
-
-                SwingUtilities.invokeLater(new Runnable() {
-                    @Override
-                    public void run() {
-                        changeSupport.fireChange();
-                    }
-                });
+                try (CloseableAction.Ref batchRef = pendingSourcesUpdate.updateStarted()) {
+                    Map<String, SourceGroup[]> groups = findSourceGroups(javaExt);
+
+                    currentGroups = groups;
+                    LOGGER.log(Level.FINE, "Location of the sources of {0} has been updated.", javaExt.getName());
+
+                    ProjectChangeCoordinator.getDefault().fireEventually(new Runnable() {
+                        @Override
+                        public void run() {
+                            changeSupport.fireChange();
+                        }
+                    });
+                }
             }
         });
     }
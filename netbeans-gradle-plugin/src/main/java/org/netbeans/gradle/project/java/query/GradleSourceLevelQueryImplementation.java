@@ -10,6 +10,7 @@ import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.api.property.GradleProperty;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.properties.NbProperties;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
 import org.netbeans.spi.java.queries.SourceLevelQueryImplementation2;
 import org.openide.filesystems.FileObject;
 
@@ -46,7 +47,12 @@ implements
 
         @SuppressWarnings("LeakingThisInConstructor")
         public ResultImpl(PropertySource<String> sourceLevel) {
-            this.property = NbProperties.toOldProperty(sourceLevel, this);
+            // Source level changes of reloaded projects are published together
+            // with their other changes.
+            PropertySource<String> batchedSourceLevel = NbProperties.batchedChangesProperty(
+                    sourceLevel,
+                    ProjectChangeCoordinator.getDefault());
+            this.property = NbProperties.toOldProperty(batchedSourceLevel, this);
         }
 
         @Override
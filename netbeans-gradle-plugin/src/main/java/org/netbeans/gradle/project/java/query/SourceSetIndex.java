@@ -0,0 +1,199 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+
+/**
+ * Defines an index to find the source set of the main module of a project
+ * a file belongs to. The index maps every class path entry and source root
+ * to the source sets referencing them, so finding the source set of a file
+ * only needs a lookup for each directory containing the file (instead of
+ * checking every class path entry of every source set).
+ * <P>
+ * A file belongs to the first source set (in the order of
+ * {@link org.netbeans.gradle.project.java.model.NbJavaModule#getSources()})
+ * which has a compile or runtime class path entry containing the file or a
+ * source root containing the file (not excluded by the patterns of the
+ * source group of the root). If multiple source roots of the same source
+ * group contain the file, only the first one is considered.
+ * <P>
+ * Instances of this class are immutable and safe to be used by multiple
+ * threads concurrently.
+ */
+final class SourceSetIndex {
+    private static final int CLASSPATH_GROUP_INDEX = -1;
+
+    private final NbJavaModel model;
+    private final JavaSourceSet[] sourceSets;
+    private final Map<File, IndexEntry[]> entriesByRoot;
+
+    private SourceSetIndex(NbJavaModel model, JavaSourceSet[] sourceSets, Map<File, IndexEntry[]> entriesByRoot) {
+        this.model = model;
+        this.sourceSets = sourceSets;
+        this.entriesByRoot = entriesByRoot;
+    }
+
+    public static SourceSetIndex create(NbJavaModel model) {
+        ExceptionHelper.checkNotNullArgument(model, "model");
+
+        Collection<JavaSourceSet> sourceSetList = model.getMainModule().getSources();
+        JavaSourceSet[] sourceSets = sourceSetList.toArray(new JavaSourceSet[sourceSetList.size()]);
+
+        Map<File, List<IndexEntry>> entries = new HashMap<>();
+        int groupCount = 0;
+        for (int sourceSetIndex = 0; sourceSetIndex < sourceSets.length; sourceSetIndex++) {
+            JavaSourceSet sourceSet = sourceSets[sourceSetIndex];
+
+            IndexEntry classpathEntry = new IndexEntry(
+                    sourceSetIndex, CLASSPATH_GROUP_INDEX, 0, ExcludeIncludeRules.ALLOW_ALL);
+            addEntries(sourceSet.getClasspaths().getCompileClasspaths(), classpathEntry, entries);
+            addEntries(sourceSet.getClasspaths().getRuntimeClasspaths(), classpathEntry, entries);
+
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                ExcludeIncludeRules rules = ExcludeIncludeRules.create(sourceGroup);
+                int rootIndex = 0;
+                for (File root: sourceGroup.getSourceRoots()) {
+                    addEntry(root, new IndexEntry(sourceSetIndex, groupCount, rootIndex, rules), entries);
+                    rootIndex++;
+                }
+                groupCount++;
+            }
+        }
+
+        Map<File, IndexEntry[]> entriesByRoot = new HashMap<>(entries.size() * 4 / 3 + 1);
+        for (Map.Entry<File, List<IndexEntry>> entry: entries.entrySet()) {
+            List<IndexEntry> rootEntries = entry.getValue();
+            entriesByRoot.put(entry.getKey(), rootEntries.toArray(new IndexEntry[rootEntries.size()]));
+        }
+
+        return new SourceSetIndex(model, sourceSets, entriesByRoot);
+    }
+
+    private static void addEntries(Collection<File> roots, IndexEntry entry, Map<File, List<IndexEntry>> entries) {
+        for (File root: roots) {
+            addEntry(root, entry, entries);
+        }
+    }
+
+    private static void addEntry(File root, IndexEntry entry, Map<File, List<IndexEntry>> entries) {
+        List<IndexEntry> rootEntries = entries.get(root);
+        if (rootEntries == null) {
+            rootEntries = new ArrayList<>(1);
+            entries.put(root, rootEntries);
+        }
+        else if (rootEntries.get(rootEntries.size() - 1) == entry) {
+            // The same entry is on both the compile and the runtime class path.
+            return;
+        }
+        rootEntries.add(entry);
+    }
+
+    /**
+     * Returns the model this index was created for.
+     */
+    public NbJavaModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the source set the given file belongs to or {@code null} if
+     * the file does not belong to any of the source sets.
+     *
+     * @param file the file to be checked. This argument cannot be
+     *   {@code null}.
+     * @return the source set the given file belongs to or {@code null} if
+     *   the file does not belong to any of the source sets
+     */
+    public JavaSourceSet tryFindSourceSet(File file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        int bestSourceSetIndex = sourceSets.length;
+        // The source root entries closest to the file are found first, so
+        // they have to be kept until we know which root of their group
+        // comes first.
+        List<MatchedRoot> matchedRoots = null;
+
+        for (File current = file; current != null; current = current.getParentFile()) {
+            IndexEntry[] entries = entriesByRoot.get(current);
+            if (entries == null) {
+                continue;
+            }
+
+            for (IndexEntry entry: entries) {
+                if (entry.sourceSetIndex >= bestSourceSetIndex) {
+                    continue;
+                }
+
+                if (entry.groupIndex == CLASSPATH_GROUP_INDEX) {
+                    bestSourceSetIndex = entry.sourceSetIndex;
+                }
+                else {
+                    if (matchedRoots == null) {
+                        matchedRoots = new ArrayList<>();
+                    }
+                    matchedRoots.add(new MatchedRoot(current, entry));
+                }
+            }
+        }
+
+        if (matchedRoots != null) {
+            bestSourceSetIndex = selectFromSourceRoots(file, matchedRoots, bestSourceSetIndex);
+        }
+
+        return bestSourceSetIndex < sourceSets.length ? sourceSets[bestSourceSetIndex] : null;
+    }
+
+    private static int selectFromSourceRoots(File file, List<MatchedRoot> matchedRoots, int bestSourceSetIndex) {
+        Map<Integer, MatchedRoot> firstRootOfGroups = new HashMap<>();
+        for (MatchedRoot matchedRoot: matchedRoots) {
+            Integer groupKey = matchedRoot.entry.groupIndex;
+            MatchedRoot prevRoot = firstRootOfGroups.get(groupKey);
+            if (prevRoot == null || prevRoot.entry.rootIndex > matchedRoot.entry.rootIndex) {
+                firstRootOfGroups.put(groupKey, matchedRoot);
+            }
+        }
+
+        int result = bestSourceSetIndex;
+        for (MatchedRoot matchedRoot: firstRootOfGroups.values()) {
+            IndexEntry entry = matchedRoot.entry;
+            if (entry.sourceSetIndex < result && entry.rules.isIncluded(matchedRoot.root.toPath(), file)) {
+                result = entry.sourceSetIndex;
+            }
+        }
+        return result;
+    }
+
+    private static final class IndexEntry {
+        public final int sourceSetIndex;
+        // CLASSPATH_GROUP_INDEX for class path entries
+        public final int groupIndex;
+        public final int rootIndex;
+        public final ExcludeIncludeRules rules;
+
+        public IndexEntry(int sourceSetIndex, int groupIndex, int rootIndex, ExcludeIncludeRules rules) {
+            this.sourceSetIndex = sourceSetIndex;
+            this.groupIndex = groupIndex;
+            this.rootIndex = rootIndex;
+            this.rules = rules;
+        }
+    }
+
+    private static final class MatchedRoot {
+        public final File root;
+        public final IndexEntry entry;
+
+        public MatchedRoot(File root, IndexEntry entry) {
+            this.root = root;
+            this.entry = entry;
+        }
+    }
+}
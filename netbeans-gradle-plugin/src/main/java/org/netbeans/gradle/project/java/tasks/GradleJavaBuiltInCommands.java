@@ -24,6 +24,7 @@ import org.netbeans.gradle.project.api.modelquery.GradleTarget;
 import org.netbeans.gradle.project.api.task.BuiltInGradleCommandQuery;
 import org.netbeans.gradle.project.api.task.CommandExceptionHider;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandAction;
+import org.netbeans.gradle.project.api.task.ContextAwareCommandArguments;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandCompleteAction;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandCompleteListener;
 import org.netbeans.gradle.project.api.task.ContextAwareCommandFinalizer;
@@ -37,6 +38,7 @@ import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.test.LiveTestResultsTracker;
 import org.netbeans.gradle.project.java.test.TestTaskName;
 import org.netbeans.gradle.project.java.test.TestXmlDisplayer;
 import org.netbeans.gradle.project.output.DebugTextListener;
@@ -322,11 +324,12 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
     private static ContextAwareCommandCompleteListener displayTestResults(
             final Project project,
             final JavaExtension javaExt,
+            final LiveTestResultsTracker liveResults,
             final Lookup startContext) {
         return new ContextAwareCommandCompleteListener() {
             @Override
             public void onComplete(ExecutedCommandContext executedCommandContext, Throwable error) {
-                displayTestReports(project, javaExt, executedCommandContext, startContext, error);
+                displayTestReports(project, javaExt, liveResults, executedCommandContext, startContext, error);
             }
         };
     }
@@ -342,27 +345,51 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
     private static void displayTestReports(
             Project project,
             JavaExtension javaExt,
+            LiveTestResultsTracker liveResults,
             ExecutedCommandContext executedCommandContext,
             Lookup startContext,
             Throwable error) {
 
         List<String> testNames = getTestNames(javaExt, executedCommandContext);
 
-        for (String testName: testNames) {
-            TestXmlDisplayer xmlDisplayer = new TestXmlDisplayer(project, testName);
-            if (!xmlDisplayer.displayReport(startContext)) {
-                if (error == null) {
-                    displayErrorDueToNoTestReportsFound(xmlDisplayer);
+        LiveTestResultsTracker.Execution execution = liveResults.claimExecution();
+        try {
+            for (String testName: testNames) {
+                if (execution.finishLiveResults(testName)) {
+                    // The results were already displayed while the tests
+                    // were running.
+                    continue;
+                }
+
+                TestXmlDisplayer xmlDisplayer = new TestXmlDisplayer(project, testName);
+                if (!xmlDisplayer.displayReport(startContext)) {
+                    if (error == null) {
+                        displayErrorDueToNoTestReportsFound(xmlDisplayer);
+                    }
                 }
             }
+        } finally {
+            execution.finishAll();
         }
     }
 
-    private static ContextAwareCommandCompleteAction displayTestAction(final JavaExtension javaExt) {
+    private static ContextAwareCommandCompleteAction displayTestAction(
+            final JavaExtension javaExt,
+            final LiveTestResultsTracker liveResults) {
         return new ContextAwareCommandCompleteAction() {
             @Override
             public ContextAwareCommandCompleteListener startCommand(Project project, Lookup commandContext) {
-                return displayTestResults(project, javaExt, commandContext);
+                liveResults.setRunContext(commandContext);
+                return displayTestResults(project, javaExt, liveResults, commandContext);
+            }
+        };
+    }
+
+    private static ContextAwareCommandArguments liveTestEventsArguments() {
+        return new ContextAwareCommandArguments() {
+            @Override
+            public List<String> getCommandArguments(Project project, Lookup commandContext) {
+                return LiveTestResultsTracker.getCommandArguments();
             }
         };
     }
@@ -371,7 +398,12 @@ public final class GradleJavaBuiltInCommands implements BuiltInGradleCommandQuer
         return new CustomCommandAdjuster() {
             @Override
             public void adjust(JavaExtension javaExt, CustomCommandActions.Builder customActions) {
-                customActions.setContextAwareFinalizer(displayTestAction(javaExt));
+                LiveTestResultsTracker liveResults = new LiveTestResultsTracker(javaExt);
+                customActions.setContextAwareFinalizer(displayTestAction(javaExt, liveResults));
+                // The standard error processor is used because the standard
+                // output processor is replaced when debugging tests.
+                customActions.setSingleExecutionStdErrProcessor(liveResults);
+                customActions.setContextAwareCommandArguments(liveTestEventsArguments());
             }
         };
     }
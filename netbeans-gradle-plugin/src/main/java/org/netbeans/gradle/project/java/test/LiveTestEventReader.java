@@ -0,0 +1,315 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+
+/**
+ * Reads the test events written by the test listener of the init script
+ * (nb-init-script.gradle) while a test task is running. The events are
+ * written to a file in the directory of the XML reports of the test task,
+ * one event per line. The fields of an event are separated by tab characters
+ * and the backslash, tab and line feed characters are escaped in the fields.
+ * <P>
+ * The events are:
+ * <ul>
+ *  <li>{@code start}: The test task started running tests.</li>
+ *  <li>{@code test <class> <name> <SUCCESS|FAILURE|SKIPPED> <millis> <stack trace>}:
+ *    A test has completed.</li>
+ *  <li>{@code output <class> <StdOut|StdErr> <text>}: A test printed something.</li>
+ *  <li>{@code suite <class> <millis>}: Every test of the class has completed.</li>
+ *  <li>{@code end}: The test task completed running tests.</li>
+ * </ul>
+ * <P>
+ * Instances of this class are not safe to be used by multiple threads
+ * concurrently.
+ */
+final class LiveTestEventReader {
+    private static final Logger LOGGER = Logger.getLogger(LiveTestEventReader.class.getName());
+
+    /**
+     * The name of the file (in the directory of the XML reports) the init
+     * script writes the events to. This must be kept in sync with the init
+     * script.
+     */
+    public static final String EVENTS_FILE_NAME = "nb-test-events.txt";
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final File eventsFile;
+    private final int maxOutputLength;
+    private final byte[] readBuffer;
+    private final ByteArrayOutputStream currentLine;
+    private final Map<String, SuiteBuilder> suites;
+
+    private long readPosition;
+    private boolean finished;
+
+    public LiveTestEventReader(File eventsFile) {
+        this(eventsFile, TestXmlReport.DEFAULT_MAX_OUTPUT_LENGTH);
+    }
+
+    public LiveTestEventReader(File eventsFile, int maxOutputLength) {
+        ExceptionHelper.checkNotNullArgument(eventsFile, "eventsFile");
+        ExceptionHelper.checkArgumentInRange(maxOutputLength, 0, Integer.MAX_VALUE, "maxOutputLength");
+
+        this.eventsFile = eventsFile;
+        this.maxOutputLength = maxOutputLength;
+        this.readBuffer = new byte[READ_BUFFER_SIZE];
+        this.currentLine = new ByteArrayOutputStream(256);
+        this.suites = new LinkedHashMap<>();
+        this.readPosition = 0;
+        this.finished = false;
+    }
+
+    public File getEventsFile() {
+        return eventsFile;
+    }
+
+    /**
+     * Returns {@code true} if the {@code end} event has been read.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Reads the events written since the last call and returns the test
+     * suites completed by them.
+     *
+     * @return the test suites completed since the last call in the order
+     *   they were completed. This method never returns {@code null}.
+     */
+    public List<TestXmlReport> readCompletedSuites() throws IOException {
+        if (!eventsFile.isFile()) {
+            return Collections.emptyList();
+        }
+
+        List<TestXmlReport> result = new ArrayList<>();
+        try (RandomAccessFile input = new RandomAccessFile(eventsFile, "r")) {
+            long length = input.length();
+            if (length < readPosition) {
+                // The file was rewritten by a new test run.
+                reset();
+            }
+
+            input.seek(readPosition);
+            while (readPosition < length) {
+                int toRead = (int)Math.min(readBuffer.length, length - readPosition);
+                int readCount = input.read(readBuffer, 0, toRead);
+                if (readCount <= 0) {
+                    break;
+                }
+                readPosition += readCount;
+
+                int lineStart = 0;
+                for (int i = 0; i < readCount; i++) {
+                    if (readBuffer[i] == '\n') {
+                        currentLine.write(readBuffer, lineStart, i - lineStart);
+                        processLine(new String(currentLine.toByteArray(), UTF8), result);
+                        currentLine.reset();
+                        lineStart = i + 1;
+                    }
+                }
+                currentLine.write(readBuffer, lineStart, readCount - lineStart);
+            }
+        }
+        return result;
+    }
+
+    private void reset() {
+        readPosition = 0;
+        currentLine.reset();
+        suites.clear();
+        finished = false;
+    }
+
+    private SuiteBuilder getSuite(String className) {
+        SuiteBuilder result = suites.get(className);
+        if (result == null) {
+            result = new SuiteBuilder(className);
+            suites.put(className, result);
+        }
+        return result;
+    }
+
+    private static long tryParseLong(String str) {
+        try {
+            return Long.parseLong(str);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static Status toStatus(String resultType) {
+        switch (resultType) {
+            case "SUCCESS":
+                return Status.PASSED;
+            case "SKIPPED":
+                return Status.SKIPPED;
+            default:
+                return Status.FAILED;
+        }
+    }
+
+    private void processLine(String line, List<TestXmlReport> completedSuites) {
+        String[] fields = splitFields(line);
+        switch (fields[0]) {
+            case "start":
+                suites.clear();
+                finished = false;
+                return;
+            case "test":
+                if (fields.length >= 6) {
+                    String stackTrace = fields[5].isEmpty() ? null : fields[5];
+                    getSuite(fields[1]).testcases.add(TestXmlReport.TestcaseDef.create(
+                            fields[2],
+                            fields[1],
+                            tryParseLong(fields[4]),
+                            toStatus(fields[3]),
+                            stackTrace));
+                    return;
+                }
+                break;
+            case "output":
+                if (fields.length >= 4) {
+                    getSuite(fields[1]).appendOutput("StdErr".equals(fields[2]), fields[3]);
+                    return;
+                }
+                break;
+            case "suite":
+                if (fields.length >= 3) {
+                    SuiteBuilder suite = suites.remove(fields[1]);
+                    if (suite != null) {
+                        completedSuites.add(suite.create(tryParseLong(fields[2])));
+                    }
+                    return;
+                }
+                break;
+            case "end":
+                finished = true;
+                for (SuiteBuilder suite: suites.values()) {
+                    completedSuites.add(suite.create(0));
+                }
+                suites.clear();
+                return;
+            default:
+                break;
+        }
+
+        LOGGER.log(Level.INFO, "Unexpected test event in {0}: {1}", new Object[]{eventsFile, line});
+    }
+
+    static String[] splitFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char ch = line.charAt(i);
+            if (ch == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else if (ch == '\\' && i + 1 < length) {
+                i++;
+                char escaped = line.charAt(i);
+                switch (escaped) {
+                    case 't':
+                        field.append('\t');
+                        break;
+                    case 'n':
+                        field.append('\n');
+                        break;
+                    case 'r':
+                        field.append('\r');
+                        break;
+                    default:
+                        field.append(escaped);
+                        break;
+                }
+            }
+            else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    private final class SuiteBuilder {
+        private final String className;
+        private final List<TestXmlReport.TestcaseDef> testcases;
+        private StringBuilder stdOut;
+        private StringBuilder stdErr;
+        private boolean stdOutTruncated;
+        private boolean stdErrTruncated;
+
+        public SuiteBuilder(String className) {
+            this.className = className;
+            this.testcases = new ArrayList<>();
+            this.stdOut = null;
+            this.stdErr = null;
+            this.stdOutTruncated = false;
+            this.stdErrTruncated = false;
+        }
+
+        private boolean append(StringBuilder output, String text) {
+            int remaining = maxOutputLength - output.length();
+            if (text.length() > remaining) {
+                output.append(text, 0, Math.max(remaining, 0));
+                return true;
+            }
+            output.append(text);
+            return false;
+        }
+
+        public void appendOutput(boolean errorOutput, String text) {
+            if (errorOutput) {
+                if (stdErr == null) {
+                    stdErr = new StringBuilder();
+                }
+                stdErrTruncated |= append(stdErr, text);
+            }
+            else {
+                if (stdOut == null) {
+                    stdOut = new StringBuilder();
+                }
+                stdOutTruncated |= append(stdOut, text);
+            }
+        }
+
+        private String getOutput(StringBuilder output, boolean truncated) {
+            if (output == null) {
+                return null;
+            }
+
+            if (truncated) {
+                output.append("\n... (the output was truncated)\n");
+            }
+            return output.toString();
+        }
+
+        public TestXmlReport create(long suiteTime) {
+            return new TestXmlReport(
+                    className,
+                    suiteTime,
+                    testcases,
+                    getOutput(stdOut, stdOutTruncated),
+                    getOutput(stdErr, stdErrTruncated));
+        }
+    }
+}
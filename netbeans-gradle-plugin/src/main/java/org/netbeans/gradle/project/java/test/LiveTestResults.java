@@ -0,0 +1,252 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.CancelableWaits;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.MonitorableTaskExecutorService;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.netbeans.gradle.project.others.test.NbGradleTestSession;
+
+/**
+ * Displays the results of a running test task as its test suites complete.
+ * The results are read from the events written by the test listener of the
+ * init script (see {@link LiveTestEventReader}), which is polled periodically
+ * until {@link #finish() finish} is called.
+ * <P>
+ * The test session is only started when the first test suite completes, so
+ * if the test task does not run any test (e.g., because it is up-to-date),
+ * nothing is displayed.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class LiveTestResults {
+    private static final Logger LOGGER = Logger.getLogger(LiveTestResults.class.getName());
+
+    private static final long POLL_INTERVAL_MS = 500;
+
+    private static final MonitorableTaskExecutorService POLL_EXECUTOR
+            = NbTaskExecutors.newExecutor("Live-Test-Results-Poller", 1);
+
+    private static final Lock POLL_LOCK = new ReentrantLock();
+    // Guarded by POLL_LOCK
+    private static final Set<LiveTestResults> POLLED_RESULTS = new HashSet<>();
+    // Guarded by POLL_LOCK
+    private static boolean pollLoopRunning = false;
+
+    private final SessionFactory sessionFactory;
+    private final LiveTestEventReader eventReader;
+
+    private final ReentrantLock mainLock;
+    private NbGradleTestSession session;
+    private boolean finished;
+    private boolean displayedAny;
+
+    LiveTestResults(File eventsFile, SessionFactory sessionFactory) {
+        ExceptionHelper.checkNotNullArgument(eventsFile, "eventsFile");
+        ExceptionHelper.checkNotNullArgument(sessionFactory, "sessionFactory");
+
+        this.sessionFactory = sessionFactory;
+        this.eventReader = new LiveTestEventReader(eventsFile);
+        this.mainLock = new ReentrantLock();
+        this.session = null;
+        this.finished = false;
+        this.displayedAny = false;
+    }
+
+    void start() {
+        File eventsFile = eventReader.getEventsFile();
+        if (eventsFile.exists() && !eventsFile.delete()) {
+            // The file will be rewritten when the tests start anyway.
+            LOGGER.log(Level.INFO, "Failed to remove the test events of the previous run: {0}", eventsFile);
+        }
+
+        startPolling(this);
+
+        boolean alreadyFinished;
+        mainLock.lock();
+        try {
+            alreadyFinished = finished;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (alreadyFinished) {
+            stopPolling(this);
+        }
+    }
+
+    private static void startPolling(LiveTestResults results) {
+        boolean startLoop;
+        POLL_LOCK.lock();
+        try {
+            POLLED_RESULTS.add(results);
+            startLoop = !pollLoopRunning;
+            pollLoopRunning = true;
+        } finally {
+            POLL_LOCK.unlock();
+        }
+
+        if (startLoop) {
+            POLL_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    pollUntilFinished(cancelToken);
+                }
+            }, new CleanupTask() {
+                @Override
+                public void cleanup(boolean canceled, Throwable error) {
+                    if (canceled || error != null) {
+                        stopPollLoop();
+                    }
+                    NbTaskExecutors.defaultCleanup(canceled, error);
+                }
+            });
+        }
+    }
+
+    private static void stopPolling(LiveTestResults results) {
+        POLL_LOCK.lock();
+        try {
+            POLLED_RESULTS.remove(results);
+        } finally {
+            POLL_LOCK.unlock();
+        }
+    }
+
+    private static void stopPollLoop() {
+        POLL_LOCK.lock();
+        try {
+            pollLoopRunning = false;
+        } finally {
+            POLL_LOCK.unlock();
+        }
+    }
+
+    private static void pollUntilFinished(CancellationToken cancelToken) {
+        while (true) {
+            CancelableWaits.sleep(cancelToken, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+            List<LiveTestResults> toPoll;
+            POLL_LOCK.lock();
+            try {
+                if (POLLED_RESULTS.isEmpty()) {
+                    // A new loop is started by the next call to startPolling.
+                    pollLoopRunning = false;
+                    return;
+                }
+                toPoll = new ArrayList<>(POLLED_RESULTS);
+            } finally {
+                POLL_LOCK.unlock();
+            }
+
+            for (LiveTestResults results: toPoll) {
+                results.poll();
+            }
+        }
+    }
+
+    private void displayNewSuites() {
+        assert mainLock.isHeldByCurrentThread();
+
+        List<TestXmlReport> suites;
+        try {
+            suites = eventReader.readCompletedSuites();
+        } catch (Exception ex) {
+            LOGGER.log(Level.INFO, "Failed to read test events from " + eventReader.getEventsFile(), ex);
+            return;
+        }
+
+        if (suites.isEmpty()) {
+            return;
+        }
+
+        if (session == null) {
+            session = sessionFactory.startSession();
+        }
+
+        for (TestXmlReport suite: suites) {
+            suite.addToSession(session);
+        }
+    }
+
+    private void poll() {
+        mainLock.lock();
+        try {
+            if (!finished) {
+                displayNewSuites();
+            }
+        } catch (Throwable ex) {
+            LOGGER.log(Level.SEVERE, "Unexpected error while displaying test results.", ex);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the test listener of the init script reported
+     * that the tests have completed.
+     */
+    public boolean isCompleted() {
+        mainLock.lock();
+        try {
+            return eventReader.isFinished();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Stops polling for the results, displays the results not yet displayed
+     * and ends the test session (if it was started).
+     *
+     * @return {@code true} if at least one test suite has been displayed,
+     *   {@code false} otherwise
+     */
+    public boolean finish() {
+        NbGradleTestSession sessionToEnd;
+        boolean result;
+
+        mainLock.lock();
+        try {
+            if (!finished) {
+                displayNewSuites();
+            }
+            finished = true;
+
+            sessionToEnd = session;
+            // endSession must only be called once.
+            session = null;
+            if (sessionToEnd != null) {
+                displayedAny = true;
+            }
+            result = displayedAny;
+        } finally {
+            mainLock.unlock();
+        }
+
+        stopPolling(this);
+
+        if (sessionToEnd != null) {
+            sessionToEnd.endSession();
+        }
+        return result;
+    }
+
+    interface SessionFactory {
+        public NbGradleTestSession startSession();
+    }
+}
@@ -0,0 +1,213 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.model.java.JavaTestTask;
+import org.netbeans.gradle.project.api.task.SingleExecutionOutputProcessor;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.openide.util.Lookup;
+
+/**
+ * Starts displaying the results of the test tasks of a command whenever the
+ * command is executed (including repeated executions). The results displayed
+ * during an execution must be claimed by calling {@link #claimExecution()}
+ * after the execution completes. Executions are claimed in the order they
+ * were started, so executions started while a previous one is still running
+ * do not stop displaying the results of the previous one.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class LiveTestResultsTracker implements SingleExecutionOutputProcessor {
+    /**
+     * The name of the project property requesting the init script to write
+     * the events of the test tasks. This must be kept in sync with the init
+     * script.
+     */
+    public static final String LIVE_EVENTS_PROPERTY = "nbLiveTestEvents";
+
+    private final JavaExtension javaExt;
+
+    private final Lock mainLock;
+    private Lookup runContext;
+    private final Deque<Execution> startedExecutions;
+
+    public LiveTestResultsTracker(JavaExtension javaExt) {
+        ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
+
+        this.javaExt = javaExt;
+        this.mainLock = new ReentrantLock();
+        this.runContext = null;
+        this.startedExecutions = new LinkedList<>();
+    }
+
+    /**
+     * Returns the arguments to be passed to Gradle, so that the init script
+     * writes the events to be displayed.
+     *
+     * @return the arguments to be passed to Gradle. This method never returns
+     *   {@code null}.
+     */
+    public static List<String> getCommandArguments() {
+        return Collections.singletonList("-P" + LIVE_EVENTS_PROPERTY + "=true");
+    }
+
+    /**
+     * Sets the context the command is executed in. The results are only
+     * displayed after this method has been called.
+     *
+     * @param runContext the context the command is executed in. This argument
+     *   cannot be {@code null}.
+     */
+    public void setRunContext(Lookup runContext) {
+        ExceptionHelper.checkNotNullArgument(runContext, "runContext");
+
+        mainLock.lock();
+        try {
+            this.runContext = runContext;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private Collection<JavaTestTask> getTestTasks() {
+        return javaExt.getCurrentModel().getMainModule().getTestTasks().getTestTasks();
+    }
+
+    @Override
+    public TaskOutputProcessor startExecution(Project project) {
+        Lookup currentRunContext;
+        mainLock.lock();
+        try {
+            currentRunContext = runContext;
+        } finally {
+            mainLock.unlock();
+        }
+
+        Map<String, LiveTestResults> newResults = new HashMap<>();
+        if (currentRunContext != null) {
+            // We don't know which test tasks are going to be executed, so
+            // we wait for the results of each of them.
+            for (JavaTestTask testTask: getTestTasks()) {
+                String testName = testTask.getName();
+                TestXmlDisplayer displayer = new TestXmlDisplayer(project, testName);
+                LiveTestResults results = displayer.startLiveDisplay(currentRunContext);
+                if (results != null) {
+                    newResults.put(testName, results);
+                }
+            }
+        }
+
+        mainLock.lock();
+        try {
+            startedExecutions.addLast(new Execution(newResults));
+        } finally {
+            mainLock.unlock();
+        }
+
+        return NoOpTaskOutputProcessor.INSTANCE;
+    }
+
+    /**
+     * Removes and returns the results of the oldest execution not yet
+     * claimed. This method must be called once after each execution
+     * completes.
+     *
+     * @return the results of the oldest execution not yet claimed. This
+     *   method never returns {@code null}. If there is no such execution, an
+     *   empty {@code Execution} is returned.
+     */
+    public Execution claimExecution() {
+        Execution result;
+        mainLock.lock();
+        try {
+            result = startedExecutions.pollFirst();
+        } finally {
+            mainLock.unlock();
+        }
+
+        return result != null
+                ? result
+                : new Execution(Collections.<String, LiveTestResults>emptyMap());
+    }
+
+    /**
+     * Defines the results displayed during a single execution of the command.
+     * <P>
+     * Instances of this class are safe to be used by multiple threads
+     * concurrently.
+     */
+    public static final class Execution {
+        private final Lock mainLock;
+        private final Map<String, LiveTestResults> liveResults;
+
+        private Execution(Map<String, LiveTestResults> liveResults) {
+            this.mainLock = new ReentrantLock();
+            this.liveResults = new HashMap<>(liveResults);
+        }
+
+        /**
+         * Stops displaying the results of the given test task and returns
+         * {@code true} if any result of the test task has been displayed.
+         * If this method returns {@code false}, the results should be
+         * displayed from the XML reports.
+         *
+         * @param testName the name of the test task. This argument cannot be
+         *   {@code null}.
+         * @return {@code true} if any result of the test task has been
+         *   displayed, {@code false} otherwise
+         */
+        public boolean finishLiveResults(String testName) {
+            ExceptionHelper.checkNotNullArgument(testName, "testName");
+
+            LiveTestResults results;
+            mainLock.lock();
+            try {
+                results = liveResults.remove(testName);
+            } finally {
+                mainLock.unlock();
+            }
+
+            return results != null && results.finish();
+        }
+
+        /**
+         * Stops displaying the results of every test task of this execution.
+         * This method should be called after the results of the executed test
+         * tasks were claimed.
+         */
+        public void finishAll() {
+            List<LiveTestResults> toFinish;
+            mainLock.lock();
+            try {
+                toFinish = new ArrayList<>(liveResults.values());
+                liveResults.clear();
+            } finally {
+                mainLock.unlock();
+            }
+
+            for (LiveTestResults results: toFinish) {
+                results.finish();
+            }
+        }
+    }
+
+    private enum NoOpTaskOutputProcessor implements TaskOutputProcessor {
+        INSTANCE;
+
+        @Override
+        public void processLine(String line) {
+        }
+    }
+}
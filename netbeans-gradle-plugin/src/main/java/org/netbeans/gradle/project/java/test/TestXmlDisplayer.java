@@ -3,45 +3,60 @@ package org.netbeans.gradle.project.java.test;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
 import javax.swing.event.ChangeListener;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.project.Project;
 import org.netbeans.api.project.ProjectInformation;
 import org.netbeans.api.project.ProjectUtils;
 import org.netbeans.gradle.model.java.JavaTestTask;
+import org.netbeans.gradle.project.NbTaskExecutors;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.others.test.NbGradleTestManager;
 import org.netbeans.gradle.project.others.test.NbGradleTestManagers;
 import org.netbeans.gradle.project.others.test.NbGradleTestSession;
-import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
 import org.netbeans.gradle.project.view.GradleActionProvider;
 import org.netbeans.modules.gsf.testrunner.api.RerunHandler;
 import org.netbeans.modules.gsf.testrunner.api.RerunType;
-import org.netbeans.modules.gsf.testrunner.api.Status;
 import org.netbeans.modules.gsf.testrunner.api.Testcase;
-import org.netbeans.modules.gsf.testrunner.api.Trouble;
 import org.netbeans.spi.project.ActionProvider;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
-import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.DefaultHandler;
 
 public final class TestXmlDisplayer {
     private static final Logger LOGGER = Logger.getLogger(TestXmlDisplayer.class.getName());
     private static final File[] NO_FILES = new File[0];
-    private static final String NEW_LINE_PATTERN = Pattern.quote("\n");
-    private static final String[] STACKTRACE_PREFIXES = {"at "};
+
+    private static final int PARSER_THREAD_COUNT
+            = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+    private static final int MAX_PARSED_AHEAD = 4 * PARSER_THREAD_COUNT;
+
+    private static final TaskExecutor PARSER_EXECUTOR
+            = NbTaskExecutors.newExecutor("Test-Report-Parser", PARSER_THREAD_COUNT);
+
+    // SAXParser instances are not safe to be used concurrently, so every
+    // thread parsing reports has its own parser.
+    private static final ThreadLocal<SAXParser> PARSERS = new ThreadLocal<SAXParser>() {
+        @Override
+        protected SAXParser initialValue() {
+            return tryCreateSaxParser();
+        }
+    };
 
     private final Project project;
     private final JavaExtension javaExt;
@@ -94,58 +109,7 @@ public final class TestXmlDisplayer {
         return result != null ? result : NO_FILES;
     }
 
-    private static long tryReadTimeMillis(String timeStr, long defaultValue) {
-        if (timeStr == null) {
-            return defaultValue;
-        }
-
-        try {
-            return Math.round(Double.parseDouble(timeStr) * 1000.0);
-        } catch (NumberFormatException ex) {
-            return defaultValue;
-        }
-    }
-
-    private static String[] toLines(String text) {
-        return text
-                .replace("\r\n", "\n")
-                .replace("\r", "\n")
-                .trim()
-                .split(NEW_LINE_PATTERN);
-    }
-
-    private static String[] extractStackTrace(String text) {
-        String[] lines = toLines(text);
-
-        // The first line is the exception message.
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            for (String prefix: STACKTRACE_PREFIXES) {
-                if (line.startsWith(prefix)) {
-                    line = line.substring(prefix.length());
-                    break;
-                }
-            }
-            lines[i] = line;
-        }
-        return lines;
-    }
-
-    private void displayTestSuite(final File reportFile, SAXParser parser, final NbGradleTestSession testSession) throws Exception {
-        parser.reset();
-
-        TestXmlContentHandler testXmlContentHandler = new TestXmlContentHandler(testSession, reportFile);
-        parser.parse(reportFile, testXmlContentHandler);
-
-        NbGradleTestSuite testSuite = testXmlContentHandler.testSuite;
-        if (testSuite != null) {
-            testSuite.setStdErr(testXmlContentHandler.stderr);
-            testSuite.setStdOut(testXmlContentHandler.stdout);
-            testSuite.endSuite(testXmlContentHandler.suiteTime);
-        }
-    }
-
-    private SAXParser tryGetSaxParser() {
+    private static SAXParser tryCreateSaxParser() {
         SAXParserFactory parserFactory = SAXParserFactory.newInstance();
         try {
             return parserFactory.newSAXParser();
@@ -158,29 +122,71 @@ public final class TestXmlDisplayer {
         }
     }
 
-    private boolean displayTestSession(NbGradleTestSession testSession, File[] reportFiles) {
-        SAXParser parser = tryGetSaxParser();
+    private static TestXmlReport tryParseReport(File reportFile) {
+        SAXParser parser = PARSERS.get();
         if (parser == null) {
+            return null;
+        }
+
+        try {
+            return TestXmlReport.parse(reportFile, parser);
+        } catch (Exception ex) {
+            LOGGER.log(Level.INFO, "Error while parsing " + reportFile, ex);
+            return null;
+        }
+    }
+
+    private static void submitParseTask(final ParsedReports parsedReports, final int reportIndex) {
+        PARSER_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                TestXmlReport report = null;
+                try {
+                    report = tryParseReport(parsedReports.getReportFile(reportIndex));
+                } finally {
+                    parsedReports.setReport(reportIndex, report);
+                }
+            }
+        }, null);
+    }
+
+    private boolean displayTestSession(NbGradleTestSession testSession, File[] reportFiles) {
+        if (PARSERS.get() == null) {
             return false;
         }
 
-        for (File reportFile: reportFiles) {
-            try {
-                displayTestSuite(reportFile, parser, testSession);
-            } catch (Exception ex) {
-                LOGGER.log(Level.INFO, "Error while parsing " + reportFile, ex);
+        // Reports are parsed concurrently but added to the session in the
+        // order of the report files. To limit the number of reports kept in
+        // memory, we only start parsing a report when the reports not much
+        // before it have already been added to the session.
+        ParsedReports parsedReports = new ParsedReports(reportFiles);
+
+        int nextToSubmit = 0;
+        for (int i = 0; i < reportFiles.length; i++) {
+            int maxToSubmit = Math.min(reportFiles.length, i + MAX_PARSED_AHEAD);
+            for (; nextToSubmit < maxToSubmit; nextToSubmit++) {
+                submitParseTask(parsedReports, nextToSubmit);
+            }
+
+            TestXmlReport report = parsedReports.waitAndRemoveReport(i);
+            if (report != null) {
+                report.addToSession(testSession);
             }
         }
 
         return true;
     }
 
-    private boolean displayReport(Lookup runContext, File[] reportFiles) {
-        NbGradleTestSession testSession = testManager.startSession(
+    private NbGradleTestSession startSession(Lookup runContext) {
+        return testManager.startSession(
                 getProjectName(),
                 project,
                 new JavaTestRunnerNodeFactory(javaExt, new TestTaskName(testName)),
                 new JavaRerunHandler(runContext));
+    }
+
+    private boolean displayReport(Lookup runContext, File[] reportFiles) {
+        NbGradleTestSession testSession = startSession(runContext);
 
         try {
             return displayTestSession(testSession, reportFiles);
@@ -203,6 +209,36 @@ public final class TestXmlDisplayer {
         return displayReport(runContext, reportFiles);
     }
 
+    /**
+     * Starts displaying the results of the test task while it is running.
+     * This method must be called before the test task starts, and the
+     * returned object must be {@link LiveTestResults#finish() finished} after
+     * the test task completes.
+     *
+     * @param runContext the context the test task is executed in. This
+     *   argument cannot be {@code null}.
+     * @return the object displaying the results or {@code null} if the
+     *   directory of the test reports is not known
+     */
+    public LiveTestResults startLiveDisplay(final Lookup runContext) {
+        ExceptionHelper.checkNotNullArgument(runContext, "runContext");
+
+        File reportDir = tryGetReportDirectory();
+        if (reportDir == null) {
+            return null;
+        }
+
+        File eventsFile = new File(reportDir, LiveTestEventReader.EVENTS_FILE_NAME);
+        LiveTestResults result = new LiveTestResults(eventsFile, new LiveTestResults.SessionFactory() {
+            @Override
+            public NbGradleTestSession startSession() {
+                return TestXmlDisplayer.this.startSession(runContext);
+            }
+        });
+        result.start();
+        return result;
+    }
+
     public class JavaRerunHandler implements RerunHandler {
         private final Lookup rerunContext;
 
@@ -255,192 +291,50 @@ public final class TestXmlDisplayer {
         }
     }
 
-    private static final class TestXmlContentHandler extends DefaultHandler {
-        private final NbGradleTestSession session;
-        private final File reportFile;
-
-        private int level;
-        private NbGradleTestSuite testSuite;
-        private final List<Testcase> allTestcases;
-
-        private String stdout;
-        private String stderr;
-        private long suiteTime;
-        private boolean error;
-        private Testcase testcase;
-        private StringBuilder failureContent;
-        private boolean outputBuilderIsStdOut;
-        private StringBuilder outputBuilder;
-
-        public TestXmlContentHandler(NbGradleTestSession session, File reportFile) {
-            this.session = session;
-            this.reportFile = reportFile;
-            this.allTestcases = new LinkedList<>();
-
-            this.level = 0;
-            this.testSuite = null;
-            this.suiteTime = 0;
-            this.error = false;
-            this.testcase = null;
-            this.failureContent = null;
-            this.outputBuilderIsStdOut = false;
-        }
-
-        private void startSuite(Attributes attributes) {
-            String name = attributes.getValue("", "name");
-            suiteTime = tryReadTimeMillis(attributes.getValue("", "time"), 0);
+    private static final class ParsedReports {
+        private final File[] reportFiles;
+        private final TestXmlReport[] reports;
+        private final boolean[] completed;
 
-            String suiteName = name != null ? name : reportFile.getName();
-            testSuite = session.startTestSuite(suiteName);
-        }
+        private final Lock mainLock;
+        private final Condition completedCondition;
 
-        private Testcase tryGetTestCase(Attributes attributes, Status status) {
-            Testcase result = tryGetTestCase(attributes);
-            if (result != null) {
-                result.setStatus(status);
-            }
-            return result;
+        public ParsedReports(File[] reportFiles) {
+            this.reportFiles = reportFiles;
+            this.reports = new TestXmlReport[reportFiles.length];
+            this.completed = new boolean[reportFiles.length];
+            this.mainLock = new ReentrantLock();
+            this.completedCondition = mainLock.newCondition();
         }
 
-        private Testcase tryGetTestCase(Attributes attributes) {
-            if (testSuite == null) {
-                LOGGER.warning("test suite has not been started but there is a test case to add.");
-                return null;
-            }
-
-            String name = attributes.getValue("", "name");
-            if (name == null) {
-                return null;
-            }
-
-            Testcase result = testSuite.addTestcase(name);
-
-            String className = attributes.getValue("", "classname");
-            if (className != null) {
-                result.setClassName(className);
-            }
-
-            long time = tryReadTimeMillis(attributes.getValue("", "time"), 0);
-            result.setTimeMillis(time);
-
-            return result;
+        public File getReportFile(int index) {
+            return reportFiles[index];
         }
 
-        private boolean tryAddTestCase(String uri, String localName, String qName, Attributes attributes) {
-            switch (qName) {
-                case "testcase":
-                    testcase = tryGetTestCase(attributes, Status.PASSED);
-                    break;
-                case "ignored-testcase":
-                    testcase = tryGetTestCase(attributes, Status.SKIPPED);
-                    break;
-            }
-
-            if (testcase != null) {
-                allTestcases.add(testcase);
-                return true;
-            }
-            else {
-                return false;
+        public void setReport(int index, TestXmlReport report) {
+            mainLock.lock();
+            try {
+                reports[index] = report;
+                completed[index] = true;
+                completedCondition.signalAll();
+            } finally {
+                mainLock.unlock();
             }
         }
 
-        private void tryUpdateTestCase(String uri, String localName, String qName, Attributes attributes) {
-            if (testcase != null) {
-                switch (qName) {
-                    case "failure":
-                        error = false;
-                        testcase.setStatus(Status.FAILED);
-                        break;
-                    case "error":
-                        error = true;
-                        testcase.setStatus(Status.ERROR);
-                        break;
-                    case "skipped":
-                        error = false;
-                        testcase.setStatus(Status.SKIPPED);
-                        break;
-                    default:
-                        LOGGER.log(Level.WARNING, "Unexpected element in testcase: {0}", qName);
-                        error = true;
-                        testcase.setStatus(Status.ERROR);
-                        break;
+        public TestXmlReport waitAndRemoveReport(int index) {
+            mainLock.lock();
+            try {
+                while (!completed[index]) {
+                    completedCondition.awaitUninterruptibly();
                 }
-                failureContent = new StringBuilder(1024);
-            }
-        }
-
-        private void tryStartOutput(String uri, String localName, String qName, Attributes attributes) {
-            switch (qName) {
-                case "system-out":
-                    outputBuilder = new StringBuilder();
-                    outputBuilderIsStdOut = true;
-                    break;
-                case "system-err":
-                    outputBuilder = new StringBuilder();
-                    outputBuilderIsStdOut = false;
-                    break;
-            }
-        }
 
-        @Override
-        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-            switch (level) {
-                case 0:
-                    startSuite(attributes);
-                    break;
-                case 1:
-                    if (!tryAddTestCase(uri, localName, qName, attributes)) {
-                        tryStartOutput(uri, localName, qName, attributes);
-                    }
-                    break;
-                case 2:
-                    tryUpdateTestCase(uri, localName, qName, attributes);
-                    break;
+                TestXmlReport result = reports[index];
+                reports[index] = null;
+                return result;
+            } finally {
+                mainLock.unlock();
             }
-
-            level++;
-        }
-
-        @Override
-        public void endElement(String uri, String localName, String qName) throws SAXException {
-            level--;
-
-            switch (level) {
-                case 1:
-                    testcase = null;
-                    if (outputBuilder != null) {
-                        if (outputBuilderIsStdOut) {
-                            stdout = outputBuilder.toString();
-                        }
-                        else {
-                            stderr = outputBuilder.toString();
-                        }
-                        outputBuilder = null;
-                    }
-                    break;
-                case 2:
-                    if (failureContent != null && testcase != null) {
-                        Trouble trouble = new Trouble(error);
-                        trouble.setStackTrace(extractStackTrace(failureContent.toString()));
-                        testcase.setTrouble(trouble);
-                    }
-                    failureContent = null;
-                    break;
-            }
-        }
-
-        private static void tryAppend(char[] ch, int start, int length, StringBuilder... results) {
-            for (StringBuilder result: results) {
-                if (result != null) {
-                    result.append(ch, start, length);
-                }
-            }
-        }
-
-        @Override
-        public void characters(char[] ch, int start, int length) throws SAXException {
-            tryAppend(ch, start, length, failureContent, outputBuilder);
         }
     }
 }
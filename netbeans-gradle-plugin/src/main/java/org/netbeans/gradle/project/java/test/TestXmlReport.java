@@ -0,0 +1,477 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.parsers.SAXParser;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.others.test.NbGradleTestSession;
+import org.netbeans.gradle.project.others.test.NbGradleTestSuite;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+import org.netbeans.modules.gsf.testrunner.api.Testcase;
+import org.netbeans.modules.gsf.testrunner.api.Trouble;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Defines the content of a single JUnit XML report file (a test suite).
+ * Reports are parsed without touching the test session, so that multiple
+ * reports can be parsed concurrently, and {@link #addToSession(NbGradleTestSession) added}
+ * to the session later.
+ * <P>
+ * The captured output of the test suite is only kept up to a limit because
+ * the whole output must be passed to the test session as a single string and
+ * some test suites print megabytes to the output.
+ */
+final class TestXmlReport {
+    private static final Logger LOGGER = Logger.getLogger(TestXmlReport.class.getName());
+
+    static final int DEFAULT_MAX_OUTPUT_LENGTH = 1024 * 1024;
+    private static final String STACKTRACE_PREFIX = "at ";
+
+    private final String suiteName;
+    private final long suiteTime;
+    private final List<TestcaseDef> testcases;
+    private final String stdOut;
+    private final String stdErr;
+
+    TestXmlReport(
+            String suiteName,
+            long suiteTime,
+            List<TestcaseDef> testcases,
+            String stdOut,
+            String stdErr) {
+        ExceptionHelper.checkNotNullArgument(suiteName, "suiteName");
+        ExceptionHelper.checkNotNullArgument(testcases, "testcases");
+
+        this.suiteName = suiteName;
+        this.suiteTime = suiteTime;
+        this.testcases = Collections.unmodifiableList(new ArrayList<>(testcases));
+        this.stdOut = stdOut;
+        this.stdErr = stdErr;
+
+        ExceptionHelper.checkNotNullElements(this.testcases, "testcases");
+    }
+
+    private TestXmlReport(TestXmlContentHandler parsedContent) {
+        this(parsedContent.suiteName,
+                parsedContent.suiteTime,
+                parsedContent.testcases,
+                parsedContent.stdout,
+                parsedContent.stderr);
+    }
+
+    public static TestXmlReport parse(File reportFile, SAXParser parser) throws IOException, SAXException {
+        return parse(reportFile, parser, DEFAULT_MAX_OUTPUT_LENGTH);
+    }
+
+    public static TestXmlReport parse(
+            File reportFile,
+            SAXParser parser,
+            int maxOutputLength) throws IOException, SAXException {
+        ExceptionHelper.checkNotNullArgument(reportFile, "reportFile");
+        ExceptionHelper.checkNotNullArgument(parser, "parser");
+        ExceptionHelper.checkArgumentInRange(maxOutputLength, 0, Integer.MAX_VALUE, "maxOutputLength");
+
+        parser.reset();
+
+        TestXmlContentHandler contentHandler = new TestXmlContentHandler(reportFile, maxOutputLength);
+        parser.parse(reportFile, contentHandler);
+
+        return contentHandler.suiteName != null
+                ? new TestXmlReport(contentHandler)
+                : null;
+    }
+
+    public String getSuiteName() {
+        return suiteName;
+    }
+
+    public long getSuiteTime() {
+        return suiteTime;
+    }
+
+    public List<TestcaseDef> getTestcases() {
+        return testcases;
+    }
+
+    public String getStdOut() {
+        return stdOut;
+    }
+
+    public String getStdErr() {
+        return stdErr;
+    }
+
+    public void addToSession(NbGradleTestSession testSession) {
+        ExceptionHelper.checkNotNullArgument(testSession, "testSession");
+
+        NbGradleTestSuite testSuite = testSession.startTestSuite(suiteName);
+        for (TestcaseDef testcaseDef: testcases) {
+            testcaseDef.addToSuite(testSuite);
+        }
+
+        testSuite.setStdErr(stdErr);
+        testSuite.setStdOut(stdOut);
+        testSuite.endSuite(suiteTime);
+    }
+
+    private static long tryReadTimeMillis(String timeStr, long defaultValue) {
+        if (timeStr == null) {
+            return defaultValue;
+        }
+
+        try {
+            return Math.round(Double.parseDouble(timeStr) * 1000.0);
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean startsWith(StringBuilder text, int startIndex, int endIndex, String prefix) {
+        int prefixLength = prefix.length();
+        if (endIndex - startIndex < prefixLength) {
+            return false;
+        }
+
+        for (int i = 0; i < prefixLength; i++) {
+            if (text.charAt(startIndex + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stackTraceLine(StringBuilder text, int startIndex, int endIndex) {
+        int lineStart = startIndex;
+        while (lineStart < endIndex && text.charAt(lineStart) <= ' ') {
+            lineStart++;
+        }
+
+        int lineEnd = endIndex;
+        while (lineEnd > lineStart && text.charAt(lineEnd - 1) <= ' ') {
+            lineEnd--;
+        }
+
+        if (startsWith(text, lineStart, lineEnd, STACKTRACE_PREFIX)) {
+            lineStart += STACKTRACE_PREFIX.length();
+        }
+
+        return text.substring(lineStart, lineEnd);
+    }
+
+    /**
+     * Splits the content of a failure element into the lines to be displayed
+     * as the stack trace. The first line is the exception message and is
+     * kept as is, the other lines are trimmed and the "at " prefix is removed
+     * from them.
+     */
+    static String[] extractStackTrace(StringBuilder text) {
+        int startIndex = 0;
+        int endIndex = text.length();
+        while (startIndex < endIndex && text.charAt(startIndex) <= ' ') {
+            startIndex++;
+        }
+        while (endIndex > startIndex && text.charAt(endIndex - 1) <= ' ') {
+            endIndex--;
+        }
+
+        List<String> lines = new ArrayList<>();
+        int lineStart = startIndex;
+        for (int i = startIndex; i < endIndex; i++) {
+            char ch = text.charAt(i);
+            if (ch != '\n' && ch != '\r') {
+                continue;
+            }
+
+            lines.add(lines.isEmpty()
+                    ? text.substring(lineStart, i)
+                    : stackTraceLine(text, lineStart, i));
+
+            if (ch == '\r' && i + 1 < endIndex && text.charAt(i + 1) == '\n') {
+                i++;
+            }
+            lineStart = i + 1;
+        }
+
+        lines.add(lines.isEmpty()
+                ? text.substring(lineStart, endIndex)
+                : stackTraceLine(text, lineStart, endIndex));
+
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    public static final class TestcaseDef {
+        private final String name;
+        private final String className;
+        private final long timeMillis;
+        private Status status;
+        private boolean error;
+        private String[] stackTrace;
+
+        private TestcaseDef(String name, String className, long timeMillis, Status status) {
+            this.name = name;
+            this.className = className;
+            this.timeMillis = timeMillis;
+            this.status = status;
+            this.error = false;
+            this.stackTrace = null;
+        }
+
+        /**
+         * Creates a test case with its stack trace as printed by
+         * {@code Throwable.printStackTrace}.
+         *
+         * @param stackTrace the stack trace of the failure or {@code null}
+         *   if the test did not fail
+         */
+        static TestcaseDef create(
+                String name,
+                String className,
+                long timeMillis,
+                Status status,
+                String stackTrace) {
+            ExceptionHelper.checkNotNullArgument(name, "name");
+            ExceptionHelper.checkNotNullArgument(status, "status");
+
+            TestcaseDef result = new TestcaseDef(name, className, timeMillis, status);
+            if (stackTrace != null) {
+                result.stackTrace = extractStackTrace(new StringBuilder(stackTrace));
+            }
+            return result;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String[] getStackTrace() {
+            return stackTrace != null ? stackTrace.clone() : null;
+        }
+
+        private void addToSuite(NbGradleTestSuite testSuite) {
+            Testcase testcase = testSuite.addTestcase(name);
+            if (className != null) {
+                testcase.setClassName(className);
+            }
+            testcase.setTimeMillis(timeMillis);
+            testcase.setStatus(status);
+
+            if (stackTrace != null) {
+                Trouble trouble = new Trouble(error);
+                trouble.setStackTrace(stackTrace);
+                testcase.setTrouble(trouble);
+            }
+        }
+    }
+
+    private static final class TestXmlContentHandler extends DefaultHandler {
+        private final File reportFile;
+        private final int maxOutputLength;
+
+        private int level;
+        private String suiteName;
+        private final List<TestcaseDef> testcases;
+
+        private String stdout;
+        private String stderr;
+        private long suiteTime;
+        private boolean error;
+        private TestcaseDef testcase;
+        private StringBuilder failureContent;
+        private boolean outputBuilderIsStdOut;
+        private StringBuilder outputBuilder;
+        private boolean outputTruncated;
+
+        public TestXmlContentHandler(File reportFile, int maxOutputLength) {
+            this.reportFile = reportFile;
+            this.maxOutputLength = maxOutputLength;
+            this.testcases = new ArrayList<>();
+
+            this.level = 0;
+            this.suiteName = null;
+            this.suiteTime = 0;
+            this.error = false;
+            this.testcase = null;
+            this.failureContent = null;
+            this.outputBuilderIsStdOut = false;
+            this.outputTruncated = false;
+        }
+
+        private void startSuite(Attributes attributes) {
+            String name = attributes.getValue("", "name");
+            suiteTime = tryReadTimeMillis(attributes.getValue("", "time"), 0);
+
+            suiteName = name != null ? name : reportFile.getName();
+        }
+
+        private TestcaseDef tryGetTestCase(Attributes attributes, Status status) {
+            if (suiteName == null) {
+                LOGGER.warning("test suite has not been started but there is a test case to add.");
+                return null;
+            }
+
+            String name = attributes.getValue("", "name");
+            if (name == null) {
+                return null;
+            }
+
+            String className = attributes.getValue("", "classname");
+            long time = tryReadTimeMillis(attributes.getValue("", "time"), 0);
+
+            return new TestcaseDef(name, className, time, status);
+        }
+
+        private boolean tryAddTestCase(String uri, String localName, String qName, Attributes attributes) {
+            switch (qName) {
+                case "testcase":
+                    testcase = tryGetTestCase(attributes, Status.PASSED);
+                    break;
+                case "ignored-testcase":
+                    testcase = tryGetTestCase(attributes, Status.SKIPPED);
+                    break;
+            }
+
+            if (testcase != null) {
+                testcases.add(testcase);
+                return true;
+            }
+            else {
+                return false;
+            }
+        }
+
+        private void tryUpdateTestCase(String uri, String localName, String qName, Attributes attributes) {
+            if (testcase != null) {
+                switch (qName) {
+                    case "failure":
+                        error = false;
+                        testcase.status = Status.FAILED;
+                        break;
+                    case "error":
+                        error = true;
+                        testcase.status = Status.ERROR;
+                        break;
+                    case "skipped":
+                        error = false;
+                        testcase.status = Status.SKIPPED;
+                        break;
+                    default:
+                        LOGGER.log(Level.WARNING, "Unexpected element in testcase: {0}", qName);
+                        error = true;
+                        testcase.status = Status.ERROR;
+                        break;
+                }
+                failureContent = new StringBuilder(1024);
+            }
+        }
+
+        private void tryStartOutput(String uri, String localName, String qName, Attributes attributes) {
+            switch (qName) {
+                case "system-out":
+                    outputBuilder = new StringBuilder();
+                    outputBuilderIsStdOut = true;
+                    outputTruncated = false;
+                    break;
+                case "system-err":
+                    outputBuilder = new StringBuilder();
+                    outputBuilderIsStdOut = false;
+                    outputTruncated = false;
+                    break;
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (level) {
+                case 0:
+                    startSuite(attributes);
+                    break;
+                case 1:
+                    if (!tryAddTestCase(uri, localName, qName, attributes)) {
+                        tryStartOutput(uri, localName, qName, attributes);
+                    }
+                    break;
+                case 2:
+                    tryUpdateTestCase(uri, localName, qName, attributes);
+                    break;
+            }
+
+            level++;
+        }
+
+        private String getOutput() {
+            if (outputTruncated) {
+                outputBuilder.append("\n... (the output was truncated, see ");
+                outputBuilder.append(reportFile.getPath());
+                outputBuilder.append(")\n");
+            }
+            return outputBuilder.toString();
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            level--;
+
+            switch (level) {
+                case 1:
+                    testcase = null;
+                    if (outputBuilder != null) {
+                        if (outputBuilderIsStdOut) {
+                            stdout = getOutput();
+                        }
+                        else {
+                            stderr = getOutput();
+                        }
+                        outputBuilder = null;
+                    }
+                    break;
+                case 2:
+                    if (failureContent != null && testcase != null) {
+                        testcase.error = error;
+                        testcase.stackTrace = extractStackTrace(failureContent);
+                    }
+                    failureContent = null;
+                    break;
+            }
+        }
+
+        private void appendOutput(char[] ch, int start, int length) {
+            int remaining = maxOutputLength - outputBuilder.length();
+            if (length > remaining) {
+                outputTruncated = true;
+                outputBuilder.append(ch, start, Math.max(remaining, 0));
+            }
+            else {
+                outputBuilder.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (failureContent != null) {
+                failureContent.append(ch, start, length);
+            }
+            if (outputBuilder != null) {
+                appendOutput(ch, start, length);
+            }
+        }
+    }
+}
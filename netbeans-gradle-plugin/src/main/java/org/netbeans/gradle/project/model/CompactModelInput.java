@@ -0,0 +1,185 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.util.SerializationUtils;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines an input stream to read models written by a
+ * {@link CompactModelOutput}. Interned strings and files are returned as
+ * the same instances, so reading a model does not create duplicates of the
+ * same path or string.
+ * <P>
+ * Instances of this class are not safe to be used by multiple threads
+ * concurrently.
+ *
+ * @see CompactModelOutput
+ */
+public final class CompactModelInput {
+    private final DataInputStream input;
+    private final List<String> strings;
+    private final List<File> files;
+
+    public CompactModelInput(InputStream input) {
+        ExceptionHelper.checkNotNullArgument(input, "input");
+
+        this.input = new DataInputStream(input);
+        this.strings = new ArrayList<>();
+        this.files = new ArrayList<>();
+    }
+
+    public int readByte() throws IOException {
+        return input.readByte();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return input.readBoolean();
+    }
+
+    public int readInt() throws IOException {
+        return input.readInt();
+    }
+
+    public int readVarInt() throws IOException {
+        int result = 0;
+        int shift = 0;
+        while (true) {
+            int value = input.readUnsignedByte();
+            result |= (value & 0x7F) << shift;
+            if ((value & 0x80) == 0) {
+                break;
+            }
+
+            shift += 7;
+            if (shift > 28) {
+                throw new IOException("Invalid variable length integer.");
+            }
+        }
+
+        if (result < 0) {
+            throw new IOException("Invalid variable length integer.");
+        }
+        return result;
+    }
+
+    public byte[] readBytes() throws IOException {
+        byte[] result = new byte[readVarInt()];
+        input.readFully(result);
+        return result;
+    }
+
+    private static <T> T getRef(List<T> values, int tag) throws IOException {
+        int index = tag - CompactModelOutput.FIRST_REF_TAG;
+        if (index >= values.size()) {
+            throw new IOException("Invalid reference: " + index);
+        }
+        return values.get(index);
+    }
+
+    public String readString() throws IOException {
+        String result = readNullableString();
+        if (result == null) {
+            throw new IOException("Unexpected null string.");
+        }
+        return result;
+    }
+
+    public String readNullableString() throws IOException {
+        int tag = readVarInt();
+        switch (tag) {
+            case CompactModelOutput.TAG_NULL:
+                return null;
+            case CompactModelOutput.TAG_NEW:
+                String result = new String(readBytes(), StringUtils.UTF8);
+                strings.add(result);
+                return result;
+            default:
+                return getRef(strings, tag);
+        }
+    }
+
+    public List<String> readStrings() throws IOException {
+        int count = readVarInt();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(readString());
+        }
+        return result;
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> enumType) throws IOException {
+        String name = readNullableString();
+        if (name == null) {
+            return null;
+        }
+
+        try {
+            return Enum.valueOf(enumType, name);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Unknown " + enumType.getSimpleName() + ": " + name, ex);
+        }
+    }
+
+    public File readFile() throws IOException {
+        File result = readNullableFile();
+        if (result == null) {
+            throw new IOException("Unexpected null file.");
+        }
+        return result;
+    }
+
+    public File readNullableFile() throws IOException {
+        int tag = readVarInt();
+        switch (tag) {
+            case CompactModelOutput.TAG_NULL:
+                return null;
+            case CompactModelOutput.TAG_NEW:
+                File parent = readNullableFile();
+                String name = readString();
+                File result = parent != null ? new File(parent, name) : new File(name);
+                files.add(result);
+                return result;
+            default:
+                return getRef(files, tag);
+        }
+    }
+
+    public List<File> readFiles() throws IOException {
+        int count = readVarInt();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        List<File> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(readFile());
+        }
+        return result;
+    }
+
+    public Object readSerializable(ClassLoader classLoader) throws IOException {
+        ExceptionHelper.checkNotNullArgument(classLoader, "classLoader");
+
+        if (!readBoolean()) {
+            return null;
+        }
+
+        byte[] serialized = readBytes();
+        try {
+            return SerializationUtils.deserializeObject(serialized, classLoader);
+        } catch (ClassNotFoundException | RuntimeException ex) {
+            throw new IOException("Failed to deserialize object.", ex);
+        }
+    }
+}
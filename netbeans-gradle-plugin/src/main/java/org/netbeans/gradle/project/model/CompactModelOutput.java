@@ -0,0 +1,174 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.util.SerializationUtils;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines an output stream to write models in the compact binary format of the
+ * persistent model cache. Strings and files written to this output are
+ * interned: Writing the same string (or file) again only writes a reference
+ * to the previously written value. Files are written as a reference to their
+ * parent directory and their name, so files in the same directory share their
+ * common path prefix.
+ * <P>
+ * The written values can be read back by a {@link CompactModelInput} in the
+ * same order they were written.
+ * <P>
+ * Instances of this class are not safe to be used by multiple threads
+ * concurrently.
+ *
+ * @see CompactModelInput
+ */
+public final class CompactModelOutput {
+    static final int TAG_NULL = 0;
+    static final int TAG_NEW = 1;
+    static final int FIRST_REF_TAG = 2;
+
+    private final DataOutputStream output;
+    private final Map<String, Integer> strings;
+    private final Map<File, Integer> files;
+
+    public CompactModelOutput(OutputStream output) {
+        ExceptionHelper.checkNotNullArgument(output, "output");
+
+        this.output = new DataOutputStream(output);
+        this.strings = new HashMap<>();
+        this.files = new HashMap<>();
+    }
+
+    public void writeByte(int value) throws IOException {
+        output.writeByte(value);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        output.writeBoolean(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        output.writeInt(value);
+    }
+
+    /**
+     * Writes a non-negative integer in a variable length format. That is,
+     * small integers need less bytes to be written.
+     */
+    public void writeVarInt(int value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    public void writeBytes(byte[] bytes) throws IOException {
+        ExceptionHelper.checkNotNullArgument(bytes, "bytes");
+
+        writeVarInt(bytes.length);
+        output.write(bytes);
+    }
+
+    public void writeString(String str) throws IOException {
+        ExceptionHelper.checkNotNullArgument(str, "str");
+        writeNullableString(str);
+    }
+
+    public void writeNullableString(String str) throws IOException {
+        if (str == null) {
+            writeVarInt(TAG_NULL);
+            return;
+        }
+
+        Integer index = strings.get(str);
+        if (index != null) {
+            writeVarInt(FIRST_REF_TAG + index);
+            return;
+        }
+
+        strings.put(str, strings.size());
+        writeVarInt(TAG_NEW);
+        writeBytes(str.getBytes(StringUtils.UTF8));
+    }
+
+    public void writeStrings(Collection<String> values) throws IOException {
+        writeVarInt(values.size());
+        for (String value: values) {
+            writeString(value);
+        }
+    }
+
+    public void writeEnum(Enum<?> value) throws IOException {
+        writeNullableString(value != null ? value.name() : null);
+    }
+
+    public void writeFile(File file) throws IOException {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+        writeNullableFile(file);
+    }
+
+    public void writeNullableFile(File file) throws IOException {
+        if (file == null) {
+            writeVarInt(TAG_NULL);
+            return;
+        }
+
+        Integer index = files.get(file);
+        if (index != null) {
+            writeVarInt(FIRST_REF_TAG + index);
+            return;
+        }
+
+        writeVarInt(TAG_NEW);
+
+        File parent = file.getParentFile();
+        writeNullableFile(parent);
+        writeString(parent != null ? file.getName() : file.getPath());
+
+        // Add only after the parent to have the same index as CompactModelInput.
+        files.put(file, files.size());
+    }
+
+    public void writeFiles(Collection<? extends File> values) throws IOException {
+        writeVarInt(values.size());
+        for (File value: values) {
+            writeFile(value);
+        }
+    }
+
+    /**
+     * Writes the given object using Java serialization. This method should
+     * only be used for objects not having a dedicated compact format.
+     */
+    public void writeSerializable(Object object) throws IOException {
+        if (object == null) {
+            writeBoolean(false);
+            return;
+        }
+
+        byte[] serialized;
+        try {
+            serialized = SerializationUtils.serializeObject(object);
+        } catch (RuntimeException ex) {
+            throw new IOException("Failed to serialize " + object.getClass().getName(), ex);
+        }
+
+        writeBoolean(true);
+        writeBytes(serialized);
+    }
+
+    public void flush() throws IOException {
+        output.flush();
+    }
+}
@@ -0,0 +1,133 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.model.ProjectId;
+
+/**
+ * Contains the compact binary format of the models every Gradle project has.
+ * The format of these models is versioned together with the format of the
+ * cache file.
+ *
+ * @see SerializedNbGradleModels
+ */
+public final class DefaultModelFormats {
+    public static void writeGenericInfo(NbGenericModelInfo genericInfo, CompactModelOutput output) throws IOException {
+        Path settingsFile = genericInfo.getSettingsFile();
+        output.writeNullableString(settingsFile != null ? settingsFile.toString() : null);
+
+        NbGradleMultiProjectDef projectDef = genericInfo.getProjectDef();
+        NbGradleProjectTree rootProject = projectDef.getRootProject();
+        NbGradleProjectTree mainProject = projectDef.getMainProject();
+
+        writeProjectTree(rootProject, output);
+
+        // The main project is almost always part of the tree of the root
+        // project, so there is no reason to store it again.
+        String mainProjectName = mainProject.getProjectFullName();
+        if (rootProject.findByPath(mainProjectName) == mainProject) {
+            output.writeBoolean(true);
+            output.writeString(mainProjectName);
+        }
+        else {
+            output.writeBoolean(false);
+            writeProjectTree(mainProject, output);
+        }
+    }
+
+    public static NbGenericModelInfo readGenericInfo(CompactModelInput input) throws IOException {
+        String settingsPath = input.readNullableString();
+        Path settingsFile = settingsPath != null ? Paths.get(settingsPath) : null;
+
+        NbGradleProjectTree rootProject = readProjectTree(input);
+
+        NbGradleProjectTree mainProject;
+        if (input.readBoolean()) {
+            String mainProjectName = input.readString();
+            mainProject = rootProject.findByPath(mainProjectName);
+            if (mainProject == null) {
+                throw new IOException("Missing main project: " + mainProjectName);
+            }
+        }
+        else {
+            mainProject = readProjectTree(input);
+        }
+
+        return new NbGenericModelInfo(new NbGradleMultiProjectDef(rootProject, mainProject), settingsFile);
+    }
+
+    private static void writeProjectTree(NbGradleProjectTree tree, CompactModelOutput output) throws IOException {
+        writeProjectProperties(tree.getGenericProperties(), output);
+
+        Collection<GradleTaskID> tasks = tree.getTasks();
+        output.writeVarInt(tasks.size());
+        for (GradleTaskID task: tasks) {
+            output.writeNullableString(task.getName());
+            output.writeNullableString(task.getFullName());
+        }
+
+        Collection<NbGradleProjectTree> children = tree.getChildren();
+        output.writeVarInt(children.size());
+        for (NbGradleProjectTree child: children) {
+            writeProjectTree(child, output);
+        }
+    }
+
+    private static NbGradleProjectTree readProjectTree(CompactModelInput input) throws IOException {
+        GenericProjectProperties properties = readProjectProperties(input);
+
+        int taskCount = input.readVarInt();
+        List<GradleTaskID> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            String name = input.readNullableString();
+            String fullName = input.readNullableString();
+            tasks.add(new GradleTaskID(name, fullName));
+        }
+
+        int childCount = input.readVarInt();
+        List<NbGradleProjectTree> children = new ArrayList<>(childCount);
+        for (int i = 0; i < childCount; i++) {
+            children.add(readProjectTree(input));
+        }
+
+        return new NbGradleProjectTree(properties, tasks, children);
+    }
+
+    public static void writeProjectProperties(
+            GenericProjectProperties properties,
+            CompactModelOutput output) throws IOException {
+
+        ProjectId projectId = properties.getProjectId();
+        output.writeString(projectId.getGroup());
+        output.writeString(projectId.getName());
+        output.writeString(projectId.getVersion());
+
+        output.writeString(properties.getProjectFullName());
+        output.writeFile(properties.getProjectDir());
+        output.writeNullableFile(properties.getBuildScript());
+        output.writeFile(properties.getBuildDir());
+    }
+
+    public static GenericProjectProperties readProjectProperties(CompactModelInput input) throws IOException {
+        String group = input.readString();
+        String name = input.readString();
+        String version = input.readString();
+
+        return new GenericProjectProperties(
+                new ProjectId(group, name, version),
+                input.readString(),
+                input.readFile(),
+                input.readNullableFile(),
+                input.readFile());
+    }
+
+    private DefaultModelFormats() {
+        throw new AssertionError();
+    }
+}
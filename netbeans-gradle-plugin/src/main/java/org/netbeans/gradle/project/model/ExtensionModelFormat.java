@@ -0,0 +1,29 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+
+/**
+ * Defines a compact binary format of an extension model to be stored in the
+ * persistent model cache. Extension models without such a format are stored
+ * using Java serialization.
+ * <P>
+ * Implementations must be safe to be called from multiple threads
+ * concurrently.
+ *
+ * @param <ModelType> the type of the extension model
+ *
+ * @see ExtensionModelFormats
+ */
+public interface ExtensionModelFormat<ModelType> {
+    /**
+     * Returns the version of the format. Cache entries written with a
+     * different version of the format are not read.
+     */
+    public int getFormatVersion();
+
+    public Class<ModelType> getModelType();
+
+    public void writeModel(ModelType model, CompactModelOutput output) throws IOException;
+
+    public ModelType readModel(CompactModelInput input) throws IOException;
+}
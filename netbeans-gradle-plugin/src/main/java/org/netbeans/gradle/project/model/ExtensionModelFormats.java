@@ -0,0 +1,30 @@
+package org.netbeans.gradle.project.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.netbeans.gradle.project.java.model.JavaModelCompactFormat;
+
+public final class ExtensionModelFormats {
+    private static final Map<Class<?>, ExtensionModelFormat<?>> FORMATS = createFormats();
+
+    private static Map<Class<?>, ExtensionModelFormat<?>> createFormats() {
+        Map<Class<?>, ExtensionModelFormat<?>> result = new HashMap<>();
+        addFormat(result, JavaModelCompactFormat.INSTANCE);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static void addFormat(
+            Map<Class<?>, ExtensionModelFormat<?>> result,
+            ExtensionModelFormat<?> format) {
+        result.put(format.getModelType(), format);
+    }
+
+    public static ExtensionModelFormat<?> tryGetFormat(Class<?> modelType) {
+        return FORMATS.get(modelType);
+    }
+
+    private ExtensionModelFormats() {
+        throw new AssertionError();
+    }
+}
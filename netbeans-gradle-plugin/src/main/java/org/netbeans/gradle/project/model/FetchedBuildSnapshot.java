@@ -0,0 +1,164 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.FetchedProjectModels;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.util.CollectionUtils;
+
+/**
+ * Defines the models fetched from Gradle during the last load of a build,
+ * along with the fingerprints of the inputs of the projects at the time
+ * of the load. A later load may use the snapshot to only fetch the models of
+ * the projects whose inputs have changed.
+ * <P>
+ * Snapshots are only softly referenced, so they do not keep the fetched models
+ * in memory if memory is needed elsewhere.
+ * <P>
+ * Instances of this class are immutable and safe to be shared by multiple
+ * threads concurrently.
+ */
+final class FetchedBuildSnapshot {
+    private static final String ROOT_PROJECT_PATH = ":";
+
+    private static final Lock SNAPSHOTS_LOCK = new ReentrantLock();
+    private static final Map<Path, SoftReference<FetchedBuildSnapshot>> SNAPSHOTS = new HashMap<>();
+
+    private final ModelInputFingerprint buildInputs;
+    // Project path -> project snapshot
+    private final Map<String, ProjectSnapshot> projects;
+
+    public FetchedBuildSnapshot(ModelInputFingerprint buildInputs, Map<String, ProjectSnapshot> projects) {
+        ExceptionHelper.checkNotNullArgument(buildInputs, "buildInputs");
+
+        this.buildInputs = buildInputs;
+        this.projects = CollectionUtils.copyNullSafeHashMap(projects);
+    }
+
+    public static FetchedBuildSnapshot tryGetSnapshot(Path buildKey) {
+        ExceptionHelper.checkNotNullArgument(buildKey, "buildKey");
+
+        SoftReference<FetchedBuildSnapshot> resultRef;
+        SNAPSHOTS_LOCK.lock();
+        try {
+            resultRef = SNAPSHOTS.get(buildKey);
+        } finally {
+            SNAPSHOTS_LOCK.unlock();
+        }
+        return resultRef != null ? resultRef.get() : null;
+    }
+
+    public static void storeSnapshot(Path buildKey, FetchedBuildSnapshot snapshot) {
+        ExceptionHelper.checkNotNullArgument(buildKey, "buildKey");
+
+        SNAPSHOTS_LOCK.lock();
+        try {
+            if (snapshot != null) {
+                SNAPSHOTS.put(buildKey, new SoftReference<>(snapshot));
+            }
+            else {
+                SNAPSHOTS.remove(buildKey);
+            }
+        } finally {
+            SNAPSHOTS_LOCK.unlock();
+        }
+    }
+
+    public ModelInputFingerprint getBuildInputs() {
+        return buildInputs;
+    }
+
+    public Map<String, ProjectSnapshot> getProjects() {
+        return projects;
+    }
+
+    public String tryGetProjectPath(File projectDir) {
+        for (Map.Entry<String, ProjectSnapshot> entry: projects.entrySet()) {
+            if (projectDir.equals(entry.getValue().getProperties().getProjectDir())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the paths of the projects whose models need to be fetched or
+     * {@code null} if the models of every project should be fetched.
+     *
+     * @param mainPath the path of the project being loaded. The models of
+     *   this project are always fetched. This argument cannot be {@code null}.
+     * @param currentInputs the current fingerprints of the inputs of the
+     *   projects of this snapshot (project path -> fingerprint). This argument
+     *   cannot be {@code null}.
+     */
+    public Set<String> tryGetPathsToFetch(String mainPath, Map<String, ModelInputFingerprint> currentInputs) {
+        Map<String, ModelInputFingerprint> fetchedInputs = CollectionUtils.newHashMap(projects.size());
+        for (Map.Entry<String, ProjectSnapshot> entry: projects.entrySet()) {
+            fetchedInputs.put(entry.getKey(), entry.getValue().getInputs());
+        }
+        return tryGetPathsToFetch(mainPath, fetchedInputs, currentInputs);
+    }
+
+    static Set<String> tryGetPathsToFetch(
+            String mainPath,
+            Map<String, ModelInputFingerprint> fetchedInputs,
+            Map<String, ModelInputFingerprint> currentInputs) {
+        ExceptionHelper.checkNotNullArgument(mainPath, "mainPath");
+        ExceptionHelper.checkNotNullArgument(fetchedInputs, "fetchedInputs");
+        ExceptionHelper.checkNotNullArgument(currentInputs, "currentInputs");
+
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, ModelInputFingerprint> entry: fetchedInputs.entrySet()) {
+            String path = entry.getKey();
+            if (!entry.getValue().equals(currentInputs.get(path))) {
+                if (ROOT_PROJECT_PATH.equals(path)) {
+                    // The root project usually configures its subprojects.
+                    return null;
+                }
+                result.add(path);
+            }
+        }
+
+        if (2 * result.size() > fetchedInputs.size()) {
+            // Fetching most of the projects is not worth the extra work of
+            // merging them with the previously fetched models.
+            return null;
+        }
+
+        result.add(mainPath);
+        return result;
+    }
+
+    public static final class ProjectSnapshot {
+        private final FetchedProjectModels models;
+        private final ModelInputFingerprint inputs;
+
+        public ProjectSnapshot(FetchedProjectModels models, ModelInputFingerprint inputs) {
+            ExceptionHelper.checkNotNullArgument(models, "models");
+            ExceptionHelper.checkNotNullArgument(inputs, "inputs");
+
+            this.models = models;
+            this.inputs = inputs;
+        }
+
+        public FetchedProjectModels getModels() {
+            return models;
+        }
+
+        public GenericProjectProperties getProperties() {
+            return models.getProjectDef().getMainProject().getGenericProperties();
+        }
+
+        public ModelInputFingerprint getInputs() {
+            return inputs;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gradle.tooling.ProjectConnection;
+import org.jtrim.cancel.CancelableWaits;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
+
+/**
+ * Defines a pool of {@code ProjectConnection} instances, so that subsequent
+ * model loads and task executions on the same project do not have to
+ * resolve the Gradle distribution and connect to the daemon again.
+ * <P>
+ * Connections are shared by concurrent users (the Tooling API allows
+ * executing multiple operations on the same connection concurrently) and
+ * are closed after they were not used for the idle timeout specified by
+ * their {@link ConnectionKey key}. An idle connection is also closed when
+ * a connection to the same directory is requested with a different key
+ * (e.g.: after the Gradle wrapper was updated).
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class GradleConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(GradleConnectionPool.class.getName());
+
+    // The default idle timeout of the Gradle daemon.
+    private static final long DEFAULT_IDLE_TIMEOUT_MS = TimeUnit.HOURS.toMillis(3);
+
+    private static final GradleConnectionPool DEFAULT = new GradleConnectionPool();
+
+    private final Lock mainLock;
+    private final Condition idleEntriesChanged;
+    private final Map<ConnectionKey, PooledEntry> entries;
+    private final TaskExecutor evictorExecutor;
+    // Guarded by mainLock
+    private boolean evictorRunning;
+
+    public GradleConnectionPool() {
+        this.mainLock = new ReentrantLock();
+        this.idleEntriesChanged = mainLock.newCondition();
+        this.entries = new HashMap<>();
+        this.evictorExecutor = NbTaskExecutors.newExecutor("Gradle-Connection-Pool-Evictor", 1);
+        this.evictorRunning = false;
+    }
+
+    public static GradleConnectionPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a connection for the given key, creating a new connection via
+     * the given factory if there is no pooled connection for the key.
+     * The returned reference must be closed after the connection is no
+     * longer needed. The connection itself must not be closed by the caller.
+     *
+     * @param cancelToken the cancellation token signaling that the caller no
+     *   longer needs the connection. Canceling this token only stops waiting
+     *   for a connection being created concurrently by another caller. This
+     *   argument cannot be {@code null}.
+     * @param key the key identifying the connection. This argument cannot be
+     *   {@code null}.
+     * @param connectionFactory the factory creating a new connection if
+     *   necessary. The created connection might be shared with other callers,
+     *   so the factory must not depend on the state of the current caller
+     *   (e.g.: its cancellation token). This argument cannot be {@code null}.
+     * @return the reference to the connection. This method never returns
+     *   {@code null}.
+     */
+    public PooledConnectionRef acquireConnection(
+            CancellationToken cancelToken,
+            ConnectionKey key,
+            ConnectionFactory connectionFactory) {
+        ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(connectionFactory, "connectionFactory");
+
+        PooledEntry entry;
+        List<PooledEntry> obsoleteEntries;
+        mainLock.lock();
+        try {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new PooledEntry(key);
+                entries.put(key, entry);
+            }
+            entry.useCount++;
+
+            obsoleteEntries = removeIdleEntries(key);
+        } finally {
+            mainLock.unlock();
+        }
+
+        closeEntries(obsoleteEntries);
+
+        ProjectConnection connection;
+        try {
+            connection = entry.getConnection(cancelToken, connectionFactory);
+        } catch (Throwable ex) {
+            releaseEntry(entry);
+            throw ex;
+        }
+        return new PooledConnectionRef(entry, connection);
+    }
+
+    /**
+     * Removes the idle entries connecting to the directory of the given key
+     * but having a different key. Such connections would never be reused.
+     */
+    private List<PooledEntry> removeIdleEntries(ConnectionKey newKey) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        List<PooledEntry> result = Collections.emptyList();
+
+        Iterator<PooledEntry> entryItr = entries.values().iterator();
+        while (entryItr.hasNext()) {
+            PooledEntry entry = entryItr.next();
+            if (entry.useCount == 0
+                    && newKey.projectDir.equals(entry.key.projectDir)
+                    && !newKey.equals(entry.key)) {
+                entryItr.remove();
+
+                if (result.isEmpty()) {
+                    result = new ArrayList<>();
+                }
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private static void closeEntries(List<PooledEntry> toClose) {
+        for (PooledEntry entry: toClose) {
+            LOGGER.log(Level.FINE, "Closing idle Gradle connection: {0}", entry.key);
+            entry.close();
+        }
+    }
+
+    private void releaseEntry(PooledEntry entry) {
+        boolean startEvictor;
+        mainLock.lock();
+        try {
+            entry.useCount--;
+            if (entry.useCount > 0) {
+                return;
+            }
+            entry.lastReleaseTime = System.nanoTime();
+
+            startEvictor = !evictorRunning;
+            evictorRunning = true;
+            idleEntriesChanged.signalAll();
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (startEvictor) {
+            evictorExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) {
+                    evictIdleEntries();
+                }
+            }, null);
+        }
+    }
+
+    /**
+     * Closes the entries not used for their idle timeout until there are no
+     * more idle entries.
+     */
+    private void evictIdleEntries() {
+        while (true) {
+            List<PooledEntry> toClose = new ArrayList<>();
+            mainLock.lock();
+            try {
+                long waitNanos = removeExpiredEntries(toClose);
+                if (toClose.isEmpty()) {
+                    if (waitNanos == Long.MAX_VALUE) {
+                        evictorRunning = false;
+                        return;
+                    }
+
+                    CancelableWaits.await(Cancellation.UNCANCELABLE_TOKEN,
+                            waitNanos, TimeUnit.NANOSECONDS, idleEntriesChanged);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+
+            closeEntries(toClose);
+        }
+    }
+
+    /**
+     * Removes the expired entries and returns the time in nanoseconds until the
+     * next idle entry expires or {@code Long.MAX_VALUE} if there are no idle
+     * entries.
+     */
+    private long removeExpiredEntries(List<PooledEntry> result) {
+        assert ((ReentrantLock)mainLock).isHeldByCurrentThread();
+
+        long currentTime = System.nanoTime();
+        long minWaitNanos = Long.MAX_VALUE;
+
+        Iterator<PooledEntry> entryItr = entries.values().iterator();
+        while (entryItr.hasNext()) {
+            PooledEntry entry = entryItr.next();
+            if (entry.useCount > 0) {
+                continue;
+            }
+
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(entry.getIdleTimeoutMs());
+            long waitNanos = idleTimeoutNanos - (currentTime - entry.lastReleaseTime);
+            if (waitNanos <= 0) {
+                entryItr.remove();
+                result.add(entry);
+            }
+            else {
+                minWaitNanos = Math.min(minWaitNanos, waitNanos);
+            }
+        }
+        return minWaitNanos;
+    }
+
+    /**
+     * Closes every connection not currently in use. This method is called
+     * when the module is closed but it is also safe to be called at any time.
+     */
+    public void closeIdleConnections() {
+        List<PooledEntry> toClose = new ArrayList<>();
+        mainLock.lock();
+        try {
+            Iterator<PooledEntry> entryItr = entries.values().iterator();
+            while (entryItr.hasNext()) {
+                PooledEntry entry = entryItr.next();
+                if (entry.useCount == 0) {
+                    entryItr.remove();
+                    toClose.add(entry);
+                }
+            }
+
+            // Allow the evictor to stop if there are no more idle entries.
+            idleEntriesChanged.signalAll();
+        } finally {
+            mainLock.unlock();
+        }
+
+        closeEntries(toClose);
+    }
+
+    public interface ConnectionFactory {
+        public ProjectConnection connect();
+    }
+
+    /**
+     * Defines a reference to a pooled connection. Closing this reference
+     * returns the connection to the pool and does not close the connection.
+     */
+    public final class PooledConnectionRef implements AutoCloseable {
+        private final PooledEntry entry;
+        private final ProjectConnection connection;
+        private final AtomicBoolean closed;
+
+        private PooledConnectionRef(PooledEntry entry, ProjectConnection connection) {
+            this.entry = entry;
+            this.connection = connection;
+            this.closed = new AtomicBoolean(false);
+        }
+
+        public ProjectConnection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                releaseEntry(entry);
+            }
+        }
+    }
+
+    /**
+     * Defines the properties of a {@code ProjectConnection} which must match
+     * for a connection to be reused.
+     */
+    public static final class ConnectionKey {
+        private final File projectDir;
+        private final String gradleLocation;
+        private final File gradleUserHome;
+        private final File javaHome;
+        private final Integer daemonTimeoutSec;
+        private final FileTime wrapperPropertiesTime;
+
+        /**
+         * Creates a new connection key.
+         *
+         * @param projectDir the directory passed to
+         *   {@code GradleConnector.forProjectDirectory}. This argument cannot
+         *   be {@code null}.
+         * @param gradleLocation the string representation of the Gradle
+         *   distribution used by the connection or {@code null} if the
+         *   connection relies on the wrapper.
+         * @param gradleUserHome the Gradle user home directory or
+         *   {@code null} for the default one.
+         * @param javaHome the JDK used to execute the build scripts or
+         *   {@code null} for the default one.
+         * @param daemonTimeoutSec the idle timeout of the daemon (and of
+         *   the pooled connection) in seconds or {@code null} for the default
+         *   timeout.
+         * @param wrapperPropertiesTime the last modified time of the
+         *   {@code gradle/wrapper/gradle-wrapper.properties} file if the
+         *   connection relies on the wrapper. This argument can be
+         *   {@code null} if the file does not exist or the wrapper is not used.
+         */
+        public ConnectionKey(
+                File projectDir,
+                String gradleLocation,
+                File gradleUserHome,
+                File javaHome,
+                Integer daemonTimeoutSec,
+                FileTime wrapperPropertiesTime) {
+            ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+
+            this.projectDir = projectDir;
+            this.gradleLocation = gradleLocation;
+            this.gradleUserHome = gradleUserHome;
+            this.javaHome = javaHome;
+            this.daemonTimeoutSec = daemonTimeoutSec;
+            this.wrapperPropertiesTime = wrapperPropertiesTime;
+        }
+
+        public long getIdleTimeoutMs() {
+            return daemonTimeoutSec != null
+                    ? TimeUnit.SECONDS.toMillis(daemonTimeoutSec)
+                    : DEFAULT_IDLE_TIMEOUT_MS;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 37 * hash + projectDir.hashCode();
+            hash = 37 * hash + Objects.hashCode(gradleLocation);
+            hash = 37 * hash + Objects.hashCode(gradleUserHome);
+            hash = 37 * hash + Objects.hashCode(javaHome);
+            hash = 37 * hash + Objects.hashCode(daemonTimeoutSec);
+            hash = 37 * hash + Objects.hashCode(wrapperPropertiesTime);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ConnectionKey other = (ConnectionKey)obj;
+            return Objects.equals(this.projectDir, other.projectDir)
+                    && Objects.equals(this.gradleLocation, other.gradleLocation)
+                    && Objects.equals(this.gradleUserHome, other.gradleUserHome)
+                    && Objects.equals(this.javaHome, other.javaHome)
+                    && Objects.equals(this.daemonTimeoutSec, other.daemonTimeoutSec)
+                    && Objects.equals(this.wrapperPropertiesTime, other.wrapperPropertiesTime);
+        }
+
+        @Override
+        public String toString() {
+            return "ConnectionKey{" + "projectDir=" + projectDir
+                    + ", gradleLocation=" + gradleLocation
+                    + ", gradleUserHome=" + gradleUserHome
+                    + ", javaHome=" + javaHome
+                    + ", daemonTimeoutSec=" + daemonTimeoutSec
+                    + ", wrapperPropertiesTime=" + wrapperPropertiesTime + '}';
+        }
+    }
+
+    private static final class PooledEntry {
+        private final ConnectionKey key;
+        private final Lock connectLock;
+        private volatile ProjectConnection connection;
+
+        // The following fields are guarded by the mainLock of the pool.
+        private int useCount;
+        private long lastReleaseTime;
+
+        public PooledEntry(ConnectionKey key) {
+            this.key = key;
+            this.connectLock = new ReentrantLock();
+            this.connection = null;
+            this.useCount = 0;
+            this.lastReleaseTime = System.nanoTime();
+        }
+
+        public long getIdleTimeoutMs() {
+            return key.getIdleTimeoutMs();
+        }
+
+        public ProjectConnection getConnection(
+                CancellationToken cancelToken,
+                ConnectionFactory connectionFactory) {
+
+            ProjectConnection result = connection;
+            if (result != null) {
+                return result;
+            }
+
+            CancelableWaits.lock(cancelToken, connectLock);
+            try {
+                result = connection;
+                if (result == null) {
+                    result = connectionFactory.connect();
+                    connection = result;
+                }
+                return result;
+            } finally {
+                connectLock.unlock();
+            }
+        }
+
+        public void close() {
+            ProjectConnection currentConnection;
+            connectLock.lock();
+            try {
+                currentConnection = connection;
+                connection = null;
+            } finally {
+                connectLock.unlock();
+            }
+
+            if (currentConnection != null) {
+                try {
+                    currentConnection.close();
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.INFO, "Failed to close the Gradle connection: " + key, ex);
+                }
+            }
+        }
+    }
+}
@@ -2,48 +2,122 @@ package org.netbeans.gradle.project.model;
 
 import java.io.File;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.LinkedHashMap;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.jtrim.event.CopyOnTriggerListenerManager;
 import org.jtrim.event.EventDispatcher;
 import org.jtrim.event.ListenerManager;
 import org.jtrim.event.ListenerRef;
 import org.jtrim.property.PropertySource;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.properties.global.GlobalGradleSettings;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
+/**
+ * Defines an in-memory cache of the loaded models of the projects. The cache
+ * is bounded both by the number of models it stores and by the estimated
+ * memory retained by the models. When either limit is exceeded, the least
+ * recently accessed models are evicted.
+ * <P>
+ * Retrieving a model from the cache does not require any locking, so
+ * the cache can be queried concurrently by the project loader and the UI
+ * threads. Reads only record the access in a queue, which is applied to the
+ * access order of the entries by the next update (or after many reads).
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
 public final class GradleModelCache {
+    private static final Logger LOGGER = Logger.getLogger(GradleModelCache.class.getName());
+
     private static final AtomicReference<GradleModelCache> DEFAULT_REF
             = new AtomicReference<>(null);
 
-    private final ReentrantLock cacheLock;
-    private final Map<CacheKey, NbGradleModel> cache;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private static final long MODEL_SIZE_ESTIMATE = 512;
+    private static final long PROJECT_TREE_NODE_SIZE_ESTIMATE = 256;
+    private static final long TASK_SIZE_ESTIMATE = 128;
+    private static final long UNKNOWN_EXTENSION_MODEL_SIZE_ESTIMATE = 16 * 1024;
+
+    private static final int ACCESS_DRAIN_THRESHOLD = 64;
+    private static final int MAX_PENDING_ACCESS_COUNT = 16 * 1024;
+
+    private final ConcurrentMap<CacheKey, CacheEntry> cache;
     private final AtomicInteger maxCapacity;
+    private final AtomicLong maxSize;
+    private final AtomicLong estimatedSize;
+
+    private final ReentrantLock updateLock;
+    // Contains the same entries as "cache" ordered from the least recently
+    // accessed entry. Guarded by updateLock.
+    private final LinkedHashMap<CacheKey, CacheEntry> accessOrder;
+    private final Queue<CacheEntry> pendingAccesses;
+    private final AtomicInteger pendingAccessCount;
+
     private final ListenerManager<ProjectModelUpdatedListener> updateListeners;
 
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+
     public GradleModelCache(int maxCapacity) {
+        this(maxCapacity, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new empty cache.
+     *
+     * @param maxCapacity the maximum number of models the cache might store.
+     *   This argument must be greater than or equal to zero.
+     * @param maxSize the maximum estimated number of bytes the models stored
+     *   in the cache might retain. Note that the most recently accessed model
+     *   is kept even if its estimated size exceeds this limit. This argument
+     *   must be greater than or equal to zero.
+     */
+    public GradleModelCache(int maxCapacity, long maxSize) {
         if (maxCapacity < 0) {
             throw new IllegalArgumentException("Illegal max. capacity value: " + maxCapacity);
         }
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Illegal max. size value: " + maxSize);
+        }
 
-        this.cacheLock = new ReentrantLock();
         this.maxCapacity = new AtomicInteger(maxCapacity);
+        this.maxSize = new AtomicLong(maxSize);
+        this.estimatedSize = new AtomicLong(0);
+
+        this.updateLock = new ReentrantLock();
+        this.accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+        this.pendingAccesses = new ConcurrentLinkedQueue<>();
+        this.pendingAccessCount = new AtomicInteger(0);
 
-        this.cache = CollectionUtils.newLinkedHashMap(maxCapacity);
+        this.cache = new ConcurrentHashMap<>();
         this.updateListeners = new CopyOnTriggerListenerManager<>();
+
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+        this.evictionCount = new AtomicLong(0);
     }
 
     public static GradleModelCache getDefault() {
         GradleModelCache result = DEFAULT_REF.get();
         if (result == null) {
-            final PropertySource<Integer> cacheSize = GlobalGradleSettings.getDefault().projectCacheSize();
-            result = new GradleModelCache(cacheSize.getValue());
+            GlobalGradleSettings settings = GlobalGradleSettings.getDefault();
+            final PropertySource<Integer> cacheSize = settings.projectCacheSize();
+            final PropertySource<Integer> cacheMemoryMB = settings.projectCacheMemoryMB();
+            result = new GradleModelCache(cacheSize.getValue(), toBytes(cacheMemoryMB.getValue()));
             if (DEFAULT_REF.compareAndSet(null, result)) {
                 final GradleModelCache cache = result;
                 cacheSize.addChangeListener(new Runnable() {
@@ -52,7 +126,14 @@ public final class GradleModelCache {
                         cache.setMaxCapacity(cacheSize.getValue());
                     }
                 });
+                cacheMemoryMB.addChangeListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        cache.setMaxSize(toBytes(cacheMemoryMB.getValue()));
+                    }
+                });
                 cache.setMaxCapacity(cacheSize.getValue());
+                cache.setMaxSize(toBytes(cacheMemoryMB.getValue()));
             }
             else {
                 result = DEFAULT_REF.get();
@@ -61,19 +142,129 @@ public final class GradleModelCache {
         return result;
     }
 
-    private void cleanupCache() {
-        assert cacheLock.isHeldByCurrentThread();
+    private static long toBytes(int megaBytes) {
+        return megaBytes * BYTES_PER_MB;
+    }
 
-        int currentMaxCapacity = maxCapacity.get();
-        // Don't create the iterator.
-        if (cache.size() <= currentMaxCapacity) {
-            return;
+    /**
+     * Returns the number of times {@link #tryGet(File, File) tryGet} found
+     * the requested model in the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of times {@link #tryGet(File, File) tryGet} did not
+     * find the requested model in the cache.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of models removed from the cache because
+     * the cache exceeded one of its limits.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the models currently
+     * stored in the cache.
+     */
+    public long getEstimatedSize() {
+        return estimatedSize.get();
+    }
+
+    public int getEntryCount() {
+        return cache.size();
+    }
+
+    private boolean isOverLimit() {
+        assert updateLock.isHeldByCurrentThread();
+
+        int entryCount = accessOrder.size();
+        if (entryCount > maxCapacity.get()) {
+            return true;
+        }
+        // The most recently accessed entry is kept regardless of its size.
+        return entryCount > 1 && estimatedSize.get() > maxSize.get();
+    }
+
+    private void recordAccess(CacheEntry entry) {
+        pendingAccesses.add(entry);
+        int pendingCount = pendingAccessCount.incrementAndGet();
+
+        if (pendingCount >= ACCESS_DRAIN_THRESHOLD && updateLock.tryLock()) {
+            try {
+                drainAccesses();
+            } finally {
+                updateLock.unlock();
+            }
+        }
+        else if (pendingCount > MAX_PENDING_ACCESS_COUNT) {
+            // Only happens if the cache is being updated for a long time.
+            // Forgetting an access only makes the eviction order less precise.
+            if (pendingAccesses.poll() != null) {
+                pendingAccessCount.decrementAndGet();
+            }
+        }
+    }
+
+    private void drainAccesses() {
+        assert updateLock.isHeldByCurrentThread();
+
+        CacheEntry entry;
+        while ((entry = pendingAccesses.poll()) != null) {
+            pendingAccessCount.decrementAndGet();
+            // Moves the entry to the end of the access order. If the entry was
+            // replaced since, then we touch the more recent entry of the same
+            // key which was just updated anyway.
+            accessOrder.get(entry.getKey());
+        }
+    }
+
+    private void putEntry(CacheEntry newEntry, CacheEntry prevEntry) {
+        assert updateLock.isHeldByCurrentThread();
+
+        // The recorded accesses happened before this update, so they must not
+        // precede the new entry in the access order.
+        drainAccesses();
+
+        cache.put(newEntry.getKey(), newEntry);
+        accessOrder.put(newEntry.getKey(), newEntry);
+
+        long prevSize = prevEntry != null ? prevEntry.getSize() : 0;
+        estimatedSize.addAndGet(newEntry.getSize() - prevSize);
+    }
+
+    private void cleanupCache() {
+        updateLock.lock();
+        try {
+            evictEntries();
+        } finally {
+            updateLock.unlock();
         }
+    }
+
+    private void evictEntries() {
+        assert updateLock.isHeldByCurrentThread();
+
+        drainAccesses();
 
-        Iterator<?> itr = cache.entrySet().iterator();
-        while (cache.size() > currentMaxCapacity && itr.hasNext()) {
-            itr.next();
-            itr.remove();
+        Iterator<CacheEntry> entryItr = accessOrder.values().iterator();
+        while (entryItr.hasNext() && isOverLimit()) {
+            CacheEntry cacheEntry = entryItr.next();
+            entryItr.remove();
+
+            cache.remove(cacheEntry.getKey());
+            estimatedSize.addAndGet(-cacheEntry.getSize());
+            evictionCount.incrementAndGet();
+
+            LOGGER.log(Level.FINE, "Evicted the model of {0} from the cache (estimated size: {1} bytes).",
+                    new Object[]{cacheEntry.getKey().projectDir, cacheEntry.getSize()});
         }
     }
 
@@ -84,15 +275,65 @@ public final class GradleModelCache {
 
         int prevCapacity = this.maxCapacity.getAndSet(maxCapacity);
         if (prevCapacity > maxCapacity) {
-            cacheLock.lock();
-            try {
-                cleanupCache();
-            } finally {
-                cacheLock.unlock();
-            }
+            cleanupCache();
         }
     }
 
+    public void setMaxSize(long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Illegal max. size value: " + maxSize);
+        }
+
+        long prevSize = this.maxSize.getAndSet(maxSize);
+        if (prevSize > maxSize) {
+            cleanupCache();
+        }
+    }
+
+    private static CacheEntry createEntry(CacheKey key, NbGradleModel model) {
+        return new CacheEntry(key, model, estimateSize(model));
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the given model.
+     * Extension models are estimated by their {@link ModelSizeEstimator}
+     * if they have one.
+     */
+    static long estimateSize(NbGradleModel model) {
+        long result = MODEL_SIZE_ESTIMATE;
+        result += estimateTreeSize(model.getGenericInfo().getProjectDef().getRootProject());
+
+        for (Object extensionModel: model.getExtensionModels().values()) {
+            result += estimateExtensionModelSize(extensionModel);
+        }
+        return result;
+    }
+
+    private static long estimateTreeSize(NbGradleProjectTree projectTree) {
+        long result = PROJECT_TREE_NODE_SIZE_ESTIMATE;
+        result += TASK_SIZE_ESTIMATE * projectTree.getTasks().size();
+
+        for (NbGradleProjectTree child: projectTree.getChildren()) {
+            result += estimateTreeSize(child);
+        }
+        return result;
+    }
+
+    private static long estimateExtensionModelSize(Object extensionModel) {
+        if (extensionModel == null) {
+            return 0;
+        }
+
+        ModelSizeEstimator<?> estimator = ModelSizeEstimators.tryGetEstimator(extensionModel.getClass());
+        return estimator != null
+                ? estimateSizeUnsafe(estimator, extensionModel)
+                : UNKNOWN_EXTENSION_MODEL_SIZE_ESTIMATE;
+    }
+
+    private static <ModelType> long estimateSizeUnsafe(ModelSizeEstimator<ModelType> estimator, Object model) {
+        return estimator.estimateSize(estimator.getModelType().cast(model));
+    }
+
     private static CacheKey tryCreateKey(NbGradleModel model) {
         ExceptionHelper.checkNotNullArgument(model, "model");
 
@@ -124,24 +365,23 @@ public final class GradleModelCache {
             return null;
         }
 
-        NbGradleModel newModel = model;
-        NbGradleModel prevModel;
-        cacheLock.lock();
+        NbGradleModel newModel;
+        CacheEntry prevEntry;
+
+        updateLock.lock();
         try {
-            prevModel = cache.get(key);
-            if (prevModel == null) {
-                cache.put(key, newModel);
-                cleanupCache();
-            }
-            else {
-                newModel = prevModel.updateEntry(newModel);
-                cache.put(key, newModel);
-            }
+            prevEntry = cache.get(key);
+            newModel = prevEntry != null
+                    ? prevEntry.getModel().updateEntry(model)
+                    : model;
+
+            putEntry(createEntry(key, newModel), prevEntry);
+            evictEntries();
         } finally {
-            cacheLock.unlock();
+            updateLock.unlock();
         }
 
-        if (prevModel != null) {
+        if (prevEntry != null) {
             notifyUpdate(model);
         }
         return newModel;
@@ -153,30 +393,58 @@ public final class GradleModelCache {
             return;
         }
 
-        NbGradleModel prevModel;
-        cacheLock.lock();
+        CacheEntry prevEntry;
+
+        updateLock.lock();
         try {
-            prevModel = cache.put(key, model);
-            cleanupCache();
+            prevEntry = cache.get(key);
+            putEntry(createEntry(key, model), prevEntry);
+            evictEntries();
         } finally {
-            cacheLock.unlock();
+            updateLock.unlock();
         }
 
-        if (prevModel != null && prevModel != model) {
+        if (prevEntry != null && prevEntry.getModel() != model) {
             notifyUpdate(model);
         }
     }
 
     public NbGradleModel tryGet(File projectDir, File settingsFile) {
         CacheKey key = new CacheKey(projectDir, settingsFile);
-        cacheLock.lock();
-        try {
-            return cache.get(key);
-        } finally {
-            cacheLock.unlock();
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
         }
+
+        hitCount.incrementAndGet();
+        recordAccess(entry);
+        return entry.getModel();
     }
 
+    private static final class CacheEntry {
+        private final CacheKey key;
+        private final NbGradleModel model;
+        private final long size;
+
+        public CacheEntry(CacheKey key, NbGradleModel model, long size) {
+            this.key = key;
+            this.model = model;
+            this.size = size;
+        }
+
+        public CacheKey getKey() {
+            return key;
+        }
+
+        public NbGradleModel getModel() {
+            return model;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
     private static class CacheKey {
         private final File projectDir;
         private final File settingsFile;
@@ -5,13 +5,17 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
@@ -39,6 +43,7 @@ import org.netbeans.api.java.platform.Specification;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.project.Project;
 import org.netbeans.gradle.model.BuildOperationArgs;
+import org.netbeans.gradle.model.GenericProjectProperties;
 import org.netbeans.gradle.model.OperationInitializer;
 import org.netbeans.gradle.project.GradleVersions;
 import org.netbeans.gradle.project.LoadedProjectManager;
@@ -58,10 +63,16 @@ import org.netbeans.gradle.project.properties.ModelLoadingStrategy;
 import org.netbeans.gradle.project.properties.NbGradleCommonProperties;
 import org.netbeans.gradle.project.properties.global.GlobalGradleSettings;
 import org.netbeans.gradle.project.tasks.DaemonTask;
+import org.netbeans.gradle.project.tasks.DaemonTaskDef;
+import org.netbeans.gradle.project.tasks.DaemonTaskDefFactory;
 import org.netbeans.gradle.project.tasks.GradleArguments;
 import org.netbeans.gradle.project.tasks.GradleDaemonFailures;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
 import org.netbeans.gradle.project.tasks.GradleTasks;
+import org.netbeans.gradle.project.tasks.PriorityAwareExecutor;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.GradleFileUtils;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
 import org.netbeans.gradle.project.view.GlobalErrorReporter;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
@@ -70,15 +81,36 @@ import org.openide.modules.SpecificationVersion;
 public final class GradleModelLoader {
     private static final Logger LOGGER = Logger.getLogger(GradleModelLoader.class.getName());
 
-    private static final TaskExecutor PROJECT_LOADER
-            = NbTaskExecutors.newExecutor("Gradle-Project-Loader", 1);
+    private static final int MAX_DEFAULT_PROJECT_LOAD_THREAD_COUNT = 4;
+
+    private static final String GRADLE_PROPERTIES_NAME = "gradle.properties";
+
+    private static final PriorityAwareExecutor PROJECT_LOADER = new PriorityAwareExecutor(
+            NbTaskExecutors.newExecutor("Gradle-Project-Loader", getProjectLoadThreadCount()),
+            ProjectLoadPriority.values().length);
 
     private static final MonitorableTaskExecutorService MODEL_LOAD_NOTIFIER
             = NbTaskExecutors.newExecutor("Gradle-Project-Load-Notifier", 1);
 
     private static final AtomicBoolean CACHE_INIT = new AtomicBoolean(false);
 
-    private static final PersistentModelCache PERSISTENT_CACHE = new MultiFileModelCache();
+    private static final PersistentModelCache PERSISTENT_CACHE = new SingleFileModelCache();
+
+    // The projects of a build opened together check the same build scripts,
+    // so they can share their fingerprints.
+    private static final RecentFileFingerprints RECENT_FILE_FINGERPRINTS
+            = new RecentFileFingerprints(5, TimeUnit.SECONDS);
+
+    private static int getProjectLoadThreadCount() {
+        Integer threadCount = GlobalGradleSettings.getDefault().projectLoadThreadCount().getValue();
+        if (threadCount != null) {
+            return threadCount;
+        }
+
+        // Every concurrent load might require a separate daemon, so we
+        // don't want to start too many of them by default.
+        return Math.min(Runtime.getRuntime().availableProcessors(), MAX_DEFAULT_PROJECT_LOAD_THREAD_COUNT);
+    }
 
     private static void updateProjectFromCacheIfNeeded(NbGradleModel newModel) {
         File projectDir = newModel.getProjectDir();
@@ -101,13 +133,24 @@ public final class GradleModelLoader {
         return GradleModelCache.getDefault();
     }
 
-    private static boolean hasWrapper(NbGradleProject project) {
+    private static Path getWrapperPropertiesFile(NbGradleProject project) {
         Path rootDir = getProjectLoadKey(project).getAppliedRootProjectDir();
-        Path wrapperPropertiesFile = rootDir
+        return rootDir
                 .resolve("gradle")
                 .resolve("wrapper")
                 .resolve("gradle-wrapper.properties");
-        return Files.isRegularFile(wrapperPropertiesFile);
+    }
+
+    private static boolean hasWrapper(NbGradleProject project) {
+        return Files.isRegularFile(getWrapperPropertiesFile(project));
+    }
+
+    private static FileTime tryGetWrapperPropertiesTime(NbGradleProject project) {
+        try {
+            return Files.getLastModifiedTime(getWrapperPropertiesFile(project));
+        } catch (IOException ex) {
+            return null;
+        }
     }
 
     private static boolean shouldRelyOnWrapper(NbGradleProject project, GradleLocationDef locationDef) {
@@ -169,6 +212,57 @@ public final class GradleModelLoader {
         return result;
     }
 
+    /**
+     * Returns a pooled connection to the Gradle project in the directory of
+     * the given project. The connection is configured as if it was created by
+     * the connector returned by {@link #createGradleConnector(CancellationToken, Project) createGradleConnector}.
+     * The returned reference must be closed when the connection is no longer
+     * needed but the connection itself must not be closed.
+     * <P>
+     * The connections are not shared by the projects of the same build
+     * because the tooling API returns the models of the project the
+     * connection was created for.
+     */
+    public static GradleConnectionPool.PooledConnectionRef connectToProject(
+            CancellationToken cancelToken,
+            final Project project) {
+        ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullArgument(project, "project");
+
+        NbGradleProject gradleProject = project.getLookup().lookup(NbGradleProject.class);
+        if (gradleProject == null) {
+            throw new IllegalArgumentException("Not a Gradle project: " + project.getProjectDirectory());
+        }
+
+        GlobalGradleSettings globalSettings = GlobalGradleSettings.getDefault();
+
+        GradleLocationDef gradleLocation = gradleProject.getCommonProperties().gradleLocation().getActiveValue();
+        boolean relyOnWrapper = shouldRelyOnWrapper(gradleProject, gradleLocation);
+        String gradleLocationStr = relyOnWrapper
+                ? null
+                : gradleLocation.toStringFormat();
+
+        final File connectionDir = gradleProject.getProjectDirectoryAsPath().toAbsolutePath().normalize().toFile();
+        GradleConnectionPool.ConnectionKey key = new GradleConnectionPool.ConnectionKey(
+                connectionDir,
+                gradleLocationStr,
+                globalSettings.gradleUserHomeDir().getValue(),
+                getScriptJavaHome(project),
+                globalSettings.gradleDaemonTimeoutSec().getValue(),
+                relyOnWrapper ? tryGetWrapperPropertiesTime(gradleProject) : null);
+
+        return GradleConnectionPool.getDefault().acquireConnection(cancelToken, key, new GradleConnectionPool.ConnectionFactory() {
+            @Override
+            public ProjectConnection connect() {
+                // The connection is shared, so it must not depend on the
+                // cancellation token of the caller creating it.
+                GradleConnector gradleConnector = createGradleConnector(Cancellation.UNCANCELABLE_TOKEN, project);
+                gradleConnector.forProjectDirectory(connectionDir);
+                return gradleConnector.connect();
+            }
+        });
+    }
+
     private static ProjectLoadRequest getProjectLoadKey(NbGradleProject project) {
         Path settingsFile = project.getPreferredSettingsFile();
         return new ProjectLoadRequest(project, settingsFile);
@@ -237,17 +331,81 @@ public final class GradleModelLoader {
         ExceptionHelper.checkNotNullArgument(listener, "listener");
 
         String caption = NbStrings.getLoadingProjectText(project.displayName().getValue());
-        GradleDaemonManager.submitGradleTask(PROJECT_LOADER, caption, new DaemonTask() {
+        ProjectLoadPriority priority = ProjectLoadPriority.VISIBLE;
+        TaskExecutor executor = PROJECT_LOADER.getExecutor(priority.ordinal());
+        submitProjectLoadTask(project, caption, priority, executor, new ProjectLoadTask() {
             @Override
-            public void run(CancellationToken cancelToken, ProgressHandle progress) {
-                NbGradleModel model = tryGetFromCache(getProjectLoadKey(project));
+            public void run(
+                    CancellationToken cancelToken,
+                    ProjectLoadRequest projectLoadKey,
+                    ProgressHandle progress) {
+                NbGradleModel model = tryGetFromCache(projectLoadKey);
                 if (model == null) {
                     model = baseModel;
                 }
 
                 onModelLoaded(model, null, listener);
             }
-        }, true, GradleTasks.projectTaskCompleteListener(project));
+        });
+    }
+
+    /**
+     * Submits a task to the project loader. Tasks loading projects of
+     * different root builds might run concurrently, but tasks loading projects
+     * of the same root build are executed one after another. Since loads
+     * targeting the same root build are serialized, subsequent loads can simply
+     * retrieve the models from the {@link GradleModelCache}.
+     * <P>
+     * Pending tasks are started in the order of their priority.
+     */
+    private static void submitProjectLoadTask(
+            final NbGradleProject project,
+            final String caption,
+            final ProjectLoadPriority priority,
+            TaskExecutor executor,
+            final ProjectLoadTask task) {
+
+        GradleDaemonManager.submitGradleTask(executor, new DaemonTaskDefFactory() {
+            @Override
+            public String getDisplayName() {
+                return caption;
+            }
+
+            @Override
+            public DaemonTaskDef tryCreateTaskDef(CancellationToken cancelToken) {
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Starting {0} load of {1}. Pending loads: {2}",
+                            new Object[]{priority, project.getProjectDirectoryAsFile(), getProjectLoadStatistics()});
+                }
+
+                final ProjectLoadRequest projectLoadKey = getProjectLoadKey(project);
+                Path rootProjectDir = projectLoadKey.getAppliedRootProjectDir().toAbsolutePath().normalize();
+
+                return new DaemonTaskDef(caption, true, rootProjectDir, new DaemonTask() {
+                    @Override
+                    public void run(CancellationToken cancelToken, ProgressHandle progress) {
+                        task.run(cancelToken, projectLoadKey, progress);
+                    }
+                });
+            }
+        }, GradleTasks.projectTaskCompleteListener(project));
+    }
+
+    /**
+     * Returns the statistics of the pending and started project loads
+     * having the given priority.
+     */
+    public static PriorityAwareExecutor.LaneStatistics getProjectLoadStatistics(ProjectLoadPriority priority) {
+        ExceptionHelper.checkNotNullArgument(priority, "priority");
+        return PROJECT_LOADER.getLaneStatistics(priority.ordinal());
+    }
+
+    private static Map<ProjectLoadPriority, PriorityAwareExecutor.LaneStatistics> getProjectLoadStatistics() {
+        Map<ProjectLoadPriority, PriorityAwareExecutor.LaneStatistics> result = new EnumMap<>(ProjectLoadPriority.class);
+        for (ProjectLoadPriority priority: ProjectLoadPriority.values()) {
+            result.put(priority, getProjectLoadStatistics(priority));
+        }
+        return result;
     }
 
     private static void reportModelLoadError(NbGradleProject project, GradleModelLoadError error) {
@@ -264,7 +422,7 @@ public final class GradleModelLoader {
         }
     }
 
-    private static NbGradleModel tryGetFromPersistentCache(ProjectLoadRequest projectLoadKey) {
+    private static PersistentModelEntry tryGetFromPersistentCache(ProjectLoadRequest projectLoadKey) {
         try {
             return PERSISTENT_CACHE.tryGetModel(projectLoadKey.project, projectLoadKey.getAppliedRootProjectDir());
         } catch (IOException ex) {
@@ -279,16 +437,233 @@ public final class GradleModelLoader {
         return null;
     }
 
+    private static boolean isUpToDate(ProjectLoadRequest projectLoadKey, PersistentModelEntry persistentEntry) {
+        ModelInputFingerprint savedFingerprint = persistentEntry.tryGetFingerprint();
+        if (savedFingerprint == null) {
+            return false;
+        }
+
+        try {
+            ModelInputFingerprint currentFingerprint = computeCurrentFingerprint(projectLoadKey, persistentEntry.getModel());
+            return savedFingerprint.equals(currentFingerprint);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO,
+                    "Failed to compute the fingerprint of project " + projectLoadKey.project.getProjectDirectoryAsFile(),
+                    ex);
+            return false;
+        }
+    }
+
+    private static void addProjectInputs(
+            Path rootDir,
+            GenericProjectProperties properties,
+            ModelInputFingerprint.Builder result) throws IOException {
+
+        File buildScript = properties.getBuildScript();
+        result.addString(buildScript != null ? buildScript.getPath() : null);
+        if (buildScript != null) {
+            result.addFile(buildScript.toPath());
+
+            Path projectDir = properties.getProjectDir().toPath();
+            for (Path appliedScript: ScriptInputFiles.getAppliedScripts(buildScript.toPath(), projectDir, rootDir)) {
+                result.addFile(appliedScript);
+            }
+        }
+        result.addFile(properties.getProjectDir().toPath().resolve(GRADLE_PROPERTIES_NAME));
+    }
+
+    private static void addProjectTreeInputFiles(
+            Path rootDir,
+            NbGradleProjectTree projectTree,
+            List<Path> result) throws IOException {
+
+        GenericProjectProperties properties = projectTree.getGenericProperties();
+
+        File buildScript = properties.getBuildScript();
+        if (buildScript != null) {
+            result.add(buildScript.toPath());
+
+            Path projectDir = properties.getProjectDir().toPath();
+            result.addAll(ScriptInputFiles.getAppliedScripts(buildScript.toPath(), projectDir, rootDir));
+        }
+        result.add(properties.getProjectDir().toPath().resolve(GRADLE_PROPERTIES_NAME));
+
+        for (NbGradleProjectTree child: projectTree.getChildren()) {
+            addProjectTreeInputFiles(rootDir, child, result);
+        }
+    }
+
+    /**
+     * Returns the files specific to the projects of the build of the given
+     * model (i.e., their build scripts, the scripts applied by them and their
+     * gradle.properties files).
+     *
+     * @throws IOException thrown if a build script could not be read or the
+     *   scripts applied by a build script could not be determined
+     */
+    private static List<Path> getProjectTreeInputFiles(NbGradleModel model) throws IOException {
+        NbGradleProjectTree rootProject = model.getGenericInfo().getProjectDef().getRootProject();
+        Path rootDir = rootProject.getGenericProperties().getProjectDir().toPath();
+
+        List<Path> result = new ArrayList<>();
+        addProjectTreeInputFiles(rootDir, rootProject, result);
+        return result;
+    }
+
+    /**
+     * Computes the fingerprint of the inputs specific to a single project of
+     * a build (i.e., its build script, the scripts applied by it and its
+     * gradle.properties).
+     */
+    static ModelInputFingerprint computeProjectFingerprint(
+            Path rootDir,
+            GenericProjectProperties properties) throws IOException {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+        ExceptionHelper.checkNotNullArgument(properties, "properties");
+
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        addProjectInputs(rootDir, properties, result);
+        return result.create();
+    }
+
+    private static void addArgumentInputs(
+            List<String> arguments,
+            ModelInputFingerprint.Builder result) throws IOException {
+
+        result.addStrings(arguments);
+
+        // The content of the init scripts affects the models as well.
+        String prevArg = null;
+        for (String arg: arguments) {
+            if ("--init-script".equals(prevArg) || "-I".equals(prevArg)) {
+                result.addFile(Paths.get(arg));
+            }
+            prevArg = arg;
+        }
+    }
+
+    private static ModelInputFingerprint computeBuildFingerprint(ProjectLoadRequest projectLoadKey) throws IOException {
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        addBuildInputs(projectLoadKey, result);
+        return result.create();
+    }
+
+    /**
+     * Computes the current fingerprint of everything affecting the models of
+     * the given project (except for the Gradle version, which can only be
+     * determined by connecting to Gradle). The list of build scripts is taken
+     * from the specified cached model.
+     */
+    private static ModelInputFingerprint computeCurrentFingerprint(
+            ProjectLoadRequest projectLoadKey,
+            NbGradleModel model) throws IOException {
+
+        List<Path> inputFiles = getProjectTreeInputFiles(model);
+        List<ModelInputFingerprint> fileFingerprints = new ArrayList<>(inputFiles.size());
+        for (Path file: inputFiles) {
+            fileFingerprints.add(RECENT_FILE_FINGERPRINTS.getFingerprint(file));
+        }
+
+        return ModelInputSnapshot.combine(computeBuildFingerprint(projectLoadKey), fileFingerprints);
+    }
+
+    /**
+     * Captures the inputs of the given project before loading it. The list of
+     * build scripts is taken from the given previously loaded model (if there
+     * is one).
+     */
+    private static ModelInputSnapshot tryCaptureInputs(ProjectLoadRequest projectLoadKey, NbGradleModel knownModel) {
+        try {
+            List<Path> knownInputFiles = knownModel != null
+                    ? getProjectTreeInputFiles(knownModel)
+                    : Collections.<Path>emptyList();
+            return ModelInputSnapshot.capture(computeBuildFingerprint(projectLoadKey), knownInputFiles);
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO,
+                    "Failed to compute the fingerprint of project " + projectLoadKey.project.getProjectDirectoryAsFile(),
+                    ex);
+            return null;
+        }
+    }
+
+    private static void addBuildInputs(
+            ProjectLoadRequest projectLoadKey,
+            ModelInputFingerprint.Builder result) throws IOException {
+
+        NbGradleProject project = projectLoadKey.project;
+
+        // The exact Gradle version is unknown without connecting to Gradle
+        // but it is determined by the Gradle location and the wrapper.
+        GradleLocationDef gradleLocation = project.getCommonProperties().gradleLocation().getActiveValue();
+        result.addString(gradleLocation.toStringFormat());
+        ModelLoadingStrategy modelLoadingStrategy = GlobalGradleSettings.getDefault().modelLoadingStrategy().getValue();
+        result.addString(modelLoadingStrategy != null ? modelLoadingStrategy.name() : null);
+
+        File javaHome = getScriptJavaHome(project);
+        result.addString(javaHome != null ? javaHome.getPath() : null);
+
+        addArgumentInputs(getModelEvaluateArguments(projectLoadKey), result);
+        addArgumentInputs(getModelEvaluateJvmArguments(project), result);
+
+        Path rootDir = projectLoadKey.getAppliedRootProjectDir();
+        Path settingsFile = projectLoadKey.findAppliedSettingsFile();
+        result.addString(settingsFile != null ? settingsFile.toString() : null);
+        if (settingsFile != null) {
+            result.addFile(settingsFile);
+            for (Path appliedScript: ScriptInputFiles.getAppliedScripts(settingsFile, rootDir, rootDir)) {
+                result.addFile(appliedScript);
+            }
+        }
+        result.addFile(rootDir.resolve(GRADLE_PROPERTIES_NAME));
+        result.addFile(rootDir.resolve("gradle").resolve("wrapper").resolve("gradle-wrapper.properties"));
+
+        // The classes of buildSrc are on the class path of every build script.
+        for (Path buildSrcFile: ScriptInputFiles.getBuildSrcFiles(rootDir)) {
+            result.addFile(buildSrcFile);
+        }
+
+        File gradleUserHome = GradleFileUtils.GRADLE_USER_HOME.getValue();
+        if (gradleUserHome != null) {
+            result.addFile(gradleUserHome.toPath().resolve(GRADLE_PROPERTIES_NAME));
+        }
+    }
+
     public static void fetchModel(
             final NbGradleProject project,
             final boolean mayFetchFromCache,
             final ModelRetrievedListener listener) {
+        fetchModel(project, mayFetchFromCache, ProjectLoadPriority.VISIBLE, listener);
+    }
+
+    /**
+     * Submits a request to load the model of the given project.
+     *
+     * @return the reference to the submitted request which can be used to
+     *   raise the priority of the request while it is waiting. This method
+     *   never returns {@code null}.
+     */
+    public static ProjectLoadRef fetchModel(
+            final NbGradleProject project,
+            final boolean mayFetchFromCache,
+            final ProjectLoadPriority priority,
+            final ModelRetrievedListener listener) {
+        ExceptionHelper.checkNotNullArgument(priority, "priority");
+
+        final PriorityAwareExecutor.PromotableExecutor executor
+                = PROJECT_LOADER.newPromotableExecutor(priority.ordinal());
+        ProjectLoadRef result = new ProjectLoadRef() {
+            @Override
+            public void raisePriority(ProjectLoadPriority newPriority) {
+                ExceptionHelper.checkNotNullArgument(newPriority, "newPriority");
+                executor.raisePriority(newPriority.ordinal());
+            }
+        };
 
         // TODO: If we already loaded model from the persistent cache for this
         //       project, skip loading from persistent cache.
         if (!mayFetchFromCache || project.hasLoadedProject()) {
-            fetchModelWithoutPersistentCache(project, mayFetchFromCache, listener);
-            return;
+            fetchModelWithoutPersistentCache(project, mayFetchFromCache, priority, executor, listener);
+            return result;
         }
 
         MODEL_LOAD_NOTIFIER.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
@@ -305,7 +680,17 @@ public final class GradleModelLoader {
                             model = null;
                         }
                         else {
-                            model = tryGetFromPersistentCache(projectLoadKey);
+                            PersistentModelEntry persistentEntry = tryGetFromPersistentCache(projectLoadKey);
+                            if (persistentEntry != null) {
+                                model = persistentEntry.getModel();
+                                if (isUpToDate(projectLoadKey, persistentEntry)) {
+                                    NbGradleModel cachedModel = getCache().updateEntry(model);
+                                    if (cachedModel != null) {
+                                        model = cachedModel;
+                                    }
+                                    needLoadFromScripts = hasUnloadedExtension(project, model);
+                                }
+                            }
                         }
                     }
                     else {
@@ -314,26 +699,30 @@ public final class GradleModelLoader {
                 } finally {
                     onModelLoaded(model, null, listener);
                     if (needLoadFromScripts) {
-                        fetchModelWithoutPersistentCache(project, mayFetchFromCache, listener);
+                        fetchModelWithoutPersistentCache(project, mayFetchFromCache, priority, executor, listener);
                     }
                 }
             }
         }, null);
+        return result;
     }
 
     private static void fetchModelWithoutPersistentCache(
             final NbGradleProject project,
             final boolean mayFetchFromCache,
+            final ProjectLoadPriority priority,
+            TaskExecutor executor,
             final ModelRetrievedListener listener) {
         ExceptionHelper.checkNotNullArgument(project, "project");
         ExceptionHelper.checkNotNullArgument(listener, "listener");
 
         String caption = NbStrings.getLoadingProjectText(project.displayName().getValue());
-        GradleDaemonManager.submitGradleTask(PROJECT_LOADER, caption, new DaemonTask() {
+        submitProjectLoadTask(project, caption, priority, executor, new ProjectLoadTask() {
             @Override
-            public void run(CancellationToken cancelToken, ProgressHandle progress) {
-                ProjectLoadRequest projectLoadKey = getProjectLoadKey(project);
-
+            public void run(
+                    CancellationToken cancelToken,
+                    ProjectLoadRequest projectLoadKey,
+                    ProgressHandle progress) {
                 NbGradleModel model = null;
                 Throwable error = null;
                 try {
@@ -358,7 +747,7 @@ public final class GradleModelLoader {
                     }
                 }
             }
-        }, true, GradleTasks.projectTaskCompleteListener(project));
+        });
     }
 
     private static JavaPlatform tryGetScriptJavaPlatform(Project project) {
@@ -395,9 +784,11 @@ public final class GradleModelLoader {
         return getScriptJavaHome(platform);
     }
 
-    private static void saveToPersistentCache(Collection<NbGradleModel> models) {
+    private static void saveToPersistentCache(
+            Collection<NbGradleModel> models,
+            ModelInputFingerprint fingerprint) {
         try {
-            PERSISTENT_CACHE.saveGradleModels(models);
+            PERSISTENT_CACHE.saveGradleModels(models, fingerprint);
         } catch (IOException ex) {
             LOGGER.log(Level.INFO, "Failed to save into the persistent cache.", ex);
         } catch (Throwable ex) {
@@ -425,14 +816,19 @@ public final class GradleModelLoader {
 
     private static void introduceProjects(
             List<NbGradleModel> otherModels,
-            NbGradleModel mainModel) {
+            NbGradleModel mainModel,
+            ModelInputFingerprint fingerprint) {
 
         List<NbGradleModel> toSave = new ArrayList<>(otherModels.size() + 1);
-        for (NbGradleModel model: otherModels) {
-            toSave.add(introduceLoadedModel(model, false));
+        // The changes of the projects (class paths, source roots, etc.) are
+        // published together after all the projects have been updated.
+        try (CloseableAction.Ref changeBatch = ProjectChangeCoordinator.getDefault().startBatch()) {
+            for (NbGradleModel model: otherModels) {
+                toSave.add(introduceLoadedModel(model, false));
+            }
+            toSave.add(introduceLoadedModel(mainModel, true));
         }
-        toSave.add(introduceLoadedModel(mainModel, true));
-        saveToPersistentCache(toSave);
+        saveToPersistentCache(toSave, fingerprint);
     }
 
     public static void setupLongRunningOP(OperationInitializer setup, LongRunningOperation op) {
@@ -490,13 +886,18 @@ public final class GradleModelLoader {
                 "Loading Gradle project from directory: {0}, settings.gradle: {1}",
                 new Object[]{projectDir, projectLoadKey.settingsFile});
 
-        GradleConnector gradleConnector = createGradleConnector(cancelToken, project);
-        gradleConnector.forProjectDirectory(projectDir);
-        ProjectConnection projectConnection = null;
+        // Captured before connecting, so that the changes made during the
+        // load are detected by the next load.
+        NbGradleModel knownModel = cachedEntry != null ? cachedEntry : project.currentModel().getValue();
+        ModelInputSnapshot inputSnapshot = tryCaptureInputs(projectLoadKey, knownModel);
+        ModelInputFingerprint incrementalBuildInputs = isIncrementalReloadEnabled() && inputSnapshot != null
+                ? inputSnapshot.getBuildInputs()
+                : null;
 
         NbModelLoader.Result loadedModels;
-        try {
-            projectConnection = gradleConnector.connect();
+        try (GradleConnectionPool.PooledConnectionRef connectionRef
+                = connectToProject(cancelToken, project)) {
+            ProjectConnection projectConnection = connectionRef.getConnection();
 
             ModelBuilderSetup setup = modelBuilderSetup(projectLoadKey, progress);
 
@@ -509,13 +910,9 @@ public final class GradleModelLoader {
             GradleTarget gradleTarget = new GradleTarget(
                     setup.getJDKVersion(),
                     GradleVersion.version(env.getGradle().getGradleVersion()));
-            NbModelLoader modelLoader = chooseModel(gradleTarget, cachedEntry, setup);
+            NbModelLoader modelLoader = chooseModel(gradleTarget, cachedEntry, setup, incrementalBuildInputs);
 
             loadedModels = modelLoader.loadModels(project, projectConnection, progress);
-        } finally {
-            if (projectConnection != null) {
-                projectConnection.close();
-            }
         }
 
         ModelLoadIssueReporter.reportAllIssues(loadedModels.getIssues());
@@ -524,11 +921,40 @@ public final class GradleModelLoader {
                 ? cachedEntry.updateEntry(loadedModels.getMainModel())
                 : loadedModels.getMainModel();
 
-        introduceProjects(loadedModels.getOtherModels(), result);
+        introduceProjects(loadedModels.getOtherModels(), result, tryGetFingerprint(projectLoadKey, inputSnapshot, result));
 
         return result;
     }
 
+    private static boolean isIncrementalReloadEnabled() {
+        Boolean result = GlobalGradleSettings.getDefault().incrementalProjectReload().getValue();
+        return result != null && result;
+    }
+
+    private static ModelInputFingerprint tryGetFingerprint(
+            ProjectLoadRequest projectLoadKey,
+            ModelInputSnapshot inputSnapshot,
+            NbGradleModel loadedModel) {
+        if (inputSnapshot == null) {
+            return null;
+        }
+
+        try {
+            ModelInputFingerprint result = inputSnapshot.tryGetFingerprint(getProjectTreeInputFiles(loadedModel));
+            if (result == null) {
+                LOGGER.log(Level.INFO,
+                        "The build scripts of {0} were modified while loading it.",
+                        projectLoadKey.project.getProjectDirectoryAsFile());
+            }
+            return result;
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO,
+                    "Failed to compute the fingerprint of project " + projectLoadKey.project.getProjectDirectoryAsFile(),
+                    ex);
+            return null;
+        }
+    }
+
     private static void reportKnownIssues(BuildEnvironment env) {
         GradleVersion version = GradleVersion.version(env.getGradle().getGradleVersion());
         if (GradleVersions.VERSION_1_7.compareTo(version) < 0
@@ -546,13 +972,14 @@ public final class GradleModelLoader {
     private static NbModelLoader chooseModel(
             GradleTarget gradleTarget,
             NbGradleModel cachedModel,
-            OperationInitializer setup) {
+            OperationInitializer setup,
+            ModelInputFingerprint incrementalBuildInputs) {
 
         GradleVersion version = gradleTarget.getGradleVersion();
 
         ModelLoadingStrategy modelLoadingStrategy = GlobalGradleSettings.getDefault().modelLoadingStrategy().getValue();
         NbModelLoader result = modelLoadingStrategy.canUse18Api(version)
-                ? new NbGradle18ModelLoader(setup, gradleTarget)
+                ? new NbGradle18ModelLoader(setup, gradleTarget, incrementalBuildInputs)
                 : new NbCompatibleModelLoader(cachedModel, setup, gradleTarget);
 
         LOGGER.log(Level.INFO, "Using model loader: {0}", result.getClass().getSimpleName());
@@ -589,6 +1016,10 @@ public final class GradleModelLoader {
                 daemonTaskContext(projectLoadKey.project));
     }
 
+    private interface ProjectLoadTask {
+        public void run(CancellationToken cancelToken, ProjectLoadRequest projectLoadKey, ProgressHandle progress);
+    }
+
     private static final class ProjectLoadRequest {
         public final NbGradleProject project;
         public final Path settingsFile;
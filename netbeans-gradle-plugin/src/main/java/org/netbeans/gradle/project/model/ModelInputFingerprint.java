@@ -0,0 +1,162 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines a digest of everything affecting the models of a Gradle build
+ * (e.g.: the content of the build scripts and the arguments passed to
+ * Gradle). If the fingerprint of a build did not change since its models
+ * were loaded, then loading the models again should yield the same models.
+ * <P>
+ * Instances of this class are immutable and safe to be shared by multiple
+ * threads concurrently.
+ */
+public final class ModelInputFingerprint {
+    private static final byte TAG_STRING = 0;
+    private static final byte TAG_FILE = 1;
+    private static final byte TAG_MISSING_FILE = 2;
+
+    private final byte[] digest;
+
+    private ModelInputFingerprint(byte[] digest) {
+        this.digest = digest;
+    }
+
+    public static ModelInputFingerprint fromBytes(byte[] digest) {
+        ExceptionHelper.checkNotNullArgument(digest, "digest");
+        return new ModelInputFingerprint(digest.clone());
+    }
+
+    public byte[] toBytes() {
+        return digest.clone();
+    }
+
+    /**
+     * Returns the fingerprint of the path and the content of the given file.
+     *
+     * @param file the file whose fingerprint is to be returned. This argument
+     *   cannot be {@code null}. The file does not need to exist.
+     * @return the fingerprint of the given file. This method never returns
+     *   {@code null}.
+     *
+     * @throws IOException thrown if the file exists but could not be read
+     */
+    public static ModelInputFingerprint ofFile(Path file) throws IOException {
+        Builder result = new Builder();
+        result.addFile(file);
+        return result.create();
+    }
+
+    @Override
+    public int hashCode() {
+        return 235 + Arrays.hashCode(digest);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null) return false;
+        if (getClass() != obj.getClass()) return false;
+
+        final ModelInputFingerprint other = (ModelInputFingerprint)obj;
+        return Arrays.equals(this.digest, other.digest);
+    }
+
+    @Override
+    public String toString() {
+        return "ModelInputFingerprint{" + StringUtils.byteArrayToHex(digest) + '}';
+    }
+
+    public static final class Builder {
+        private final MessageDigest digest;
+        private final byte[] buffer;
+
+        public Builder() {
+            this.digest = getMD5();
+            this.buffer = new byte[8 * 1024];
+        }
+
+        private static MessageDigest getMD5() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new RuntimeException("Unable to load the MD5 calculator.", ex);
+            }
+        }
+
+        private void addLength(long length) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                digest.update((byte)(length >>> shift));
+            }
+        }
+
+        private void addStringContent(String str) {
+            byte[] bytes = str.getBytes(StringUtils.UTF8);
+            addLength(bytes.length);
+            digest.update(bytes);
+        }
+
+        public void addString(String str) {
+            digest.update(TAG_STRING);
+            addStringContent(str != null ? str : "");
+        }
+
+        public void addStrings(Collection<String> strings) {
+            ExceptionHelper.checkNotNullArgument(strings, "strings");
+
+            addLength(strings.size());
+            for (String str: strings) {
+                addString(str);
+            }
+        }
+
+        public void addFingerprint(ModelInputFingerprint fingerprint) {
+            ExceptionHelper.checkNotNullArgument(fingerprint, "fingerprint");
+
+            addLength(fingerprint.digest.length);
+            digest.update(fingerprint.digest);
+        }
+
+        /**
+         * Adds the path and the content of the given file to the fingerprint.
+         * Files which do not exist are allowed and are distinguished from
+         * empty files.
+         */
+        public void addFile(Path file) throws IOException {
+            ExceptionHelper.checkNotNullArgument(file, "file");
+
+            addStringContent(file.toString());
+
+            if (!Files.isRegularFile(file)) {
+                digest.update(TAG_MISSING_FILE);
+                return;
+            }
+
+            digest.update(TAG_FILE);
+            try (InputStream input = Files.newInputStream(file)) {
+                int readCount = input.read(buffer);
+                while (readCount >= 0) {
+                    digest.update(buffer, 0, readCount);
+                    readCount = input.read(buffer);
+                }
+            } catch (NoSuchFileException ex) {
+                // The file was removed after we have checked for its existence.
+                digest.update(TAG_MISSING_FILE);
+            }
+        }
+
+        public ModelInputFingerprint create() {
+            return new ModelInputFingerprint(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines the inputs of a model load as they were before the load was
+ * started. The fingerprint saved along the loaded models must describe the
+ * inputs Gradle has seen, otherwise a build script edited during the load
+ * would cause the models evaluated from the previous build script to be
+ * considered up-to-date.
+ * <P>
+ * The build scripts of a build are only known after the load, so the
+ * snapshot contains the build scripts of a previously known model of the
+ * build. Build scripts not part of the snapshot (e.g.: when a new project
+ * was added) are read after the load but only if they were not modified
+ * since the snapshot was captured.
+ * <P>
+ * Instances of this class are immutable and safe to be shared by multiple
+ * threads concurrently.
+ */
+final class ModelInputSnapshot {
+    // Some file systems (e.g.: FAT) store the last modified time of files
+    // with a 2 seconds precision.
+    private static final long MODIFIED_TIME_PRECISION_MS = 2000;
+
+    private final long captureTime;
+    private final ModelInputFingerprint buildInputs;
+    private final Map<Path, ModelInputFingerprint> fileFingerprints;
+
+    private ModelInputSnapshot(
+            long captureTime,
+            ModelInputFingerprint buildInputs,
+            Map<Path, ModelInputFingerprint> fileFingerprints) {
+        this.captureTime = captureTime;
+        this.buildInputs = buildInputs;
+        this.fileFingerprints = fileFingerprints;
+    }
+
+    /**
+     * Reads the given inputs of a build.
+     *
+     * @param buildInputs the fingerprint of the inputs affecting every project
+     *   of the build. This argument cannot be {@code null}.
+     * @param knownInputFiles the input files (e.g.: build scripts) of the
+     *   projects of the build as known before the load. This argument cannot
+     *   be {@code null} and cannot contain {@code null} elements.
+     * @return the snapshot of the given inputs. This method never returns
+     *   {@code null}.
+     *
+     * @throws IOException thrown if one of the input files could not be read
+     */
+    public static ModelInputSnapshot capture(
+            ModelInputFingerprint buildInputs,
+            Collection<Path> knownInputFiles) throws IOException {
+        ExceptionHelper.checkNotNullArgument(buildInputs, "buildInputs");
+        ExceptionHelper.checkNotNullElements(knownInputFiles, "knownInputFiles");
+
+        long captureTime = System.currentTimeMillis();
+
+        Map<Path, ModelInputFingerprint> fileFingerprints = new HashMap<>();
+        for (Path file: knownInputFiles) {
+            fileFingerprints.put(file, ModelInputFingerprint.ofFile(file));
+        }
+
+        return new ModelInputSnapshot(captureTime, buildInputs, fileFingerprints);
+    }
+
+    public ModelInputFingerprint getBuildInputs() {
+        return buildInputs;
+    }
+
+    /**
+     * Combines the fingerprint of the inputs affecting every project and the
+     * fingerprints of the input files of the projects into the fingerprint
+     * of the whole build.
+     */
+    public static ModelInputFingerprint combine(
+            ModelInputFingerprint buildInputs,
+            List<ModelInputFingerprint> fileFingerprints) {
+        ExceptionHelper.checkNotNullArgument(buildInputs, "buildInputs");
+        ExceptionHelper.checkNotNullElements(fileFingerprints, "fileFingerprints");
+
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        result.addFingerprint(buildInputs);
+        for (ModelInputFingerprint fileFingerprint: fileFingerprints) {
+            result.addFingerprint(fileFingerprint);
+        }
+        return result.create();
+    }
+
+    private static boolean mayHaveBeenModifiedSince(Path file, long time) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() >= time - MODIFIED_TIME_PRECISION_MS;
+        } catch (NoSuchFileException ex) {
+            // The file was removed after we have read it.
+            return true;
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the build as it was when this snapshot was
+     * captured.
+     *
+     * @param inputFiles the input files of the projects of the build as
+     *   returned by the load. This argument cannot be {@code null} and cannot
+     *   contain {@code null} elements.
+     * @return the fingerprint of the build as it was when this snapshot was
+     *   captured or {@code null} if an input file not part of this snapshot
+     *   might have been modified since this snapshot was captured
+     *
+     * @throws IOException thrown if one of the input files could not be read
+     */
+    public ModelInputFingerprint tryGetFingerprint(List<Path> inputFiles) throws IOException {
+        ExceptionHelper.checkNotNullElements(inputFiles, "inputFiles");
+
+        List<ModelInputFingerprint> result = new ArrayList<>(inputFiles.size());
+        for (Path file: inputFiles) {
+            ModelInputFingerprint fileFingerprint = fileFingerprints.get(file);
+            if (fileFingerprint == null) {
+                boolean existed = Files.isRegularFile(file);
+                fileFingerprint = ModelInputFingerprint.ofFile(file);
+                // Checked after reading the file, so that we detect if
+                // it was modified while we were reading it.
+                if (existed && mayHaveBeenModifiedSince(file, captureTime)) {
+                    return null;
+                }
+            }
+            result.add(fileFingerprint);
+        }
+
+        return combine(buildInputs, result);
+    }
+}
@@ -0,0 +1,24 @@
+package org.netbeans.gradle.project.model;
+
+/**
+ * Defines the estimation of the memory retained by an extension model, so
+ * that {@link GradleModelCache} can limit the memory retained by the cached
+ * models.
+ * <P>
+ * Implementations must be safe to be called from multiple threads
+ * concurrently.
+ *
+ * @param <ModelType> the type of the extension model
+ *
+ * @see ModelSizeEstimators
+ */
+public interface ModelSizeEstimator<ModelType> {
+    public Class<ModelType> getModelType();
+
+    /**
+     * Returns the estimated number of bytes retained by the given model. The
+     * estimate does not need to be accurate but it should be proportional to
+     * the actual memory retained by the model.
+     */
+    public long estimateSize(ModelType model);
+}
@@ -0,0 +1,30 @@
+package org.netbeans.gradle.project.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.netbeans.gradle.project.java.model.JavaModelSizeEstimator;
+
+public final class ModelSizeEstimators {
+    private static final Map<Class<?>, ModelSizeEstimator<?>> ESTIMATORS = createEstimators();
+
+    private static Map<Class<?>, ModelSizeEstimator<?>> createEstimators() {
+        Map<Class<?>, ModelSizeEstimator<?>> result = new HashMap<>();
+        addEstimator(result, JavaModelSizeEstimator.INSTANCE);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static void addEstimator(
+            Map<Class<?>, ModelSizeEstimator<?>> result,
+            ModelSizeEstimator<?> estimator) {
+        result.put(estimator.getModelType(), estimator);
+    }
+
+    public static ModelSizeEstimator<?> tryGetEstimator(Class<?> modelType) {
+        return ESTIMATORS.get(modelType);
+    }
+
+    private ModelSizeEstimators() {
+        throw new AssertionError();
+    }
+}
@@ -1,7 +1,11 @@
 package org.netbeans.gradle.project.model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
@@ -9,7 +13,6 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.properties.SettingsFiles;
-import org.netbeans.gradle.project.util.SerializationUtils2;
 import org.netbeans.gradle.project.util.StringUtils;
 
 public final class MultiFileModelCache implements PersistentModelCache {
@@ -22,34 +25,43 @@ public final class MultiFileModelCache implements PersistentModelCache {
     }
 
     @Override
-    public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
-        Path cacheFilePath = getCacheFilePath(
-                rootProjectDir,
-                project.getProjectDirectoryAsFile(),
-                getMD5());
+    public PersistentModelEntry tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
+        SerializedNbGradleModels serializedModel
+                = tryGetSerializedModel(rootProjectDir, project.getProjectDirectoryAsFile());
+        return serializedModel != null
+                ? new PersistentModelEntry(serializedModel.deserializeModel(project), serializedModel.tryGetFingerprint())
+                : null;
+    }
+
+    // For benchmarking purposes
+    SerializedNbGradleModels tryGetSerializedModel(Path rootProjectDir, File projectDir) throws IOException {
+        Path cacheFilePath = getCacheFilePath(rootProjectDir, projectDir, getMD5());
 
         if (!Files.isRegularFile(cacheFilePath)) {
             return null;
         }
 
-        SerializedNbGradleModels serializedModel
-                = (SerializedNbGradleModels)SerializationUtils2.deserializeFile(cacheFilePath);
-        return serializedModel != null
-                ? serializedModel.deserializeModel(project)
-                : null;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(cacheFilePath))) {
+            return SerializedNbGradleModels.tryReadFrom(input);
+        }
     }
 
     @Override
-    public void saveGradleModels(Collection<NbGradleModel> models) throws IOException {
+    public void saveGradleModels(
+            Collection<NbGradleModel> models,
+            ModelInputFingerprint fingerprint) throws IOException {
         MessageDigest hashCalculator = getMD5();
 
         for (NbGradleModel model: models) {
-            saveGradleModel(model, hashCalculator);
+            saveGradleModel(model, fingerprint, hashCalculator);
         }
     }
 
-    private void saveGradleModel(NbGradleModel model, MessageDigest hashCalculator) throws IOException {
-        SerializedNbGradleModels toSave = SerializedNbGradleModels.createSerialized(model);
+    private void saveGradleModel(
+            NbGradleModel model,
+            ModelInputFingerprint fingerprint,
+            MessageDigest hashCalculator) throws IOException {
+        SerializedNbGradleModels toSave = SerializedNbGradleModels.createSerialized(model, fingerprint);
         saveGradleModel(model, toSave, hashCalculator);
     }
 
@@ -57,7 +69,7 @@ public final class MultiFileModelCache implements PersistentModelCache {
         return str.length() > maxLength ? str.substring(0, maxLength) : str;
     }
 
-    private static String getCacheKey(Path rootProjectDir, File projectDir) throws IOException {
+    static String getCacheKey(Path rootProjectDir, File projectDir) throws IOException {
         Path rootDir = rootProjectDir.normalize();
 
         String rootDirStr = rootDir.toString();
@@ -107,6 +119,8 @@ public final class MultiFileModelCache implements PersistentModelCache {
             Files.createDirectories(cacheDir);
         }
 
-        SerializationUtils2.serializeToFile(cacheFilePath, model);
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(cacheFilePath))) {
+            model.writeTo(output);
+        }
     }
 }
@@ -10,6 +10,9 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.gradle.tooling.ProjectConnection;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
@@ -39,15 +42,39 @@ import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
 
 public final class NbGradle18ModelLoader implements NbModelLoader {
+    private static final Logger LOGGER = Logger.getLogger(NbGradle18ModelLoader.class.getName());
+
     private final GradleTarget gradleTarget;
     private final OperationInitializer setup;
+    private final ModelInputFingerprint incrementalBuildInputs;
 
     public NbGradle18ModelLoader(OperationInitializer setup, GradleTarget gradleTarget) {
+        this(setup, gradleTarget, null);
+    }
+
+    /**
+     * Creates a model loader which might only fetch the models of the projects
+     * whose build script changed since the previous load of the same build.
+     *
+     * @param setup the initializer of the model loading operation. This
+     *   argument cannot be {@code null}.
+     * @param gradleTarget the Gradle and Java version used to load the models.
+     *   This argument cannot be {@code null}.
+     * @param incrementalBuildInputs the fingerprint of the inputs affecting
+     *   every project of the build (e.g.: the settings file). This argument
+     *   can be {@code null}, in which case the models of all the projects are
+     *   always fetched.
+     */
+    public NbGradle18ModelLoader(
+            OperationInitializer setup,
+            GradleTarget gradleTarget,
+            ModelInputFingerprint incrementalBuildInputs) {
         ExceptionHelper.checkNotNullArgument(setup, "setup");
         ExceptionHelper.checkNotNullArgument(gradleTarget, "gradleTarget");
 
         this.gradleTarget = gradleTarget;
         this.setup = setup;
+        this.incrementalBuildInputs = incrementalBuildInputs;
     }
 
     private static <E> void addAllNullSafe(Collection<? super E> collection, Collection<? extends E> toAdd) {
@@ -63,7 +90,43 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             ProgressHandle progress) throws IOException, GradleModelLoadError {
 
         ProjectModelFetcher modelFetcher = new ProjectModelFetcher(project, gradleTarget);
-        FetchedModelsOrError fetchedModelsOrError = modelFetcher.getModels(connection, setup);
+
+        Path buildKey = getBuildKey(project, modelFetcher);
+        ModelInputFingerprint buildInputs = incrementalBuildInputs != null
+                ? getBuildInputs(project)
+                : null;
+
+        FetchedBuildSnapshot snapshot = buildInputs != null
+                ? FetchedBuildSnapshot.tryGetSnapshot(buildKey)
+                : null;
+        if (snapshot != null && !buildInputs.equals(snapshot.getBuildInputs())) {
+            snapshot = null;
+        }
+
+        // Computed before fetching the models, so that changes made during
+        // the load are detected by the next load.
+        Map<String, ModelInputFingerprint> projectInputs = snapshot != null
+                ? tryGetCurrentProjectInputs(buildKey, snapshot)
+                : Collections.<String, ModelInputFingerprint>emptyMap();
+        if (projectInputs == null) {
+            snapshot = null;
+            projectInputs = Collections.emptyMap();
+        }
+
+        Set<String> pathsToFetch = snapshot != null
+                ? tryGetPathsToFetch(project, snapshot, projectInputs)
+                : null;
+        Map<String, FetchedProjectModels> reusedModels = pathsToFetch != null
+                ? getReusedModels(snapshot, pathsToFetch)
+                : Collections.<String, FetchedProjectModels>emptyMap();
+
+        if (pathsToFetch != null) {
+            LOGGER.log(Level.INFO,
+                    "Fetching the models of {0} project(s) out of {1} of build {2}",
+                    new Object[]{pathsToFetch.size(), snapshot.getProjects().size(), buildKey});
+        }
+
+        FetchedModelsOrError fetchedModelsOrError = modelFetcher.getModels(connection, setup, pathsToFetch);
         FetchedModels fetchedModels = fetchedModelsOrError.getModels();
         if (fetchedModels == null) {
             throw new GradleModelLoadError(
@@ -72,18 +135,127 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                     fetchedModelsOrError.getUnexpectedError());
         }
 
+        if (buildInputs != null) {
+            FetchedBuildSnapshot.storeSnapshot(buildKey,
+                    tryCreateSnapshot(buildKey, buildInputs, fetchedModels, reusedModels, projectInputs));
+        }
+
         progress.progress(NbStrings.getParsingModel());
 
         ProjectModelParser parser = new ProjectModelParser(project, modelFetcher);
-        return parser.parseModel(fetchedModels);
+        return parser.parseModel(fetchedModels, reusedModels.values());
     }
 
-    private static File getProjectDirFromModels(FetchedProjectModels projectModels) {
+    private static Path getBuildKey(NbGradleProject project, ProjectModelFetcher modelFetcher) {
+        Path settingsFile = modelFetcher.getSettingsFile();
+        Path rootDir = settingsFile != null ? settingsFile.getParent() : null;
+        return rootDir != null ? rootDir : project.getProjectDirectoryAsFile().toPath();
+    }
+
+    private ModelInputFingerprint getBuildInputs(NbGradleProject project) {
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        result.addFingerprint(incrementalBuildInputs);
+        result.addString(gradleTarget.getGradleVersion().getVersion());
+        result.addString(gradleTarget.getJavaVersion().toString());
+
+        List<NbGradleExtensionRef> extensions = project.getExtensionRefs();
+        List<String> extensionNames = new ArrayList<>(extensions.size());
+        for (NbGradleExtensionRef extension: extensions) {
+            extensionNames.add(extension.getName());
+        }
+        result.addStrings(extensionNames);
+
+        return result.create();
+    }
+
+    private static Map<String, ModelInputFingerprint> tryGetCurrentProjectInputs(
+            Path rootDir,
+            FetchedBuildSnapshot snapshot) {
+        Map<String, FetchedBuildSnapshot.ProjectSnapshot> projects = snapshot.getProjects();
+        Map<String, ModelInputFingerprint> result = CollectionUtils.newHashMap(projects.size());
+        try {
+            for (Map.Entry<String, FetchedBuildSnapshot.ProjectSnapshot> entry: projects.entrySet()) {
+                GenericProjectProperties properties = entry.getValue().getProperties();
+                result.put(entry.getKey(), GradleModelLoader.computeProjectFingerprint(rootDir, properties));
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to compute the fingerprints of the projects.", ex);
+            return null;
+        }
+        return result;
+    }
+
+    private static Set<String> tryGetPathsToFetch(
+            NbGradleProject project,
+            FetchedBuildSnapshot snapshot,
+            Map<String, ModelInputFingerprint> projectInputs) {
+
+        String mainPath = snapshot.tryGetProjectPath(project.getProjectDirectoryAsFile());
+        if (mainPath == null) {
+            return null;
+        }
+
+        return snapshot.tryGetPathsToFetch(mainPath, projectInputs);
+    }
+
+    private static Map<String, FetchedProjectModels> getReusedModels(
+            FetchedBuildSnapshot snapshot,
+            Set<String> pathsToFetch) {
+
+        Map<String, FetchedBuildSnapshot.ProjectSnapshot> projects = snapshot.getProjects();
+        Map<String, FetchedProjectModels> result = CollectionUtils.newHashMap(projects.size());
+        for (Map.Entry<String, FetchedBuildSnapshot.ProjectSnapshot> entry: projects.entrySet()) {
+            if (!pathsToFetch.contains(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue().getModels());
+            }
+        }
+        return result;
+    }
+
+    private static FetchedBuildSnapshot tryCreateSnapshot(
+            Path rootDir,
+            ModelInputFingerprint buildInputs,
+            FetchedModels fetchedModels,
+            Map<String, FetchedProjectModels> reusedModels,
+            Map<String, ModelInputFingerprint> projectInputs) {
+
+        Collection<FetchedProjectModels> otherModels = fetchedModels.getOtherProjectModels();
+
+        List<FetchedProjectModels> allModels = new ArrayList<>(reusedModels.size() + otherModels.size() + 1);
+        allModels.addAll(reusedModels.values());
+        allModels.addAll(otherModels);
+        allModels.add(fetchedModels.getDefaultProjectModels());
+
+        Map<String, FetchedBuildSnapshot.ProjectSnapshot> projects = CollectionUtils.newHashMap(allModels.size());
+        try {
+            for (FetchedProjectModels models: allModels) {
+                GenericProjectProperties properties = getPropertiesFromModels(models);
+                String path = properties.getProjectFullName();
+
+                ModelInputFingerprint inputs = projectInputs.get(path);
+                if (inputs == null) {
+                    inputs = GradleModelLoader.computeProjectFingerprint(rootDir, properties);
+                }
+
+                projects.put(path, new FetchedBuildSnapshot.ProjectSnapshot(models, inputs));
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to compute the fingerprints of the projects.", ex);
+            return null;
+        }
+
+        return new FetchedBuildSnapshot(buildInputs, projects);
+    }
+
+    private static GenericProjectProperties getPropertiesFromModels(FetchedProjectModels projectModels) {
         return projectModels
                 .getProjectDef()
                 .getMainProject()
-                .getGenericProperties()
-                .getProjectDir();
+                .getGenericProperties();
+    }
+
+    private static File getProjectDirFromModels(FetchedProjectModels projectModels) {
+        return getPropertiesFromModels(projectModels).getProjectDir();
     }
 
     private static final class ProjectModelParser {
@@ -169,7 +341,15 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             return new ModelLoadResult(defaultProjectDir, lookups);
         }
 
-        public Result parseModel(FetchedModels fetchedModels) {
+        /**
+         * Parses the fetched models. The reused models are only used to
+         * parse the fetched models, no {@code NbGradleModel} is created
+         * for them.
+         */
+        public Result parseModel(
+                FetchedModels fetchedModels,
+                Collection<FetchedProjectModels> reusedModels) {
+
             ProjectModelsOfExtensions extensionsForDefault = new ProjectModelsOfExtensions(
                     this,
                     fetchedModels.getDefaultProjectModels());
@@ -179,7 +359,10 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             Collection<FetchedProjectModels> otherProjectModels = fetchedModels.getOtherProjectModels();
 
             Map<File, ProjectModelsOfExtensions> extensionModels
-                    = CollectionUtils.newHashMap(otherProjectModels.size());
+                    = CollectionUtils.newHashMap(otherProjectModels.size() + reusedModels.size());
+            for (FetchedProjectModels models: reusedModels) {
+                extensionModels.put(getProjectDirFromModels(models), new ProjectModelsOfExtensions(this, models));
+            }
             for (FetchedProjectModels models: otherProjectModels) {
                 File projectDir = getProjectDirFromModels(models);
                 if (defaultProjectDir.equals(projectDir)) {
@@ -357,8 +540,11 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             modelFetcher = new GenericModelFetcher(buildInfoRequests, projectInfoRequests, models);
         }
 
-        public FetchedModelsOrError getModels(ProjectConnection connection, OperationInitializer init) throws IOException {
-            return modelFetcher.getModels(connection, init);
+        public FetchedModelsOrError getModels(
+                ProjectConnection connection,
+                OperationInitializer init,
+                Collection<String> projectPaths) throws IOException {
+            return modelFetcher.getModels(connection, init, projectPaths);
         }
 
         public Path getSettingsFile() {
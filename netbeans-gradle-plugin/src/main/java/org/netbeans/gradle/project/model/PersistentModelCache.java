@@ -7,6 +7,6 @@ import java.util.Collection;
 import org.netbeans.gradle.project.NbGradleProject;
 
 public interface PersistentModelCache {
-    public NbGradleModel tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException;
-    public void saveGradleModels(Collection<NbGradleModel> models) throws IOException;
+    public PersistentModelEntry tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException;
+    public void saveGradleModels(Collection<NbGradleModel> models, ModelInputFingerprint fingerprint) throws IOException;
 }
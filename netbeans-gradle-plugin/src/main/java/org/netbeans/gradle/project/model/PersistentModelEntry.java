@@ -0,0 +1,31 @@
+package org.netbeans.gradle.project.model;
+
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a model read from the {@link PersistentModelCache} along with the
+ * fingerprint of the build at the time the model was loaded.
+ */
+public final class PersistentModelEntry {
+    private final NbGradleModel model;
+    private final ModelInputFingerprint fingerprint;
+
+    public PersistentModelEntry(NbGradleModel model, ModelInputFingerprint fingerprint) {
+        ExceptionHelper.checkNotNullArgument(model, "model");
+
+        this.model = model;
+        this.fingerprint = fingerprint;
+    }
+
+    public NbGradleModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the fingerprint of the build at the time the model was loaded
+     * or {@code null} if it is unknown.
+     */
+    public ModelInputFingerprint tryGetFingerprint() {
+        return fingerprint;
+    }
+}
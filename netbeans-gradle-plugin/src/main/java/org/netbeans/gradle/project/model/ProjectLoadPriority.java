@@ -0,0 +1,23 @@
+package org.netbeans.gradle.project.model;
+
+/**
+ * Defines the priority of a project load request. Pending requests are
+ * served in the order of the constants of this enum (i.e., {@code FOCUSED}
+ * requests first).
+ */
+public enum ProjectLoadPriority {
+    /**
+     * The user is explicitly waiting for the project (e.g., reloaded it or
+     * some code is blocked until the project is loaded).
+     */
+    FOCUSED,
+    /**
+     * The project is displayed to the user (e.g., opened in the Projects tab).
+     */
+    VISIBLE,
+    /**
+     * The project is loaded in advance, because it might be needed later
+     * (e.g., a project the opened projects depend on).
+     */
+    BACKGROUND
+}
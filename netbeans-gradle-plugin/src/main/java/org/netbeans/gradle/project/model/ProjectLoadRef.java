@@ -0,0 +1,19 @@
+package org.netbeans.gradle.project.model;
+
+/**
+ * Defines a submitted project load request. The priority of the request can
+ * be raised as long as the load has not been started.
+ *
+ * @see GradleModelLoader#fetchModel(org.netbeans.gradle.project.NbGradleProject, boolean, ProjectLoadPriority, ModelRetrievedListener)
+ */
+public interface ProjectLoadRef {
+    /**
+     * Raises the priority of the load request if it has not been started yet
+     * and has a lower priority than the given one. Otherwise, this method
+     * does nothing.
+     *
+     * @param priority the requested priority of the load. This argument
+     *   cannot be {@code null}.
+     */
+    public void raisePriority(ProjectLoadPriority priority);
+}
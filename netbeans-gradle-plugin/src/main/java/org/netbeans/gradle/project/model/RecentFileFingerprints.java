@@ -0,0 +1,91 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a cache of the fingerprints of files, where the fingerprints are
+ * reused for a short time after they were computed. This allows the projects
+ * of the same build opened together to share the fingerprints of the build
+ * scripts of the build, instead of every project reading every build script
+ * of the build.
+ * <P>
+ * The methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+final class RecentFileFingerprints {
+    private final long reuseTimeNanos;
+    private final ConcurrentMap<Path, TimedFingerprint> fingerprints;
+    private volatile long lastPurgeTime;
+
+    public RecentFileFingerprints(long reuseTime, TimeUnit unit) {
+        ExceptionHelper.checkArgumentInRange(reuseTime, 0, Long.MAX_VALUE, "reuseTime");
+        ExceptionHelper.checkNotNullArgument(unit, "unit");
+
+        this.reuseTimeNanos = unit.toNanos(reuseTime);
+        this.fingerprints = new ConcurrentHashMap<>();
+        this.lastPurgeTime = System.nanoTime();
+    }
+
+    private boolean isRecent(TimedFingerprint fingerprint, long currentTime) {
+        return currentTime - fingerprint.computeTime < reuseTimeNanos;
+    }
+
+    private void purgeIfNeeded(long currentTime) {
+        if (currentTime - lastPurgeTime < reuseTimeNanos) {
+            return;
+        }
+        lastPurgeTime = currentTime;
+
+        Iterator<TimedFingerprint> itr = fingerprints.values().iterator();
+        while (itr.hasNext()) {
+            if (!isRecent(itr.next(), currentTime)) {
+                itr.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the given file, reading the file only if
+     * its fingerprint was not computed recently.
+     *
+     * @param file the file whose fingerprint is to be returned. This argument
+     *   cannot be {@code null}.
+     * @return the fingerprint of the given file. This method never returns
+     *   {@code null}.
+     *
+     * @throws IOException thrown if the file exists but could not be read
+     *
+     * @see ModelInputFingerprint#ofFile(Path)
+     */
+    public ModelInputFingerprint getFingerprint(Path file) throws IOException {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        long currentTime = System.nanoTime();
+        purgeIfNeeded(currentTime);
+
+        TimedFingerprint cached = fingerprints.get(file);
+        if (cached != null && isRecent(cached, currentTime)) {
+            return cached.fingerprint;
+        }
+
+        ModelInputFingerprint result = ModelInputFingerprint.ofFile(file);
+        fingerprints.put(file, new TimedFingerprint(result, currentTime));
+        return result;
+    }
+
+    private static final class TimedFingerprint {
+        public final ModelInputFingerprint fingerprint;
+        public final long computeTime;
+
+        public TimedFingerprint(ModelInputFingerprint fingerprint, long computeTime) {
+            this.fingerprint = fingerprint;
+            this.computeTime = computeTime;
+        }
+    }
+}
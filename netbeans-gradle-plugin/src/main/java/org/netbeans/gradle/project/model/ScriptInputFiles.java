@@ -0,0 +1,225 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines utility methods to find the files read by Gradle while evaluating
+ * a build which are not reported by the models: The sources of the
+ * {@code buildSrc} project and the scripts applied via {@code apply from:}.
+ */
+final class ScriptInputFiles {
+    private static final Pattern APPLY_FROM_PATTERN
+            = Pattern.compile("\\bapply\\s*\\(?\\s*from\\s*:\\s*");
+    private static final Pattern SCRIPT_PATH_PATTERN
+            = Pattern.compile("^(?:(rootProject\\s*\\.\\s*)?file\\s*\\(\\s*)?(['\"])(.*?)\\2");
+    private static final Pattern URI_SCHEME_PATTERN
+            = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.\\-]+:");
+
+    private static final String GRADLE_CACHE_DIR_NAME = ".gradle";
+    private static final String BUILD_DIR_NAME = "build";
+
+    /**
+     * Returns the files of the {@code buildSrc} project of the build in the
+     * given root directory. The output of {@code buildSrc} is not included.
+     * The files are returned in a deterministic order.
+     *
+     * @param rootDir the root directory of the build. This argument cannot be
+     *   {@code null}.
+     * @return the files of the {@code buildSrc} project. This method never
+     *   returns {@code null}, if the build has no {@code buildSrc} project
+     *   then an empty list is returned.
+     *
+     * @throws IOException thrown if the directory of {@code buildSrc} could
+     *   not be listed
+     */
+    public static List<Path> getBuildSrcFiles(Path rootDir) throws IOException {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+
+        final Path buildSrcDir = rootDir.resolve(SettingsFiles.BUILD_SRC_NAME);
+        if (!Files.isDirectory(buildSrcDir)) {
+            return Collections.emptyList();
+        }
+
+        final List<Path> result = new ArrayList<>();
+        Files.walkFileTree(buildSrcDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                return isOutputDir(buildSrcDir, dir)
+                        ? FileVisitResult.SKIP_SUBTREE
+                        : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile()) {
+                    result.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                if (exc instanceof NoSuchFileException) {
+                    // The file was removed while we were listing the directory.
+                    return FileVisitResult.CONTINUE;
+                }
+                throw exc;
+            }
+        });
+
+        Collections.sort(result);
+        return result;
+    }
+
+    private static boolean isOutputDir(Path buildSrcDir, Path dir) {
+        Path fileName = dir.getFileName();
+        if (fileName == null) {
+            return false;
+        }
+
+        String name = fileName.toString();
+        if (GRADLE_CACHE_DIR_NAME.equals(name)) {
+            return true;
+        }
+
+        if (!BUILD_DIR_NAME.equals(name)) {
+            return false;
+        }
+
+        // Don't skip source packages named "build".
+        Path parent = dir.getParent();
+        return buildSrcDir.equals(parent)
+                || Files.isRegularFile(parent.resolve(SettingsFiles.BUILD_FILE_NAME));
+    }
+
+    /**
+     * Returns the scripts applied (directly or indirectly) by the given
+     * script via {@code apply from:}. Only applied scripts whose path can be
+     * determined without evaluating the script are supported: String literals
+     * optionally wrapped in a {@code file} or {@code rootProject.file} call,
+     * which may refer to the {@code rootDir} and {@code projectDir}
+     * properties.
+     *
+     * @param script the script whose applied scripts are to be returned.
+     *   This argument cannot be {@code null}. The script does not need to
+     *   exist.
+     * @param projectDir the directory relative to which Gradle resolves the
+     *   applied scripts (i.e., the directory of the project or of the
+     *   settings file). This argument cannot be {@code null}.
+     * @param rootDir the root directory of the build. This argument cannot be
+     *   {@code null}.
+     * @return the scripts applied by the given script. This method never
+     *   returns {@code null}. The returned list may contain scripts which
+     *   do not exist.
+     *
+     * @throws IOException thrown if a script could not be read or if the path
+     *   of an applied script cannot be determined without evaluating the
+     *   script (e.g.: remote scripts)
+     */
+    public static List<Path> getAppliedScripts(Path script, Path projectDir, Path rootDir) throws IOException {
+        ExceptionHelper.checkNotNullArgument(script, "script");
+        ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+
+        Set<Path> result = new LinkedHashSet<>();
+
+        Queue<Path> toParse = new LinkedList<>();
+        toParse.add(script);
+        while (!toParse.isEmpty()) {
+            Path currentScript = toParse.remove();
+            for (Path appliedScript: parseAppliedScripts(currentScript, projectDir, rootDir)) {
+                if (!appliedScript.equals(script) && result.add(appliedScript)) {
+                    toParse.add(appliedScript);
+                }
+            }
+        }
+
+        return new ArrayList<>(result);
+    }
+
+    private static List<Path> parseAppliedScripts(Path script, Path projectDir, Path rootDir) throws IOException {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(script), StringUtils.UTF8);
+        } catch (NoSuchFileException ex) {
+            return Collections.emptyList();
+        }
+
+        List<Path> result = new ArrayList<>();
+
+        Matcher applyMatcher = APPLY_FROM_PATTERN.matcher(content);
+        while (applyMatcher.find()) {
+            String expression = content.substring(applyMatcher.end());
+            Path appliedScript = tryResolveScriptPath(expression, projectDir, rootDir);
+            if (appliedScript == null) {
+                throw new IOException("Cannot determine the path of a script applied by "
+                        + script + ": " + getFirstLine(expression));
+            }
+            result.add(appliedScript);
+        }
+
+        return result;
+    }
+
+    private static String getFirstLine(String str) {
+        int lineEnd = str.indexOf('\n');
+        return (lineEnd >= 0 ? str.substring(0, lineEnd) : str).trim();
+    }
+
+    private static Path tryResolveScriptPath(String expression, Path projectDir, Path rootDir) {
+        Matcher pathMatcher = SCRIPT_PATH_PATTERN.matcher(expression);
+        if (!pathMatcher.find()) {
+            return null;
+        }
+
+        boolean relativeToRoot = pathMatcher.group(1) != null;
+        boolean interpolated = "\"".equals(pathMatcher.group(2));
+        String path = pathMatcher.group(3);
+
+        if (interpolated) {
+            path = replaceDirProperty(path, "rootProject.projectDir", rootDir);
+            path = replaceDirProperty(path, "rootDir", rootDir);
+            path = replaceDirProperty(path, "projectDir", projectDir);
+            if (path.indexOf('$') >= 0) {
+                return null;
+            }
+        }
+
+        if (URI_SCHEME_PATTERN.matcher(path).find()) {
+            // Remote scripts may change without any local change.
+            return null;
+        }
+
+        Path baseDir = relativeToRoot ? rootDir : projectDir;
+        return baseDir.resolve(path).normalize();
+    }
+
+    private static String replaceDirProperty(String str, String propertyName, Path dir) {
+        String dirStr = dir.toString();
+        return str
+                .replace("${" + propertyName + "}", dirStr)
+                .replaceAll("\\$" + Pattern.quote(propertyName) + "(?![\\w.])", Matcher.quoteReplacement(dirStr));
+    }
+
+    private ScriptInputFiles() {
+        throw new AssertionError();
+    }
+}
@@ -1,5 +1,10 @@
 package org.netbeans.gradle.project.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.logging.Level;
@@ -9,62 +14,142 @@ import org.netbeans.gradle.model.util.SerializationUtils;
 import org.netbeans.gradle.project.NbGradleExtensionRef;
 import org.netbeans.gradle.project.NbGradleProject;
 
-public final class SerializedNbGradleModels implements Serializable {
-    private static final long serialVersionUID = 1L;
+/**
+ * Defines the content of a single entry of the persistent model cache.
+ * <P>
+ * The cache entry is stored in a versioned binary format: The generic
+ * project information and extension models having an
+ * {@link ExtensionModelFormat} are written in a compact format (interning
+ * strings and files), other extension models are stored using Java
+ * serialization. The entry might also store the {@link ModelInputFingerprint}
+ * of the build at the time the models were loaded.
+ */
+public final class SerializedNbGradleModels {
     private static final Logger LOGGER = Logger.getLogger(SerializedNbGradleModels.class.getName());
 
+    private static final int FILE_MAGIC = 0x4E42474D; // "NBGM"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int KIND_SERIALIZED = 0;
+    private static final int KIND_COMPACT = 1;
+
+    private final ModelInputFingerprint fingerprint;
     private final NbGenericModelInfo genericInfo;
     // Maps extension name to serialized extension model
-    private final Map<String, byte[]> extensionModels;
+    private final Map<String, SerializedExtensionModel> extensionModels;
 
     private SerializedNbGradleModels(
+            ModelInputFingerprint fingerprint,
             NbGenericModelInfo genericInfo,
-            Map<String, byte[]> extensionModels) {
+            Map<String, SerializedExtensionModel> extensionModels) {
 
         assert genericInfo != null;
         assert extensionModels != null;
 
+        this.fingerprint = fingerprint;
         this.genericInfo = genericInfo;
         this.extensionModels = extensionModels;
     }
 
     public static SerializedNbGradleModels createSerialized(NbGradleModel model) {
+        return createSerialized(model, null);
+    }
+
+    public static SerializedNbGradleModels createSerialized(NbGradleModel model, ModelInputFingerprint fingerprint) {
         Map<String, Object> extensionModels = model.getExtensionModels();
-        Map<String, byte[]> serializedModels = CollectionUtils.newHashMap(extensionModels.size());
+        Map<String, SerializedExtensionModel> serializedModels = CollectionUtils.newHashMap(extensionModels.size());
 
         for (Map.Entry<String, Object> entry: extensionModels.entrySet()) {
             String extensionName = entry.getKey();
             Object extensionModel = entry.getValue();
 
-            if (!(extensionModel instanceof Serializable)) {
+            if (extensionModel == null) {
                 continue;
             }
 
-            byte[] serializedModel;
+            SerializedExtensionModel serializedModel;
             try {
-                serializedModel = SerializationUtils.serializeObject(extensionModel);
+                serializedModel = trySerializeModel(extensionModel);
             } catch (Exception ex) {
                 LOGGER.log(Level.INFO, "There was a problem serializing " + extensionModel, ex);
                 continue;
             }
 
-            serializedModels.put(extensionName, serializedModel);
+            if (serializedModel != null) {
+                serializedModels.put(extensionName, serializedModel);
+            }
+        }
+
+        return new SerializedNbGradleModels(fingerprint, model.getGenericInfo(), serializedModels);
+    }
+
+    private static SerializedExtensionModel trySerializeModel(Object extensionModel) throws IOException {
+        ExtensionModelFormat<?> format = ExtensionModelFormats.tryGetFormat(extensionModel.getClass());
+        if (format != null) {
+            return serializeCompact(format, extensionModel);
+        }
+
+        if (!(extensionModel instanceof Serializable)) {
+            return null;
+        }
+
+        byte[] serializedModel = SerializationUtils.serializeObject(extensionModel);
+        return new SerializedExtensionModel(KIND_SERIALIZED, 0, serializedModel);
+    }
+
+    private static <ModelType> SerializedExtensionModel serializeCompact(
+            ExtensionModelFormat<ModelType> format,
+            Object extensionModel) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        CompactModelOutput output = new CompactModelOutput(bytes);
+        format.writeModel(format.getModelType().cast(extensionModel), output);
+        output.flush();
+
+        return new SerializedExtensionModel(KIND_COMPACT, format.getFormatVersion(), bytes.toByteArray());
+    }
+
+    private static Object deserializeModel(
+            NbGradleExtensionRef extensionRef,
+            SerializedExtensionModel serializedModel) throws Exception {
+
+        Class<?> modelType = extensionRef.getExtensionDef().getModelType();
+
+        if (serializedModel.kind == KIND_COMPACT) {
+            ExtensionModelFormat<?> format = ExtensionModelFormats.tryGetFormat(modelType);
+            if (format == null || format.getFormatVersion() != serializedModel.formatVersion) {
+                return null;
+            }
+
+            CompactModelInput input = new CompactModelInput(new ByteArrayInputStream(serializedModel.content));
+            return format.readModel(input);
         }
+        else {
+            ClassLoader modelClassLoader = modelType.getClassLoader();
+            return SerializationUtils.deserializeObject(serializedModel.content, modelClassLoader);
+        }
+    }
 
-        return new SerializedNbGradleModels(model.getGenericInfo(), serializedModels);
+    /**
+     * Returns the fingerprint of the build at the time the models were
+     * loaded or {@code null} if it is unknown.
+     */
+    public ModelInputFingerprint tryGetFingerprint() {
+        return fingerprint;
     }
 
     public NbGradleModel deserializeModel(NbGradleProject ownerProject) {
         Map<String, Object> deserializedModels = CollectionUtils.newHashMap(extensionModels.size());
 
         for (NbGradleExtensionRef extensionRef: ownerProject.getExtensionRefs()) {
-            byte[] serializedModel = extensionModels.get(extensionRef.getName());
+            SerializedExtensionModel serializedModel = extensionModels.get(extensionRef.getName());
 
             if (serializedModel != null) {
                 try {
-                    ClassLoader modelClassLoader = extensionRef.getExtensionDef().getModelType().getClassLoader();
-                    Object model = SerializationUtils.deserializeObject(serializedModel, modelClassLoader);
-                    deserializedModels.put(extensionRef.getName(), model);
+                    Object model = deserializeModel(extensionRef, serializedModel);
+                    if (model != null) {
+                        deserializedModels.put(extensionRef.getName(), model);
+                    }
                 } catch (Throwable ex) {
                     LOGGER.log(Level.INFO,
                             "There was a problem when deserializing model for " + extensionRef.getName(),
@@ -75,4 +160,72 @@ public final class SerializedNbGradleModels implements Serializable {
 
         return new NbGradleModel(genericInfo, deserializedModels);
     }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        CompactModelOutput output = new CompactModelOutput(outputStream);
+        output.writeInt(FILE_MAGIC);
+        output.writeInt(FORMAT_VERSION);
+
+        output.writeBoolean(fingerprint != null);
+        if (fingerprint != null) {
+            output.writeBytes(fingerprint.toBytes());
+        }
+
+        DefaultModelFormats.writeGenericInfo(genericInfo, output);
+
+        output.writeVarInt(extensionModels.size());
+        for (Map.Entry<String, SerializedExtensionModel> entry: extensionModels.entrySet()) {
+            SerializedExtensionModel model = entry.getValue();
+
+            output.writeString(entry.getKey());
+            output.writeByte(model.kind);
+            output.writeVarInt(model.formatVersion);
+            output.writeBytes(model.content);
+        }
+
+        output.flush();
+    }
+
+    /**
+     * Reads a cache entry written by {@link #writeTo(OutputStream) writeTo}.
+     * This method returns {@code null} if the given input was written in
+     * a different (possibly an older) format.
+     */
+    public static SerializedNbGradleModels tryReadFrom(InputStream inputStream) throws IOException {
+        CompactModelInput input = new CompactModelInput(inputStream);
+        if (input.readInt() != FILE_MAGIC || input.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+
+        ModelInputFingerprint fingerprint = input.readBoolean()
+                ? ModelInputFingerprint.fromBytes(input.readBytes())
+                : null;
+
+        NbGenericModelInfo genericInfo = DefaultModelFormats.readGenericInfo(input);
+
+        int extensionCount = input.readVarInt();
+        Map<String, SerializedExtensionModel> extensionModels = CollectionUtils.newHashMap(extensionCount);
+        for (int i = 0; i < extensionCount; i++) {
+            String extensionName = input.readString();
+            int kind = input.readByte();
+            int formatVersion = input.readVarInt();
+            byte[] content = input.readBytes();
+
+            extensionModels.put(extensionName, new SerializedExtensionModel(kind, formatVersion, content));
+        }
+
+        return new SerializedNbGradleModels(fingerprint, genericInfo, extensionModels);
+    }
+
+    private static final class SerializedExtensionModel {
+        public final int kind;
+        public final int formatVersion;
+        public final byte[] content;
+
+        public SerializedExtensionModel(int kind, int formatVersion, byte[] content) {
+            this.kind = kind;
+            this.formatVersion = formatVersion;
+            this.content = content;
+        }
+    }
 }
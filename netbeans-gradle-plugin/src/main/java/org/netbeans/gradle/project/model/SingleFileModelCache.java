@@ -0,0 +1,473 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.properties.SettingsFiles;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines a {@code PersistentModelCache} storing the models of every project
+ * of a root build in a single, append-only file.
+ * <P>
+ * The store file starts with a header followed by records of the form:
+ * key length, content length, content checksum, key (UTF-8) and content
+ * (as written by {@link SerializedNbGradleModels#writeTo(java.io.OutputStream) SerializedNbGradleModels.writeTo}).
+ * When the same project is saved again, a new record is appended and the
+ * later record wins. The headers of the records are indexed when the file is
+ * first needed, and records are read through positional reads, so reading
+ * the model of a single project does not require reading the models of
+ * other projects. Once most of the file is made of overwritten records, the
+ * store is rewritten with only the live records.
+ * <P>
+ * The file is never memory mapped and is only kept open while it is being
+ * read or written, so it can be replaced by the compaction on every
+ * platform.
+ */
+public final class SingleFileModelCache implements PersistentModelCache {
+    private static final Logger LOGGER = Logger.getLogger(SingleFileModelCache.class.getName());
+
+    private static final String STORE_FILE_NAME = "project-models.bin";
+    private static final String TEMP_STORE_FILE_NAME = STORE_FILE_NAME + ".tmp";
+
+    private static final int STORE_MAGIC = 0x4E47434D; // "NGCM"
+    private static final int STORE_VERSION = 1;
+    private static final int STORE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+
+    private final Lock storesLock;
+    private final Map<Path, ModelStore> stores;
+
+    public SingleFileModelCache() {
+        this.storesLock = new ReentrantLock();
+        this.stores = new HashMap<>();
+    }
+
+    private ModelStore getStore(Path rootProjectDir) {
+        Path storeFile = SettingsFiles.getCacheDir(rootProjectDir)
+                .resolve(STORE_FILE_NAME)
+                .toAbsolutePath()
+                .normalize();
+
+        storesLock.lock();
+        try {
+            ModelStore result = stores.get(storeFile);
+            if (result == null) {
+                result = new ModelStore(storeFile);
+                stores.put(storeFile, result);
+            }
+            return result;
+        } finally {
+            storesLock.unlock();
+        }
+    }
+
+    @Override
+    public PersistentModelEntry tryGetModel(NbGradleProject project, Path rootProjectDir) throws IOException {
+        SerializedNbGradleModels serializedModel
+                = tryGetSerializedModel(rootProjectDir, project.getProjectDirectoryAsFile());
+        return serializedModel != null
+                ? new PersistentModelEntry(serializedModel.deserializeModel(project), serializedModel.tryGetFingerprint())
+                : null;
+    }
+
+    // For benchmarking purposes
+    SerializedNbGradleModels tryGetSerializedModel(Path rootProjectDir, File projectDir) throws IOException {
+        String cacheKey = MultiFileModelCache.getCacheKey(rootProjectDir, projectDir);
+
+        byte[] content = getStore(rootProjectDir).tryReadRecord(cacheKey);
+        if (content == null) {
+            return null;
+        }
+
+        return SerializedNbGradleModels.tryReadFrom(new ByteArrayInputStream(content));
+    }
+
+    @Override
+    public void saveGradleModels(
+            Collection<NbGradleModel> models,
+            ModelInputFingerprint fingerprint) throws IOException {
+        Map<Path, Map<String, byte[]>> recordsByRoot = new LinkedHashMap<>();
+
+        for (NbGradleModel model: models) {
+            Path rootProjectDir = model.getSettingsDir();
+            String cacheKey = MultiFileModelCache.getCacheKey(rootProjectDir, model.getProjectDir());
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream(8 * 1024);
+            SerializedNbGradleModels.createSerialized(model, fingerprint).writeTo(content);
+
+            Map<String, byte[]> records = recordsByRoot.get(rootProjectDir);
+            if (records == null) {
+                records = new LinkedHashMap<>();
+                recordsByRoot.put(rootProjectDir, records);
+            }
+            records.put(cacheKey, content.toByteArray());
+        }
+
+        for (Map.Entry<Path, Map<String, byte[]>> entry: recordsByRoot.entrySet()) {
+            getStore(entry.getKey()).writeRecords(entry.getValue());
+        }
+    }
+
+    private static int checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return (int)crc.getValue();
+    }
+
+    private static final class RecordRef {
+        public final int contentOffset;
+        public final int contentLength;
+        public final int checksum;
+        public final int recordSize;
+
+        public RecordRef(int contentOffset, int contentLength, int checksum, int recordSize) {
+            this.contentOffset = contentOffset;
+            this.contentLength = contentLength;
+            this.checksum = checksum;
+            this.recordSize = recordSize;
+        }
+    }
+
+    static final class ModelStore {
+        private final Path storeFile;
+        private final Lock storeLock;
+
+        // The following fields are guarded by storeLock.
+        private Map<String, RecordRef> index;
+        private long storeSize;
+        private long liveSize;
+
+        public ModelStore(Path storeFile) {
+            this.storeFile = storeFile;
+            this.storeLock = new ReentrantLock();
+            this.index = null;
+            this.storeSize = 0;
+            this.liveSize = 0;
+        }
+
+        public byte[] tryReadRecord(String key) throws IOException {
+            storeLock.lock();
+            try {
+                ensureIndexed();
+
+                RecordRef record = index.get(key);
+                if (record == null) {
+                    return null;
+                }
+
+                // The lock must be held while reading because the
+                // compaction might replace the file.
+                byte[] result;
+                try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ)) {
+                    result = readContent(channel, record);
+                } catch (EOFException | NoSuchFileException ex) {
+                    // The file was modified by someone else.
+                    LOGGER.log(Level.INFO, "Model cache was modified externally: " + storeFile, ex);
+                    index = null;
+                    return null;
+                }
+
+                if (checksum(result) != record.checksum) {
+                    LOGGER.log(Level.INFO, "Corrupted model cache record for {0} in {1}", new Object[]{key, storeFile});
+                    return null;
+                }
+                return result;
+            } finally {
+                storeLock.unlock();
+            }
+        }
+
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            long currentPosition = position;
+            while (buffer.hasRemaining()) {
+                int readCount = channel.read(buffer, currentPosition);
+                if (readCount < 0) {
+                    throw new EOFException();
+                }
+                currentPosition += readCount;
+            }
+            buffer.flip();
+        }
+
+        private static byte[] readContent(FileChannel channel, RecordRef record) throws IOException {
+            byte[] result = new byte[record.contentLength];
+            readFully(channel, ByteBuffer.wrap(result), record.contentOffset);
+            return result;
+        }
+
+        // For testing purposes
+        long getStoreSize() throws IOException {
+            storeLock.lock();
+            try {
+                ensureIndexed();
+                return storeSize;
+            } finally {
+                storeLock.unlock();
+            }
+        }
+
+        public void writeRecords(Map<String, byte[]> records) throws IOException {
+            storeLock.lock();
+            try {
+                ensureIndexed();
+
+                long newSize = storeSize;
+                long newLiveSize = liveSize;
+                for (Map.Entry<String, byte[]> entry: records.entrySet()) {
+                    int recordSize = getRecordSize(entry.getKey(), entry.getValue());
+                    newSize += recordSize;
+                    newLiveSize += recordSize;
+
+                    RecordRef prevRecord = index.get(entry.getKey());
+                    if (prevRecord != null) {
+                        newLiveSize -= prevRecord.recordSize;
+                    }
+                }
+
+                if (newSize >= MIN_COMPACT_SIZE && newSize > 2 * newLiveSize) {
+                    if (tryRewriteStore(records)) {
+                        return;
+                    }
+                }
+
+                appendRecords(records);
+            } finally {
+                storeLock.unlock();
+            }
+        }
+
+        private static int getRecordSize(String key, byte[] content) {
+            return RECORD_HEADER_SIZE + key.getBytes(StringUtils.UTF8).length + content.length;
+        }
+
+        private void resetIndex() {
+            index = new HashMap<>();
+            storeSize = 0;
+            liveSize = 0;
+        }
+
+        private void ensureIndexed() throws IOException {
+            if (index != null) {
+                return;
+            }
+
+            resetIndex();
+
+            if (!Files.isRegularFile(storeFile)) {
+                return;
+            }
+
+            try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ)) {
+                long fileSize = channel.size();
+                if (fileSize < STORE_HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                    return;
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(STORE_HEADER_SIZE);
+                readFully(channel, header, 0);
+
+                // Stores written in a different format are simply
+                // overwritten on the next save.
+                if (header.getInt() != STORE_MAGIC || header.getInt() != STORE_VERSION) {
+                    return;
+                }
+
+                storeSize = STORE_HEADER_SIZE;
+                indexRecords(channel, (int)fileSize);
+            }
+        }
+
+        private void indexRecords(FileChannel channel, int limit) throws IOException {
+            // Only the headers and the keys are read, the content is skipped.
+            ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+
+            int position = STORE_HEADER_SIZE;
+            while (limit - position >= RECORD_HEADER_SIZE) {
+                recordHeader.clear();
+                readFully(channel, recordHeader, position);
+
+                int keyLength = recordHeader.getInt();
+                int contentLength = recordHeader.getInt();
+                int contentChecksum = recordHeader.getInt();
+
+                int recordDataSize = limit - position - RECORD_HEADER_SIZE;
+                if (keyLength < 0 || contentLength < 0
+                        || keyLength > recordDataSize
+                        || contentLength > recordDataSize - keyLength) {
+                    // The last record was not completely written.
+                    break;
+                }
+
+                byte[] keyBytes = new byte[keyLength];
+                readFully(channel, ByteBuffer.wrap(keyBytes), position + RECORD_HEADER_SIZE);
+                String key = new String(keyBytes, StringUtils.UTF8);
+
+                int contentOffset = position + RECORD_HEADER_SIZE + keyLength;
+                int recordSize = RECORD_HEADER_SIZE + keyLength + contentLength;
+                addToIndex(key, new RecordRef(contentOffset, contentLength, contentChecksum, recordSize));
+
+                position += recordSize;
+            }
+
+            if (position < limit) {
+                LOGGER.log(Level.INFO, "Ignoring {0} bytes at the end of {1}", new Object[]{limit - position, storeFile});
+            }
+            storeSize = position;
+        }
+
+        private void addToIndex(String key, RecordRef record) {
+            RecordRef prevRecord = index.put(key, record);
+            if (prevRecord != null) {
+                liveSize -= prevRecord.recordSize;
+            }
+            liveSize += record.recordSize;
+        }
+
+        private static ByteBuffer encodeRecord(String key, byte[] content) {
+            byte[] keyBytes = key.getBytes(StringUtils.UTF8);
+
+            ByteBuffer result = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + content.length);
+            result.putInt(keyBytes.length);
+            result.putInt(content.length);
+            result.putInt(checksum(content));
+            result.put(keyBytes);
+            result.put(content);
+            result.flip();
+            return result;
+        }
+
+        private static ByteBuffer encodeHeader() {
+            ByteBuffer result = ByteBuffer.allocate(STORE_HEADER_SIZE);
+            result.putInt(STORE_MAGIC);
+            result.putInt(STORE_VERSION);
+            result.flip();
+            return result;
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void appendRecords(Map<String, byte[]> records) throws IOException {
+            Path storeDir = storeFile.getParent();
+            if (storeDir != null) {
+                Files.createDirectories(storeDir);
+            }
+
+            long position = storeSize;
+            List<RecordRef> newRecords = new ArrayList<>(records.size());
+
+            try (FileChannel channel = FileChannel.open(storeFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+
+                if (position == 0) {
+                    channel.truncate(0);
+                    writeFully(channel, encodeHeader());
+                    position = STORE_HEADER_SIZE;
+                }
+                else if (channel.size() > position) {
+                    // Drop the partially written record left by a previous failure.
+                    channel.truncate(position);
+                }
+
+                channel.position(position);
+                for (Map.Entry<String, byte[]> entry: records.entrySet()) {
+                    ByteBuffer record = encodeRecord(entry.getKey(), entry.getValue());
+                    int recordSize = record.remaining();
+                    int contentLength = entry.getValue().length;
+                    int contentOffset = (int)(position + recordSize - contentLength);
+
+                    writeFully(channel, record);
+                    newRecords.add(new RecordRef(contentOffset, contentLength, checksum(entry.getValue()), recordSize));
+                    position += recordSize;
+                }
+
+                // A single sync for all the projects of the build.
+                channel.force(false);
+            } catch (IOException ex) {
+                // We no longer know what is in the file, so read it again next time.
+                index = null;
+                throw ex;
+            }
+
+            if (position > Integer.MAX_VALUE) {
+                index = null;
+                return;
+            }
+
+            int recordIndex = 0;
+            for (String key: records.keySet()) {
+                addToIndex(key, newRecords.get(recordIndex));
+                recordIndex++;
+            }
+            storeSize = position;
+        }
+
+        private boolean tryRewriteStore(Map<String, byte[]> records) throws IOException {
+            Map<String, byte[]> liveRecords = new LinkedHashMap<>();
+            if (storeSize > 0) {
+                try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ)) {
+                    for (Map.Entry<String, RecordRef> entry: index.entrySet()) {
+                        if (!records.containsKey(entry.getKey())) {
+                            liveRecords.put(entry.getKey(), readContent(channel, entry.getValue()));
+                        }
+                    }
+                }
+            }
+            liveRecords.putAll(records);
+
+            Path tempFile = storeFile.resolveSibling(TEMP_STORE_FILE_NAME);
+            try (FileChannel channel = FileChannel.open(tempFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+
+                writeFully(channel, encodeHeader());
+                for (Map.Entry<String, byte[]> entry: liveRecords.entrySet()) {
+                    writeFully(channel, encodeRecord(entry.getKey(), entry.getValue()));
+                }
+                channel.force(false);
+            }
+
+            try {
+                Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                // This might fail if another process has the store open (e.g., on Windows).
+                LOGGER.log(Level.FINE, "Failed to replace " + storeFile, ex);
+                Files.deleteIfExists(tempFile);
+                return false;
+            }
+
+            index = null;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,618 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.NbTaskExecutors;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.windows.IOColorPrint;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputEvent;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+/**
+ * Defines the output writers of an output tab which keep only a limited
+ * amount of text in the tab. When the text printed to the tab exceeds the
+ * limit, the oldest text is moved to a compressed temporary file (see
+ * {@link SpilledOutputBuffer}), the tab is cleared and the remaining text is
+ * printed again (links as links, everything else as plain text) after a link
+ * opening the complete output in the editor. The text is printed again
+ * without holding the lock of this object: text printed meanwhile is only
+ * printed to the tab after the text printed again.
+ * <P>
+ * The complete output is exported without holding the lock of this object,
+ * so printing is not blocked by the export. Only the last 16M characters
+ * are exported, so that the editor can open the exported output.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class BoundedTabOutput implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(BoundedTabOutput.class.getName());
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // The editor becomes unusable for much larger files.
+    private static final long MAX_EXPORTED_CHARS = 16L * 1024 * 1024;
+
+    private final InputOutput io;
+
+    private final ReentrantLock mainLock;
+    private final SpilledOutputBuffer buffer;
+    private OutputWriter rawOut;
+    private OutputWriter rawErr;
+    private OutputWriter out;
+    private OutputWriter err;
+    private boolean spillFailed;
+    private boolean closed;
+
+    private boolean reprinting;
+    private List<SpilledOutputBuffer.Segment> pendingReprint;
+    private final List<RawPrint> deferredPrints;
+
+    private long outputVersion;
+    private final Lock exportLock;
+    private File exportedFile;
+    private long exportedVersion;
+
+    /**
+     * Creates the output writers of the given tab.
+     *
+     * @param io the output tab. This argument cannot be {@code null}.
+     * @param maxMemoryChars the maximum number of characters to be kept
+     *   in the output tab. This argument must be greater than zero.
+     */
+    public BoundedTabOutput(InputOutput io, int maxMemoryChars) {
+        ExceptionHelper.checkNotNullArgument(io, "io");
+
+        this.io = io;
+        this.mainLock = new ReentrantLock();
+        this.buffer = new SpilledOutputBuffer(maxMemoryChars);
+        this.rawOut = null;
+        this.rawErr = null;
+        this.out = null;
+        this.err = null;
+        this.spillFailed = false;
+        this.closed = false;
+        this.reprinting = false;
+        this.pendingReprint = null;
+        this.deferredPrints = new ArrayList<>();
+        this.outputVersion = 0;
+        this.exportLock = new ReentrantLock();
+        this.exportedFile = null;
+        this.exportedVersion = -1;
+    }
+
+    /**
+     * Returns the number of megabytes of text an output tab might retain
+     * converted to the number of characters, assuming two bytes per
+     * character.
+     */
+    public static int megaBytesToChars(int megaBytes) {
+        long chars = (long)megaBytes * 1024 * 1024 / 2;
+        return (int)Math.max(1, Math.min(Integer.MAX_VALUE, chars));
+    }
+
+    private OutputWriter getRawOut() {
+        assert mainLock.isHeldByCurrentThread();
+
+        if (rawOut == null) {
+            rawOut = io.getOut();
+        }
+        return rawOut;
+    }
+
+    private OutputWriter getRawErr() {
+        assert mainLock.isHeldByCurrentThread();
+
+        if (rawErr == null) {
+            rawErr = io.getErr();
+        }
+        return rawErr;
+    }
+
+    public OutputWriter getOut() {
+        mainLock.lock();
+        try {
+            if (out == null) {
+                out = new RecordingOutputWriter(getRawOut(), false);
+            }
+            return out;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    public OutputWriter getErr() {
+        mainLock.lock();
+        try {
+            if (err == null) {
+                err = new RecordingOutputWriter(getRawErr(), true);
+            }
+            return err;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Prints the given text to the tab or defers printing it, if the text of
+     * the tab is being printed again. The text must be recorded by the caller
+     * while still holding the lock.
+     */
+    private void printOrDefer(RawPrint rawPrint) throws IOException {
+        assert mainLock.isHeldByCurrentThread();
+
+        if (reprinting) {
+            deferredPrints.add(rawPrint);
+        }
+        else {
+            rawPrint.print();
+        }
+    }
+
+    private boolean canRecord() {
+        assert mainLock.isHeldByCurrentThread();
+        return !spillFailed && !closed;
+    }
+
+    /**
+     * Records the given printed text. Returns {@code true} if the caller must
+     * call {@link #reprint() reprint} after releasing the lock.
+     */
+    private boolean recordPrinted(CharSequence text, boolean error) {
+        if (!canRecord()) {
+            return false;
+        }
+
+        outputVersion++;
+        if (buffer.append(text, error)) {
+            return spillOldest();
+        }
+        return false;
+    }
+
+    /**
+     * Records the given printed link, optionally followed by a line
+     * separator. Returns {@code true} if the caller must call
+     * {@link #reprint() reprint} after releasing the lock.
+     */
+    private boolean recordPrintedLink(
+            CharSequence text,
+            boolean lineEnd,
+            boolean error,
+            OutputListener listener,
+            boolean important) {
+
+        if (!canRecord()) {
+            return false;
+        }
+
+        outputVersion++;
+        boolean needSpill = buffer.appendLink(text, error, listener, important);
+        if (lineEnd) {
+            needSpill = buffer.append(System.lineSeparator(), error) || needSpill;
+        }
+
+        if (needSpill) {
+            return spillOldest();
+        }
+        return false;
+    }
+
+    private boolean spillOldest() {
+        assert mainLock.isHeldByCurrentThread();
+
+        List<SpilledOutputBuffer.Segment> remaining;
+        try {
+            remaining = buffer.spillOldest();
+        } catch (IOException ex) {
+            // We rather keep everything in the tab than lose output.
+            LOGGER.log(Level.WARNING, "Failed to move the output to a temporary file.", ex);
+            spillFailed = true;
+            buffer.clear();
+            return false;
+        }
+
+        // The deferred texts are part of the remaining text.
+        pendingReprint = remaining;
+        deferredPrints.clear();
+
+        if (reprinting) {
+            // The thread currently printing will print the new text as well.
+            return false;
+        }
+
+        reprinting = true;
+        return true;
+    }
+
+    private void reprint() throws IOException {
+        assert !mainLock.isHeldByCurrentThread();
+
+        boolean completed = false;
+        try {
+            while (true) {
+                List<SpilledOutputBuffer.Segment> toReprint;
+                List<RawPrint> toPrint;
+                long spilledChars;
+                mainLock.lock();
+                try {
+                    toReprint = pendingReprint;
+                    pendingReprint = null;
+                    spilledChars = buffer.getSpilledChars();
+
+                    toPrint = new ArrayList<>(deferredPrints);
+                    deferredPrints.clear();
+
+                    if (toReprint == null && toPrint.isEmpty()) {
+                        reprinting = false;
+                        completed = true;
+                        return;
+                    }
+                } finally {
+                    mainLock.unlock();
+                }
+
+                if (toReprint != null) {
+                    reprintRemaining(toReprint, spilledChars);
+                }
+                for (RawPrint rawPrint: toPrint) {
+                    rawPrint.print();
+                }
+            }
+        } finally {
+            if (!completed) {
+                mainLock.lock();
+                try {
+                    reprinting = false;
+                    pendingReprint = null;
+                    deferredPrints.clear();
+                } finally {
+                    mainLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void reprintRemaining(List<SpilledOutputBuffer.Segment> remaining, long spilledChars) throws IOException {
+        OutputWriter printOut;
+        OutputWriter printErr;
+        mainLock.lock();
+        try {
+            printOut = getRawOut();
+            printErr = getRawErr();
+        } finally {
+            mainLock.unlock();
+        }
+
+        printOut.reset();
+        printOut.println(NbStrings.getOutputMovedToDisk(spilledChars), new ShowFullOutputListener());
+        for (SpilledOutputBuffer.Segment segment: remaining) {
+            OutputListener listener = segment.getListener();
+            if (listener != null) {
+                IOColorPrint.print(io, segment.getText(), listener, segment.isImportant(), null);
+            }
+            else {
+                OutputWriter printTo = segment.isError() ? printErr : printOut;
+                printTo.print(segment.getText());
+            }
+        }
+    }
+
+    private void outputReset() throws IOException {
+        mainLock.lock();
+        try {
+            buffer.clear();
+            spillFailed = false;
+            outputVersion++;
+            pendingReprint = null;
+            deferredPrints.clear();
+            getRawOut().reset();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the text retained by this object along with its temporary
+     * files. The text printed after this method returns is not retained.
+     */
+    @Override
+    public void close() {
+        File toRemove;
+        mainLock.lock();
+        try {
+            closed = true;
+            buffer.close();
+            pendingReprint = null;
+            deferredPrints.clear();
+
+            toRemove = exportedFile;
+            exportedFile = null;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (toRemove != null && !toRemove.delete()) {
+            LOGGER.log(Level.INFO, "Failed to remove the exported output: {0}", toRemove);
+        }
+    }
+
+    /**
+     * Prints the given link to the output tab the same way as
+     * {@link IOColorPrint#print(InputOutput, CharSequence, OutputListener, boolean, java.awt.Color) IOColorPrint.print}
+     * does but also retains the text of the link.
+     *
+     * @param output the writer of this tab to print the link to. This
+     *   argument cannot be {@code null}.
+     * @param text the text of the link. This argument cannot be {@code null}.
+     * @param listener the listener to be notified when the user clicks the
+     *   link. This argument cannot be {@code null}.
+     */
+    public static void printLink(
+            InputOutput ioParent,
+            OutputWriter output,
+            CharSequence text,
+            OutputListener listener) throws IOException {
+
+        if (output instanceof RecordingOutputWriter) {
+            ((RecordingOutputWriter)output).printLink(ioParent, text, listener);
+        }
+        else {
+            IOColorPrint.print(ioParent, text, listener, false, null);
+        }
+    }
+
+    private File exportFullOutput() throws IOException {
+        // Prevents concurrent exports from writing the same file.
+        exportLock.lock();
+        try {
+            File file;
+            long version;
+            SpilledOutputBuffer.Snapshot snapshot;
+
+            mainLock.lock();
+            try {
+                if (closed) {
+                    return null;
+                }
+
+                if (exportedFile != null && exportedVersion == outputVersion && exportedFile.isFile()) {
+                    return exportedFile;
+                }
+
+                if (exportedFile == null) {
+                    exportedFile = File.createTempFile("gradle-output", ".txt");
+                    exportedFile.deleteOnExit();
+                }
+                // Set before writing, so that a failed export is not reused.
+                exportedVersion = -1;
+
+                file = exportedFile;
+                version = outputVersion;
+                snapshot = buffer.snapshot();
+            } finally {
+                mainLock.unlock();
+            }
+
+            long omittedChars = Math.max(0, snapshot.getTotalChars() - MAX_EXPORTED_CHARS);
+            try (Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8))) {
+                if (omittedChars > 0) {
+                    output.write(NbStrings.getExportedOutputTruncated(omittedChars));
+                    output.write(System.lineSeparator());
+                }
+                snapshot.writeTo(output, MAX_EXPORTED_CHARS);
+            }
+
+            mainLock.lock();
+            try {
+                if (exportedFile != file) {
+                    // Closed while exporting.
+                    return null;
+                }
+                exportedVersion = version;
+                return file;
+            } finally {
+                mainLock.unlock();
+            }
+        } finally {
+            exportLock.unlock();
+        }
+    }
+
+    private void showFullOutput() {
+        NbTaskExecutors.DEFAULT_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) throws IOException {
+                File exported = exportFullOutput();
+                if (exported == null) {
+                    return;
+                }
+
+                final FileObject exportedObj = FileUtil.toFileObject(FileUtil.normalizeFile(exported));
+                if (exportedObj == null) {
+                    LOGGER.log(Level.WARNING, "Cannot open the exported output: {0}", exported);
+                    return;
+                }
+                // The file might have been rewritten since it was last opened.
+                exportedObj.refresh();
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        OpenEditorOutputListener.tryOpenFile(exportedObj, 0);
+                    }
+                });
+            }
+        }, null);
+    }
+
+    private final class ShowFullOutputListener implements OutputListener {
+        @Override
+        public void outputLineSelected(OutputEvent ev) {
+        }
+
+        @Override
+        public void outputLineAction(OutputEvent ev) {
+            showFullOutput();
+        }
+
+        @Override
+        public void outputLineCleared(OutputEvent ev) {
+        }
+    }
+
+    private final class RecordingOutputWriter extends OutputWriter {
+        private final OutputWriter raw;
+        private final boolean error;
+
+        public RecordingOutputWriter(OutputWriter raw, boolean error) {
+            super(new RecordingWriter(raw, error));
+
+            this.raw = raw;
+            this.error = error;
+        }
+
+        public void printLink(
+                final InputOutput ioParent,
+                final CharSequence text,
+                final OutputListener listener) throws IOException {
+
+            RawPrint rawPrint = new RawPrint() {
+                @Override
+                public void print() throws IOException {
+                    IOColorPrint.print(ioParent, text, listener, false, null);
+                }
+            };
+
+            boolean needReprint;
+            mainLock.lock();
+            try {
+                printOrDefer(rawPrint);
+                needReprint = recordPrintedLink(text, false, error, listener, false);
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (needReprint) {
+                reprint();
+            }
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+            println(s, l, false);
+        }
+
+        @Override
+        public void println(
+                final String s,
+                final OutputListener l,
+                final boolean important) throws IOException {
+
+            RawPrint rawPrint = new RawPrint() {
+                @Override
+                public void print() throws IOException {
+                    raw.println(s, l, important);
+                }
+            };
+
+            boolean needReprint;
+            mainLock.lock();
+            try {
+                printOrDefer(rawPrint);
+                needReprint = l != null
+                        ? recordPrintedLink(s, true, error, l, important)
+                        : recordPrinted(s + System.lineSeparator(), error);
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (needReprint) {
+                reprint();
+            }
+        }
+
+        @Override
+        public void reset() throws IOException {
+            outputReset();
+        }
+    }
+
+    private final class RecordingWriter extends Writer {
+        private final OutputWriter raw;
+        private final boolean error;
+
+        public RecordingWriter(OutputWriter raw, boolean error) {
+            this.raw = raw;
+            this.error = error;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            write(str.substring(off, off + len));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            write(new String(cbuf, off, len));
+        }
+
+        @Override
+        public void write(final String str) throws IOException {
+            RawPrint rawPrint = new RawPrint() {
+                @Override
+                public void print() throws IOException {
+                    raw.write(str);
+                }
+            };
+
+            boolean needReprint;
+            mainLock.lock();
+            try {
+                printOrDefer(rawPrint);
+                needReprint = recordPrinted(str, error);
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (needReprint) {
+                reprint();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            raw.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            raw.close();
+        }
+    }
+
+    private interface RawPrint {
+        public void print() throws IOException;
+    }
+}
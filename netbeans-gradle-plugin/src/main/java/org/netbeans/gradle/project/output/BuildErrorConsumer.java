@@ -1,9 +1,5 @@
 package org.netbeans.gradle.project.output;
 
-import java.io.IOException;
-import org.openide.windows.InputOutput;
-import org.openide.windows.OutputWriter;
-
 public final class BuildErrorConsumer implements SmartOutputHandler.Consumer {
     private static final String EXCEPTION_CAPTION = "* Exception is:";
 
@@ -14,15 +10,15 @@ public final class BuildErrorConsumer implements SmartOutputHandler.Consumer {
     }
 
     @Override
-    public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException {
+    public SmartOutputHandler.LinePrinter tryConsumeLine(String line) {
         if (consume) {
-            return true;
+            return SmartOutputHandler.NO_OUTPUT;
         }
 
         if (EXCEPTION_CAPTION.equalsIgnoreCase(line.trim())) {
             consume = true;
-            return true;
+            return SmartOutputHandler.NO_OUTPUT;
         }
-        return false;
+        return null;
     }
 }
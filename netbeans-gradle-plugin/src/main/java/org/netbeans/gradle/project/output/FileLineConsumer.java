@@ -50,6 +50,11 @@ public final class FileLineConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public int getRequiredLineFeatures() {
+        return LineFeatures.COLON;
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
         int sepIndex = line.indexOf(':');
@@ -2,4 +2,10 @@ package org.netbeans.gradle.project.output;
 
 public interface IOTabDef {
     public boolean isClosed();
+
+    /**
+     * Releases the resources held by this tab. This method is called after
+     * the tab was found to be closed and the tab is not used afterwards.
+     */
+    public void release();
 }
@@ -60,11 +60,19 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
             } finally {
                 mainLock.unlock();
             }
-        } while (result.isClosed());
+        } while (releaseIfClosed(result));
 
         return result;
     }
 
+    private static boolean releaseIfClosed(CountedTab<?> tab) {
+        if (tab.isClosed()) {
+            tab.tab.release();
+            return true;
+        }
+        return false;
+    }
+
     private Set<CountedTab<IOTab>> getTabsToClose() {
         List<CountedTab<IOTab>> allTabs = new LinkedList<>();
 
@@ -92,6 +100,7 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
             return;
         }
 
+        List<CountedTab<IOTab>> removed = new LinkedList<>();
         mainLock.lock();
         try {
             for (List<CountedTab<IOTab>> tabs: currentTabs.values()) {
@@ -100,6 +109,7 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
                     CountedTab<IOTab> tab = tabsItr.next();
                     if (toClose.contains(tab)) {
                         tabsItr.remove();
+                        removed.add(tab);
                     }
                 }
             }
@@ -116,6 +126,10 @@ public final class IOTabMaintainer<TabKey, IOTab extends IOTabDef> {
         } finally {
             mainLock.unlock();
         }
+
+        for (CountedTab<IOTab> tab: removed) {
+            tab.tab.release();
+        }
     }
 
     private CountedTab<IOTab> newTabWithContext(TabKey key, String caption) {
@@ -2,6 +2,7 @@ package org.netbeans.gradle.project.output;
 
 import java.awt.Dialog;
 import java.awt.event.ActionEvent;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -12,6 +13,7 @@ import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.api.task.GradleActionProviderContext;
 import org.netbeans.gradle.project.api.task.GradleCommandTemplate;
 import org.netbeans.gradle.project.properties.PredefinedTask;
+import org.netbeans.gradle.project.properties.global.GlobalGradleSettings;
 import org.netbeans.gradle.project.tasks.AsyncGradleTask;
 import org.netbeans.gradle.project.tasks.GradleCommandSpec;
 import org.netbeans.gradle.project.tasks.GradleCommandSpecFactory;
@@ -34,11 +36,28 @@ public final class IOTabs {
             public TaskIOTab create(String caption) {
                 TaskTabAction[] actions = createActions(caption);
                 InputOutput io = IOProvider.getDefault().getIO(caption, actions);
-                return new TaskIOTab(io, actions);
+                if (!OutputMetricsRegistry.isEnabled()) {
+                    return new TaskIOTab(wrapTaskIO(io), actions);
+                }
+
+                OutputMetrics metrics = new OutputMetrics();
+                TaskIOTab result = new TaskIOTab(wrapTaskIO(io), metrics, actions);
+                OutputMetricsRegistry.register(caption, metrics);
+                return result;
             }
         };
     }
 
+    private static InputOutputWrapper wrapTaskIO(InputOutput io) {
+        Integer maxMemoryMB = GlobalGradleSettings.getDefault().outputTabMemoryMB().getValue();
+        if (maxMemoryMB == null) {
+            return new InputOutputWrapper(io);
+        }
+
+        int maxMemoryChars = BoundedTabOutput.megaBytesToChars(maxMemoryMB);
+        return new InputOutputWrapper(io, new BoundedTabOutput(io, maxMemoryChars));
+    }
+
     private static TaskTabAction[] createActions(String caption) {
         return new TaskTabAction[] {
             new ReRunTask(),
@@ -126,12 +145,14 @@ public final class IOTabs {
                 names.add(new PredefinedTask.Name(name, false));
             }
 
+            File stdInFile = taskDef.getStandardInputFile();
             return new PredefinedTask(
                     taskDef.getCommandName(),
                     names,
                     taskDef.getArguments(),
                     taskDef.getJvmArguments(),
-                    false);
+                    false,
+                    stdInFile != null ? stdInFile.getPath() : null);
         }
 
         private static GradleCommandSpecFactory adjust(
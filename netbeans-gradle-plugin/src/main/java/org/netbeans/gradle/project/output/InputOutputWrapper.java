@@ -13,6 +13,7 @@ import org.openide.windows.OutputWriter;
 
 public final class InputOutputWrapper implements Closeable {
     private final InputOutput io;
+    private final BoundedTabOutput boundedOutput;
 
     private final AtomicBoolean closed;
 
@@ -22,9 +23,24 @@ public final class InputOutputWrapper implements Closeable {
     private volatile Reader in;
 
     public InputOutputWrapper(InputOutput io) {
+        this(io, null);
+    }
+
+    /**
+     * Creates a wrapper whose output writers retain only a limited amount of
+     * output in the tab.
+     *
+     * @param io the wrapped output tab. This argument cannot be {@code null}.
+     * @param boundedOutput the writers of the given tab to be returned by
+     *   {@link #getOutRef() getOutRef} and {@link #getErrRef() getErrRef}.
+     *   This argument can be {@code null}, in which case the writers of the
+     *   tab are returned as is.
+     */
+    public InputOutputWrapper(InputOutput io, BoundedTabOutput boundedOutput) {
         ExceptionHelper.checkNotNullArgument(io, "io");
 
         this.io = io;
+        this.boundedOutput = boundedOutput;
         this.closed = new AtomicBoolean(false);
 
         this.ioLock = new ReentrantLock();
@@ -51,7 +67,7 @@ public final class InputOutputWrapper implements Closeable {
             try {
                 result = out;
                 if (result == null) {
-                    result = io.getOut();
+                    result = boundedOutput != null ? boundedOutput.getOut() : io.getOut();
                     out = result;
                 }
             } finally {
@@ -69,7 +85,7 @@ public final class InputOutputWrapper implements Closeable {
             try {
                 result = err;
                 if (result == null) {
-                    result = io.getErr();
+                    result = boundedOutput != null ? boundedOutput.getErr() : io.getErr();
                     err = result;
                 }
             } finally {
@@ -124,7 +140,7 @@ public final class InputOutputWrapper implements Closeable {
         if (closed.compareAndSet(false, true)) {
             ioLock.lock();
             try {
-                closeAll(in, out, err);
+                closeAll(in, out, err, boundedOutput);
             } finally {
                 ioLock.unlock();
             }
@@ -0,0 +1,116 @@
+package org.netbeans.gradle.project.output;
+
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Contains the features of output lines which {@link OutputLinkFinder}s might
+ * require to find a link in a line. The features of a line can be determined
+ * by a single pass over the characters of the line without allocating
+ * anything, so lines without a chance to contain a link can be skipped without
+ * running expensive regular expressions on them.
+ * <P>
+ * Features are defined so that if a part of a line has a feature, then the
+ * whole line has that feature as well.
+ */
+public final class LineFeatures {
+    /**
+     * No requirement. Finders returning this value must be called for every
+     * line.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The line contains a ':' character.
+     */
+    public static final int COLON = 1;
+
+    /**
+     * The line contains a '/' or a '\' character.
+     */
+    public static final int PATH_SEPARATOR = 1 << 1;
+
+    /**
+     * The line contains "://" (as URLs do).
+     */
+    public static final int URL_SEPARATOR = 1 << 2;
+
+    /**
+     * The line contains "at " after a whitespace character (as the frames of
+     * stack traces do).
+     */
+    public static final int STACK_FRAME = 1 << 3;
+
+    /**
+     * Returns the features of the given line.
+     *
+     * @param line the line to be checked. This argument cannot be
+     *   {@code null}.
+     * @return the bitwise or of the features of the given line
+     */
+    public static int getFeatures(String line) {
+        return getFeatures(line, 0, line.length());
+    }
+
+    /**
+     * Returns the features of the given part of the line.
+     *
+     * @param line the line to be checked. This argument cannot be
+     *   {@code null}.
+     * @param startIndex the index of the first character to be checked
+     *   (inclusive)
+     * @param endIndex the index after the last character to be checked
+     *   (exclusive)
+     * @return the bitwise or of the features of the given part of the line
+     */
+    public static int getFeatures(String line, int startIndex, int endIndex) {
+        ExceptionHelper.checkNotNullArgument(line, "line");
+        ExceptionHelper.checkArgumentInRange(startIndex, 0, line.length(), "startIndex");
+        ExceptionHelper.checkArgumentInRange(endIndex, startIndex, line.length(), "endIndex");
+
+        int features = NONE;
+        for (int i = startIndex; i < endIndex; i++) {
+            switch (line.charAt(i)) {
+                case ':':
+                    features |= COLON;
+                    if (i + 2 < endIndex && line.charAt(i + 1) == '/' && line.charAt(i + 2) == '/') {
+                        features |= URL_SEPARATOR;
+                    }
+                    break;
+                case '/':
+                case '\\':
+                    features |= PATH_SEPARATOR;
+                    break;
+                case 'a':
+                    if (i > startIndex && i + 2 < endIndex
+                            && line.charAt(i - 1) <= ' '
+                            && line.charAt(i + 1) == 't'
+                            && line.charAt(i + 2) == ' ') {
+                        features |= STACK_FRAME;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Returns {@code true} if the given features contain every required
+     * feature.
+     *
+     * @param features the features of a line as returned by
+     *   {@link #getFeatures(String) getFeatures}
+     * @param requiredFeatures the features required by an
+     *   {@link OutputLinkFinder}
+     * @return {@code true} if the given features contain every required
+     *   feature, {@code false} otherwise
+     */
+    public static boolean hasFeatures(int features, int requiredFeatures) {
+        return (features & requiredFeatures) == requiredFeatures;
+    }
+
+    private LineFeatures() {
+        throw new AssertionError();
+    }
+}
@@ -2,31 +2,90 @@ package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 
+/**
+ * Defines a {@code Writer} splitting the characters written to it into lines
+ * and forwarding the lines to a {@link Handler}. Lines might be terminated by
+ * "\n", "\r" or "\r\n".
+ * <P>
+ * The methods of the handler are only called while holding the lock of this
+ * writer, so the handler does not need to be safe to be called concurrently.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
 public final class LineOutputWriter extends Writer {
     public static interface Handler {
         public void writeLine(String line) throws IOException;
+
+        /**
+         * Called after the lines of a single {@code write} call were passed to
+         * {@link #writeLine(String) writeLine}. The handler might buffer the
+         * lines until this method is called but must not wait for further
+         * lines to output them after this call.
+         */
+        public void endOfLines() throws IOException;
+
         public void flush() throws IOException;
+
+        /**
+         * Called when the writer is closed, after the last line was passed
+         * to the handler. The handler must output every line passed to it
+         * before returning from this method.
+         */
+        public void close() throws IOException;
     }
 
     private final Handler handler;
+    private final OutputMetrics metrics;
     private final Lock mainLock;
     private final StringBuilder lineBuffer;
-    private final AtomicBoolean closed;
+    private boolean closed;
     private char lastChar;
 
     public LineOutputWriter(Handler handler) {
+        this(handler, null);
+    }
+
+    /**
+     * Creates a writer forwarding the lines to the given handler.
+     *
+     * @param handler the handler to forward the lines to. This argument
+     *   cannot be {@code null}.
+     * @param metrics the metrics to record the number of characters and
+     *   lines to. This argument can be {@code null}, if the metrics are not
+     *   needed.
+     */
+    public LineOutputWriter(Handler handler, OutputMetrics metrics) {
         ExceptionHelper.checkNotNullArgument(handler, "handler");
 
         this.handler = handler;
+        this.metrics = metrics;
         this.lineBuffer = new StringBuilder(256);
         this.mainLock = new ReentrantLock();
         this.lastChar = '\0';
-        this.closed = new AtomicBoolean(false);
+        this.closed = false;
+    }
+
+    private void writeLine(String line) throws IOException {
+        if (metrics != null) {
+            metrics.lineRead();
+        }
+        handler.writeLine(line);
+    }
+
+    private String takeLine(char[] cbuf, int lineStart, int lineEnd) {
+        if (lineBuffer.length() == 0) {
+            return new String(cbuf, lineStart, lineEnd - lineStart);
+        }
+
+        lineBuffer.append(cbuf, lineStart, lineEnd - lineStart);
+        String result = lineBuffer.toString();
+        lineBuffer.setLength(0);
+        return result;
     }
 
     @Override
@@ -35,66 +94,68 @@ public final class LineOutputWriter extends Writer {
         ExceptionHelper.checkArgumentInRange(off, 0, cbuf.length, "off");
         ExceptionHelper.checkArgumentInRange(len, 0, cbuf.length - off, "len");
 
-        int currentOffset = off;
-        int currentLength = len;
-
-        while (currentLength > 0) {
-            String line = null;
-
-            mainLock.lock();
-            try {
-                while (currentLength > 0) {
-                    char currentChar = cbuf[currentOffset];
-                    char prevChar = lastChar;
-                    lastChar = currentChar;
-
-                    currentOffset++;
-                    currentLength--;
-
-                    if (prevChar == '\r' && currentChar == '\n') {
-                        continue;
-                    }
-
-                    if (currentChar == '\n' || currentChar == '\r') {
-                        line = lineBuffer.toString();
-                        lineBuffer.setLength(0);
-                        break;
-                    }
-                    else {
-                        lineBuffer.append(currentChar);
-                    }
+        int endOffset = off + len;
+
+        if (metrics != null) {
+            metrics.charsRead(len);
+        }
+
+        mainLock.lock();
+        try {
+            int lineStart = off;
+            for (int i = off; i < endOffset; i++) {
+                char currentChar = cbuf[i];
+                char prevChar = lastChar;
+                lastChar = currentChar;
+
+                if (currentChar != '\n' && currentChar != '\r') {
+                    continue;
+                }
+
+                if (prevChar == '\r' && currentChar == '\n') {
+                    // The line was already terminated by the '\r'.
+                    lineStart = i + 1;
+                    continue;
                 }
-            } finally {
-                mainLock.unlock();
-            }
 
-            if (line != null) {
-                handler.writeLine(line);
+                writeLine(takeLine(cbuf, lineStart, i));
+                lineStart = i + 1;
             }
+
+            lineBuffer.append(cbuf, lineStart, endOffset - lineStart);
+            handler.endOfLines();
+        } finally {
+            mainLock.unlock();
         }
     }
 
     @Override
     public void flush() throws IOException {
-        handler.flush();
+        mainLock.lock();
+        try {
+            handler.flush();
+        } finally {
+            mainLock.unlock();
+        }
     }
 
     @Override
     public void close() throws IOException {
-        if (!closed.compareAndSet(false, true)) {
-            return;
-        }
-
-        String line;
         mainLock.lock();
         try {
-            line = lineBuffer.toString();
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            String line = lineBuffer.toString();
             lineBuffer.setLength(0);
+
+            writeLine(line);
+            handler.endOfLines();
+            handler.close();
         } finally {
             mainLock.unlock();
         }
-
-        handler.writeLine(line);
-        handler.flush();
     }
 }
@@ -1,5 +1,17 @@
 package org.netbeans.gradle.project.output;
 
 public interface OutputLinkFinder {
+    /**
+     * Returns the {@link LineFeatures features} a line must have for this
+     * finder to be able to find a link in it. This method is used to avoid
+     * calling {@link #tryFindLink(String) tryFindLink} for lines which
+     * cannot possibly contain a link.
+     *
+     * @return the bitwise or of the {@link LineFeatures} required by this
+     *   finder or {@link LineFeatures#NONE} if this finder must be called for
+     *   every line
+     */
+    public int getRequiredLineFeatures();
+
     public OutputLinkDef tryFindLink(String line);
 }
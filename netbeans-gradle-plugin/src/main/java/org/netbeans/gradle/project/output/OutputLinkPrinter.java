@@ -4,60 +4,127 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import org.jtrim.utils.ExceptionHelper;
-import org.openide.windows.IOColorPrint;
 import org.openide.windows.InputOutput;
 import org.openide.windows.OutputWriter;
 
 public final class OutputLinkPrinter implements SmartOutputHandler.Consumer {
     private final OutputLinkFinder[] linkFinders;
+    private final int[] requiredFeatures;
 
     public OutputLinkPrinter(OutputLinkFinder... linkFinders) {
         this.linkFinders = linkFinders.clone();
 
         ExceptionHelper.checkNotNullElements(this.linkFinders, "linkFinders");
+
+        this.requiredFeatures = new int[this.linkFinders.length];
+        for (int i = 0; i < this.linkFinders.length; i++) {
+            this.requiredFeatures[i] = this.linkFinders[i].getRequiredLineFeatures();
+        }
+    }
+
+    private OutputLinkFinder[] selectLinkFinders(int lineFeatures) {
+        int count = 0;
+        for (int required: requiredFeatures) {
+            if (LineFeatures.hasFeatures(lineFeatures, required)) {
+                count++;
+            }
+        }
+
+        if (count == linkFinders.length) {
+            return linkFinders;
+        }
+
+        OutputLinkFinder[] result = new OutputLinkFinder[count];
+        int resultIndex = 0;
+        for (int i = 0; i < linkFinders.length; i++) {
+            if (LineFeatures.hasFeatures(lineFeatures, requiredFeatures[i])) {
+                result[resultIndex] = linkFinders[i];
+                resultIndex++;
+            }
+        }
+        return result;
     }
 
-    private void findLinkDefs(String line, int startIndex, int endIndex, List<OutputLinkDef> linkDefs) {
+    private static List<OutputLinkDef> findLinkDefs(
+            OutputLinkFinder[] linkFinders,
+            String line,
+            int startIndex,
+            int endIndex,
+            List<OutputLinkDef> linkDefs) {
+
         if (startIndex >= endIndex || startIndex >= line.length()) {
-            return;
+            return linkDefs;
         }
 
-        String subStr = line.substring(startIndex, endIndex);
+        String subStr = startIndex == 0 && endIndex == line.length()
+                ? line
+                : line.substring(startIndex, endIndex);
+        int features = LineFeatures.getFeatures(line, startIndex, endIndex);
         for (OutputLinkFinder linkFinder: linkFinders) {
+            if (!LineFeatures.hasFeatures(features, linkFinder.getRequiredLineFeatures())) {
+                continue;
+            }
+
             OutputLinkDef linkDef = linkFinder.tryFindLink(subStr);
             // Empty links are unreasonable and may cause an infinite recursion.
             if (linkDef != null && !linkDef.isEmptyLink()) {
                 OutputLinkDef baseLinkDef = linkDef.offsetLinkDef(startIndex);
 
-                findLinkDefs(line, startIndex, baseLinkDef.getStartIndex(), linkDefs);
-                linkDefs.add(baseLinkDef);
-                findLinkDefs(line, baseLinkDef.getEndIndex(), endIndex, linkDefs);
-                return;
-            }
-        }
-    }
+                // Note that in the majority of cases, the line is not a link,
+                // so we spare creating a list when not needed.
+                List<OutputLinkDef> result = linkDefs != null
+                        ? linkDefs
+                        : new ArrayList<OutputLinkDef>(linkFinders.length);
 
-    private List<OutputLinkDef> findLinkDefs(String line) {
-        // Note that in the majority of cases, the line is not a link, so we
-        // spare creating a list when not needed.
-        for (OutputLinkFinder linkFinder: linkFinders) {
-            if (linkFinder.tryFindLink(line) != null) {
-                List<OutputLinkDef> result = new ArrayList<>(linkFinders.length);
-                findLinkDefs(line, 0, line.length(), result);
+                findLinkDefs(linkFinders, line, startIndex, baseLinkDef.getStartIndex(), result);
+                result.add(baseLinkDef);
+                findLinkDefs(linkFinders, line, baseLinkDef.getEndIndex(), endIndex, result);
                 return result;
             }
         }
-        return null;
+        return linkDefs;
     }
 
+    /**
+     * Returns a printer printing the given line with its links or
+     * {@code null} if none of the link finders can find a link in the given
+     * line (based on the {@link LineFeatures features} of the line).
+     * <P>
+     * The links are only searched for when the printer is
+     * {@link SmartOutputHandler.LinePrinter#resolve() resolved} because the
+     * link finders might do blocking operations (e.g., checking if a file
+     * exists), and {@code SmartOutputHandler} resolves the printers on a
+     * background thread.
+     */
     @Override
-    public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException {
-        List<OutputLinkDef> linkDefs = findLinkDefs(line);
-
-        if (linkDefs == null) {
-            return false;
+    public SmartOutputHandler.LinePrinter tryConsumeLine(final String line) {
+        final OutputLinkFinder[] candidates = selectLinkFinders(LineFeatures.getFeatures(line));
+        if (candidates.length == 0) {
+            return null;
         }
 
+        return new SmartOutputHandler.LinePrinter() {
+            private List<OutputLinkDef> linkDefs;
+
+            @Override
+            public boolean resolve() {
+                linkDefs = findLinkDefs(candidates, line, 0, line.length(), null);
+                return linkDefs != null;
+            }
+
+            @Override
+            public void printLine(InputOutput ioParent, OutputWriter output) throws IOException {
+                printLinks(line, linkDefs, ioParent, output);
+            }
+        };
+    }
+
+    private static void printLinks(
+            String line,
+            List<OutputLinkDef> linkDefs,
+            InputOutput ioParent,
+            OutputWriter output) throws IOException {
+
         int prevEndIndex = 0;
         for (OutputLinkDef linkDef: linkDefs) {
             int startIndex = linkDef.getStartIndex();
@@ -68,13 +135,11 @@ public final class OutputLinkPrinter implements SmartOutputHandler.Consumer {
             }
 
             String link = line.substring(startIndex, endIndex);
-            IOColorPrint.print(ioParent, link, linkDef.toOutputListener(), false, null);
+            BoundedTabOutput.printLink(ioParent, output, link, linkDef.toOutputListener());
 
             prevEndIndex = endIndex;
         }
 
         output.println(line.substring(prevEndIndex));
-
-        return true;
     }
 }
@@ -0,0 +1,268 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Collects the throughput and latency metrics of the output handling of a
+ * task output tab: the lines and characters read from Gradle, the lines
+ * waiting to be printed and the time spent in each processor of the lines.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ *
+ * @see OutputMetricsRegistry
+ */
+public final class OutputMetrics implements OutputMetricsMXBean {
+    public enum ProcessorKind {
+        /** A {@code TaskOutputProcessor} checking every line. */
+        PROCESSOR("processor"),
+        /** A {@code SmartOutputHandler.Consumer} checking every line. */
+        CONSUMER("consumer"),
+        /** A {@code SmartOutputHandler.LinePrinter} printing a consumed line. */
+        PRINTER("printer"),
+        /** The {@code OutputWriter} printing plain text. */
+        OUTPUT("output");
+
+        private final String displayName;
+
+        private ProcessorKind(String displayName) {
+            this.displayName = displayName;
+        }
+    }
+
+    private final AtomicLong lineCount;
+    private final AtomicLong charCount;
+    private final AtomicLong firstLineNanos;
+    private final AtomicInteger queuedLines;
+    private final AtomicInteger maxQueuedLines;
+    private final AtomicLong printedLineCount;
+    private final AtomicLong totalLatencyNanos;
+    private final AtomicLong maxLatencyNanos;
+    private final Map<ProcessorKind, ConcurrentMap<Class<?>, AtomicLong>> processorTimes;
+
+    public OutputMetrics() {
+        this.lineCount = new AtomicLong(0);
+        this.charCount = new AtomicLong(0);
+        this.firstLineNanos = new AtomicLong(0);
+        this.queuedLines = new AtomicInteger(0);
+        this.maxQueuedLines = new AtomicInteger(0);
+        this.printedLineCount = new AtomicLong(0);
+        this.totalLatencyNanos = new AtomicLong(0);
+        this.maxLatencyNanos = new AtomicLong(0);
+
+        this.processorTimes = new EnumMap<>(ProcessorKind.class);
+        for (ProcessorKind kind: ProcessorKind.values()) {
+            this.processorTimes.put(kind, new ConcurrentHashMap<Class<?>, AtomicLong>());
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long currentMax = max.get();
+        while (value > currentMax) {
+            if (max.compareAndSet(currentMax, value)) {
+                return;
+            }
+            currentMax = max.get();
+        }
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int currentMax = max.get();
+        while (value > currentMax) {
+            if (max.compareAndSet(currentMax, value)) {
+                return;
+            }
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records that the given number of characters were decoded from the
+     * output of Gradle.
+     */
+    public void charsRead(int count) {
+        charCount.addAndGet(count);
+    }
+
+    /**
+     * Records that a complete line was read from the output of Gradle.
+     */
+    public void lineRead() {
+        if (lineCount.getAndIncrement() == 0) {
+            firstLineNanos.compareAndSet(0, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records that a line was queued to be printed.
+     */
+    public void lineQueued() {
+        updateMax(maxQueuedLines, queuedLines.incrementAndGet());
+    }
+
+    /**
+     * Records that a line queued to be printed was printed.
+     *
+     * @param queuedNanos the value of {@code System.nanoTime()} when the
+     *   line was queued
+     */
+    public void linePrinted(long queuedNanos) {
+        // The queue might have been reset while the line was queued.
+        if (queuedLines.decrementAndGet() < 0) {
+            queuedLines.set(0);
+        }
+
+        long latency = System.nanoTime() - queuedNanos;
+        printedLineCount.incrementAndGet();
+        totalLatencyNanos.addAndGet(latency);
+        updateMax(maxLatencyNanos, latency);
+    }
+
+    /**
+     * Records the time spent in a processor of the lines.
+     *
+     * @param kind the kind of the processor. This argument cannot be
+     *   {@code null}.
+     * @param processorClass the class of the processor. This argument cannot
+     *   be {@code null}.
+     * @param nanos the time spent in the processor in nanoseconds
+     */
+    public void addProcessorTime(ProcessorKind kind, Class<?> processorClass, long nanos) {
+        ExceptionHelper.checkNotNullArgument(kind, "kind");
+        ExceptionHelper.checkNotNullArgument(processorClass, "processorClass");
+
+        ConcurrentMap<Class<?>, AtomicLong> times = processorTimes.get(kind);
+        AtomicLong time = times.get(processorClass);
+        if (time == null) {
+            AtomicLong newTime = new AtomicLong(0);
+            time = times.putIfAbsent(processorClass, newTime);
+            if (time == null) {
+                time = newTime;
+            }
+        }
+        time.addAndGet(nanos);
+    }
+
+    @Override
+    public long getLineCount() {
+        return lineCount.get();
+    }
+
+    @Override
+    public long getCharCount() {
+        return charCount.get();
+    }
+
+    @Override
+    public double getLinesPerSecond() {
+        long startNanos = firstLineNanos.get();
+        long lines = lineCount.get();
+        if (startNanos == 0 || lines == 0) {
+            return 0.0;
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos <= 0) {
+            return 0.0;
+        }
+        return (double)lines * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public int getQueuedLines() {
+        return queuedLines.get();
+    }
+
+    @Override
+    public int getMaxQueuedLines() {
+        return maxQueuedLines.get();
+    }
+
+    private static double toMillis(long nanos) {
+        return (double)nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getAverageLatencyMillis() {
+        long printed = printedLineCount.get();
+        return printed > 0 ? toMillis(totalLatencyNanos.get()) / printed : 0.0;
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+        return toMillis(maxLatencyNanos.get());
+    }
+
+    private Map<String, Long> getProcessorTimeNanos() {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<ProcessorKind, ConcurrentMap<Class<?>, AtomicLong>> kindEntry: processorTimes.entrySet()) {
+            String prefix = kindEntry.getKey().displayName + ":";
+            for (Map.Entry<Class<?>, AtomicLong> entry: kindEntry.getValue().entrySet()) {
+                result.put(prefix + entry.getKey().getName(), entry.getValue().get());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getProcessorTimeMillis() {
+        Map<String, Long> nanos = getProcessorTimeNanos();
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry: nanos.entrySet()) {
+            result.put(entry.getKey(), toMillis(entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getProcessorTimePercent() {
+        Map<String, Long> nanos = getProcessorTimeNanos();
+
+        long total = 0;
+        for (Long time: nanos.values()) {
+            total += time;
+        }
+
+        Map<String, Double> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry: nanos.entrySet()) {
+            double percent = total > 0 ? 100.0 * entry.getValue() / total : 0.0;
+            result.put(entry.getKey(), percent);
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        lineCount.set(0);
+        charCount.set(0);
+        firstLineNanos.set(0);
+        maxQueuedLines.set(queuedLines.get());
+        printedLineCount.set(0);
+        totalLatencyNanos.set(0);
+        maxLatencyNanos.set(0);
+        for (ConcurrentMap<Class<?>, AtomicLong> times: processorTimes.values()) {
+            times.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OutputMetrics{"
+                + "lines=" + getLineCount()
+                + ", chars=" + getCharCount()
+                + ", linesPerSecond=" + getLinesPerSecond()
+                + ", maxQueuedLines=" + getMaxQueuedLines()
+                + ", averageLatencyMillis=" + getAverageLatencyMillis()
+                + ", maxLatencyMillis=" + getMaxLatencyMillis()
+                + ", processorTimePercent=" + getProcessorTimePercent()
+                + '}';
+    }
+}
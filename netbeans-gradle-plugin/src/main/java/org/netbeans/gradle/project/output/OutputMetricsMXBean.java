@@ -0,0 +1,74 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.Map;
+
+/**
+ * Defines the management interface of the output metrics of a task output
+ * tab. The metrics are registered in the platform MBean server under the
+ * domain {@code org.netbeans.gradle} with {@code type=OutputTab}.
+ *
+ * @see OutputMetrics
+ */
+public interface OutputMetricsMXBean {
+    /**
+     * Returns the number of lines written by Gradle (on both the standard
+     * output and the standard error) since the metrics were last reset.
+     */
+    public long getLineCount();
+
+    /**
+     * Returns the number of characters decoded from the output of Gradle
+     * since the metrics were last reset.
+     */
+    public long getCharCount();
+
+    /**
+     * Returns the average number of lines per second written since the first
+     * line after the last reset.
+     */
+    public double getLinesPerSecond();
+
+    /**
+     * Returns the number of lines read from Gradle but not yet printed to the
+     * output tab.
+     */
+    public int getQueuedLines();
+
+    /**
+     * Returns the maximum of {@link #getQueuedLines() the queued lines} since
+     * the metrics were last reset.
+     */
+    public int getMaxQueuedLines();
+
+    /**
+     * Returns the average time in milliseconds elapsed between reading a line
+     * and printing it to the output tab.
+     */
+    public double getAverageLatencyMillis();
+
+    /**
+     * Returns the maximum time in milliseconds elapsed between reading a line
+     * and printing it to the output tab.
+     */
+    public double getMaxLatencyMillis();
+
+    /**
+     * Returns the time in milliseconds spent in each processor of the lines.
+     * The keys are the kind of the processor ("processor", "consumer",
+     * "printer" or "output") and its class name separated by a colon.
+     * The time spent printing plain text is reported as "output".
+     */
+    public Map<String, Double> getProcessorTimeMillis();
+
+    /**
+     * Returns the percentage of the total time spent in each processor of
+     * the lines. The keys are the same as the keys of
+     * {@link #getProcessorTimeMillis() getProcessorTimeMillis}.
+     */
+    public Map<String, Double> getProcessorTimePercent();
+
+    /**
+     * Sets every metric to zero.
+     */
+    public void reset();
+}
@@ -0,0 +1,111 @@
+package org.netbeans.gradle.project.output;
+
+import java.lang.management.ManagementFactory;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Registers the {@link OutputMetrics} of the output tabs in the platform
+ * MBean server, so that they can be inspected with any JMX client (e.g.,
+ * VisualVM or JConsole). The metrics are only recorded if the
+ * {@value #ENABLED_PROPERTY} system property is set to {@code true}. The
+ * metrics of a tab are unregistered when the tab is released.
+ */
+public final class OutputMetricsRegistry {
+    private static final Logger LOGGER = Logger.getLogger(OutputMetricsRegistry.class.getName());
+
+    /**
+     * The name of the system property enabling the recording of the output
+     * metrics.
+     */
+    public static final String ENABLED_PROPERTY = "org.netbeans.gradle.outputMetrics";
+
+    private static final String DOMAIN = "org.netbeans.gradle";
+
+    private static final Lock MAIN_LOCK = new ReentrantLock();
+    private static final Map<OutputMetrics, ObjectName> REGISTRATIONS = new IdentityHashMap<>();
+    private static final AtomicLong ID_COUNTER = new AtomicLong(0);
+
+    /**
+     * Returns {@code true} if the output metrics should be recorded and
+     * registered, {@code false} otherwise.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Registers the metrics of a tab. The metrics must be unregistered by
+     * calling {@link #unregister(OutputMetrics) unregister} after the tab
+     * was closed.
+     *
+     * @param caption the caption of the tab. This argument cannot be
+     *   {@code null}.
+     * @param metrics the metrics to be registered. This argument cannot be
+     *   {@code null}.
+     */
+    public static void register(String caption, OutputMetrics metrics) {
+        ExceptionHelper.checkNotNullArgument(caption, "caption");
+        ExceptionHelper.checkNotNullArgument(metrics, "metrics");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN
+                    + ":type=OutputTab"
+                    + ",name=" + ObjectName.quote(caption)
+                    + ",id=" + ID_COUNTER.incrementAndGet());
+            server.registerMBean(metrics, name);
+
+            MAIN_LOCK.lock();
+            try {
+                REGISTRATIONS.put(metrics, name);
+            } finally {
+                MAIN_LOCK.unlock();
+            }
+        } catch (JMException ex) {
+            LOGGER.log(Level.INFO, "Failed to register the output metrics of " + caption, ex);
+        }
+    }
+
+    /**
+     * Unregisters the given metrics if they were registered. This method
+     * does nothing if the metrics are not registered.
+     *
+     * @param metrics the metrics to be unregistered. This argument cannot be
+     *   {@code null}.
+     */
+    public static void unregister(OutputMetrics metrics) {
+        ExceptionHelper.checkNotNullArgument(metrics, "metrics");
+
+        ObjectName name;
+        MAIN_LOCK.lock();
+        try {
+            name = REGISTRATIONS.remove(metrics);
+        } finally {
+            MAIN_LOCK.unlock();
+        }
+
+        if (name == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException ex) {
+            LOGGER.log(Level.INFO, "Failed to unregister " + name, ex);
+        }
+    }
+
+    private OutputMetricsRegistry() {
+        throw new AssertionError();
+    }
+}
@@ -39,6 +39,11 @@ public final class OutputUrlConsumer implements OutputLinkFinder {
         return new OutputLinkDef(startIndex, endIndex, getUrlOpenTask(url));
     }
 
+    @Override
+    public int getRequiredLineFeatures() {
+        return LineFeatures.URL_SEPARATOR;
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
         for (String prefix: URL_PREFIXES) {
@@ -16,7 +16,63 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         FileObject projectDirectory = project.getProjectDirectory();
         // In case the filesystem is not case-sesitive, otherwise it shouldn't
         // hurt much, since we will check if the file exists anyway.
-        normalizedPath = projectDirectory.getPath().toLowerCase(Locale.ROOT);
+        normalizedPath = normalizePath(projectDirectory.getPath());
+    }
+
+    private static char normalizeChar(char ch) {
+        return ch == File.separatorChar ? '/' : Character.toLowerCase(ch);
+    }
+
+    private static String normalizePath(String path) {
+        char[] result = new char[path.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = normalizeChar(path.charAt(i));
+        }
+        return new String(result);
+    }
+
+    private static boolean isPathSeparator(char ch) {
+        return ch == '/' || ch == File.separatorChar;
+    }
+
+    /**
+     * Returns the index of the project directory in the given line as if the
+     * line was normalized the same way as the path of the project directory.
+     * This method does not create a normalized copy of the line because the
+     * majority of the lines do not contain the project directory.
+     */
+    private int indexOfProjectPath(String line) {
+        int pathLength = normalizedPath.length();
+        if (pathLength == 0) {
+            return 0;
+        }
+
+        char firstChar = normalizedPath.charAt(0);
+        int lastStartIndex = line.length() - pathLength;
+        for (int startIndex = 0; startIndex <= lastStartIndex; startIndex++) {
+            if (normalizeChar(line.charAt(startIndex)) != firstChar) {
+                continue;
+            }
+
+            int pathIndex = 1;
+            while (pathIndex < pathLength
+                    && normalizeChar(line.charAt(startIndex + pathIndex)) == normalizedPath.charAt(pathIndex)) {
+                pathIndex++;
+            }
+            if (pathIndex == pathLength) {
+                return startIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfPathSeparator(String line) {
+        for (int i = line.length() - 1; i >= 0; i--) {
+            if (isPathSeparator(line.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public static boolean isBrowserFile(String path) {
@@ -67,15 +123,19 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public int getRequiredLineFeatures() {
+        return LineFeatures.PATH_SEPARATOR;
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
-        String normalizedLine = line.replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
-        int startIndex = normalizedLine.indexOf(normalizedPath);
+        int startIndex = indexOfProjectPath(line);
         if (startIndex < 0) {
             return null;
         }
 
-        int endPathIndex = normalizedLine.lastIndexOf('/');
+        int endPathIndex = lastIndexOfPathSeparator(line);
         if (endPathIndex < 0) {
             // I don't think that this is possible but just in case it happens.
             return null;
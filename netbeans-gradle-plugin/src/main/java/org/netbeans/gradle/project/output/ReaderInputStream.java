@@ -5,23 +5,44 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.charset.CodingErrorAction;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 
+/**
+ * Defines an {@code InputStream} encoding the characters of a {@code Reader}.
+ * <P>
+ * The characters are read into a reusable buffer and are encoded by a single
+ * {@code CharsetEncoder}, so reading from this stream does not allocate new
+ * buffers. When the caller requests enough bytes, the characters are encoded
+ * directly into the array of the caller. Characters which cannot be encoded
+ * are replaced by the replacement of the encoder.
+ * <P>
+ * Reading from this stream only blocks until the reader returns some
+ * characters, so this stream is suitable to forward interactive input.
+ */
 public final class ReaderInputStream extends InputStream {
+    private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+    // Below this length, encoding directly to the array of the caller might
+    // not leave room for even a single (multi byte) character.
+    private static final int MIN_DIRECT_ENCODE_LENGTH = 1024;
+
     private final Reader reader;
-    private final AtomicReference<byte[]> cacheRef;
 
-    private final Lock encoderLock;
+    private final Lock mainLock;
     private final CharsetEncoder encoder;
-    private boolean eofReached;
-    private char[] remainingChars;
+    // Kept in write mode: the characters read but not yet encoded are
+    // between zero and the position.
+    private final CharBuffer charBuffer;
+    // Kept in read mode: the bytes encoded but not yet read are
+    // between the position and the limit.
+    private final ByteBuffer byteBuffer;
+    private boolean readerEof;
+    private boolean encoderFlushed;
 
     public ReaderInputStream(Reader reader) {
         this(reader, Charset.defaultCharset());
@@ -32,165 +53,83 @@ public final class ReaderInputStream extends InputStream {
         ExceptionHelper.checkNotNullArgument(encoding, "encoding");
 
         this.reader = reader;
-        this.encoderLock = new ReentrantLock();
-        this.encoder = encoding.newEncoder();
-        this.remainingChars = null;
-        this.eofReached = false;
-        this.cacheRef = new AtomicReference<>(new byte[0]);
+        this.mainLock = new ReentrantLock();
+        this.encoder = encoding.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.charBuffer = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+        int byteBufferSize = (int)Math.ceil(CHAR_BUFFER_SIZE * encoder.maxBytesPerChar());
+        this.byteBuffer = ByteBuffer.allocate(Math.max(byteBufferSize, MIN_DIRECT_ENCODE_LENGTH));
+        this.byteBuffer.flip();
+
+        this.readerEof = false;
+        this.encoderFlushed = false;
     }
 
-    private int readFromCache(byte[] b, int offset, int length) {
-        byte[] cache;
-        byte[] newCache;
-        int toRead;
-        do {
-            cache = cacheRef.get();
-            toRead = Math.min(cache.length, length);
-            System.arraycopy(cache, 0, b, offset, toRead);
-            newCache = new byte[cache.length - toRead];
-            System.arraycopy(cache, toRead, newCache, 0, newCache.length);
-        } while (!cacheRef.compareAndSet(cache, newCache));
+    private int readFromBuffer(byte[] b, int off, int len) {
+        int toRead = Math.min(byteBuffer.remaining(), len);
+        byteBuffer.get(b, off, toRead);
         return toRead;
     }
 
-    private ByteBuffer encodeChars(char[] chars, int charCount) throws CharacterCodingException {
-        return encodeChars(chars, charCount, false);
-    }
-
-    private ByteBuffer encodeChars(char[] chars, int charCount, boolean finalBytes) throws CharacterCodingException {
-        encoderLock.lock();
+    private void encodeBuffered(ByteBuffer output) {
+        charBuffer.flip();
         try {
-            CharBuffer input;
-            if (remainingChars == null || remainingChars.length == 0) {
-                input = CharBuffer.wrap(chars, 0, charCount);
-            }
-            else {
-                char[] toPrepend = remainingChars;
-                remainingChars = null;
-
-                char[] newChars = new char[charCount + toPrepend.length];
-                System.arraycopy(toPrepend, 0, newChars, 0, toPrepend.length);
-                System.arraycopy(chars, 0, newChars, toPrepend.length, charCount);
-
-                input = CharBuffer.wrap(newChars);
+            CoderResult result = encoder.encode(charBuffer, output, readerEof);
+            if (result.isOverflow() || charBuffer.hasRemaining() || !readerEof) {
+                return;
             }
-
-            int n = (int)(input.remaining() * encoder.averageBytesPerChar());
-            ByteBuffer out = ByteBuffer.allocate(n);
-
-            while (true) {
-                CoderResult result = encoder.encode(input, out, finalBytes);
-                if (result.isOverflow()) {
-                    n = 2 * n + 1;
-                    ByteBuffer newOut = ByteBuffer.allocate(n);
-                    out.flip();
-                    newOut.put(out);
-                    out = newOut;
-                }
-                else if (result.isError()) {
-                    result.throwException();
-                }
-                else {
-                    int remainingCount = input.remaining();
-                    if (remainingCount > 0) {
-                        char[] currentRemaining = new char[remainingCount];
-                        input.get(currentRemaining);
-                        remainingChars = currentRemaining;
-                    }
-                    break;
-                }
-            }
-
-            out.flip();
-            return out;
         } finally {
-            encoderLock.unlock();
+            charBuffer.compact();
         }
-    }
-
-    private ByteBuffer completeStream() throws CharacterCodingException {
-        encoderLock.lock();
-        try {
-            if (eofReached) {
-                return null;
-            }
-            eofReached = true;
-
-            char[] finalChars = remainingChars;
-            remainingChars = null;
-
-            if (finalChars == null) {
-                finalChars = new char[0];
-            }
 
-            ByteBuffer out = encodeChars(finalChars, finalChars.length, true);
-            int n = out.capacity();
-
-            while (true) {
-                CoderResult result = encoder.flush(out);
-                if (result.isUnderflow()) {
-                    break;
-                }
-
-                if (result.isOverflow()) {
-                    n = 2 * n + 1;
-                    ByteBuffer newOut = ByteBuffer.allocate(n);
-                    out.flip();
-                    newOut.put(out);
-                    out = newOut;
-                }
-                else {
-                    result.throwException();
-                }
-            }
-
-            out.flip();
-            return out;
-        } finally {
-            encoderLock.unlock();
+        if (encoder.flush(output).isUnderflow()) {
+            encoderFlushed = true;
         }
     }
 
-    private boolean readToCache(int requiredBytes) throws IOException {
-        assert requiredBytes > 0;
-        // We rely on the encoder to choose the number of bytes to read but
-        // it does not have to be actually accurate, it only matters
-        // performance wise but this is not a performance critical code.
-        int toRead = (int)((float)requiredBytes / encoder.averageBytesPerChar()) + 1;
-        toRead = Math.max(toRead, requiredBytes);
-        char[] readChars = new char[toRead];
-        int readCount = reader.read(readChars);
-
-        ByteBuffer encodedBuffer;
+    private void readChars() throws IOException {
+        int readCount = reader.read(charBuffer.array(), charBuffer.position(), charBuffer.remaining());
         if (readCount <= 0) {
             // readCount should never be zero but if reader returns zero
             // regardless, assume that it believes that EOF has been
             // reached.
-
-            encodedBuffer = completeStream();
-            if (encodedBuffer == null || encodedBuffer.remaining() <= 0) {
-                return false;
-            }
+            readerEof = true;
         }
         else {
-            encodedBuffer = encodeChars(readChars, readCount);
+            charBuffer.position(charBuffer.position() + readCount);
         }
-
-        byte[] encoded = new byte[encodedBuffer.remaining()];
-        encodedBuffer.get(encoded);
-        appendToCache(encoded);
-        return true;
     }
 
-    private void appendToCache(byte[] newBytes) {
-        byte[] oldCache;
-        byte[] newCache;
-        do {
-            oldCache = cacheRef.get();
-            newCache = new byte[oldCache.length + newBytes.length];
-            System.arraycopy(oldCache, 0, newCache, 0, oldCache.length);
-            System.arraycopy(newBytes, 0, newCache, oldCache.length, newBytes.length);
-        } while (!cacheRef.compareAndSet(oldCache, newCache));
+    private int readUnlocked(byte[] b, int off, int len) throws IOException {
+        if (byteBuffer.hasRemaining()) {
+            return readFromBuffer(b, off, len);
+        }
+
+        while (!encoderFlushed) {
+            if (len >= MIN_DIRECT_ENCODE_LENGTH) {
+                ByteBuffer output = ByteBuffer.wrap(b, off, len);
+                encodeBuffered(output);
+                int encodedCount = output.position() - off;
+                if (encodedCount > 0) {
+                    return encodedCount;
+                }
+            }
+            else {
+                byteBuffer.clear();
+                encodeBuffered(byteBuffer);
+                byteBuffer.flip();
+                if (byteBuffer.hasRemaining()) {
+                    return readFromBuffer(b, off, len);
+                }
+            }
+
+            if (!readerEof && charBuffer.hasRemaining()) {
+                readChars();
+            }
+        }
+        return -1;
     }
 
     @Override
@@ -222,19 +161,22 @@ public final class ReaderInputStream extends InputStream {
             return 0;
         }
 
-        int currentOffset = off;
-        int currentLength = len;
-        int readCount = 0;
-        do {
-            int currentRead = readFromCache(b, currentOffset, currentLength);
-            readCount += currentRead;
-            currentOffset += currentRead;
-            currentLength -= currentRead;
-            if (readCount > 0) {
-                return readCount;
-            }
-        } while (readToCache(currentLength));
-        return readCount > 0 ? readCount : -1;
+        mainLock.lock();
+        try {
+            return readUnlocked(b, off, len);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        mainLock.lock();
+        try {
+            return byteBuffer.remaining();
+        } finally {
+            mainLock.unlock();
+        }
     }
 
     @Override
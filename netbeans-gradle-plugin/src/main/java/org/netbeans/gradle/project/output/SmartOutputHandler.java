@@ -1,81 +1,568 @@
 package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
 import org.openide.windows.InputOutput;
 import org.openide.windows.OutputWriter;
 
+/**
+ * Defines a {@code LineOutputWriter.Handler} passing the lines to the given
+ * {@link Consumer consumers} and printing the lines not consumed by any of
+ * them.
+ * <P>
+ * The lines are printed by tasks submitted to the executor specified at
+ * construction time (in the order the lines were written), so the printers
+ * returned by the consumers might do blocking work (e.g., resolving links)
+ * without blocking the thread writing the output. If too many lines are
+ * waiting to be printed, lines are printed as plain text without calling
+ * the printers of the consumers (except for {@link #NO_OUTPUT}), so that the
+ * output does not lag behind arbitrarily. Such plain text lines are queued
+ * together as a single entry, and if even the queued text grows too large,
+ * the thread writing the output is blocked until enough of the queued text
+ * has been printed.
+ * <P>
+ * Consecutive lines not consumed by any consumer are printed in batches
+ * (a single {@code print} call for the lines available when printing).
+ * <P>
+ * If {@link OutputMetrics} are specified, the time spent in each processor,
+ * consumer and printer, and the latency of printing the lines is recorded.
+ */
 public final class SmartOutputHandler implements LineOutputWriter.Handler {
     private static final Logger LOGGER = Logger.getLogger(SmartOutputHandler.class.getName());
 
+    private static final int DEFAULT_MAX_QUEUED_LINES = 1000;
+    private static final int MAX_PENDING_CHARS = 16 * 1024;
+    private static final int MAX_QUEUED_CHARS = 1024 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * The printer which can be returned by a {@link Consumer} to consume a
+     * line without printing anything.
+     */
+    public static final LinePrinter NO_OUTPUT = new LinePrinter() {
+        @Override
+        public boolean resolve() {
+            return true;
+        }
+
+        @Override
+        public void printLine(InputOutput ioParent, OutputWriter output) {
+        }
+    };
+
     public static interface Consumer {
-        public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException;
+        /**
+         * Checks if this consumer wants to print the given line. This method
+         * must not print anything to the output. If this consumer consumes
+         * the line, the returned printer is called to print the line.
+         *
+         * @param line the line to be checked. This argument cannot be
+         *   {@code null}.
+         * @return the printer printing the line or {@code null} if this
+         *   consumer does not consume the given line. This method might
+         *   return {@link SmartOutputHandler#NO_OUTPUT} to hide the line.
+         */
+        public LinePrinter tryConsumeLine(String line);
+    }
+
+    /**
+     * Prints a single line consumed by a {@link Consumer}. The printer might
+     * decorate the line but must print the whole line, because the line might
+     * be printed as plain text instead of calling the printer.
+     */
+    public static interface LinePrinter {
+        /**
+         * Does the work needed to print the line and returns {@code true} if
+         * the line should be printed by this printer. This method is called
+         * by the thread printing the output (before {@code printLine}) and
+         * might do blocking work but must not print anything.
+         *
+         * @return {@code true} if {@link #printLine(InputOutput, OutputWriter) printLine}
+         *   should be called to print the line, {@code false} if the line
+         *   should be printed as plain text
+         */
+        public boolean resolve();
+
+        public void printLine(InputOutput ioParent, OutputWriter output) throws IOException;
     }
 
     private final InputOutput ioParent;
     private final OutputWriter output;
+    private final TaskExecutor printExecutor;
+    private final OutputMetrics metrics;
+    private final int maxQueuedLines;
     private final TaskOutputProcessor[] visitors;
     private final Consumer[] processors;
 
+    private final Lock queueLock;
+    private final Condition printedCondition;
+    private final Condition queueSpaceCondition;
+    private final Deque<QueuedLine> queuedLines;
+    private int queuedChars;
+    private boolean printScheduled;
+    private boolean flushRequested;
+
+    // Only accessed by the print task.
+    private final StringBuilder pendingOutput;
+
     public SmartOutputHandler(
             InputOutput ioParent,
             OutputWriter output,
             List<TaskOutputProcessor> visitors,
             List<Consumer> processors) {
+        this(ioParent, output, visitors, processors, SyncTaskExecutor.getSimpleExecutor());
+    }
+
+    public SmartOutputHandler(
+            InputOutput ioParent,
+            OutputWriter output,
+            List<TaskOutputProcessor> visitors,
+            List<Consumer> processors,
+            TaskExecutor printExecutor) {
+        this(ioParent, output, visitors, processors, printExecutor, DEFAULT_MAX_QUEUED_LINES);
+    }
+
+    public SmartOutputHandler(
+            InputOutput ioParent,
+            OutputWriter output,
+            List<TaskOutputProcessor> visitors,
+            List<Consumer> processors,
+            TaskExecutor printExecutor,
+            int maxQueuedLines) {
+        this(ioParent, output, visitors, processors, printExecutor, maxQueuedLines, null);
+    }
+
+    public SmartOutputHandler(
+            InputOutput ioParent,
+            OutputWriter output,
+            List<TaskOutputProcessor> visitors,
+            List<Consumer> processors,
+            TaskExecutor printExecutor,
+            OutputMetrics metrics) {
+        this(ioParent, output, visitors, processors, printExecutor, DEFAULT_MAX_QUEUED_LINES, metrics);
+    }
+
+    /**
+     * Creates a new handler.
+     *
+     * @param metrics the metrics to record the performance of the output
+     *   handling to. This argument can be {@code null}, if the metrics are
+     *   not needed.
+     */
+    public SmartOutputHandler(
+            InputOutput ioParent,
+            OutputWriter output,
+            List<TaskOutputProcessor> visitors,
+            List<Consumer> processors,
+            TaskExecutor printExecutor,
+            int maxQueuedLines,
+            OutputMetrics metrics) {
         ExceptionHelper.checkNotNullArgument(ioParent, "ioParent");
         ExceptionHelper.checkNotNullArgument(output, "output");
         ExceptionHelper.checkNotNullArgument(visitors, "visitors");
         ExceptionHelper.checkNotNullArgument(processors, "processors");
+        ExceptionHelper.checkNotNullArgument(printExecutor, "printExecutor");
+        ExceptionHelper.checkArgumentInRange(maxQueuedLines, 0, Integer.MAX_VALUE, "maxQueuedLines");
 
         this.ioParent = ioParent;
         this.output = output;
+        this.printExecutor = printExecutor;
+        this.metrics = metrics;
+        this.maxQueuedLines = maxQueuedLines;
         this.visitors = visitors.toArray(new TaskOutputProcessor[0]);
         this.processors = processors.toArray(new Consumer[0]);
 
+        this.queueLock = new ReentrantLock();
+        this.printedCondition = queueLock.newCondition();
+        this.queueSpaceCondition = queueLock.newCondition();
+        this.queuedLines = new ArrayDeque<>();
+        this.queuedChars = 0;
+        this.printScheduled = false;
+        this.flushRequested = false;
+
+        this.pendingOutput = new StringBuilder(1024);
+
         ExceptionHelper.checkNotNullElements(this.visitors, "visitors");
         ExceptionHelper.checkNotNullElements(this.processors, "processors");
     }
 
+    private long startTiming() {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    private void endTiming(OutputMetrics.ProcessorKind kind, Object processor, long startNanos) {
+        if (metrics != null) {
+            metrics.addProcessorTime(kind, processor.getClass(), System.nanoTime() - startNanos);
+        }
+    }
+
     @Override
     public void writeLine(String line) throws IOException {
         Throwable error = null;
 
         for (TaskOutputProcessor visitor: visitors) {
+            long startNanos = startTiming();
             try {
                 visitor.processLine(line);
             } catch (Throwable ex) {
-                LOGGER.log(Level.SEVERE, "Unexpected failure while checking a line of the output.", error);
+                LOGGER.log(Level.SEVERE, "Unexpected failure while checking a line of the output.", ex);
                 error = ex;
+            } finally {
+                endTiming(OutputMetrics.ProcessorKind.PROCESSOR, visitor, startNanos);
             }
         }
 
+        LinePrinter printer = null;
         for (Consumer processor: processors) {
+            long startNanos = startTiming();
             try {
-                if (processor.tryConsumeLine(line, ioParent, output)) {
-                    return;
+                printer = processor.tryConsumeLine(line);
+                if (printer != null) {
+                    break;
                 }
             } catch (Throwable ex) {
-                LOGGER.log(Level.SEVERE, "Unexpected failure while analysing a line of the output.", error);
+                LOGGER.log(Level.SEVERE, "Unexpected failure while analysing a line of the output.", ex);
                 error = ex;
+            } finally {
+                endTiming(OutputMetrics.ProcessorKind.CONSUMER, processor, startNanos);
+            }
+        }
+
+        if (printer != NO_OUTPUT) {
+            queueLine(line, printer);
+
+            if (metrics != null) {
+                metrics.lineQueued();
+            }
+        }
+
+        ExceptionHelper.rethrowCheckedIfNotNull(error, IOException.class);
+    }
+
+    private void queueLine(String line, LinePrinter printer) {
+        waitForQueueSpace();
+
+        queueLock.lock();
+        try {
+            if (queuedLines.size() >= maxQueuedLines) {
+                // We are overloaded, so don't do anything fancy, just
+                // print the line.
+                printer = null;
+
+                QueuedLine lastLine = queuedLines.peekLast();
+                if (lastLine != null && lastLine.printer == null) {
+                    lastLine.addLine(line);
+                    queuedChars += line.length();
+                    return;
+                }
+            }
+
+            queuedLines.add(new QueuedLine(line, printer, startTiming()));
+            queuedChars += line.length();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private boolean isQueueFull() {
+        assert ((ReentrantLock)queueLock).isHeldByCurrentThread();
+        return queuedChars >= MAX_QUEUED_CHARS;
+    }
+
+    /**
+     * Blocks the writing thread until the queued text is printed if there is
+     * too much of it. The print task is scheduled first, so a synchronous
+     * print executor prints the queued lines in the current thread.
+     */
+    private void waitForQueueSpace() {
+        queueLock.lock();
+        try {
+            if (!isQueueFull()) {
+                return;
+            }
+        } finally {
+            queueLock.unlock();
+        }
+
+        schedulePrint(false);
+
+        boolean interrupted = false;
+        queueLock.lock();
+        try {
+            while (isQueueFull() && printScheduled) {
+                try {
+                    queueSpaceCondition.await();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
             }
+        } finally {
+            queueLock.unlock();
         }
 
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedulePrint(boolean flush) {
+        queueLock.lock();
         try {
-            output.println(line);
+            if (flush) {
+                flushRequested = true;
+            }
+            if (printScheduled || (queuedLines.isEmpty() && !flushRequested)) {
+                return;
+            }
+            printScheduled = true;
+        } finally {
+            queueLock.unlock();
+        }
+
+        printExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                printQueuedLines();
+            }
+        }, null);
+    }
+
+    private void printQueuedLines() {
+        boolean completed = false;
+        try {
+            printQueuedLinesUntilEmpty();
+            completed = true;
+        } finally {
+            if (!completed) {
+                // Otherwise threads waiting for the lines to be printed
+                // would wait forever.
+                queueLock.lock();
+                try {
+                    printScheduled = false;
+                    printedCondition.signalAll();
+                    queueSpaceCondition.signalAll();
+                } finally {
+                    queueLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void printQueuedLinesUntilEmpty() {
+        while (true) {
+            QueuedLine line;
+            boolean flush = false;
+
+            queueLock.lock();
+            try {
+                line = queuedLines.poll();
+                if (line == null) {
+                    flush = flushRequested;
+                    flushRequested = false;
+                }
+                else {
+                    queuedChars -= line.getCharCount();
+                    queueSpaceCondition.signalAll();
+                }
+            } finally {
+                queueLock.unlock();
+            }
+
+            if (line != null) {
+                printLine(line);
+                continue;
+            }
+
+            printPendingOutput();
+            if (flush) {
+                flushOutput();
+            }
+
+            queueLock.lock();
+            try {
+                if (queuedLines.isEmpty() && !flushRequested) {
+                    printScheduled = false;
+                    printedCondition.signalAll();
+                    queueSpaceCondition.signalAll();
+                    return;
+                }
+            } finally {
+                queueLock.unlock();
+            }
+        }
+    }
+
+    private void flushOutput() {
+        try {
+            output.flush();
         } catch (Throwable ex) {
-            LOGGER.log(Level.SEVERE, "Unexpected failure while printing a line of the output.", error);
-            error = ex;
+            LOGGER.log(Level.SEVERE, "Unexpected failure while flushing the output.", ex);
         }
+    }
 
-        ExceptionHelper.rethrowCheckedIfNotNull(error, IOException.class);
+    private void printLine(QueuedLine line) {
+        try {
+            if (line.printer == null || !resolve(line.printer)) {
+                line.appendText(pendingOutput);
+                if (pendingOutput.length() >= MAX_PENDING_CHARS) {
+                    printPendingOutput();
+                }
+            }
+            else {
+                printPendingOutput();
+
+                long startNanos = startTiming();
+                try {
+                    line.printer.printLine(ioParent, output);
+                } finally {
+                    endTiming(OutputMetrics.ProcessorKind.PRINTER, line.printer, startNanos);
+                }
+            }
+        } catch (Throwable ex) {
+            LOGGER.log(Level.SEVERE, "Unexpected failure while printing a line of the output.", ex);
+        } finally {
+            if (metrics != null) {
+                for (int i = 0; i < line.getLineCount(); i++) {
+                    metrics.linePrinted(line.queuedNanos);
+                }
+            }
+        }
+    }
+
+    private boolean resolve(LinePrinter printer) {
+        long startNanos = startTiming();
+        try {
+            return printer.resolve();
+        } catch (Throwable ex) {
+            // The line is printed as plain text, so it is not lost.
+            LOGGER.log(Level.SEVERE, "Unexpected failure while resolving a line of the output.", ex);
+            return false;
+        } finally {
+            endTiming(OutputMetrics.ProcessorKind.PRINTER, printer, startNanos);
+        }
+    }
+
+    private void printPendingOutput() {
+        if (pendingOutput.length() == 0) {
+            return;
+        }
+
+        String text = pendingOutput.toString();
+        pendingOutput.setLength(0);
+
+        long startNanos = startTiming();
+        try {
+            output.print(text);
+        } catch (Throwable ex) {
+            LOGGER.log(Level.SEVERE, "Unexpected failure while printing the output.", ex);
+        } finally {
+            endTiming(OutputMetrics.ProcessorKind.OUTPUT, output, startNanos);
+        }
+    }
+
+    @Override
+    public void endOfLines() throws IOException {
+        schedulePrint(false);
     }
 
     @Override
     public void flush() throws IOException {
-        output.flush();
+        schedulePrint(true);
+    }
+
+    /**
+     * Prints the remaining lines and waits until every line has been printed.
+     */
+    @Override
+    public void close() throws IOException {
+        schedulePrint(true);
+
+        boolean interrupted = false;
+        queueLock.lock();
+        try {
+            while (printScheduled) {
+                try {
+                    printedCondition.await();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            queueLock.unlock();
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class QueuedLine {
+        public final String line;
+        // null means plain text
+        public final LinePrinter printer;
+        // Only set if metrics are recorded.
+        public final long queuedNanos;
+
+        // The following fields are guarded by the queue lock until the line
+        // is removed from the queue. Only plain text lines are coalesced.
+        private StringBuilder coalescedLines;
+        private int lineCount;
+        private int charCount;
+
+        public QueuedLine(String line, LinePrinter printer, long queuedNanos) {
+            this.line = line;
+            this.printer = printer;
+            this.queuedNanos = queuedNanos;
+            this.coalescedLines = null;
+            this.lineCount = 1;
+            this.charCount = line.length();
+        }
+
+        public void addLine(String nextLine) {
+            assert printer == null;
+
+            if (coalescedLines == null) {
+                coalescedLines = new StringBuilder(line.length() + nextLine.length() + 2 * LINE_SEPARATOR.length());
+                coalescedLines.append(line);
+                coalescedLines.append(LINE_SEPARATOR);
+            }
+            coalescedLines.append(nextLine);
+            coalescedLines.append(LINE_SEPARATOR);
+
+            lineCount++;
+            charCount += nextLine.length();
+        }
+
+        public void appendText(StringBuilder result) {
+            if (coalescedLines != null) {
+                result.append(coalescedLines);
+            }
+            else {
+                result.append(line);
+                result.append(LINE_SEPARATOR);
+            }
+        }
+
+        public int getLineCount() {
+            return lineCount;
+        }
+
+        public int getCharCount() {
+            return charCount;
+        }
     }
 }
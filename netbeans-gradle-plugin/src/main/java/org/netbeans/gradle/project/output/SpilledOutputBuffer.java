@@ -0,0 +1,432 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.jtrim.utils.ExceptionHelper;
+import org.openide.windows.OutputListener;
+
+/**
+ * Defines a buffer of the text printed to an output tab which keeps only the
+ * most recently printed text in memory. When the text in memory exceeds the
+ * limit, the oldest text is moved to a compressed temporary file, from where
+ * it can be read back (along with the text still in memory) by
+ * {@link #writeAll(Writer) writeAll} or through a {@link #snapshot() snapshot}.
+ * <P>
+ * Every spill appends a new GZIP member to the temporary file, so the
+ * spilled text can always be read without closing the buffer.
+ * <P>
+ * Links are kept as separate segments along with their listeners, so that
+ * they can be printed again as links.
+ * <P>
+ * Instances of this class are not safe to be used by multiple threads
+ * concurrently.
+ */
+public final class SpilledOutputBuffer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SpilledOutputBuffer.class.getName());
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAX_SEGMENT_LENGTH = 8 * 1024;
+
+    private final int maxMemoryChars;
+    private final Deque<Segment> segments;
+    private final StringBuilder lastSegment;
+    private boolean lastSegmentError;
+    private int memoryChars;
+
+    private File spillFile;
+    private long spilledChars;
+
+    /**
+     * Creates a new empty buffer.
+     *
+     * @param maxMemoryChars the maximum number of characters to be kept in
+     *   memory. This argument must be greater than zero.
+     */
+    public SpilledOutputBuffer(int maxMemoryChars) {
+        ExceptionHelper.checkArgumentInRange(maxMemoryChars, 1, Integer.MAX_VALUE, "maxMemoryChars");
+
+        this.maxMemoryChars = maxMemoryChars;
+        this.segments = new ArrayDeque<>();
+        this.lastSegment = new StringBuilder();
+        this.lastSegmentError = false;
+        this.memoryChars = 0;
+        this.spillFile = null;
+        this.spilledChars = 0;
+    }
+
+    /**
+     * Returns the number of characters moved to the temporary file so far.
+     */
+    public long getSpilledChars() {
+        return spilledChars;
+    }
+
+    /**
+     * Returns the number of characters currently kept in memory.
+     */
+    public int getMemoryChars() {
+        return memoryChars;
+    }
+
+    private void closeLastSegment() {
+        if (lastSegment.length() > 0) {
+            segments.addLast(new Segment(lastSegment.toString(), lastSegmentError));
+            lastSegment.setLength(0);
+        }
+    }
+
+    /**
+     * Adds the given text to the end of this buffer.
+     *
+     * @param text the text to be added. This argument cannot be {@code null}.
+     * @param error {@code true} if the text was printed to the error output,
+     *   {@code false} if it was printed to the standard output
+     * @return {@code true} if the text in memory exceeds the limit and
+     *   {@link #spillOldest() spillOldest} should be called, {@code false}
+     *   otherwise
+     */
+    public boolean append(CharSequence text, boolean error) {
+        ExceptionHelper.checkNotNullArgument(text, "text");
+
+        if (error != lastSegmentError || lastSegment.length() >= MAX_SEGMENT_LENGTH) {
+            closeLastSegment();
+            lastSegmentError = error;
+        }
+
+        lastSegment.append(text);
+        memoryChars += text.length();
+        return memoryChars > maxMemoryChars;
+    }
+
+    /**
+     * Adds the given link to the end of this buffer.
+     *
+     * @param text the text of the link. This argument cannot be {@code null}.
+     * @param error {@code true} if the link was printed to the error output,
+     *   {@code false} if it was printed to the standard output
+     * @param listener the listener to be notified when the user clicks the
+     *   link. This argument cannot be {@code null}.
+     * @param important {@code true} if the link was printed as an important
+     *   link
+     * @return {@code true} if the text in memory exceeds the limit and
+     *   {@link #spillOldest() spillOldest} should be called, {@code false}
+     *   otherwise
+     */
+    public boolean appendLink(CharSequence text, boolean error, OutputListener listener, boolean important) {
+        ExceptionHelper.checkNotNullArgument(text, "text");
+        ExceptionHelper.checkNotNullArgument(listener, "listener");
+
+        closeLastSegment();
+        segments.addLast(new Segment(text.toString(), error, listener, important));
+
+        memoryChars += text.length();
+        return memoryChars > maxMemoryChars;
+    }
+
+    private File getSpillFile() throws IOException {
+        if (spillFile == null) {
+            spillFile = File.createTempFile("nb-gradle-output", ".txt.gz");
+            spillFile.deleteOnExit();
+        }
+        return spillFile;
+    }
+
+    /**
+     * Moves the oldest text to the temporary file, so that at most half of
+     * the limit remains in memory, and returns the text remaining in memory.
+     *
+     * @return the text remaining in memory in the order it was added. This
+     *   method never returns {@code null}.
+     *
+     * @throws IOException thrown if the text could not be written to the
+     *   temporary file. In this case, this buffer is left unchanged.
+     */
+    public List<Segment> spillOldest() throws IOException {
+        closeLastSegment();
+
+        int toKeep = maxMemoryChars / 2;
+        int toSpillChars = 0;
+        int toSpillCount = 0;
+        for (Segment segment: segments) {
+            if (memoryChars - toSpillChars <= toKeep) {
+                break;
+            }
+            toSpillChars += segment.getText().length();
+            toSpillCount++;
+        }
+
+        if (toSpillCount > 0) {
+            try (OutputStream fileOutput = new FileOutputStream(getSpillFile(), true);
+                    Writer output = new OutputStreamWriter(new GZIPOutputStream(fileOutput), UTF8)) {
+                int index = 0;
+                for (Segment segment: segments) {
+                    if (index >= toSpillCount) {
+                        break;
+                    }
+                    output.write(segment.getText());
+                    index++;
+                }
+            }
+
+            for (int i = 0; i < toSpillCount; i++) {
+                segments.removeFirst();
+            }
+            memoryChars -= toSpillChars;
+            spilledChars += toSpillChars;
+        }
+
+        return new ArrayList<>(segments);
+    }
+
+    /**
+     * Returns the text currently added to this buffer. The returned snapshot
+     * can be read after this buffer was modified (even concurrently), as long
+     * as this buffer is not {@link #clear() cleared}.
+     *
+     * @return the text currently added to this buffer. This method never
+     *   returns {@code null}.
+     */
+    public Snapshot snapshot() {
+        List<Segment> currentSegments = new ArrayList<>(segments.size() + 1);
+        currentSegments.addAll(segments);
+        if (lastSegment.length() > 0) {
+            currentSegments.add(new Segment(lastSegment.toString(), lastSegmentError));
+        }
+
+        // Only whole GZIP members are appended to the file, so its current
+        // length contains exactly the text spilled so far.
+        long spillFileLength = spillFile != null ? spillFile.length() : 0;
+        return new Snapshot(spillFile, spillFileLength, spilledChars, currentSegments);
+    }
+
+    /**
+     * Writes every text added to this buffer (since the last
+     * {@link #clear() clear}) to the given writer: both the spilled text and
+     * the text in memory.
+     *
+     * @param output the writer to write the text to. This argument cannot be
+     *   {@code null}.
+     *
+     * @throws IOException thrown if the temporary file could not be read or
+     *   the given writer failed
+     */
+    public void writeAll(Writer output) throws IOException {
+        snapshot().writeTo(output, Long.MAX_VALUE);
+    }
+
+    /**
+     * Removes every text from this buffer and removes the temporary file.
+     */
+    public void clear() {
+        segments.clear();
+        lastSegment.setLength(0);
+        memoryChars = 0;
+        spilledChars = 0;
+
+        if (spillFile != null) {
+            if (!spillFile.delete()) {
+                LOGGER.log(Level.INFO, "Failed to remove spilled output: {0}", spillFile);
+            }
+            spillFile = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Defines the text of a buffer at a given point in time.
+     */
+    public static final class Snapshot {
+        private final File spillFile;
+        private final long spillFileLength;
+        private final long spilledChars;
+        private final List<Segment> segments;
+        private final long totalChars;
+
+        private Snapshot(File spillFile, long spillFileLength, long spilledChars, List<Segment> segments) {
+            this.spillFile = spillFile;
+            this.spillFileLength = spillFileLength;
+            this.spilledChars = spilledChars;
+            this.segments = segments;
+
+            long memoryChars = 0;
+            for (Segment segment: segments) {
+                memoryChars += segment.getText().length();
+            }
+            this.totalChars = spilledChars + memoryChars;
+        }
+
+        /**
+         * Returns the number of characters in this snapshot, including the
+         * spilled characters.
+         */
+        public long getTotalChars() {
+            return totalChars;
+        }
+
+        /**
+         * Writes the last {@code maxChars} characters of this snapshot to the
+         * given writer. The spilled text is decompressed in bounded chunks.
+         *
+         * @param output the writer to write the text to. This argument cannot
+         *   be {@code null}.
+         * @param maxChars the maximum number of characters to write. The
+         *   oldest characters are omitted if there are more characters. This
+         *   argument must be greater than or equal to zero.
+         *
+         * @throws IOException thrown if the temporary file could not be read
+         *   (e.g.: because the buffer was cleared) or the given writer failed
+         */
+        public void writeTo(Writer output, long maxChars) throws IOException {
+            ExceptionHelper.checkNotNullArgument(output, "output");
+            ExceptionHelper.checkArgumentInRange(maxChars, 0, Long.MAX_VALUE, "maxChars");
+
+            long toSkip = Math.max(0, totalChars - maxChars);
+
+            if (spillFile != null && spilledChars > 0) {
+                // GZIPInputStream reads every concatenated member.
+                try (InputStream fileInput = new LimitedInputStream(new FileInputStream(spillFile), spillFileLength);
+                        Reader input = new InputStreamReader(new GZIPInputStream(fileInput), UTF8)) {
+                    char[] buffer = new char[MAX_SEGMENT_LENGTH];
+                    long remaining = spilledChars;
+                    while (remaining > 0) {
+                        int readCount = input.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+                        if (readCount < 0) {
+                            throw new IOException("The spilled output is truncated: " + spillFile);
+                        }
+                        remaining -= readCount;
+
+                        int skipCount = (int)Math.min(toSkip, readCount);
+                        toSkip -= skipCount;
+                        output.write(buffer, skipCount, readCount - skipCount);
+                    }
+                }
+            }
+
+            for (Segment segment: segments) {
+                String text = segment.getText();
+                int skipCount = (int)Math.min(toSkip, text.length());
+                toSkip -= skipCount;
+                output.write(text, skipCount, text.length() - skipCount);
+            }
+        }
+    }
+
+    /**
+     * Defines a piece of text written to the same output. The text is either
+     * plain text or a single link.
+     */
+    public static final class Segment {
+        private final String text;
+        private final boolean error;
+        private final OutputListener listener;
+        private final boolean important;
+
+        public Segment(String text, boolean error) {
+            this(text, error, null, false);
+        }
+
+        public Segment(String text, boolean error, OutputListener listener, boolean important) {
+            ExceptionHelper.checkNotNullArgument(text, "text");
+
+            this.text = text;
+            this.error = error;
+            this.listener = listener;
+            this.important = important;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isError() {
+            return error;
+        }
+
+        /**
+         * Returns the listener of the link or {@code null} if this segment
+         * is plain text.
+         */
+        public OutputListener getListener() {
+            return listener;
+        }
+
+        public boolean isImportant() {
+            return important;
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        public LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int result = super.read();
+            if (result >= 0) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int result = super.read(b, off, (int)Math.min(len, remaining));
+            if (result > 0) {
+                remaining -= result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(Math.min(n, remaining));
+            remaining -= result;
+            return result;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int)Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.netbeans.gradle.project.output;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.queries.SourceForBinaryQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.ProjectInitListener;
+import org.netbeans.gradle.project.java.query.GradleClassPathProvider;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.URLMapper;
+
+/**
+ * Defines a cache for the source files of the classes referenced by stack
+ * trace lines (e.g.: "at com.foo.Bar.baz(Bar.java:42)"). Stack traces tend
+ * to reference the same classes many times, so this cache saves looking up
+ * the class files on the runtime class path and the source roots for them.
+ * <P>
+ * The cache is cleared whenever the class paths of the project change.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
+public final class StackTraceSourceCache implements ProjectInitListener {
+    private static final Logger LOGGER = Logger.getLogger(StackTraceSourceCache.class.getName());
+
+    // Stack traces reference a limited number of classes, so this limit
+    // is just for safety.
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    private static final CachedSource NO_SOURCE = new CachedSource(null);
+
+    private final GradleClassPathProvider cpProvider;
+    private final SourceFinder sourceFinder;
+    private final ConcurrentMap<String, CachedSource> cache;
+    private final AtomicLong cacheVersion;
+
+    public StackTraceSourceCache(Project project, GradleClassPathProvider cpProvider) {
+        this(cpProvider, new ClassPathSourceFinder(project, cpProvider));
+    }
+
+    StackTraceSourceCache(GradleClassPathProvider cpProvider, SourceFinder sourceFinder) {
+        ExceptionHelper.checkNotNullArgument(sourceFinder, "sourceFinder");
+
+        this.cpProvider = cpProvider;
+        this.sourceFinder = sourceFinder;
+        this.cache = new ConcurrentHashMap<>();
+        this.cacheVersion = new AtomicLong(0);
+    }
+
+    /**
+     * Returns the cache of the given project or a new cache if the project
+     * has no cache in its lookup. The returned cache is only able to find
+     * source files if the project has a {@link GradleClassPathProvider}.
+     *
+     * @param project the project whose cache is to be returned. This
+     *   argument cannot be {@code null}.
+     * @return the cache of the given project. This method never returns
+     *   {@code null}.
+     */
+    public static StackTraceSourceCache getForProject(Project project) {
+        StackTraceSourceCache result = project.getLookup().lookup(StackTraceSourceCache.class);
+        if (result != null) {
+            return result;
+        }
+
+        GradleClassPathProvider cpProvider = project.getLookup().lookup(GradleClassPathProvider.class);
+        if (cpProvider == null) {
+            LOGGER.log(Level.WARNING, "No class path provider for project: {0}", project.getProjectDirectory());
+        }
+        return new StackTraceSourceCache(project, cpProvider);
+    }
+
+    @Override
+    public void onInitProject() {
+        if (cpProvider == null) {
+            return;
+        }
+
+        cpProvider.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (ClassPathImplementation.PROP_RESOURCES.equals(evt.getPropertyName())) {
+                    invalidate();
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes every cached source file. The next lookup of every class will
+     * be resolved again.
+     */
+    public void invalidate() {
+        cacheVersion.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Returns the source file of the given class or {@code null} if the
+     * source of the class cannot be found.
+     *
+     * @param packagePath the package of the class with the dots replaced
+     *   by slashes and ending with a slash (unless the class is in the
+     *   default package). This argument cannot be {@code null}.
+     * @param simpleFileName the name of the source file without the
+     *   extension (the name of the top level class). This argument cannot
+     *   be {@code null}.
+     * @return the source file of the given class or {@code null} if the
+     *   source of the class cannot be found
+     */
+    public FileObject tryFindSourceFile(String packagePath, String simpleFileName) {
+        String path = packagePath + simpleFileName + ".java";
+
+        CachedSource cached = cache.get(path);
+        if (cached != null) {
+            FileObject file = cached.file;
+            if (file == null || file.isValid()) {
+                return file;
+            }
+        }
+
+        long versionBeforeLookup = cacheVersion.get();
+        FileObject result = sourceFinder.tryFindSourceFile(packagePath + simpleFileName + ".class", path);
+
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.clear();
+        }
+        cache.put(path, result != null ? new CachedSource(result) : NO_SOURCE);
+
+        if (versionBeforeLookup != cacheVersion.get()) {
+            // The class paths changed while we were looking for the source,
+            // so the result we have just cached might already be outdated.
+            cache.remove(path);
+        }
+
+        return result;
+    }
+
+    /**
+     * Defines the lookup of the source file of a class. The result of the
+     * lookup is cached by {@code StackTraceSourceCache}.
+     */
+    interface SourceFinder {
+        /**
+         * Returns the source file of the given class or {@code null} if the
+         * source of the class cannot be found.
+         *
+         * @param resourceName the path of the class file of the class
+         *   (e.g.: "com/foo/Bar.class")
+         * @param path the path of the source file of the class relative to
+         *   the source root (e.g.: "com/foo/Bar.java")
+         */
+        public FileObject tryFindSourceFile(String resourceName, String path);
+    }
+
+    private static final class ClassPathSourceFinder implements SourceFinder {
+        private final Project project;
+        private final GradleClassPathProvider cpProvider;
+
+        public ClassPathSourceFinder(Project project, GradleClassPathProvider cpProvider) {
+            ExceptionHelper.checkNotNullArgument(project, "project");
+
+            this.project = project;
+            this.cpProvider = cpProvider;
+        }
+
+        private ClassPath getClassPath() {
+            if (cpProvider == null) {
+                return ClassPath.EMPTY;
+            }
+
+            ClassPath classPath = cpProvider.getAllRuntimeClassPaths();
+            if (classPath == null) {
+                LOGGER.log(Level.WARNING, "No runtime class path for project: {0}", project.getProjectDirectory());
+                return ClassPath.EMPTY;
+            }
+            return classPath;
+        }
+
+        private static FileObject tryFindSourceFileInRoots(SourceForBinaryQuery.Result sourceForBinary, String path) {
+            for (FileObject root: sourceForBinary.getRoots()) {
+                FileObject javaFo = root.getFileObject(path);
+                if (javaFo != null) {
+                    return javaFo;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public FileObject tryFindSourceFile(String resourceName, String path) {
+            ClassPath classPath = getClassPath();
+
+            FileObject resource = classPath.findResource(resourceName);
+            if (resource == null) {
+                return null;
+            }
+
+            FileObject root = classPath.findOwnerRoot(resource);
+            if (root == null) {
+                return null;
+            }
+            URL url = URLMapper.findURL(root, URLMapper.INTERNAL);
+
+            for (SourceForBinaryQueryImplementation query: project.getLookup().lookupAll(SourceForBinaryQueryImplementation.class)) {
+                SourceForBinaryQuery.Result sourceForBinary = query.findSourceRoots(url);
+                if (sourceForBinary != null) {
+                    FileObject result = tryFindSourceFileInRoots(sourceForBinary, path);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+
+            SourceForBinaryQuery.Result sourceForBinary = SourceForBinaryQuery.findSourceRoots(url);
+            if (sourceForBinary == null) {
+                return null;
+            }
+
+            return tryFindSourceFileInRoots(sourceForBinary, path);
+        }
+    }
+
+    private static final class CachedSource {
+        // null means that there is no source for the class
+        public final FileObject file;
+
+        public CachedSource(FileObject file) {
+            this.file = file;
+        }
+    }
+}
@@ -1,19 +1,48 @@
 package org.netbeans.gradle.project.output;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.jtrim.cancel.CancellationSource;
+import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.tasks.AsyncGradleTask;
 import org.netbeans.gradle.project.tasks.GradleTaskDef;
 import org.openide.windows.InputOutput;
 
 public final class TaskIOTab implements IOTabDef {
+    private static final Logger LOGGER = Logger.getLogger(TaskIOTab.class.getName());
+
     private final InputOutputWrapper io;
     private final TaskTabAction[] actions;
+    private final OutputMetrics metrics;
 
     public TaskIOTab(InputOutput io, TaskTabAction... actions) {
-        this.io = new InputOutputWrapper(io);
+        this(new InputOutputWrapper(io), actions);
+    }
+
+    public TaskIOTab(InputOutputWrapper io, TaskTabAction... actions) {
+        this(io, null, actions);
+    }
+
+    /**
+     * Creates a tab recording the metrics of its output handling.
+     *
+     * @param io the output of the tab. This argument cannot be {@code null}.
+     * @param metrics the metrics to record the output handling to. This
+     *   argument can be {@code null}, if the metrics are not recorded. The
+     *   metrics are unregistered from {@link OutputMetricsRegistry} when this
+     *   tab is released.
+     * @param actions the actions of the tab. This argument cannot be
+     *   {@code null} and cannot contain {@code null} elements.
+     */
+    public TaskIOTab(InputOutputWrapper io, OutputMetrics metrics, TaskTabAction... actions) {
+        ExceptionHelper.checkNotNullArgument(io, "io");
+
+        this.io = io;
         this.actions = actions.clone();
+        this.metrics = metrics;
 
         CollectionUtils.checkNoNullElements(Arrays.asList(this.actions), "actions");
     }
@@ -40,8 +69,29 @@ public final class TaskIOTab implements IOTabDef {
         return io;
     }
 
+    /**
+     * Returns the metrics of the output handling of the tasks executed in
+     * this tab or {@code null} if the metrics are not recorded.
+     */
+    public OutputMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public boolean isClosed() {
         return io.getIo().isClosed();
     }
+
+    @Override
+    public void release() {
+        if (metrics != null) {
+            OutputMetricsRegistry.unregister(metrics);
+        }
+
+        try {
+            io.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to close the output of a closed tab.", ex);
+        }
+    }
 }
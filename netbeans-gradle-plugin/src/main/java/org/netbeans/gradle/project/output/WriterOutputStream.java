@@ -3,46 +3,176 @@ package org.netbeans.gradle.project.output;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 
+/**
+ * Defines an {@code OutputStream} decoding the bytes written to it and
+ * forwarding the decoded characters to a {@code Writer}.
+ * <P>
+ * Characters encoded on multiple bytes are decoded properly even if their
+ * bytes are written by separate calls. The bytes of an incomplete character
+ * are kept until the remaining bytes are written (or the stream is closed).
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
 public final class WriterOutputStream extends OutputStream {
+    private static final int CHAR_BUFFER_SIZE = 4 * 1024;
+    // Must be larger than the maximum number of bytes of a single character.
+    private static final int PENDING_BYTES_SIZE = 16;
+
     private final Writer writer;
-    private final Charset encoding;
+
+    private final Lock mainLock;
+    private final CharsetDecoder decoder;
+    private final CharBuffer charBuffer;
+    // The bytes of the last incomplete character. This buffer is always
+    // in "put" mode.
+    private final ByteBuffer pendingBytes;
+    private final byte[] singleByte;
+    private boolean closed;
 
     public WriterOutputStream(Writer writer, Charset encoding) {
         ExceptionHelper.checkNotNullArgument(writer, "writer");
         ExceptionHelper.checkNotNullArgument(encoding, "encoding");
+
         this.writer = writer;
-        this.encoding = encoding;
+        this.mainLock = new ReentrantLock();
+        this.decoder = encoding.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.charBuffer = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+        this.pendingBytes = ByteBuffer.allocate(PENDING_BYTES_SIZE);
+        this.singleByte = new byte[1];
+        this.closed = false;
     }
 
     public WriterOutputStream(Writer writer) {
         this(writer, Charset.defaultCharset());
     }
 
-    @Override
-    public void close() throws IOException {
-        writer.close();
+    private void writeDecodedChars() throws IOException {
+        if (charBuffer.position() > 0) {
+            writer.write(charBuffer.array(), charBuffer.arrayOffset(), charBuffer.position());
+            charBuffer.clear();
+        }
+    }
+
+    private void decode(ByteBuffer input, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = decoder.decode(input, charBuffer, endOfInput);
+            if (result.isOverflow()) {
+                writeDecodedChars();
+            }
+            else {
+                // Malformed input is replaced, so this must be an underflow.
+                break;
+            }
+        }
+    }
+
+    private void decodePendingBytes(ByteBuffer input) throws IOException {
+        // Complete the last character one byte at a time, so that we do not
+        // need to copy the whole input.
+        while (pendingBytes.position() > 0 && input.hasRemaining()) {
+            pendingBytes.put(input.get());
+
+            pendingBytes.flip();
+            decode(pendingBytes, false);
+            pendingBytes.compact();
+        }
+    }
+
+    private void keepPendingBytes(ByteBuffer input) {
+        if (input.remaining() > pendingBytes.remaining()) {
+            // This should not happen with any reasonable charset.
+            throw new IllegalStateException("Too many bytes remained undecoded: " + input.remaining());
+        }
+        pendingBytes.put(input);
+    }
+
+    private void checkNotClosed() throws IOException {
+        if (closed) {
+            throw new IOException("The stream has been closed.");
+        }
     }
 
     @Override
-    public void flush() throws IOException {
-        writer.flush();
+    public void write(byte[] b, int off, int len) throws IOException {
+        ExceptionHelper.checkNotNullArgument(b, "b");
+        ExceptionHelper.checkArgumentInRange(off, 0, b.length, "off");
+        ExceptionHelper.checkArgumentInRange(len, 0, b.length - off, "len");
+
+        mainLock.lock();
+        try {
+            checkNotClosed();
+
+            ByteBuffer input = ByteBuffer.wrap(b, off, len);
+            decodePendingBytes(input);
+            decode(input, false);
+            keepPendingBytes(input);
+
+            writeDecodedChars();
+        } finally {
+            mainLock.unlock();
+        }
     }
 
     @Override
     public void write(byte[] b) throws IOException {
-        writer.write(new String(b, encoding));
+        write(b, 0, b.length);
     }
 
     @Override
-    public void write(byte[] b, int off, int len) throws IOException {
-        writer.write(new String(b, off, len, encoding));
+    public void write(int b) throws IOException {
+        mainLock.lock();
+        try {
+            singleByte[0] = (byte)b;
+            write(singleByte, 0, 1);
+        } finally {
+            mainLock.unlock();
+        }
     }
 
     @Override
-    public void write(int b) throws IOException {
-        write(new byte[]{(byte)b});
+    public void flush() throws IOException {
+        mainLock.lock();
+        try {
+            writeDecodedChars();
+        } finally {
+            mainLock.unlock();
+        }
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mainLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            pendingBytes.flip();
+            decode(pendingBytes, true);
+            pendingBytes.clear();
+
+            while (decoder.flush(charBuffer).isOverflow()) {
+                writeDecodedChars();
+            }
+            writeDecodedChars();
+        } finally {
+            mainLock.unlock();
+        }
+        writer.close();
     }
 }
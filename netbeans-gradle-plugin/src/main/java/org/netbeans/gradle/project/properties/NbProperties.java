@@ -18,12 +18,24 @@ import org.jtrim.property.swing.SwingPropertySource;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.event.NbListenerRefs;
 import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
 
 public final class NbProperties {
     public static <Value> PropertySource<Value> weakListenerProperty(PropertySource<? extends Value> src) {
         return new WeakListenerProperty<>(src);
     }
 
+    /**
+     * Returns a property notifying its listeners through the given
+     * {@code ProjectChangeCoordinator}. That is, the listeners are notified
+     * on the Event Dispatch Thread, and only once for the changes of a batch.
+     */
+    public static <Value> PropertySource<Value> batchedChangesProperty(
+            PropertySource<? extends Value> src,
+            ProjectChangeCoordinator coordinator) {
+        return new BatchedChangesProperty<>(src, coordinator);
+    }
+
     public static SimpleListenerRegistry<Runnable> asChangeListenerRegistry(
             final PropertySource<?> property) {
         ExceptionHelper.checkNotNullArgument(property, "property");
@@ -179,6 +191,36 @@ public final class NbProperties {
         }
     }
 
+    private static class BatchedChangesProperty<Value> implements PropertySource<Value> {
+        private final PropertySource<? extends Value> src;
+        private final ProjectChangeCoordinator coordinator;
+
+        public BatchedChangesProperty(PropertySource<? extends Value> src, ProjectChangeCoordinator coordinator) {
+            ExceptionHelper.checkNotNullArgument(src, "src");
+            ExceptionHelper.checkNotNullArgument(coordinator, "coordinator");
+
+            this.src = src;
+            this.coordinator = coordinator;
+        }
+
+        @Override
+        public Value getValue() {
+            return src.getValue();
+        }
+
+        @Override
+        public ListenerRef addChangeListener(final Runnable listener) {
+            ExceptionHelper.checkNotNullArgument(listener, "listener");
+
+            return src.addChangeListener(new Runnable() {
+                @Override
+                public void run() {
+                    coordinator.fireEventually(listener);
+                }
+            });
+        }
+    }
+
     private static class WeakListenerProperty<Value> implements PropertySource<Value> {
         private final PropertySource<? extends Value> src;
 
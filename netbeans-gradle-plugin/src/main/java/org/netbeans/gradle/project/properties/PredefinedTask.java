@@ -65,6 +65,7 @@ public final class PredefinedTask {
     private final List<String> arguments;
     private final List<String> jvmArguments;
     private final boolean nonBlocking;
+    private final String standardInputFile;
 
     public PredefinedTask(
             String displayName,
@@ -72,6 +73,16 @@ public final class PredefinedTask {
             List<String> arguments,
             List<String> jvmArguments,
             boolean nonBlocking) {
+        this(displayName, taskNames, arguments, jvmArguments, nonBlocking, null);
+    }
+
+    public PredefinedTask(
+            String displayName,
+            List<Name> taskNames,
+            List<String> arguments,
+            List<String> jvmArguments,
+            boolean nonBlocking,
+            String standardInputFile) {
         ExceptionHelper.checkNotNullArgument(displayName, "displayName");
 
         this.displayName = displayName;
@@ -79,12 +90,23 @@ public final class PredefinedTask {
         this.arguments = CollectionUtils.copyNullSafeList(arguments);
         this.jvmArguments = CollectionUtils.copyNullSafeList(jvmArguments);
         this.nonBlocking = nonBlocking;
+        this.standardInputFile = standardInputFile;
     }
 
     public boolean isNonBlocking() {
         return nonBlocking;
     }
 
+    /**
+     * Returns the path of the file to be streamed to the standard input of
+     * the build or {@code null} if the standard input is read from the
+     * output window. The path may contain task variables and is relative to
+     * the project directory if not absolute.
+     */
+    public String getStandardInputFile() {
+        return standardInputFile;
+    }
+
     public String getDisplayName() {
         return displayName;
     }
@@ -181,6 +203,7 @@ public final class PredefinedTask {
         builder.setArguments(arguments);
         builder.setJvmArguments(jvmArguments);
         builder.setBlocking(!nonBlocking);
+        builder.setStandardInputFile(standardInputFile);
         return builder.create();
     }
 
@@ -215,7 +238,8 @@ public final class PredefinedTask {
                 + "displayName=" + displayName
                 + ", taskNames=" + taskNames
                 + ", arguments=" + arguments
-                + ", jvmArguments=" + jvmArguments + '}';
+                + ", jvmArguments=" + jvmArguments
+                + ", standardInputFile=" + standardInputFile + '}';
     }
 
     @Override
@@ -226,6 +250,7 @@ public final class PredefinedTask {
         hash = 17 * hash + Objects.hashCode(this.arguments);
         hash = 17 * hash + Objects.hashCode(this.jvmArguments);
         hash = 17 * hash + (this.nonBlocking ? 1 : 0);
+        hash = 17 * hash + Objects.hashCode(this.standardInputFile);
         return hash;
     }
 
@@ -241,6 +266,7 @@ public final class PredefinedTask {
                 && Objects.equals(this.taskNames, other.taskNames)
                 && Objects.equals(this.arguments, other.arguments)
                 && Objects.equals(this.jvmArguments, other.jvmArguments)
-                && this.nonBlocking == other.nonBlocking;
+                && this.nonBlocking == other.nonBlocking
+                && Objects.equals(this.standardInputFile, other.standardInputFile);
     }
 }
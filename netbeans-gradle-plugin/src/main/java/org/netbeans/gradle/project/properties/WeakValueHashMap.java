@@ -34,7 +34,13 @@ public final class WeakValueHashMap<K, V> extends AbstractMap<K, V> {
             if (ref == null) {
                 break;
             }
-            wrappedMap.remove(ref.getKey());
+            K key = ref.getKey();
+            // The key might have been mapped to a new value after the value
+            // of the reference was collected but before the reference was
+            // enqueued. In this case, the new value must be kept.
+            if (wrappedMap.get(key) == ref) {
+                wrappedMap.remove(key);
+            }
         }
     }
 
@@ -55,11 +55,15 @@ public final class GlobalGradleSettings {
     private final StringBasedProperty<Boolean> skipTests;
     private final StringBasedProperty<Boolean> skipCheck;
     private final StringBasedProperty<Integer> projectCacheSize;
+    private final StringBasedProperty<Integer> projectCacheMemoryMB;
     private final StringBasedProperty<Boolean> alwaysClearOutput;
+    private final StringBasedProperty<Integer> outputTabMemoryMB;
     private final StringBasedProperty<Boolean> omitInitScript;
     private final StringBasedProperty<Boolean> mayRelyOnJavaOfScript;
     private final StringBasedProperty<ModelLoadingStrategy> modelLoadingStrategy;
     private final StringBasedProperty<Integer> gradleDaemonTimeoutSec;
+    private final StringBasedProperty<Integer> projectLoadThreadCount;
+    private final StringBasedProperty<Boolean> incrementalProjectReload;
     private final StringBasedProperty<Boolean> compileOnSave;
     private final StringBasedProperty<PlatformOrder> platformPreferenceOrder;
     private final StringBasedProperty<String> displayNamePattern;
@@ -93,9 +97,15 @@ public final class GlobalGradleSettings {
         projectCacheSize = new GlobalProperty<>(
                 withNS(namespace, "project-cache-size"),
                 new IntegerConverter(1, Integer.MAX_VALUE, 100));
+        projectCacheMemoryMB = new GlobalProperty<>(
+                withNS(namespace, "project-cache-memory-mb"),
+                new IntegerConverter(1, Integer.MAX_VALUE, 256));
         alwaysClearOutput = new GlobalProperty<>(
                 withNS(namespace, "always-clear-output"),
                 new BooleanConverter(false));
+        outputTabMemoryMB = new GlobalProperty<>(
+                withNS(namespace, "output-tab-memory-mb"),
+                new IntegerConverter(1, Integer.MAX_VALUE, null));
         omitInitScript = new GlobalProperty<>(
                 withNS(namespace, "omit-init-script"),
                 new BooleanConverter(false));
@@ -108,6 +118,12 @@ public final class GlobalGradleSettings {
         gradleDaemonTimeoutSec = new GlobalProperty<>(
                 withNS(namespace, "gradle-daemon-timeout-sec"),
                 new IntegerConverter(1, Integer.MAX_VALUE, null));
+        projectLoadThreadCount = new GlobalProperty<>(
+                withNS(namespace, "project-load-thread-count"),
+                new IntegerConverter(1, Integer.MAX_VALUE, null));
+        incrementalProjectReload = new GlobalProperty<>(
+                withNS(namespace, "incremental-project-reload"),
+                new BooleanConverter(false));
         compileOnSave = new GlobalProperty<>(
                 withNS(namespace, "compile-on-save"),
                 new BooleanConverter(false));
@@ -159,6 +175,27 @@ public final class GlobalGradleSettings {
         return gradleDaemonTimeoutSec;
     }
 
+    /**
+     * Returns the maximum number of independent root builds which might be
+     * loaded concurrently. The value {@code null} means that the number of
+     * threads is determined by the number of available processors.
+     */
+    public StringBasedProperty<Integer> projectLoadThreadCount() {
+        return projectLoadThreadCount;
+    }
+
+    /**
+     * Returns {@code true} if reloading a project should only fetch the
+     * models of the projects whose build scripts have changed since the
+     * previous load of the same build. Note that the models of projects
+     * depending on a changed project are not refetched, so changes affecting
+     * the dependent projects (e.g., a new transitive dependency) are not
+     * reflected in the dependent projects while this option is enabled.
+     */
+    public StringBasedProperty<Boolean> incrementalProjectReload() {
+        return incrementalProjectReload;
+    }
+
     public StringBasedProperty<GradleLocationDef> gradleLocation() {
         return gradleLocation;
     }
@@ -191,10 +228,29 @@ public final class GlobalGradleSettings {
         return projectCacheSize;
     }
 
+    /**
+     * Returns the maximum estimated memory (in megabytes) the cached models
+     * of the projects might retain. Models are evicted from the cache if
+     * either this limit or {@link #projectCacheSize() the entry count limit}
+     * is exceeded.
+     */
+    public StringBasedProperty<Integer> projectCacheMemoryMB() {
+        return projectCacheMemoryMB;
+    }
+
     public StringBasedProperty<Boolean> alwaysClearOutput() {
         return alwaysClearOutput;
     }
 
+    /**
+     * Returns the maximum amount of output (in megabytes) an output tab of
+     * a Gradle command might retain in memory. Older output is moved to a
+     * temporary file. The value {@code null} means that there is no limit.
+     */
+    public StringBasedProperty<Integer> outputTabMemoryMB() {
+        return outputTabMemoryMB;
+    }
+
     public StringBasedProperty<Boolean> omitInitScript() {
         return omitInitScript;
     }
@@ -118,7 +118,8 @@ public final class BuiltInTasksProperty {
                 taskNames,
                 command.getArguments(),
                 command.getJvmArguments(),
-                !command.isBlocking());
+                !command.isBlocking(),
+                command.getStandardInputFile());
     }
 
     private static PropertyDef<?, BuiltInTasks> createPropertyDef() {
@@ -24,6 +24,7 @@ public final class CustomTasksProperty {
     private static final String CONFIG_KEY_TASK_ARGS = "task-args";
     private static final String CONFIG_KEY_JVM_ARGS = "task-jvm-args";
     private static final String CONFIG_KEY_ARG = "arg";
+    private static final String CONFIG_KEY_STD_IN_FILE = "std-input-file";
     private static final String VALUE_YES = "yes";
     private static final String VALUE_NO = "no";
 
@@ -79,7 +80,8 @@ public final class CustomTasksProperty {
 
         List<String> taskArgs = parseArgs(config.getChildTree(CONFIG_KEY_TASK_ARGS));
         List<String> jvmArgs = parseArgs(config.getChildTree(CONFIG_KEY_JVM_ARGS));
-        return new PredefinedTask(displayName, taskNames, taskArgs, jvmArgs, nonBlocking);
+        String stdInFile = config.getChildTree(CONFIG_KEY_STD_IN_FILE).getValue(null);
+        return new PredefinedTask(displayName, taskNames, taskArgs, jvmArgs, nonBlocking, stdInFile);
     }
 
 
@@ -120,6 +122,11 @@ public final class CustomTasksProperty {
 
         encodeArgs(task.getArguments(), result.getChildBuilder(CONFIG_KEY_TASK_ARGS));
         encodeArgs(task.getJvmArguments(), result.getChildBuilder(CONFIG_KEY_JVM_ARGS));
+
+        String stdInFile = task.getStandardInputFile();
+        if (stdInFile != null) {
+            result.getChildBuilder(CONFIG_KEY_STD_IN_FILE).setValue(stdInFile);
+        }
     }
 
     private static ConfigTree encodeConfig(PredefinedTasks tasks) {
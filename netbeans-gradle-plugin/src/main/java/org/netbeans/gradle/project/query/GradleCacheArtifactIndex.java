@@ -0,0 +1,413 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.GradleFileUtils;
+
+/**
+ * Defines an index of the sources and javadoc artifacts in the
+ * {@code caches/modules-2/files-2.1} directory of the Gradle user home. The
+ * directory has the layout {@code GROUP/MODULE/VERSION/HASH/FILE}, where each
+ * artifact of a module version is stored in a directory named after its
+ * hash. The index stores the hash directory of the sources and javadoc
+ * artifacts of each version directory, so finding the sources of a binary
+ * does not require listing the directories of the cache.
+ * <P>
+ * The index is {@link #update() updated} incrementally: Adding an artifact to
+ * the cache creates a new hash directory, which updates the last modified
+ * time of the version directory. So only the version directories whose last
+ * modified time has changed since the previous update need to be listed
+ * again. The same check is done for the version directory of a binary when
+ * {@link #tryFindArtifact(File, String) tryFindArtifact} does not find the
+ * searched artifact, so artifacts downloaded since the last update are found
+ * without walking the whole cache.
+ * <P>
+ * The methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+public final class GradleCacheArtifactIndex {
+    private static final int STORE_MAGIC = 0x4E474149; // "NGAI"
+    private static final int STORE_VERSION = 1;
+
+    private static final FileFilter DIR_FILTER = new FileFilter() {
+        @Override
+        public boolean accept(File pathname) {
+            return pathname.isDirectory();
+        }
+    };
+
+    private final File filesDir;
+    private final Lock updateLock;
+    private volatile Map<File, VersionDir> versionDirs;
+    private boolean refreshedSinceUpdate;
+
+    /**
+     * Creates a new empty index of the given cache directory.
+     *
+     * @param filesDir the directory containing the artifacts of the Gradle
+     *   cache. That is, the {@code caches/modules-2/files-2.1} directory of
+     *   the Gradle user home. This argument cannot be {@code null}.
+     *
+     * @see #getFilesDir(File)
+     */
+    public GradleCacheArtifactIndex(File filesDir) {
+        ExceptionHelper.checkNotNullArgument(filesDir, "filesDir");
+
+        this.filesDir = filesDir;
+        this.updateLock = new ReentrantLock();
+        this.versionDirs = Collections.emptyMap();
+        this.refreshedSinceUpdate = false;
+    }
+
+    public static File getFilesDir(File gradleUserHome) {
+        ExceptionHelper.checkNotNullArgument(gradleUserHome, "gradleUserHome");
+
+        File cachesDir = new File(gradleUserHome, "caches");
+        return new File(new File(cachesDir, "modules-2"), "files-2.1");
+    }
+
+    public File getFilesDir() {
+        return filesDir;
+    }
+
+    private static boolean isIndexedArtifact(String fileName) {
+        int extSeparatorIndex = fileName.lastIndexOf('.');
+        String baseName = extSeparatorIndex >= 0
+                ? fileName.substring(0, extSeparatorIndex)
+                : fileName;
+
+        return baseName.endsWith(GradleFileUtils.SOURCES_CLASSIFIER)
+                || baseName.endsWith(GradleFileUtils.JAVADOC_CLASSIFIER);
+    }
+
+    private File tryGetVersionDir(File artifact) {
+        File hashDir = artifact.getParentFile();
+        File versionDir = hashDir != null ? hashDir.getParentFile() : null;
+        File moduleDir = versionDir != null ? versionDir.getParentFile() : null;
+        File groupDir = moduleDir != null ? moduleDir.getParentFile() : null;
+
+        if (groupDir == null || !filesDir.equals(groupDir.getParentFile())) {
+            return null;
+        }
+        return versionDir;
+    }
+
+    /**
+     * Returns {@code true} if the directory of the given artifact was found
+     * by the last update of this index. If this method returns {@code false},
+     * then {@link #tryFindArtifact(File, String) tryFindArtifact} cannot tell
+     * if the searched artifact exists or not.
+     *
+     * @param binary the binary artifact in the cache. This argument cannot
+     *   be {@code null}.
+     * @return {@code true} if the directory of the given artifact is indexed,
+     *   {@code false} otherwise
+     */
+    public boolean isIndexed(File binary) {
+        ExceptionHelper.checkNotNullArgument(binary, "binary");
+
+        File versionDir = tryGetVersionDir(binary);
+        return versionDir != null && versionDirs.containsKey(versionDir);
+    }
+
+    /**
+     * Returns the sources or javadoc artifact with the given name stored
+     * along the given binary artifact. If the index does not contain the
+     * searched artifact, then the version directory of the binary is
+     * {@link #refreshVersionDirOf(File) refreshed} before giving up.
+     *
+     * @param binary the binary artifact in the cache. This argument cannot
+     *   be {@code null}.
+     * @param fileName the file name of the searched artifact (e.g.:
+     *   {@code my-lib-1.0-sources.jar}). This argument cannot be
+     *   {@code null}.
+     * @return the searched artifact or {@code null} if the index does not
+     *   contain such artifact
+     */
+    public File tryFindArtifact(File binary, String fileName) {
+        ExceptionHelper.checkNotNullArgument(binary, "binary");
+        ExceptionHelper.checkNotNullArgument(fileName, "fileName");
+
+        File versionDir = tryGetVersionDir(binary);
+        if (versionDir == null) {
+            return null;
+        }
+
+        File result = tryFindIndexedArtifact(versionDir, fileName);
+        if (result == null && refreshVersionDir(versionDir)) {
+            result = tryFindIndexedArtifact(versionDir, fileName);
+        }
+        return result;
+    }
+
+    private File tryFindIndexedArtifact(File versionDir, String fileName) {
+        VersionDir versionDirInfo = versionDirs.get(versionDir);
+        if (versionDirInfo == null) {
+            return null;
+        }
+
+        String hashDirName = versionDirInfo.artifacts.get(fileName);
+        return hashDirName != null
+                ? new File(new File(versionDir, hashDirName), fileName)
+                : null;
+    }
+
+    /**
+     * Lists the version directory of the given binary artifact again if it
+     * is not indexed or has been modified since it was indexed. The
+     * directory is not listed if the index is being updated concurrently,
+     * because the update will find the changes anyway.
+     *
+     * @param binary the binary artifact in the cache. This argument cannot
+     *   be {@code null}.
+     */
+    public void refreshVersionDirOf(File binary) {
+        ExceptionHelper.checkNotNullArgument(binary, "binary");
+
+        File versionDir = tryGetVersionDir(binary);
+        if (versionDir != null) {
+            refreshVersionDir(versionDir);
+        }
+    }
+
+    private boolean refreshVersionDir(File versionDir) {
+        long lastModified = versionDir.lastModified();
+        if (lastModified == 0) {
+            // The directory does not exist (or cannot be accessed).
+            return false;
+        }
+
+        VersionDir prevInfo = versionDirs.get(versionDir);
+        if (prevInfo != null && prevInfo.lastModified == lastModified) {
+            return false;
+        }
+
+        if (!updateLock.tryLock()) {
+            return false;
+        }
+        try {
+            Map<File, VersionDir> prevDirs = versionDirs;
+            prevInfo = prevDirs.get(versionDir);
+            if (prevInfo != null && prevInfo.lastModified == lastModified) {
+                return false;
+            }
+
+            Map<File, VersionDir> newDirs = new HashMap<>(prevDirs);
+            newDirs.put(versionDir, scanVersionDir(versionDir, lastModified));
+            versionDirs = Collections.unmodifiableMap(newDirs);
+            refreshedSinceUpdate = true;
+            return true;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private static File[] listDirs(File dir) {
+        File[] result = dir.listFiles(DIR_FILTER);
+        return result != null ? result : new File[0];
+    }
+
+    private static VersionDir scanVersionDir(File versionDir, long lastModified) {
+        Map<String, String> artifacts = new HashMap<>();
+        for (File hashDir: listDirs(versionDir)) {
+            String[] fileNames = hashDir.list();
+            if (fileNames == null) {
+                continue;
+            }
+
+            for (String fileName: fileNames) {
+                if (isIndexedArtifact(fileName)) {
+                    artifacts.put(fileName, hashDir.getName());
+                }
+            }
+        }
+        return new VersionDir(lastModified, artifacts);
+    }
+
+    /**
+     * Updates this index to reflect the current content of the cache. Only
+     * the version directories modified since the previous update are listed.
+     *
+     * @return {@code true} if the content of the index has changed since
+     *   the previous update (including the changes made by
+     *   {@link #refreshVersionDirOf(File) refreshing} version directories),
+     *   {@code false} otherwise
+     */
+    public boolean update() {
+        updateLock.lock();
+        try {
+            Map<File, VersionDir> prevDirs = versionDirs;
+            Map<File, VersionDir> newDirs = new HashMap<>(Math.max(16, 4 * prevDirs.size() / 3 + 1));
+            boolean changed = refreshedSinceUpdate;
+            refreshedSinceUpdate = false;
+
+            for (File groupDir: listDirs(filesDir)) {
+                for (File moduleDir: listDirs(groupDir)) {
+                    for (File versionDir: listDirs(moduleDir)) {
+                        long lastModified = versionDir.lastModified();
+                        VersionDir prevInfo = prevDirs.get(versionDir);
+                        if (prevInfo != null && prevInfo.lastModified == lastModified) {
+                            newDirs.put(versionDir, prevInfo);
+                        }
+                        else {
+                            newDirs.put(versionDir, scanVersionDir(versionDir, lastModified));
+                            changed = true;
+                        }
+                    }
+                }
+            }
+
+            // Every new directory sets "changed", so if the sizes are equal,
+            // then no directory was removed either.
+            if (!changed && newDirs.size() == prevDirs.size()) {
+                return false;
+            }
+
+            versionDirs = Collections.unmodifiableMap(newDirs);
+            return true;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of this index with the content written by
+     * {@link #writeTo(Path) writeTo}. The content is not read if it was
+     * written for another cache directory.
+     *
+     * @param storeFile the file to read the index from. This argument cannot
+     *   be {@code null}.
+     * @return {@code true} if the index was read, {@code false} if the file
+     *   does not exist or was written for a different cache directory
+     *
+     * @throws IOException thrown if the file could not be read or is
+     *   corrupted
+     */
+    public boolean readFrom(Path storeFile) throws IOException {
+        ExceptionHelper.checkNotNullArgument(storeFile, "storeFile");
+
+        updateLock.lock();
+        try (InputStream fileInput = Files.newInputStream(storeFile);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(fileInput))) {
+
+            if (input.readInt() != STORE_MAGIC || input.readInt() != STORE_VERSION) {
+                return false;
+            }
+            if (!filesDir.getPath().equals(input.readUTF())) {
+                return false;
+            }
+
+            int versionDirCount = input.readInt();
+            Map<File, VersionDir> newDirs = new HashMap<>(Math.max(16, 4 * versionDirCount / 3 + 1));
+            for (int i = 0; i < versionDirCount; i++) {
+                File groupDir = new File(filesDir, input.readUTF());
+                File moduleDir = new File(groupDir, input.readUTF());
+                File versionDir = new File(moduleDir, input.readUTF());
+                long lastModified = input.readLong();
+
+                int artifactCount = input.readInt();
+                Map<String, String> artifacts = new HashMap<>();
+                for (int j = 0; j < artifactCount; j++) {
+                    String fileName = input.readUTF();
+                    String hashDirName = input.readUTF();
+                    artifacts.put(fileName, hashDirName);
+                }
+
+                newDirs.put(versionDir, new VersionDir(lastModified, artifacts));
+            }
+
+            versionDirs = Collections.unmodifiableMap(newDirs);
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the content of this index to the given file, so that it can be
+     * {@link #readFrom(Path) read} in a later session. The file is replaced
+     * atomically, when the file system supports it.
+     *
+     * @param storeFile the file to write the index to. This argument cannot
+     *   be {@code null}.
+     *
+     * @throws IOException thrown if the file could not be written
+     */
+    public void writeTo(Path storeFile) throws IOException {
+        ExceptionHelper.checkNotNullArgument(storeFile, "storeFile");
+
+        Path tempFile = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+
+        updateLock.lock();
+        try {
+            Map<File, VersionDir> currentDirs = versionDirs;
+
+            try (OutputStream fileOutput = Files.newOutputStream(tempFile);
+                    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+
+                output.writeInt(STORE_MAGIC);
+                output.writeInt(STORE_VERSION);
+                output.writeUTF(filesDir.getPath());
+
+                output.writeInt(currentDirs.size());
+                for (Map.Entry<File, VersionDir> entry: currentDirs.entrySet()) {
+                    File versionDir = entry.getKey();
+                    File moduleDir = versionDir.getParentFile();
+                    File groupDir = moduleDir.getParentFile();
+
+                    output.writeUTF(groupDir.getName());
+                    output.writeUTF(moduleDir.getName());
+                    output.writeUTF(versionDir.getName());
+
+                    VersionDir versionDirInfo = entry.getValue();
+                    output.writeLong(versionDirInfo.lastModified);
+                    output.writeInt(versionDirInfo.artifacts.size());
+                    for (Map.Entry<String, String> artifact: versionDirInfo.artifacts.entrySet()) {
+                        output.writeUTF(artifact.getKey());
+                        output.writeUTF(artifact.getValue());
+                    }
+                }
+            }
+
+            try {
+                Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private static final class VersionDir {
+        public final long lastModified;
+        // Maps the file names of the artifacts to the name of their hash dir.
+        public final Map<String, String> artifacts;
+
+        public VersionDir(long lastModified, Map<String, String> artifacts) {
+            this.lastModified = lastModified;
+            this.artifacts = artifacts.isEmpty()
+                    ? Collections.<String, String>emptyMap()
+                    : artifacts;
+        }
+    }
+}
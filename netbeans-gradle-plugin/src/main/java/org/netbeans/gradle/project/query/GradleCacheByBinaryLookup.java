@@ -1,21 +1,45 @@
 package org.netbeans.gradle.project.query;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeListener;
+import org.jtrim.concurrent.UpdateTaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.NbTaskExecutors;
 import org.netbeans.gradle.project.util.GradleFileUtils;
 import org.netbeans.gradle.project.util.NbFileUtils;
 import org.netbeans.gradle.project.util.NbFunction;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
+import org.openide.modules.Places;
 import org.openide.util.ChangeSupport;
 
 public final class GradleCacheByBinaryLookup {
+    private static final Logger LOGGER = Logger.getLogger(GradleCacheByBinaryLookup.class.getName());
+
     private static final FileObject[] NO_ROOTS = new FileObject[0];
     private static final ChangeSupport CHANGES;
 
+    private static final String ARTIFACT_INDEX_FILE = "nb-gradle/gradle-cache-artifacts.bin";
+    private static final UpdateTaskExecutor ARTIFACT_INDEX_UPDATER = NbTaskExecutors.newDefaultUpdateExecutor();
+    private static final AtomicBoolean ARTIFACT_INDEX_REQUESTED = new AtomicBoolean(false);
+    // Only set after the index was loaded or updated.
+    private static final AtomicReference<GradleCacheArtifactIndex> ARTIFACT_INDEX = new AtomicReference<>(null);
+    // Artifacts added to the cache are found by refreshing the version
+    // directory of the queried binary, so walking the whole cache is only
+    // needed to find the removed directories and to save the index.
+    private static final long MIN_ARTIFACT_INDEX_UPDATE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static volatile long lastArtifactIndexUpdateTime
+            = System.nanoTime() - MIN_ARTIFACT_INDEX_UPDATE_INTERVAL_NANOS;
+
     static {
         EventSource eventSource = new EventSource();
         CHANGES = new ChangeSupport(eventSource);
@@ -23,9 +47,9 @@ public final class GradleCacheByBinaryLookup {
     }
 
     private final String searchedPackaging;
-    private final NbFunction<FileObject, String> binaryToSearchedEntry;
+    private final NbFunction<File, String> binaryToSearchedEntry;
 
-    public GradleCacheByBinaryLookup(String searchedPackaging, NbFunction<FileObject, String> binaryToSearchedEntry) {
+    public GradleCacheByBinaryLookup(String searchedPackaging, NbFunction<File, String> binaryToSearchedEntry) {
         ExceptionHelper.checkNotNullArgument(searchedPackaging, "searchedPackaging");
         ExceptionHelper.checkNotNullArgument(binaryToSearchedEntry, "binaryToSearchedEntry");
 
@@ -34,6 +58,11 @@ public final class GradleCacheByBinaryLookup {
     }
 
     public static void notifyCacheChange() {
+        fireCacheChange();
+        updateArtifactIndex();
+    }
+
+    private static void fireCacheChange() {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -42,7 +71,75 @@ public final class GradleCacheByBinaryLookup {
         });
     }
 
+    private static void updateArtifactIndex() {
+        ARTIFACT_INDEX_REQUESTED.set(true);
+
+        ARTIFACT_INDEX_UPDATER.execute(new Runnable() {
+            @Override
+            public void run() {
+                File gradleUserHome = GradleFileUtils.GRADLE_USER_HOME.getValue();
+                if (gradleUserHome == null) {
+                    return;
+                }
+
+                File filesDir = FileUtil.normalizeFile(GradleCacheArtifactIndex.getFilesDir(gradleUserHome));
+                Path storeFile = Places.getCacheSubfile(ARTIFACT_INDEX_FILE).toPath();
+
+                GradleCacheArtifactIndex index = ARTIFACT_INDEX.get();
+                if (index != null
+                        && filesDir.equals(index.getFilesDir())
+                        && System.nanoTime() - lastArtifactIndexUpdateTime < MIN_ARTIFACT_INDEX_UPDATE_INTERVAL_NANOS) {
+                    return;
+                }
+
+                if (index == null || !filesDir.equals(index.getFilesDir())) {
+                    index = new GradleCacheArtifactIndex(filesDir);
+                    try {
+                        if (index.readFrom(storeFile)) {
+                            // The stored index is likely to be mostly up-to-date,
+                            // so allow using it while it is being updated.
+                            ARTIFACT_INDEX.set(index);
+                        }
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.INFO, "Failed to read the index of the Gradle cache: " + storeFile, ex);
+                    }
+                }
+
+                boolean changed = index.update();
+                lastArtifactIndexUpdateTime = System.nanoTime();
+                ARTIFACT_INDEX.set(index);
+
+                if (changed) {
+                    try {
+                        index.writeTo(storeFile);
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.INFO, "Failed to save the index of the Gradle cache: " + storeFile, ex);
+                    }
+                    fireCacheChange();
+                }
+            }
+        });
+    }
+
+    private static GradleCacheArtifactIndex tryGetArtifactIndex() {
+        if (!ARTIFACT_INDEX_REQUESTED.get()) {
+            updateArtifactIndex();
+        }
+        return ARTIFACT_INDEX.get();
+    }
+
     public SourceForBinaryQueryImplementation2.Result tryFindEntryByBinary(File binaryRoot) {
+        GradleCacheArtifactIndex index = tryGetArtifactIndex();
+        if (index != null) {
+            if (!index.isIndexed(binaryRoot)) {
+                // The binary might have been downloaded since the last update.
+                index.refreshVersionDirOf(binaryRoot);
+            }
+            if (index.isIndexed(binaryRoot)) {
+                return new IndexedCacheResult(binaryRoot, binaryToSearchedEntry.apply(binaryRoot));
+            }
+        }
+
         File gradleUserHome = GradleFileUtils.GRADLE_USER_HOME.getValue();
         if (gradleUserHome == null) {
             return null;
@@ -68,7 +165,7 @@ public final class GradleCacheByBinaryLookup {
             return null;
         }
 
-        String sourceFileName = binaryToSearchedEntry.apply(binaryRootObj);
+        String sourceFileName = binaryToSearchedEntry.apply(binaryRoot);
 
         if (GradleFileUtils.isKnownBinaryDirName(binDir.getNameExt())) {
             final FileObject artifactRoot = binDir.getParent();
@@ -111,6 +208,47 @@ public final class GradleCacheByBinaryLookup {
         }
     }
 
+    private static final class IndexedCacheResult implements SourceForBinaryQueryImplementation2.Result {
+        private final File binaryRoot;
+        private final String searchedFileName;
+
+        public IndexedCacheResult(File binaryRoot, String searchedFileName) {
+            this.binaryRoot = binaryRoot;
+            this.searchedFileName = searchedFileName;
+        }
+
+        @Override
+        public boolean preferSources() {
+            return false;
+        }
+
+        @Override
+        public FileObject[] getRoots() {
+            // Always use the latest index because CHANGES is fired after
+            // the index was updated.
+            GradleCacheArtifactIndex index = ARTIFACT_INDEX.get();
+            File searchedFile = index != null
+                    ? index.tryFindArtifact(binaryRoot, searchedFileName)
+                    : null;
+            if (searchedFile == null) {
+                return NO_ROOTS;
+            }
+
+            FileObject searchedFileObj = NbFileUtils.asArchiveOrDir(searchedFile);
+            return searchedFileObj != null ? new FileObject[]{searchedFileObj} : NO_ROOTS;
+        }
+
+        @Override
+        public void addChangeListener(ChangeListener l) {
+            CHANGES.addChangeListener(l);
+        }
+
+        @Override
+        public void removeChangeListener(ChangeListener l) {
+            CHANGES.removeChangeListener(l);
+        }
+    }
+
     private static class NewFormatCacheResult implements SourceForBinaryQueryImplementation2.Result {
         private final FileObject artifactRoot;
         private final String sourceFileName;
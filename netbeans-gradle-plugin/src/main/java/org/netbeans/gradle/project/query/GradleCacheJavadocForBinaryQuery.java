@@ -21,9 +21,9 @@ public final class GradleCacheJavadocForBinaryQuery extends AbstractJavadocForBi
         this.sourceForBinary = new GradleCacheByBinaryLookup(
                 GradleFileUtils.SOURCE_DIR_NAME,
                 GradleCacheSourceForBinaryQuery.binaryToSourceName());
-        this.javadocForBinary = new GradleCacheByBinaryLookup(GradleFileUtils.JAVADOC_DIR_NAME, new NbFunction<FileObject, String>() {
+        this.javadocForBinary = new GradleCacheByBinaryLookup(GradleFileUtils.JAVADOC_DIR_NAME, new NbFunction<File, String>() {
             @Override
-            public String apply(FileObject arg) {
+            public String apply(File arg) {
                 return GradleFileUtils.binaryToJavadocName(arg);
             }
         });
@@ -5,7 +5,6 @@ import org.netbeans.gradle.project.util.GradleFileUtils;
 import org.netbeans.gradle.project.util.NbFunction;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation2;
-import org.openide.filesystems.FileObject;
 import org.openide.util.lookup.ServiceProvider;
 import org.openide.util.lookup.ServiceProviders;
 
@@ -19,10 +18,10 @@ public final class GradleCacheSourceForBinaryQuery extends AbstractSourceForBina
         this.sourceLookup = new GradleCacheByBinaryLookup(GradleFileUtils.SOURCE_DIR_NAME, binaryToSourceName());
     }
 
-    public static NbFunction<FileObject, String> binaryToSourceName() {
-        return new NbFunction<FileObject, String>() {
+    public static NbFunction<File, String> binaryToSourceName() {
+        return new NbFunction<File, String>() {
             @Override
-            public String apply(FileObject arg) {
+            public String apply(File arg) {
                 return GradleFileUtils.binaryToSourceName(arg);
             }
         };
@@ -3,6 +3,8 @@ package org.netbeans.gradle.project.tasks;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
@@ -22,7 +24,6 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import org.gradle.tooling.BuildLauncher;
-import org.gradle.tooling.GradleConnector;
 import org.gradle.tooling.ModelBuilder;
 import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.internal.consumer.DefaultCancellationTokenSource;
@@ -36,7 +37,6 @@ import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.event.ListenerRef;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
-import org.netbeans.gradle.model.OperationInitializer;
 import org.netbeans.gradle.model.util.TemporaryFileManager;
 import org.netbeans.gradle.model.util.TemporaryFileRef;
 import org.netbeans.gradle.project.NbGradleProject;
@@ -51,6 +51,7 @@ import org.netbeans.gradle.project.api.task.GradleActionProviderContext;
 import org.netbeans.gradle.project.api.task.GradleTargetVerifier;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.model.GradleConnectionPool;
 import org.netbeans.gradle.project.model.GradleModelLoader;
 import org.netbeans.gradle.project.output.BuildErrorConsumer;
 import org.netbeans.gradle.project.output.FileLineConsumer;
@@ -59,12 +60,14 @@ import org.netbeans.gradle.project.output.IOTabs;
 import org.netbeans.gradle.project.output.InputOutputWrapper;
 import org.netbeans.gradle.project.output.LineOutputWriter;
 import org.netbeans.gradle.project.output.OutputLinkPrinter;
+import org.netbeans.gradle.project.output.OutputMetrics;
 import org.netbeans.gradle.project.output.OutputUrlConsumer;
 import org.netbeans.gradle.project.output.ProjectFileConsumer;
 import org.netbeans.gradle.project.output.ReaderInputStream;
 import org.netbeans.gradle.project.output.ReplaceLineFeedReader;
 import org.netbeans.gradle.project.output.SmartOutputHandler;
 import org.netbeans.gradle.project.output.StackTraceConsumer;
+import org.netbeans.gradle.project.output.StackTraceSourceCache;
 import org.netbeans.gradle.project.output.TaskIOTab;
 import org.netbeans.gradle.project.output.WriterOutputStream;
 import org.netbeans.gradle.project.properties.global.GlobalGradleSettings;
@@ -78,6 +81,11 @@ public final class AsyncGradleTask implements Runnable {
             = NbTaskExecutors.newExecutor("Gradle-Task-Executor", Integer.MAX_VALUE);
     private static final TaskExecutor CANCEL_EXECUTOR
             = NbTaskExecutors.newExecutor("Gradle-Cancel-Executor", Integer.MAX_VALUE);
+    // Resolves the links in the output (which might need file system access)
+    // and prints the output, so that the thread reading the output of Gradle
+    // is not blocked.
+    private static final TaskExecutor OUTPUT_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Output-Printer", 2);
     private static final Logger LOGGER = Logger.getLogger(GradleTasks.class.getName());
 
     private final NbGradleProject project;
@@ -188,7 +196,7 @@ public final class AsyncGradleTask implements Runnable {
     }
 
     private static void configureBuildLauncher(
-            OperationInitializer targetSetup,
+            GradleModelLoader.ModelBuilderSetup targetSetup,
             BuildLauncher buildLauncher,
             GradleTaskDef taskDef,
             List<TemporaryFileRef> initScripts) {
@@ -222,36 +230,64 @@ public final class AsyncGradleTask implements Runnable {
             NbGradleProject project,
             GradleTaskDef taskDef,
             BuildLauncher buildLauncher,
-            TaskIOTab tab) {
+            TaskIOTab tab) throws IOException {
+
+        StackTraceSourceCache sourceCache = StackTraceSourceCache.getForProject(project);
 
         List<SmartOutputHandler.Consumer> outputConsumers = new LinkedList<>();
         outputConsumers.add(new OutputLinkPrinter(
-                new StackTraceConsumer(project),
+                new StackTraceConsumer(sourceCache),
                 new OutputUrlConsumer(),
                 new ProjectFileConsumer(project)));
 
         List<SmartOutputHandler.Consumer> errorConsumers = new LinkedList<>();
         errorConsumers.add(new BuildErrorConsumer());
         errorConsumers.add(new OutputLinkPrinter(
-                new StackTraceConsumer(project),
+                new StackTraceConsumer(sourceCache),
                 new OutputUrlConsumer(),
                 new ProjectFileConsumer(project),
                 new FileLineConsumer()));
 
         InputOutputWrapper io = tab.getIo();
+        OutputMetrics metrics = tab.getMetrics();
         Writer forwardedStdOut = new LineOutputWriter(new SmartOutputHandler(
                 io.getIo(),
                 io.getOutRef(),
                 Arrays.asList(taskDef.getStdOutListener(project)),
-                outputConsumers));
+                outputConsumers,
+                OUTPUT_EXECUTOR,
+                metrics), metrics);
         Writer forwardedStdErr = new LineOutputWriter(new SmartOutputHandler(
                 io.getIo(),
                 io.getErrRef(),
                 Arrays.asList(taskDef.getStdErrListener(project)),
-                errorConsumers));
+                errorConsumers,
+                OUTPUT_EXECUTOR,
+                metrics), metrics);
+
+        // Closing these streams also closes the forwarded writers but
+        // decodes the last incomplete character first.
+        OutputStream stdOut = new WriterOutputStream(forwardedStdOut);
+        OutputStream stdErr = new WriterOutputStream(forwardedStdErr);
 
-        buildLauncher.setStandardOutput(new WriterOutputStream(forwardedStdOut));
-        buildLauncher.setStandardError(new WriterOutputStream(forwardedStdErr));
+        buildLauncher.setStandardOutput(stdOut);
+        buildLauncher.setStandardError(stdErr);
+
+        File stdInFile = taskDef.getStandardInputFile();
+        if (stdInFile != null) {
+            InputStream stdIn;
+            try {
+                stdIn = StandardInputFile.setStandardInput(buildLauncher, stdInFile);
+            } catch (Throwable ex) {
+                try {
+                    new OutputRef(stdOut, stdErr).close();
+                } catch (Throwable closeEx) {
+                    ex.addSuppressed(closeEx);
+                }
+                throw ex;
+            }
+            return new OutputRef(stdOut, stdErr, stdIn);
+        }
 
         Reader input = tab.getIo().getInRef();
         if (GlobalGradleSettings.getDefault().replaceLfOnStdIn().getValue()) {
@@ -260,7 +296,7 @@ public final class AsyncGradleTask implements Runnable {
 
         buildLauncher.setStandardInput(new ReaderInputStream(input));
 
-        return new OutputRef(forwardedStdOut, forwardedStdErr);
+        return new OutputRef(stdOut, stdErr);
     }
 
     private boolean checkTaskExecutable(
@@ -377,17 +413,14 @@ public final class AsyncGradleTask implements Runnable {
                     new Object[]{command, taskDef.getArguments(), taskDef.getJvmArguments()});
         }
 
-        File projectDir = project.getProjectDirectoryAsFile();
-
         GradleModelLoader.ModelBuilderSetup targetSetup = createTargetSetup(taskDef, progress);
 
         Throwable commandError = null;
 
-        GradleConnector gradleConnector = GradleModelLoader.createGradleConnector(cancellation.getToken(), project);
-        gradleConnector.forProjectDirectory(projectDir);
-        ProjectConnection projectConnection = null;
+        GradleConnectionPool.PooledConnectionRef connectionRef = null;
         try {
-            projectConnection = gradleConnector.connect();
+            connectionRef = GradleModelLoader.connectToProject(cancellation.getToken(), project);
+            ProjectConnection projectConnection = connectionRef.getConnection();
 
             BuildLauncher buildLauncher = projectConnection.newBuild();
             List<TemporaryFileRef> initScripts = getAllInitScriptFiles(project);
@@ -463,8 +496,8 @@ public final class AsyncGradleTask implements Runnable {
             }
         } finally {
             try {
-                if (projectConnection != null) {
-                    projectConnection.close();
+                if (connectionRef != null) {
+                    connectionRef.close();
                 }
             } finally {
                 ExecutedCommandContext commandContext = buildItem.getCommandContext();
@@ -750,18 +783,18 @@ public final class AsyncGradleTask implements Runnable {
     }
 
     private static class OutputRef implements Closeable {
-        private final Writer[] writers;
+        private final Closeable[] streams;
 
-        public OutputRef(Writer... writers) {
-            this.writers = writers.clone();
+        public OutputRef(Closeable... streams) {
+            this.streams = streams.clone();
 
-            ExceptionHelper.checkNotNullElements(this.writers, "writers");
+            ExceptionHelper.checkNotNullElements(this.streams, "streams");
         }
 
         @Override
         public void close() throws IOException {
-            for (Writer writer: writers) {
-                writer.close();
+            for (Closeable stream: streams) {
+                stream.close();
             }
         }
     }
@@ -6,14 +6,29 @@ import org.jtrim.utils.ExceptionHelper;
 public final class DaemonTaskDef {
     private final String caption;
     private final boolean nonBlocking;
+    private final Object lockKey;
     private final DaemonTask task;
 
     public DaemonTaskDef(String caption, boolean nonBlocking, DaemonTask task) {
+        this(caption, nonBlocking, null, task);
+    }
+
+    /**
+     * Creates a task definition which might be executed concurrently with
+     * other non-blocking tasks having a different lock key.
+     * <P>
+     * Non-blocking tasks having the same (according to {@code equals}) lock
+     * key are still executed one after another. If the lock key is
+     * {@code null}, the task is mutually exclusive with every other
+     * non-blocking task. The lock key is ignored for blocking tasks.
+     */
+    public DaemonTaskDef(String caption, boolean nonBlocking, Object lockKey, DaemonTask task) {
         ExceptionHelper.checkNotNullArgument(caption, "caption");
         ExceptionHelper.checkNotNullArgument(task, "task");
 
         this.caption = caption;
         this.nonBlocking = nonBlocking;
+        this.lockKey = lockKey;
         this.task = task;
     }
 
@@ -25,6 +40,10 @@ public final class DaemonTaskDef {
         return nonBlocking;
     }
 
+    public Object getLockKey() {
+        return lockKey;
+    }
+
     public DaemonTask getTask() {
         return task;
     }
@@ -3,7 +3,8 @@ package org.netbeans.gradle.project.tasks;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim.cancel.CancelableWaits;
@@ -23,19 +24,46 @@ import org.openide.util.Cancellable;
 public final class GradleDaemonManager {
     private static final Logger LOGGER = Logger.getLogger(GradleDaemonManager.class.getName());
 
-    private static final ReentrantLock QUEUE_LOCK = new ReentrantLock(true);
+    // Non-blocking tasks without a lock key acquire the write lock, while
+    // non-blocking tasks with a lock key only need the read lock (and the lock
+    // assigned to their key). This allows for example loading independent
+    // root builds concurrently.
+    private static final ReentrantReadWriteLock QUEUE_LOCK = new ReentrantReadWriteLock(true);
+    private static final KeyedLocks KEYED_LOCKS = new KeyedLocks();
 
     private static void runNonBlockingGradleTask(
             CancellationToken cancelToken,
             DaemonTask task,
             ProgressHandle progress) {
 
-        CancelableWaits.lock(cancelToken, QUEUE_LOCK);
+        Lock queueLock = QUEUE_LOCK.writeLock();
+        CancelableWaits.lock(cancelToken, queueLock);
         try {
             progress.switchToIndeterminate();
             task.run(cancelToken, progress);
         } finally{
-            QUEUE_LOCK.unlock();
+            queueLock.unlock();
+        }
+    }
+
+    private static void runNonBlockingGradleTask(
+            CancellationToken cancelToken,
+            Object lockKey,
+            DaemonTask task,
+            ProgressHandle progress) {
+
+        KeyedLocks.KeyLock keyLock = KEYED_LOCKS.lock(cancelToken, lockKey);
+        try {
+            Lock queueLock = QUEUE_LOCK.readLock();
+            CancelableWaits.lock(cancelToken, queueLock);
+            try {
+                progress.switchToIndeterminate();
+                task.run(cancelToken, progress);
+            } finally{
+                queueLock.unlock();
+            }
+        } finally {
+            KEYED_LOCKS.unlock(keyLock);
         }
     }
 
@@ -45,15 +73,17 @@ public final class GradleDaemonManager {
             ProgressHandle progress) {
 
         // This lock/unlock is here only to wait for pending non-blocking tasks.
-        CancelableWaits.lock(cancelToken, QUEUE_LOCK);
-        QUEUE_LOCK.unlock();
+        Lock queueLock = QUEUE_LOCK.writeLock();
+        CancelableWaits.lock(cancelToken, queueLock);
+        queueLock.unlock();
 
         progress.switchToIndeterminate();
         task.run(cancelToken, progress);
     }
 
     public static boolean isRunningExclusiveTask() {
-        return QUEUE_LOCK.isHeldByCurrentThread();
+        return QUEUE_LOCK.isWriteLockedByCurrentThread()
+                || QUEUE_LOCK.getReadHoldCount() > 0;
     }
 
     public static void submitGradleTask(
@@ -122,8 +152,15 @@ public final class GradleDaemonManager {
                     progress.start(displayName);
                 }
 
+                Object lockKey = taskDef.getLockKey();
+
                 if (nonBlocking) {
-                    runNonBlockingGradleTask(cancelToken, task, progress.getCurrentHandle());
+                    if (lockKey != null) {
+                        runNonBlockingGradleTask(cancelToken, lockKey, task, progress.getCurrentHandle());
+                    }
+                    else {
+                        runNonBlockingGradleTask(cancelToken, task, progress.getCurrentHandle());
+                    }
                 }
                 else {
                     runBlockingGradleTask(cancelToken, task, progress.getCurrentHandle());
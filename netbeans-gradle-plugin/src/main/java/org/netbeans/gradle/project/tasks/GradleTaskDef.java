@@ -1,5 +1,6 @@
 package org.netbeans.gradle.project.tasks;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -49,6 +50,7 @@ public final class GradleTaskDef {
         private TaskVariableMap nonUserTaskVariables;
         private CommandExceptionHider commandExceptionHider;
         private CancellationToken cancelToken;
+        private File standardInputFile;
 
         private boolean cleanOutput;
         private boolean nonBlocking;
@@ -69,6 +71,7 @@ public final class GradleTaskDef {
             this.nonUserTaskVariables = taskDef.getNonUserTaskVariables();
             this.commandExceptionHider = taskDef.getCommandExceptionHider();
             this.cancelToken = taskDef.getCancelToken();
+            this.standardInputFile = taskDef.getStandardInputFile();
         }
 
         public Builder(TaskOutputDef outputDef, String taskName) {
@@ -97,6 +100,7 @@ public final class GradleTaskDef {
             this.nonUserTaskVariables = EmptyTaskVarMap.INSTANCE;
             this.commandExceptionHider = NoOpExceptionHider.INSTANCE;
             this.cancelToken = Cancellation.UNCANCELABLE_TOKEN;
+            this.standardInputFile = null;
 
             if (this.taskNames.isEmpty()) {
                 throw new IllegalArgumentException("At least one task is required.");
@@ -112,6 +116,14 @@ public final class GradleTaskDef {
             this.cancelToken = cancelToken;
         }
 
+        public File getStandardInputFile() {
+            return standardInputFile;
+        }
+
+        public void setStandardInputFile(File standardInputFile) {
+            this.standardInputFile = standardInputFile;
+        }
+
         public TaskVariableMap getNonUserTaskVariables() {
             return nonUserTaskVariables;
         }
@@ -288,6 +300,7 @@ public final class GradleTaskDef {
     private final boolean nonBlocking;
     private final boolean cleanOutput;
     private final CancellationToken cancelToken;
+    private final File standardInputFile;
 
     private GradleTaskDef(Builder builder) {
         this.commandName = builder.getCommandName();
@@ -305,12 +318,17 @@ public final class GradleTaskDef {
         this.nonUserTaskVariables = builder.getNonUserTaskVariables();
         this.commandExceptionHider = builder.getCommandExceptionHider();
         this.cancelToken = builder.getCancelToken();
+        this.standardInputFile = builder.getStandardInputFile();
     }
 
     public CancellationToken getCancelToken() {
         return cancelToken;
     }
 
+    public File getStandardInputFile() {
+        return standardInputFile;
+    }
+
     private static String[] stringListToArray(List<String> list) {
         return list.toArray(new String[list.size()]);
     }
@@ -550,6 +568,22 @@ public final class GradleTaskDef {
         builder.addArguments(processList(argumentList, varReplaceMap));
     }
 
+    private static File getStandardInputFile(
+            NbGradleProject project,
+            GradleCommandTemplate command,
+            TaskVariableMap varReplaceMap) {
+
+        String path = command.getStandardInputFile();
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+
+        File file = new File(StandardTaskVariable.replaceVars(path.trim(), varReplaceMap));
+        return file.isAbsolute()
+                ? file
+                : new File(project.getProjectDirectoryAsFile(), file.getPath());
+    }
+
     public static GradleTaskDef.Builder createFromTemplate(
             NbGradleProject project,
             GradleCommandTemplate command,
@@ -562,6 +596,10 @@ public final class GradleTaskDef {
         addAdditionalArguments(project, actionContext, customActions, varReplaceMap, builder);
 
         builder.setCancelToken(customActions.getCancelToken());
+        File standardInputFile = customActions.getStandardInputFile();
+        builder.setStandardInputFile(standardInputFile != null
+                ? standardInputFile
+                : getStandardInputFile(project, command, varReplaceMap));
         builder.setNonUserTaskVariables(varReplaceMap);
 
         builder.setStdOutListener(outputProcessor(
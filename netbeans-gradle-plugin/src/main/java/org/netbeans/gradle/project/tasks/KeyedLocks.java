@@ -0,0 +1,109 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.cancel.CancelableWaits;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a set of fair locks identified by arbitrary keys. Locks of
+ * different keys (according to {@code equals}) are independent of each
+ * other. A lock is only retained while there is a thread holding or waiting
+ * for it.
+ */
+final class KeyedLocks {
+    private final Lock mainLock;
+    private final Map<Object, KeyLock> locks;
+
+    public KeyedLocks() {
+        this.mainLock = new ReentrantLock();
+        this.locks = new HashMap<>();
+    }
+
+    private KeyLock retain(Object key) {
+        mainLock.lock();
+        try {
+            KeyLock result = locks.get(key);
+            if (result == null) {
+                result = new KeyLock(key);
+                locks.put(key, result);
+            }
+            result.useCount++;
+            return result;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void release(KeyLock keyLock) {
+        mainLock.lock();
+        try {
+            keyLock.useCount--;
+            if (keyLock.useCount <= 0) {
+                locks.remove(keyLock.key);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    int getRetainedLockCount() {
+        mainLock.lock();
+        try {
+            return locks.size();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the lock of the given key, waiting until it is released by
+     * other threads if necessary.
+     *
+     * @param cancelToken the cancellation token which might signal that
+     *   waiting for the lock should be abandoned. This argument cannot be
+     *   {@code null}.
+     * @param key the key of the lock to be acquired. This argument cannot be
+     *   {@code null}.
+     * @return the acquired lock to be passed to {@link #unlock(KeyLock) unlock}.
+     *   This method never returns {@code null}.
+     */
+    public KeyLock lock(CancellationToken cancelToken, Object key) {
+        ExceptionHelper.checkNotNullArgument(cancelToken, "cancelToken");
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        KeyLock result = retain(key);
+        try {
+            CancelableWaits.lock(cancelToken, result.lock);
+        } catch (Throwable ex) {
+            release(result);
+            throw ex;
+        }
+        return result;
+    }
+
+    public void unlock(KeyLock keyLock) {
+        ExceptionHelper.checkNotNullArgument(keyLock, "keyLock");
+
+        try {
+            keyLock.lock.unlock();
+        } finally {
+            release(keyLock);
+        }
+    }
+
+    public static final class KeyLock {
+        private final Object key;
+        private final ReentrantLock lock;
+        private int useCount;
+
+        private KeyLock(Object key) {
+            this.key = key;
+            this.lock = new ReentrantLock(true);
+            this.useCount = 0;
+        }
+    }
+}
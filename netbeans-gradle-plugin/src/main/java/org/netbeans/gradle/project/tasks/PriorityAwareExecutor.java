@@ -1,5 +1,9 @@
 package org.netbeans.gradle.project.tasks;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -15,26 +19,61 @@ import org.jtrim.event.ListenerRef;
 import org.jtrim.event.UnregisteredListenerRef;
 import org.jtrim.utils.ExceptionHelper;
 
+/**
+ * Defines an executor forwarding tasks to a wrapped executor in the order of
+ * their priority. The executor has a fixed number of priority lanes, lane
+ * zero having the highest priority. Whenever the wrapped executor is ready
+ * to execute a task, the oldest task of the highest priority non-empty lane
+ * is executed. That is, tasks of lower priority lanes are passed over as long
+ * as there is a task waiting in a higher priority lane. Tasks already
+ * running are never interrupted.
+ * <P>
+ * Tasks submitted to a {@link #newPromotableExecutor(int) promotable executor}
+ * can be moved to a higher priority lane while they are waiting.
+ * <P>
+ * The number of waiting tasks and the time the tasks spent waiting are
+ * tracked per lane and can be queried via {@link #getLaneStatistics(int)}.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads
+ * concurrently.
+ */
 public final class PriorityAwareExecutor {
+    private static final int HIGH_PRIORITY_LANE = 0;
+    private static final int LOW_PRIORITY_LANE = 1;
+
     private final TaskExecutor wrapped;
     private final TaskQueue taskQueue;
 
     public PriorityAwareExecutor(TaskExecutor wrapped) {
+        this(wrapped, 2);
+    }
+
+    /**
+     * Creates a new executor with the given number of priority lanes.
+     *
+     * @param wrapped the executor actually executing the submitted tasks.
+     *   This argument cannot be {@code null}.
+     * @param laneCount the number of priority lanes. This argument must be
+     *   greater than zero.
+     */
+    public PriorityAwareExecutor(TaskExecutor wrapped, int laneCount) {
         ExceptionHelper.checkNotNullArgument(wrapped, "wrapped");
+        ExceptionHelper.checkArgumentInRange(laneCount, 1, Integer.MAX_VALUE, "laneCount");
 
         this.wrapped = wrapped;
-        this.taskQueue = new TaskQueue();
+        this.taskQueue = new TaskQueue(laneCount);
     }
 
     private void executeForPriority(
             CancellationToken cancelToken,
-            Priority priority,
+            int lane,
+            PromotableExecutor promotableExecutor,
             CancelableTask task,
             CleanupTask cleanupTask) {
 
         TaskDef taskDef = new TaskDef(cancelToken, task, cleanupTask);
-        RefCollection.ElementRef<?> queueRef = taskQueue.addTask(priority, taskDef);
-        taskDef.init(queueRef);
+        taskQueue.addTask(lane, promotableExecutor, taskDef);
+        taskDef.init(taskQueue);
 
         final AtomicReference<TaskDef> taskDefRef = new AtomicReference<>(null);
         CancelableTask forwarderTask = new CancelableTask() {
@@ -67,101 +106,304 @@ public final class PriorityAwareExecutor {
         wrapped.execute(Cancellation.UNCANCELABLE_TOKEN, forwarderTask, forwarderCleanupTask);
     }
 
-    private TaskExecutor getExecutor(final Priority priority) {
+    public int getLaneCount() {
+        return taskQueue.getLaneCount();
+    }
+
+    /**
+     * Returns an executor submitting tasks to the given priority lane.
+     *
+     * @param lane the index of the priority lane. Lane zero has the highest
+     *   priority. This argument must be at least zero and less than
+     *   {@link #getLaneCount() the number of lanes}.
+     * @return an executor submitting tasks to the given priority lane.
+     *   This method never returns {@code null}.
+     */
+    public TaskExecutor getExecutor(final int lane) {
+        ExceptionHelper.checkArgumentInRange(lane, 0, getLaneCount() - 1, "lane");
+
         return new TaskExecutor() {
             @Override
             public void execute(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
-                executeForPriority(cancelToken, priority, task, cleanupTask);
+                executeForPriority(cancelToken, lane, null, task, cleanupTask);
             }
         };
     }
 
+    /**
+     * Returns a new executor initially submitting tasks to the given priority
+     * lane. The priority of the tasks submitted to the returned executor can
+     * be raised later via {@link PromotableExecutor#raisePriority(int)}.
+     *
+     * @param lane the index of the initial priority lane. Lane zero has the
+     *   highest priority. This argument must be at least zero and less than
+     *   {@link #getLaneCount() the number of lanes}.
+     * @return a new executor submitting tasks to the given priority lane
+     *   until its priority is raised. This method never returns {@code null}.
+     */
+    public PromotableExecutor newPromotableExecutor(int lane) {
+        ExceptionHelper.checkArgumentInRange(lane, 0, getLaneCount() - 1, "lane");
+        return new PromotableExecutor(lane);
+    }
+
     public TaskExecutor getHighPriorityExecutor() {
-        return getExecutor(Priority.HIGH);
+        return getExecutor(HIGH_PRIORITY_LANE);
     }
 
     public TaskExecutor getLowPriorityExecutor() {
-        return getExecutor(Priority.LOW);
+        return getExecutor(Math.min(LOW_PRIORITY_LANE, getLaneCount() - 1));
+    }
+
+    /**
+     * Defines an executor whose tasks can be moved to a higher priority lane
+     * while they are waiting to be executed. Tasks already started are not
+     * affected.
+     */
+    public final class PromotableExecutor implements TaskExecutor {
+        // The following fields are guarded by the lock of the task queue.
+        private int lane;
+        private final List<TaskDef> waitingTasks;
+
+        private PromotableExecutor(int lane) {
+            this.lane = lane;
+            this.waitingTasks = new ArrayList<>();
+        }
+
+        @Override
+        public void execute(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
+            executeForPriority(cancelToken, lane, this, task, cleanupTask);
+        }
+
+        /**
+         * Moves the waiting tasks of this executor and the tasks submitted
+         * later to the given lane if the given lane has a higher priority
+         * than the current lane of this executor. Otherwise, this method does
+         * nothing.
+         *
+         * @param lane the index of the requested priority lane. This argument
+         *   must be at least zero and less than
+         *   {@link #getLaneCount() the number of lanes}.
+         */
+        public void raisePriority(int lane) {
+            ExceptionHelper.checkArgumentInRange(lane, 0, getLaneCount() - 1, "lane");
+            taskQueue.raisePriority(this, lane);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the given priority lane.
+     */
+    public LaneStatistics getLaneStatistics(int lane) {
+        ExceptionHelper.checkArgumentInRange(lane, 0, getLaneCount() - 1, "lane");
+        return taskQueue.getStatistics(lane);
+    }
+
+    /**
+     * Defines the statistics of a priority lane at a particular point in time.
+     */
+    public static final class LaneStatistics {
+        private final int queueDepth;
+        private final long oldestWaitTimeMs;
+        private final long startedTaskCount;
+        private final long totalWaitTimeMs;
+        private final long maxWaitTimeMs;
+
+        public LaneStatistics(
+                int queueDepth,
+                long oldestWaitTimeMs,
+                long startedTaskCount,
+                long totalWaitTimeMs,
+                long maxWaitTimeMs) {
+            this.queueDepth = queueDepth;
+            this.oldestWaitTimeMs = oldestWaitTimeMs;
+            this.startedTaskCount = startedTaskCount;
+            this.totalWaitTimeMs = totalWaitTimeMs;
+            this.maxWaitTimeMs = maxWaitTimeMs;
+        }
+
+        /**
+         * Returns the number of tasks waiting in the lane. Canceled tasks
+         * might still be counted until they are removed by the executor.
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * Returns the time (in milliseconds) the oldest task of the lane has
+         * been waiting for or zero if there are no waiting tasks.
+         */
+        public long getOldestWaitTimeMs() {
+            return oldestWaitTimeMs;
+        }
+
+        /**
+         * Returns the number of tasks taken from the lane by the executor.
+         */
+        public long getStartedTaskCount() {
+            return startedTaskCount;
+        }
+
+        public long getTotalWaitTimeMs() {
+            return totalWaitTimeMs;
+        }
+
+        public long getMaxWaitTimeMs() {
+            return maxWaitTimeMs;
+        }
+
+        public long getAverageWaitTimeMs() {
+            return startedTaskCount > 0 ? totalWaitTimeMs / startedTaskCount : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneStatistics{" + "queueDepth=" + queueDepth
+                    + ", oldestWaitTimeMs=" + oldestWaitTimeMs
+                    + ", startedTaskCount=" + startedTaskCount
+                    + ", averageWaitTimeMs=" + getAverageWaitTimeMs()
+                    + ", maxWaitTimeMs=" + maxWaitTimeMs + '}';
+        }
+    }
+
+    private static final class Lane {
+        public final RefLinkedList<TaskDef> queue;
+        public long startedTaskCount;
+        public long totalWaitTimeNanos;
+        public long maxWaitTimeNanos;
+
+        public Lane() {
+            this.queue = new RefLinkedList<>();
+            this.startedTaskCount = 0;
+            this.totalWaitTimeNanos = 0;
+            this.maxWaitTimeNanos = 0;
+        }
+
+        public void taskStarted(TaskDef task, long currentTime) {
+            long waitTime = currentTime - task.getQueuedTime();
+            startedTaskCount++;
+            totalWaitTimeNanos += waitTime;
+            maxWaitTimeNanos = Math.max(maxWaitTimeNanos, waitTime);
+        }
     }
 
     private static final class TaskQueue {
         private final Lock queueLock;
-        // TODO: Allow arbitrary priority
-        private final RefLinkedList<TaskDef> queueHighPriority;
-        private final RefLinkedList<TaskDef> queueLowPriority;
+        private final Lane[] lanes;
 
-        public TaskQueue() {
+        public TaskQueue(int laneCount) {
             this.queueLock = new ReentrantLock();
-            this.queueLowPriority = new RefLinkedList<>();
-            this.queueHighPriority = new RefLinkedList<>();
+            this.lanes = new Lane[laneCount];
+            for (int i = 0; i < laneCount; i++) {
+                this.lanes[i] = new Lane();
+            }
         }
 
-        private RefLinkedList<TaskDef> getQueue(Priority priority) {
-            return priority == Priority.HIGH ? queueHighPriority : queueLowPriority;
+        public int getLaneCount() {
+            return lanes.length;
         }
 
-        private static <E> RefCollection.ElementRef<E> wrapLocked(final RefCollection.ElementRef<E> ref, final Lock lock) {
-            return new RefCollection.ElementRef<E>() {
-                @Override
-                public E setElement(E newElement) {
-                    throw new UnsupportedOperationException("Cannot update element");
+        public void addTask(int lane, PromotableExecutor promotableExecutor, TaskDef task) {
+            queueLock.lock();
+            try {
+                int actualLane = lane;
+                if (promotableExecutor != null) {
+                    actualLane = promotableExecutor.lane;
+                    removeStartedTasks(promotableExecutor.waitingTasks);
+                    promotableExecutor.waitingTasks.add(task);
                 }
+                enqueue(actualLane, task);
+            } finally {
+                queueLock.unlock();
+            }
+        }
 
-                @Override
-                public E getElement() {
-                    return ref.getElement();
-                }
+        private void enqueue(int lane, TaskDef task) {
+            assert ((ReentrantLock)queueLock).isHeldByCurrentThread();
 
-                @Override
-                public boolean isRemoved() {
-                    lock.lock();
-                    try {
-                        return ref.isRemoved();
-                    } finally {
-                        lock.unlock();
-                    }
-                }
+            task.lane = lane;
+            task.queueRef = lanes[lane].queue.addLastGetReference(task);
+        }
 
-                @Override
-                public void remove() {
-                    lock.lock();
-                    try {
-                        ref.remove();
-                    } finally {
-                        lock.unlock();
-                    }
+        public void removeTask(TaskDef task) {
+            queueLock.lock();
+            try {
+                if (task.queueRef != null) {
+                    task.queueRef.remove();
+                    task.queueRef = null;
                 }
-            };
+            } finally {
+                queueLock.unlock();
+            }
         }
 
-        public RefCollection.ElementRef<?> addTask(Priority priority, TaskDef task) {
-            RefLinkedList<TaskDef> queue = getQueue(priority);
+        private static void removeStartedTasks(List<TaskDef> tasks) {
+            Iterator<TaskDef> taskItr = tasks.iterator();
+            while (taskItr.hasNext()) {
+                if (taskItr.next().queueRef == null) {
+                    taskItr.remove();
+                }
+            }
+        }
 
+        public void raisePriority(PromotableExecutor promotableExecutor, int lane) {
             queueLock.lock();
             try {
-                return wrapLocked(queue.addLastGetReference(task), queueLock);
+                if (lane >= promotableExecutor.lane) {
+                    return;
+                }
+                promotableExecutor.lane = lane;
+
+                removeStartedTasks(promotableExecutor.waitingTasks);
+                for (TaskDef task: promotableExecutor.waitingTasks) {
+                    if (task.lane > lane) {
+                        task.queueRef.remove();
+                        enqueue(lane, task);
+                    }
+                }
             } finally {
                 queueLock.unlock();
             }
         }
 
         public TaskDef pollTask() {
+            long currentTime = System.nanoTime();
+
             queueLock.lock();
             try {
-                TaskDef result = queueHighPriority.poll();
-                if (result == null) {
-                    result = queueLowPriority.poll();
+                for (Lane lane: lanes) {
+                    TaskDef result = lane.queue.poll();
+                    if (result != null) {
+                        result.queueRef = null;
+                        lane.taskStarted(result, currentTime);
+                        return result;
+                    }
                 }
-                return result;
+                return null;
             } finally {
                 queueLock.unlock();
             }
         }
-    }
 
-    private enum Priority {
-        HIGH,
-        LOW
+        public LaneStatistics getStatistics(int laneIndex) {
+            long currentTime = System.nanoTime();
+
+            queueLock.lock();
+            try {
+                Lane lane = lanes[laneIndex];
+                TaskDef oldest = lane.queue.peek();
+                long oldestWaitTime = oldest != null ? currentTime - oldest.getQueuedTime() : 0;
+
+                return new LaneStatistics(
+                        lane.queue.size(),
+                        TimeUnit.NANOSECONDS.toMillis(oldestWaitTime),
+                        lane.startedTaskCount,
+                        TimeUnit.NANOSECONDS.toMillis(lane.totalWaitTimeNanos),
+                        TimeUnit.NANOSECONDS.toMillis(lane.maxWaitTimeNanos));
+            } finally {
+                queueLock.unlock();
+            }
+        }
     }
 
     private static final class TaskDef {
@@ -169,18 +411,28 @@ public final class PriorityAwareExecutor {
         private volatile CancelableTask task;
         private volatile boolean skippedExecute;
         private final CleanupTask cleanupTask;
+        private final long queuedTime;
 
         private final AtomicReference<ListenerRef> cancelRef;
 
+        // The following fields are guarded by the lock of the task queue.
+        private int lane;
+        private RefCollection.ElementRef<TaskDef> queueRef;
+
         public TaskDef(CancellationToken cancelToken, CancelableTask task, CleanupTask cleanupTask) {
             this.cancelToken = cancelToken;
             this.task = task;
             this.cleanupTask = cleanupTask;
+            this.queuedTime = System.nanoTime();
             this.cancelRef = new AtomicReference<>(null);
             this.skippedExecute = false;
         }
 
-        public void init(final RefCollection.ElementRef<?> queueRef) {
+        public long getQueuedTime() {
+            return queuedTime;
+        }
+
+        public void init(final TaskQueue taskQueue) {
             final InitLaterListenerRef cancelRefRef = new InitLaterListenerRef();
 
             cancelRefRef.init(cancelToken.addCancellationListener(new Runnable() {
@@ -189,7 +441,7 @@ public final class PriorityAwareExecutor {
                     removeTask();
 
                     if (cleanupTask == null) {
-                        queueRef.remove();
+                        taskQueue.removeTask(TaskDef.this);
                     }
 
                     cancelRefRef.unregister();
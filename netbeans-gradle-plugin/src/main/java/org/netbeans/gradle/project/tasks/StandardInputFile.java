@@ -0,0 +1,37 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import org.gradle.tooling.BuildLauncher;
+import org.jtrim.utils.ExceptionHelper;
+
+final class StandardInputFile {
+    /**
+     * Sets the content of the given file as the standard input of the build.
+     * The returned stream must be closed by the caller after the build
+     * completes.
+     */
+    public static InputStream setStandardInput(BuildLauncher buildLauncher, File file) throws IOException {
+        ExceptionHelper.checkNotNullArgument(buildLauncher, "buildLauncher");
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        // The channel reads directly into the buffer of Gradle, so large
+        // inputs do not have to go through the output window.
+        InputStream input = Channels.newInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        try {
+            buildLauncher.setStandardInput(input);
+        } catch (Throwable ex) {
+            input.close();
+            throw ex;
+        }
+        return input;
+    }
+
+    private StandardInputFile() {
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,396 @@
+package org.netbeans.gradle.project.util;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a set of Ant style patterns (e.g.: "**&#47;test/*.java") compiled
+ * into a list of segment matchers. The compiled form matches relative paths
+ * segment by segment, without having to create a {@code java.nio.file.Path}
+ * or a regular expression for the tested file.
+ * <P>
+ * Patterns not understood by the segment matcher (e.g.: patterns containing
+ * glob specific syntax like "{a,b}") are matched by a {@code PathMatcher}
+ * compiled once at construction time.
+ * <P>
+ * Instances of this class are immutable and safe to be shared by multiple
+ * threads concurrently.
+ */
+public final class AntPatternMatcher {
+    private static final boolean DEFAULT_CASE_SENSITIVE = File.separatorChar != '\\';
+
+    private static final AntPatternMatcher EMPTY = new AntPatternMatcher(new CompiledPattern[0]);
+
+    private final CompiledPattern[] patterns;
+
+    private AntPatternMatcher(CompiledPattern[] patterns) {
+        this.patterns = patterns;
+    }
+
+    public static AntPatternMatcher compile(Collection<String> patterns) {
+        ExceptionHelper.checkNotNullElements(patterns, "patterns");
+
+        if (patterns.isEmpty()) {
+            return EMPTY;
+        }
+
+        CompiledPattern[] compiled = new CompiledPattern[patterns.size()];
+        int index = 0;
+        for (String pattern: patterns) {
+            compiled[index] = compilePattern(pattern);
+            index++;
+        }
+        return new AntPatternMatcher(compiled);
+    }
+
+    public boolean isEmpty() {
+        return patterns.length == 0;
+    }
+
+    public boolean matchesAny(SegmentedPath path) {
+        ExceptionHelper.checkNotNullArgument(path, "path");
+
+        for (CompiledPattern pattern: patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CompiledPattern compilePattern(String pattern) {
+        String normPattern = pattern.replace("\\\\", "/");
+
+        String normedDirMatches = normPattern;
+        if (normedDirMatches.startsWith("/")) {
+            normedDirMatches = normedDirMatches.substring(1);
+        }
+        if (normPattern.endsWith("/")) {
+            normedDirMatches = normedDirMatches + "**";
+        }
+
+        List<String> segments = splitSegments(normedDirMatches);
+        for (String segment: segments) {
+            if (!isSimpleSegment(segment)) {
+                return new GlobPattern(pattern);
+            }
+        }
+
+        return new SegmentPattern(toSegmentMatchers(segments));
+    }
+
+    private static List<String> splitSegments(String pattern) {
+        List<String> result = new ArrayList<>();
+        int segmentStart = 0;
+        int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            if (pattern.charAt(i) == '/') {
+                result.add(pattern.substring(segmentStart, i));
+                segmentStart = i + 1;
+            }
+        }
+        result.add(pattern.substring(segmentStart, length));
+        return result;
+    }
+
+    private static boolean isSimpleSegment(String segment) {
+        if ("**".equals(segment)) {
+            return true;
+        }
+
+        if (segment.contains("**")) {
+            // Within a segment "**" would also match separators, so we let
+            // the glob matcher deal with this rare case.
+            return false;
+        }
+
+        int length = segment.length();
+        for (int i = 0; i < length; i++) {
+            switch (segment.charAt(i)) {
+                case '{':
+                case '}':
+                case '[':
+                case ']':
+                case '\\':
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static SegmentMatcher[] toSegmentMatchers(List<String> segments) {
+        int segmentCount = segments.size();
+        List<SegmentMatcher> result = new ArrayList<>(segmentCount + 1);
+
+        for (int i = 0; i < segmentCount; i++) {
+            String segment = segments.get(i);
+            if ("**".equals(segment)) {
+                if (i == segmentCount - 1 && segmentCount > 1) {
+                    // A trailing "/**" requires at least one more path element,
+                    // just like the glob "dir/**" does.
+                    result.add(SegmentMatcher.ANY_SEGMENT);
+                }
+                result.add(SegmentMatcher.ANY_SEGMENTS);
+            }
+            else {
+                result.add(new SegmentMatcher(segment));
+            }
+        }
+
+        return result.toArray(new SegmentMatcher[result.size()]);
+    }
+
+    private static String toGlobPattern(String pattern) {
+        String normPattern = pattern.replace("\\\\", "/");
+
+        // 7 = "glob:".length() + "**".length()
+        StringBuilder result = new StringBuilder(pattern.length() + 7);
+        result.append("glob:");
+
+        String normedDirMatches = normPattern;
+        if (normedDirMatches.startsWith("/")) {
+            normedDirMatches = normedDirMatches.substring(1);
+        }
+
+        normedDirMatches = normedDirMatches.replace("/**/", "{/**/,/}");
+        if (normedDirMatches.startsWith("**/")) {
+            normedDirMatches = "{**/,}" + normedDirMatches.substring(3);
+        }
+
+        result.append(normedDirMatches);
+        if (normPattern.endsWith("/")) {
+            result.append("**");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Defines a relative path split into its elements. The elements are
+     * stored as offsets into the original path string, so creating this
+     * object does not require copying the path.
+     */
+    public static final class SegmentedPath {
+        private final String path;
+        private final int offset;
+        private final char separator;
+        private final int[] segmentBounds;
+        private final int segmentCount;
+
+        private SegmentedPath(String path, int offset, char separator) {
+            this.path = path;
+            this.offset = offset;
+            this.separator = separator;
+
+            int length = path.length();
+            int count = 1;
+            for (int i = offset; i < length; i++) {
+                if (path.charAt(i) == separator) {
+                    count++;
+                }
+            }
+
+            int[] bounds = new int[2 * count];
+            int segmentIndex = 0;
+            int segmentStart = offset;
+            for (int i = offset; i < length; i++) {
+                if (path.charAt(i) == separator) {
+                    bounds[2 * segmentIndex] = segmentStart;
+                    bounds[2 * segmentIndex + 1] = i;
+                    segmentIndex++;
+                    segmentStart = i + 1;
+                }
+            }
+            bounds[2 * segmentIndex] = segmentStart;
+            bounds[2 * segmentIndex + 1] = length;
+
+            this.segmentBounds = bounds;
+            this.segmentCount = count;
+        }
+
+        /**
+         * Creates a path from the part of the given string starting at the
+         * given offset. The empty string (i.e., {@code offset == path.length()})
+         * is considered to be a path with a single empty element, just as
+         * the root relative to itself.
+         */
+        public static SegmentedPath create(String path, int offset, char separator) {
+            ExceptionHelper.checkNotNullArgument(path, "path");
+            ExceptionHelper.checkArgumentInRange(offset, 0, path.length(), "offset");
+
+            return new SegmentedPath(path, offset, separator);
+        }
+
+        public int getSegmentCount() {
+            return segmentCount;
+        }
+
+        private int getSegmentStart(int index) {
+            return segmentBounds[2 * index];
+        }
+
+        private int getSegmentEnd(int index) {
+            return segmentBounds[2 * index + 1];
+        }
+
+        private java.nio.file.Path toNioPath() {
+            String relPath = path.substring(offset);
+            if (separator != File.separatorChar) {
+                relPath = relPath.replace(separator, File.separatorChar);
+            }
+            return Paths.get(relPath);
+        }
+
+        @Override
+        public String toString() {
+            return path.substring(offset);
+        }
+    }
+
+    private interface CompiledPattern {
+        public boolean matches(SegmentedPath path);
+    }
+
+    private static final class GlobPattern implements CompiledPattern {
+        private final PathMatcher matcher;
+
+        public GlobPattern(String pattern) {
+            this.matcher = FileSystems.getDefault().getPathMatcher(toGlobPattern(pattern));
+        }
+
+        @Override
+        public boolean matches(SegmentedPath path) {
+            return matcher.matches(path.toNioPath());
+        }
+    }
+
+    private static final class SegmentPattern implements CompiledPattern {
+        private final SegmentMatcher[] segments;
+
+        public SegmentPattern(SegmentMatcher[] segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean matches(SegmentedPath path) {
+            int pathCount = path.getSegmentCount();
+            int patternCount = segments.length;
+
+            int pathIndex = 0;
+            int patternIndex = 0;
+            int anyPatternIndex = -1;
+            int anyPathIndex = -1;
+
+            while (pathIndex < pathCount) {
+                SegmentMatcher segment = patternIndex < patternCount ? segments[patternIndex] : null;
+                if (segment != null && segment.isAnySegments()) {
+                    anyPatternIndex = patternIndex;
+                    anyPathIndex = pathIndex;
+                    patternIndex++;
+                }
+                else if (segment != null && segment.matches(path, pathIndex)) {
+                    patternIndex++;
+                    pathIndex++;
+                }
+                else if (anyPatternIndex >= 0) {
+                    anyPathIndex++;
+                    patternIndex = anyPatternIndex + 1;
+                    pathIndex = anyPathIndex;
+                }
+                else {
+                    return false;
+                }
+            }
+
+            while (patternIndex < patternCount && segments[patternIndex].isAnySegments()) {
+                patternIndex++;
+            }
+            return patternIndex == patternCount;
+        }
+    }
+
+    private static final class SegmentMatcher {
+        public static final SegmentMatcher ANY_SEGMENTS = new SegmentMatcher(null);
+        public static final SegmentMatcher ANY_SEGMENT = new SegmentMatcher("*");
+
+        private final String pattern;
+        private final boolean literal;
+
+        public SegmentMatcher(String pattern) {
+            this.pattern = pattern;
+            this.literal = pattern != null
+                    && pattern.indexOf('*') < 0
+                    && pattern.indexOf('?') < 0;
+        }
+
+        public boolean isAnySegments() {
+            return pattern == null;
+        }
+
+        public boolean matches(SegmentedPath path, int segmentIndex) {
+            String str = path.path;
+            int start = path.getSegmentStart(segmentIndex);
+            int end = path.getSegmentEnd(segmentIndex);
+
+            if (literal) {
+                int length = end - start;
+                return length == pattern.length()
+                        && str.regionMatches(!DEFAULT_CASE_SENSITIVE, start, pattern, 0, length);
+            }
+
+            return wildcardMatches(str, start, end);
+        }
+
+        private boolean wildcardMatches(String str, int start, int end) {
+            int patternLength = pattern.length();
+
+            int strIndex = start;
+            int patternIndex = 0;
+            int starPatternIndex = -1;
+            int starStrIndex = -1;
+
+            while (strIndex < end) {
+                char patternCh = patternIndex < patternLength ? pattern.charAt(patternIndex) : 0;
+                if (patternIndex < patternLength && patternCh == '*') {
+                    starPatternIndex = patternIndex;
+                    starStrIndex = strIndex;
+                    patternIndex++;
+                }
+                else if (patternIndex < patternLength
+                        && (patternCh == '?' || charEquals(patternCh, str.charAt(strIndex)))) {
+                    patternIndex++;
+                    strIndex++;
+                }
+                else if (starPatternIndex >= 0) {
+                    starStrIndex++;
+                    patternIndex = starPatternIndex + 1;
+                    strIndex = starStrIndex;
+                }
+                else {
+                    return false;
+                }
+            }
+
+            while (patternIndex < patternLength && pattern.charAt(patternIndex) == '*') {
+                patternIndex++;
+            }
+            return patternIndex == patternLength;
+        }
+
+        private static boolean charEquals(char ch1, char ch2) {
+            if (ch1 == ch2) {
+                return true;
+            }
+            if (DEFAULT_CASE_SENSITIVE) {
+                return false;
+            }
+            return Character.toUpperCase(ch1) == Character.toUpperCase(ch2)
+                    || Character.toLowerCase(ch1) == Character.toLowerCase(ch2);
+        }
+    }
+}
@@ -1,75 +1,48 @@
 package org.netbeans.gradle.project.util;
 
-import java.nio.file.FileSystem;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+import org.netbeans.gradle.project.properties.WeakValueHashMap;
 
 public final class ExcludeInclude {
+    private static final Lock MATCHERS_LOCK = new ReentrantLock();
+    private static final WeakValueHashMap<SourceIncludePatterns, ExcludeIncludeMatcher> MATCHERS
+            = new WeakValueHashMap<>();
+
     public static boolean includeFile(
             Path file,
             Path rootPath,
             Collection<String> excludePatterns,
             Collection<String> includePatterns) {
 
-        Path absoluteRoot = rootPath.toAbsolutePath();
-        Path testedPath = file.toAbsolutePath();
-
-        if (!testedPath.startsWith(absoluteRoot)) {
-            return false;
-        }
-
-        Path relTestedPath = absoluteRoot.relativize(testedPath);
-
-        if (!includePatterns.isEmpty()) {
-            if (!matchesAnyAntPattern(relTestedPath, includePatterns)) {
-                return false;
-            }
-        }
-
-        return !matchesAnyAntPattern(relTestedPath, excludePatterns);
+        SourceIncludePatterns patterns = SourceIncludePatterns.create(excludePatterns, includePatterns);
+        return getMatcher(patterns).includeFile(file, rootPath);
     }
 
-    private static boolean matchesAnyAntPattern(
-            Path path,
-            Collection<String> patterns) {
-
-        for (String pattern: patterns) {
-            if (matchesAntPattern(path, pattern)) {
-                return true;
+    /**
+     * Returns the compiled form of the given patterns. Matchers are cached
+     * as long as they are referenced, so equivalent pattern sets (which are
+     * quite common among the source groups of a multi-project build) are
+     * only compiled once.
+     */
+    public static ExcludeIncludeMatcher getMatcher(SourceIncludePatterns patterns) {
+        ExceptionHelper.checkNotNullArgument(patterns, "patterns");
+
+        MATCHERS_LOCK.lock();
+        try {
+            ExcludeIncludeMatcher result = MATCHERS.get(patterns);
+            if (result == null) {
+                result = ExcludeIncludeMatcher.compile(patterns);
+                MATCHERS.put(patterns, result);
             }
+            return result;
+        } finally {
+            MATCHERS_LOCK.unlock();
         }
-        return false;
-    }
-
-    private static boolean matchesAntPattern(Path path, String pattern) {
-        FileSystem fileSystem = path.getFileSystem();
-        PathMatcher matcher = fileSystem.getPathMatcher(toMatchStr(pattern));
-        return matcher.matches(path);
-    }
-
-    private static String toMatchStr(String pattern) {
-        String normPattern = pattern.replace("\\\\", "/");
-
-        // 7 = "glob:".length() + "**".length()
-        StringBuilder result = new StringBuilder(pattern.length() + 7);
-        result.append("glob:");
-
-        String normedDirMatches = normPattern;
-        if (normedDirMatches.startsWith("/")) {
-            normedDirMatches = normedDirMatches.substring(1);
-        }
-
-        normedDirMatches = normedDirMatches.replace("/**/", "{/**/,/}");
-        if (normedDirMatches.startsWith("**/")) {
-            normedDirMatches = "{**/,}" + normedDirMatches.substring(3);
-        }
-
-        result.append(normedDirMatches);
-        if (normPattern.endsWith("/")) {
-            result.append("**");
-        }
-        return result.toString();
     }
 
     private ExcludeInclude() {
@@ -0,0 +1,90 @@
+package org.netbeans.gradle.project.util;
+
+import java.nio.file.Path;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+
+/**
+ * Defines the compiled form of a {@link SourceIncludePatterns}. The patterns
+ * are only parsed once when creating an instance of this class, so
+ * testing a file only needs to walk the elements of its relative path.
+ * <P>
+ * Instances of this class are immutable and safe to be shared by multiple
+ * threads concurrently.
+ *
+ * @see ExcludeInclude#getMatcher(SourceIncludePatterns)
+ */
+public final class ExcludeIncludeMatcher {
+    private final AntPatternMatcher excludePatterns;
+    private final AntPatternMatcher includePatterns;
+
+    private ExcludeIncludeMatcher(AntPatternMatcher excludePatterns, AntPatternMatcher includePatterns) {
+        this.excludePatterns = excludePatterns;
+        this.includePatterns = includePatterns;
+    }
+
+    public static ExcludeIncludeMatcher compile(SourceIncludePatterns patterns) {
+        ExceptionHelper.checkNotNullArgument(patterns, "patterns");
+
+        return new ExcludeIncludeMatcher(
+                AntPatternMatcher.compile(patterns.getExcludePatterns()),
+                AntPatternMatcher.compile(patterns.getIncludePatterns()));
+    }
+
+    public boolean isAllowAll() {
+        return excludePatterns.isEmpty() && includePatterns.isEmpty();
+    }
+
+    public boolean includeFile(Path file, Path rootPath) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+        ExceptionHelper.checkNotNullArgument(rootPath, "rootPath");
+
+        Path absoluteRoot = rootPath.toAbsolutePath();
+        Path testedPath = file.toAbsolutePath();
+
+        char separator = absoluteRoot.getFileSystem().getSeparator().charAt(0);
+        String testedPathStr = testedPath.toString();
+
+        int relPathStart = getRelativePathStart(absoluteRoot.toString(), testedPathStr, separator);
+        if (relPathStart < 0) {
+            return false;
+        }
+
+        if (isAllowAll()) {
+            return true;
+        }
+
+        return includeRelativePath(AntPatternMatcher.SegmentedPath.create(testedPathStr, relPathStart, separator));
+    }
+
+    public boolean includeRelativePath(AntPatternMatcher.SegmentedPath relPath) {
+        ExceptionHelper.checkNotNullArgument(relPath, "relPath");
+
+        if (!includePatterns.isEmpty()) {
+            if (!includePatterns.matchesAny(relPath)) {
+                return false;
+            }
+        }
+
+        return !excludePatterns.matchesAny(relPath);
+    }
+
+    private static int getRelativePathStart(String root, String path, char separator) {
+        boolean ignoreCase = separator == '\\';
+
+        int rootLength = root.length();
+        if (!path.regionMatches(ignoreCase, 0, root, 0, rootLength)) {
+            return -1;
+        }
+
+        if (path.length() == rootLength) {
+            return rootLength;
+        }
+
+        if (rootLength > 0 && root.charAt(rootLength - 1) == separator) {
+            return rootLength;
+        }
+
+        return path.charAt(rootLength) == separator ? rootLength + 1 : -1;
+    }
+}
@@ -19,10 +19,12 @@ public final class ExcludeIncludeRules implements Serializable {
             SourceIncludePatterns.ALLOW_ALL);
 
     private final SourceIncludePatterns sourceIncludePatterns;
+    private final transient ExcludeIncludeMatcher matcher;
 
     private ExcludeIncludeRules(SourceIncludePatterns sourceIncludePatterns) {
         ExceptionHelper.checkNotNullArgument(sourceIncludePatterns, "sourceIncludePatterns");
         this.sourceIncludePatterns = sourceIncludePatterns;
+        this.matcher = ExcludeInclude.getMatcher(sourceIncludePatterns);
     }
 
     public static ExcludeIncludeRules create(SourceIncludePatterns sourceIncludePatterns) {
@@ -76,11 +78,7 @@ public final class ExcludeIncludeRules implements Serializable {
             return true;
         }
 
-        return ExcludeInclude.includeFile(
-                file,
-                rootPath,
-                sourceIncludePatterns.getExcludePatterns(),
-                sourceIncludePatterns.getIncludePatterns());
+        return matcher.includeFile(file, rootPath);
     }
 
     @Override
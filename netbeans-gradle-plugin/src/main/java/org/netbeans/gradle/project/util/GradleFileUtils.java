@@ -101,6 +101,28 @@ public final class GradleFileUtils {
         return binFileName + JAVADOC_CLASSIFIER + "." + binFileExt;
     }
 
+    private static String withClassifier(File binaryPath, String classifier) {
+        // Same as the FileObject based variant: The extension is after the
+        // last dot.
+        String binFileNameExt = binaryPath.getName();
+        int extSeparatorIndex = binFileNameExt.lastIndexOf('.');
+        String binFileName = extSeparatorIndex >= 0
+                ? binFileNameExt.substring(0, extSeparatorIndex)
+                : binFileNameExt;
+        String binFileExt = extSeparatorIndex >= 0
+                ? binFileNameExt.substring(extSeparatorIndex + 1)
+                : "";
+        return binFileName + classifier + "." + binFileExt;
+    }
+
+    public static String binaryToSourceName(File binaryPath) {
+        return withClassifier(binaryPath, SOURCES_CLASSIFIER);
+    }
+
+    public static String binaryToJavadocName(File binaryPath) {
+        return withClassifier(binaryPath, JAVADOC_CLASSIFIER);
+    }
+
     public static String sourceToBinaryName(FileObject sourcePath) {
         String srcFileName = sourcePath.getName();
         if (!srcFileName.endsWith(SOURCES_CLASSIFIER)) {
@@ -0,0 +1,182 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Collects the change notifications (class paths, source roots, source
+ * levels, etc.) of the projects while a batch is open, and publishes them at
+ * once when the last batch is closed. Reloading a multi-project build
+ * replaces the models of the projects one by one, so without batching,
+ * NetBeans would have to process the changes of each project separately.
+ * <P>
+ * Notifications are always run on the Event Dispatch Thread. A notification
+ * submitted multiple times during a batch is only run once.
+ * <P>
+ * The methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+public final class ProjectChangeCoordinator {
+    private static final Logger LOGGER = Logger.getLogger(ProjectChangeCoordinator.class.getName());
+
+    private static final ProjectChangeCoordinator DEFAULT = new ProjectChangeCoordinator();
+
+    private final Lock mainLock;
+    private int openBatchCount;
+    private Set<Runnable> pendingNotifications;
+
+    public ProjectChangeCoordinator() {
+        this.mainLock = new ReentrantLock();
+        this.openBatchCount = 0;
+        this.pendingNotifications = new LinkedHashSet<>();
+    }
+
+    public static ProjectChangeCoordinator getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Opens a new batch. Notifications submitted before the returned
+     * reference (and all other batches) are closed, are only run after the
+     * batches were closed.
+     *
+     * @return the reference to be closed after the changes of the batch were
+     *   all submitted. This method never returns {@code null}.
+     */
+    public CloseableAction.Ref startBatch() {
+        mainLock.lock();
+        try {
+            openBatchCount++;
+        } finally {
+            mainLock.unlock();
+        }
+
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        return new CloseableAction.Ref() {
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    endBatch();
+                }
+            }
+        };
+    }
+
+    private void endBatch() {
+        Set<Runnable> notifications;
+        mainLock.lock();
+        try {
+            openBatchCount--;
+            if (openBatchCount > 0 || pendingNotifications.isEmpty()) {
+                return;
+            }
+
+            notifications = pendingNotifications;
+            pendingNotifications = new LinkedHashSet<>();
+        } finally {
+            mainLock.unlock();
+        }
+
+        publish(new ArrayList<>(notifications));
+    }
+
+    /**
+     * Runs the given notification on the Event Dispatch Thread after all the
+     * currently open batches were closed. If there is no open batch, the
+     * notification is run as soon as possible.
+     *
+     * @param notification the notification to be run. This argument cannot
+     *   be {@code null}.
+     */
+    public void fireEventually(Runnable notification) {
+        ExceptionHelper.checkNotNullArgument(notification, "notification");
+
+        mainLock.lock();
+        try {
+            if (openBatchCount > 0) {
+                pendingNotifications.add(notification);
+                return;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        SwingUtilities.invokeLater(notification);
+    }
+
+    private static void publish(final List<Runnable> notifications) {
+        LOGGER.log(Level.FINE, "Publishing {0} batched project changes.", notifications.size());
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                for (Runnable notification: notifications) {
+                    try {
+                        notification.run();
+                    } catch (Throwable ex) {
+                        LOGGER.log(Level.SEVERE, "Unexpected failure while notifying project changes.", ex);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Defines a batch kept open while an asynchronous update is pending. This
+     * allows the changes found by updates started during a batch to be
+     * published with the changes of the batch.
+     * <P>
+     * The update is expected to be executed by an executor which might skip
+     * a submitted task if a later submitted task replaces it (like an
+     * {@code UpdateTaskExecutor}), but always executes the last submitted
+     * task.
+     */
+    public static final class PendingUpdate {
+        private final ProjectChangeCoordinator coordinator;
+        private final AtomicReference<CloseableAction.Ref> batchRef;
+
+        public PendingUpdate(ProjectChangeCoordinator coordinator) {
+            ExceptionHelper.checkNotNullArgument(coordinator, "coordinator");
+
+            this.coordinator = coordinator;
+            this.batchRef = new AtomicReference<>(null);
+        }
+
+        /**
+         * Must be called before submitting the update task.
+         */
+        public void updateScheduled() {
+            if (batchRef.get() != null) {
+                return;
+            }
+
+            CloseableAction.Ref newRef = coordinator.startBatch();
+            if (!batchRef.compareAndSet(null, newRef)) {
+                newRef.close();
+            }
+        }
+
+        /**
+         * Must be called by the update task when it starts. The returned
+         * reference must be closed after the update task has submitted its
+         * notifications.
+         *
+         * @return the reference to be closed after the update completed.
+         *   This method never returns {@code null}.
+         */
+        public CloseableAction.Ref updateStarted() {
+            CloseableAction.Ref result = batchRef.getAndSet(null);
+            return result != null ? result : CloseableAction.CLOSED_REF;
+        }
+    }
+}
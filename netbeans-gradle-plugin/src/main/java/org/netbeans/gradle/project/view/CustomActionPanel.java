@@ -77,6 +77,9 @@ public class CustomActionPanel extends javax.swing.JPanel {
             jvmArguments.append('\n');
         }
         jJvmArgsTextArea.setText(jvmArguments.toString());
+
+        String stdInFile = task.getStandardInputFile();
+        jStdInFileEdit.setText(stdInFile != null ? stdInFile : "");
         jNonBlockingCheck.setSelected(task.isNonBlocking());
         jMustExistCheck.setSelected(mustExist);
     }
@@ -94,6 +97,7 @@ public class CustomActionPanel extends javax.swing.JPanel {
         builder.setArguments(getArguments());
         builder.setJvmArguments(getJvmArguments());
         builder.setBlocking(!isNonBlocking());
+        builder.setStandardInputFile(getStandardInputFile());
         return builder.create();
     }
 
@@ -192,7 +196,8 @@ public class CustomActionPanel extends javax.swing.JPanel {
                 names,
                 getArguments(),
                 getJvmArguments(),
-                isNonBlocking());
+                isNonBlocking(),
+                getStandardInputFile());
     }
 
     private List<String> getTasks() {
@@ -222,6 +227,16 @@ public class CustomActionPanel extends javax.swing.JPanel {
         return splitLinesIgnoreVars(text);
     }
 
+    private String getStandardInputFile() {
+        String text = jStdInFileEdit.getText();
+        if (text == null) {
+            return null;
+        }
+
+        text = text.trim();
+        return text.isEmpty() ? null : text;
+    }
+
     public boolean isNonBlocking() {
         return jNonBlockingCheck.isSelected();
     }
@@ -260,6 +275,8 @@ public class CustomActionPanel extends javax.swing.JPanel {
         jJvmArgsCaption = new javax.swing.JLabel();
         jScrollPane2 = new javax.swing.JScrollPane();
         jJvmArgsTextArea = new javax.swing.JTextArea();
+        jStdInFileCaption = new javax.swing.JLabel();
+        jStdInFileEdit = new javax.swing.JTextField();
         jNonBlockingCheck = new javax.swing.JCheckBox();
         jMustExistCheck = new javax.swing.JCheckBox();
 
@@ -289,6 +306,10 @@ public class CustomActionPanel extends javax.swing.JPanel {
         });
         jScrollPane2.setViewportView(jJvmArgsTextArea);
 
+        org.openide.awt.Mnemonics.setLocalizedText(jStdInFileCaption, org.openide.util.NbBundle.getMessage(CustomActionPanel.class, "CustomActionPanel.jStdInFileCaption.text")); // NOI18N
+
+        jStdInFileEdit.setText(org.openide.util.NbBundle.getMessage(CustomActionPanel.class, "CustomActionPanel.jStdInFileEdit.text")); // NOI18N
+
         org.openide.awt.Mnemonics.setLocalizedText(jNonBlockingCheck, org.openide.util.NbBundle.getMessage(CustomActionPanel.class, "CustomActionPanel.jNonBlockingCheck.text")); // NOI18N
 
         org.openide.awt.Mnemonics.setLocalizedText(jMustExistCheck, org.openide.util.NbBundle.getMessage(CustomActionPanel.class, "CustomActionPanel.jMustExistCheck.text")); // NOI18N
@@ -303,6 +324,7 @@ public class CustomActionPanel extends javax.swing.JPanel {
                     .addComponent(jScrollPane2, javax.swing.GroupLayout.Alignment.TRAILING, javax.swing.GroupLayout.DEFAULT_SIZE, 469, Short.MAX_VALUE)
                     .addComponent(jScrollPane1, javax.swing.GroupLayout.Alignment.TRAILING)
                     .addComponent(jTasksEdit)
+                    .addComponent(jStdInFileEdit)
                     .addGroup(layout.createSequentialGroup()
                         .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                             .addGroup(layout.createSequentialGroup()
@@ -311,7 +333,8 @@ public class CustomActionPanel extends javax.swing.JPanel {
                                 .addComponent(jMustExistCheck))
                             .addComponent(jTasksCaption)
                             .addComponent(jArgsCaption)
-                            .addComponent(jJvmArgsCaption))
+                            .addComponent(jJvmArgsCaption)
+                            .addComponent(jStdInFileCaption))
                         .addGap(0, 0, Short.MAX_VALUE)))
                 .addContainerGap())
         );
@@ -331,6 +354,10 @@ public class CustomActionPanel extends javax.swing.JPanel {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jScrollPane2, javax.swing.GroupLayout.DEFAULT_SIZE, 133, Short.MAX_VALUE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jStdInFileCaption)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jStdInFileEdit, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(jNonBlockingCheck)
                     .addComponent(jMustExistCheck))
@@ -355,6 +382,8 @@ public class CustomActionPanel extends javax.swing.JPanel {
     private javax.swing.JCheckBox jNonBlockingCheck;
     private javax.swing.JScrollPane jScrollPane1;
     private javax.swing.JScrollPane jScrollPane2;
+    private javax.swing.JLabel jStdInFileCaption;
+    private javax.swing.JTextField jStdInFileEdit;
     private javax.swing.JLabel jTasksCaption;
     private javax.swing.JTextField jTasksEdit;
     // End of variables declaration//GEN-END:variables
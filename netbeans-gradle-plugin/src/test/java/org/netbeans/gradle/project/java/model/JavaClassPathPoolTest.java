@@ -0,0 +1,69 @@
+package org.netbeans.gradle.project.java.model;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Iterator;
+import org.junit.Test;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+
+import static org.junit.Assert.*;
+
+public class JavaClassPathPoolTest {
+    @Test
+    public void testInternFile() {
+        File file1 = new File("libs", "my-lib.jar");
+        File file2 = new File("libs", "my-lib.jar");
+
+        File interned1 = JavaClassPathPool.internFile(file1);
+        File interned2 = JavaClassPathPool.internFile(file2);
+
+        assertEquals(file1, interned1);
+        assertSame(interned1, interned2);
+    }
+
+    @Test
+    public void testInternClassPaths() {
+        JavaClassPaths classpaths1 = JavaClassPathPool.internClassPaths(
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib2.jar")),
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib3.jar")));
+        JavaClassPaths classpaths2 = JavaClassPathPool.internClassPaths(
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib2.jar")),
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib3.jar")));
+
+        assertSame(classpaths1, classpaths2);
+        assertEquals(
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib2.jar")),
+                Arrays.asList(classpaths1.getCompileClasspaths().toArray()));
+        assertEquals(
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib3.jar")),
+                Arrays.asList(classpaths1.getRuntimeClasspaths().toArray()));
+
+        Iterator<File> compileItr = classpaths1.getCompileClasspaths().iterator();
+        Iterator<File> runtimeItr = classpaths1.getRuntimeClasspaths().iterator();
+        assertSame(compileItr.next(), runtimeItr.next());
+    }
+
+    @Test
+    public void testInternDifferentClassPaths() {
+        JavaClassPaths classpaths1 = JavaClassPathPool.internClassPaths(
+                Arrays.asList(new File("libs/lib1.jar")),
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib2.jar")));
+        JavaClassPaths classpaths2 = JavaClassPathPool.internClassPaths(
+                Arrays.asList(new File("libs/lib1.jar")),
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib3.jar")));
+
+        assertNotSame(classpaths1, classpaths2);
+        assertSame(
+                classpaths1.getCompileClasspaths().iterator().next(),
+                classpaths2.getCompileClasspaths().iterator().next());
+    }
+
+    @Test
+    public void testSameCompileAndRuntimeClassPaths() {
+        JavaClassPaths classpaths = JavaClassPathPool.internClassPaths(
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib2.jar")),
+                Arrays.asList(new File("libs/lib1.jar"), new File("libs/lib2.jar")));
+
+        assertSame(classpaths.getCompileClasspaths(), classpaths.getRuntimeClasspaths());
+    }
+}
@@ -1,11 +1,17 @@
 package org.netbeans.gradle.project.java.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaClassPaths;
 import org.netbeans.gradle.model.java.JavaCompatibilityModel;
 import org.netbeans.gradle.model.java.JavaOutputDirs;
 import org.netbeans.gradle.model.java.JavaSourceGroup;
@@ -13,6 +19,8 @@ import org.netbeans.gradle.model.java.JavaSourceGroupName;
 import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.model.java.JavaTestModel;
 import org.netbeans.gradle.model.util.SerializationUtils;
+import org.netbeans.gradle.project.model.CompactModelInput;
+import org.netbeans.gradle.project.model.CompactModelOutput;
 import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
 
 import static org.junit.Assert.*;
@@ -58,4 +66,73 @@ public class NbJavaModelTest {
                 source.getMainModule().getModuleDir().toString(),
                 deserialized.getMainModule().getModuleDir().toString());
     }
+
+    private static NbJavaModel compactRoundTrip(NbJavaModel source) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompactModelOutput output = new CompactModelOutput(bytes);
+        JavaModelCompactFormat.INSTANCE.writeModel(source, output);
+        output.flush();
+
+        CompactModelInput input = new CompactModelInput(new ByteArrayInputStream(bytes.toByteArray()));
+        return JavaModelCompactFormat.INSTANCE.readModel(input);
+    }
+
+    @Test
+    public void testCompactFormat() throws IOException {
+        NbJavaModule mainModule = createModule("mainModule");
+        NbJavaModel source = NbJavaModel.createModel(
+                JavaModelSource.GRADLE_1_8_API,
+                mainModule,
+                Collections.<File, JavaProjectDependency>emptyMap());
+
+        NbJavaModel deserialized = compactRoundTrip(source);
+
+        NbJavaModule deserializedModule = deserialized.getMainModule();
+        assertEquals(source.getModelSource(), deserialized.getModelSource());
+        assertEquals(mainModule.getModuleDir(), deserializedModule.getModuleDir());
+        assertEquals(mainModule.getUniqueName(), deserializedModule.getUniqueName());
+        assertEquals(mainModule.getListedDirs(), deserializedModule.getListedDirs());
+        assertEquals("1.6", deserializedModule.getCompatibilityModel().getSourceCompatibility());
+        assertEquals("1.7", deserializedModule.getCompatibilityModel().getTargetCompatibility());
+        assertEquals(mainModule.getSources().size(), deserializedModule.getSources().size());
+
+        JavaSourceSet mainSources = deserializedModule.getMainSourceSet();
+        assertEquals(mainModule.getMainSourceSet().getOutputDirs().getClassesDir(),
+                mainSources.getOutputDirs().getClassesDir());
+        assertEquals(mainModule.getMainSourceSet().getSourceGroups().iterator().next().getSourceRoots(),
+                mainSources.getSourceGroups().iterator().next().getSourceRoots());
+    }
+
+    @Test
+    public void testCompactFormatWithDependencies() throws IOException {
+        NbJavaModule dependencyModule = createModule("dependency");
+        File classesDir = dependencyModule.getMainSourceSet().getOutputDirs().getClassesDir();
+
+        NbJavaModule mainModule = createModule("mainModule");
+        JavaSourceSet.Builder mainSources = new JavaSourceSet.Builder("main", mainModule.getMainSourceSet().getOutputDirs());
+        mainSources.setClasspaths(new JavaClassPaths(Arrays.asList(classesDir, new File("lib.jar"))));
+        mainModule = new NbJavaModule(
+                mainModule.getProperties(),
+                mainModule.getCompatibilityModel(),
+                Arrays.asList(mainSources.create()),
+                mainModule.getListedDirs(),
+                mainModule.getTestTasks());
+
+        JavaProjectReference projectRef = new JavaProjectReference(dependencyModule.getModuleDir(), dependencyModule);
+        Map<File, JavaProjectDependency> dependencies
+                = Collections.singletonMap(classesDir, new JavaProjectDependency("main", projectRef));
+
+        NbJavaModel source = NbJavaModel.createModel(JavaModelSource.GRADLE_1_8_API, mainModule, dependencies);
+        NbJavaModel deserialized = compactRoundTrip(source);
+
+        JavaProjectDependency dependency = deserialized.tryGetDepedency(classesDir);
+        assertNotNull(dependency);
+        assertEquals("main", dependency.getSourceSetName());
+        assertEquals(dependencyModule.getModuleDir(), dependency.getProjectReference().getProjectDir());
+
+        JavaClassPaths classpaths = deserialized.getMainModule().getMainSourceSet().getClasspaths();
+        assertEquals(Arrays.asList(classesDir, new File("lib.jar")),
+                new ArrayList<>(classpaths.getCompileClasspaths()));
+        assertSame(classpaths.getCompileClasspaths(), classpaths.getRuntimeClasspaths());
+    }
 }
@@ -0,0 +1,168 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.ProjectChangeCoordinator;
+import org.netbeans.spi.java.classpath.ClassPathImplementation;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+
+import static org.junit.Assert.*;
+
+public class ClassPathResourcesTest {
+    private static final String COMPILE = "compile";
+    private static final String RUNTIME = "runtime";
+
+    private static void waitForEdt() throws Exception {
+        // The change events are submitted to the EDT before this task.
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private static PathResourceImplementation resource(String path) throws MalformedURLException {
+        return new TestPathResource(new URL("file:/" + path + "/"));
+    }
+
+    private static List<PathResourceImplementation> resources(String... paths) throws MalformedURLException {
+        PathResourceImplementation[] result = new PathResourceImplementation[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            result[i] = resource(paths[i]);
+        }
+        return Arrays.asList(result);
+    }
+
+    private static Map<String, List<PathResourceImplementation>> classPaths(
+            List<PathResourceImplementation> compile,
+            List<PathResourceImplementation> runtime) {
+
+        Map<String, List<PathResourceImplementation>> result = new HashMap<>();
+        result.put(COMPILE, compile);
+        result.put(RUNTIME, runtime);
+        return result;
+    }
+
+    private static AtomicInteger addCounter(PropertyChangeSupport changes) {
+        final AtomicInteger counter = new AtomicInteger(0);
+        changes.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (ClassPathImplementation.PROP_RESOURCES.equals(evt.getPropertyName())) {
+                    counter.incrementAndGet();
+                }
+            }
+        });
+        return counter;
+    }
+
+    @Test
+    public void testUnchangedClassPathIsNotNotified() throws Exception {
+        PropertyChangeSupport anyChanges = new PropertyChangeSupport(this);
+        ClassPathResources<String> classPaths
+                = new ClassPathResources<>(this, anyChanges, new ProjectChangeCoordinator());
+
+        classPaths.updateResources(classPaths(resources("a", "b"), resources("a", "b", "c")));
+        waitForEdt();
+
+        AtomicInteger anyCounter = addCounter(anyChanges);
+        AtomicInteger compileCounter = addCounter(classPaths.getChanges(COMPILE));
+        AtomicInteger runtimeCounter = addCounter(classPaths.getChanges(RUNTIME));
+
+        List<PathResourceImplementation> prevCompile = classPaths.getResources(COMPILE);
+
+        // Equivalent, but new resource instances.
+        classPaths.updateResources(classPaths(resources("a", "b"), resources("a", "b", "c")));
+        waitForEdt();
+
+        assertEquals(0, anyCounter.get());
+        assertEquals(0, compileCounter.get());
+        assertEquals(0, runtimeCounter.get());
+        assertSame(prevCompile, classPaths.getResources(COMPILE));
+    }
+
+    @Test
+    public void testChangedClassPathIsNotified() throws Exception {
+        PropertyChangeSupport anyChanges = new PropertyChangeSupport(this);
+        ClassPathResources<String> classPaths
+                = new ClassPathResources<>(this, anyChanges, new ProjectChangeCoordinator());
+
+        classPaths.updateResources(classPaths(resources("a", "b"), resources("a", "b", "c")));
+        waitForEdt();
+
+        AtomicInteger anyCounter = addCounter(anyChanges);
+        AtomicInteger compileCounter = addCounter(classPaths.getChanges(COMPILE));
+        AtomicInteger runtimeCounter = addCounter(classPaths.getChanges(RUNTIME));
+
+        PathResourceImplementation prevResourceA = classPaths.getResources(RUNTIME).get(0);
+
+        classPaths.updateResources(classPaths(resources("a", "b"), resources("a", "d")));
+        waitForEdt();
+
+        assertEquals(1, anyCounter.get());
+        assertEquals(0, compileCounter.get());
+        assertEquals(1, runtimeCounter.get());
+
+        List<PathResourceImplementation> runtime = classPaths.getResources(RUNTIME);
+        assertEquals(2, runtime.size());
+        assertSame(prevResourceA, runtime.get(0));
+    }
+
+    @Test
+    public void testRemovedClassPathIsNotified() throws Exception {
+        PropertyChangeSupport anyChanges = new PropertyChangeSupport(this);
+        ClassPathResources<String> classPaths
+                = new ClassPathResources<>(this, anyChanges, new ProjectChangeCoordinator());
+
+        classPaths.updateResources(classPaths(resources("a"), resources("a", "b")));
+        waitForEdt();
+
+        AtomicInteger compileCounter = addCounter(classPaths.getChanges(COMPILE));
+        AtomicInteger runtimeCounter = addCounter(classPaths.getChanges(RUNTIME));
+
+        Map<String, List<PathResourceImplementation>> newResources = new HashMap<>();
+        newResources.put(COMPILE, resources("a"));
+        classPaths.updateResources(newResources);
+        waitForEdt();
+
+        assertEquals(0, compileCounter.get());
+        assertEquals(1, runtimeCounter.get());
+        assertTrue(classPaths.getResources(RUNTIME).isEmpty());
+    }
+
+    private static final class TestPathResource implements PathResourceImplementation {
+        private final URL root;
+
+        public TestPathResource(URL root) {
+            this.root = root;
+        }
+
+        @Override
+        public URL[] getRoots() {
+            return new URL[] {root};
+        }
+
+        @Override
+        public ClassPathImplementation getContent() {
+            return null;
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+        }
+    }
+}
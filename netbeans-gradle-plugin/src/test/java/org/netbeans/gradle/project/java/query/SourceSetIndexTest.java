@@ -0,0 +1,184 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+import org.netbeans.gradle.project.java.model.JavaModelSource;
+import org.netbeans.gradle.project.java.model.JavaProjectDependency;
+import org.netbeans.gradle.project.java.model.NbJavaModel;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
+
+import static org.junit.Assert.*;
+
+public class SourceSetIndexTest {
+    private static final File PROJECT_DIR = new File("project").getAbsoluteFile();
+
+    private static File projectFile(String relPath) {
+        return new File(PROJECT_DIR, relPath);
+    }
+
+    private static JavaSourceSet createSourceSet(
+            String name,
+            SourceIncludePatterns patterns,
+            List<File> compileClasspath,
+            List<File> runtimeClasspath) {
+
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(name, new JavaOutputDirs(
+                projectFile("build/classes/" + name),
+                projectFile("build/resources/" + name),
+                Collections.<File>emptySet()));
+        result.addSourceGroup(new JavaSourceGroup(
+                JavaSourceGroupName.JAVA,
+                Arrays.asList(projectFile("src/" + name + "/java"), projectFile("src/" + name + "/java2")),
+                patterns));
+        result.addSourceGroup(new JavaSourceGroup(
+                JavaSourceGroupName.RESOURCES,
+                Arrays.asList(projectFile("src/" + name + "/resources"))));
+        result.setClasspaths(new JavaClassPaths(compileClasspath, runtimeClasspath));
+        return result.create();
+    }
+
+    private static NbJavaModel createModel(JavaSourceSet... sourceSets) {
+        GenericProjectProperties properties = NbGradleProjectTreeTest.createProperties("project", ":project");
+        NbJavaModule module = new NbJavaModule(
+                properties,
+                new JavaCompatibilityModel("1.7", "1.7"),
+                Arrays.asList(sourceSets),
+                Collections.<NbListedDir>emptyList(),
+                JavaTestModel.getDefaulTestModel(properties.getProjectDir()));
+
+        return NbJavaModel.createModel(
+                JavaModelSource.GRADLE_1_8_API,
+                module,
+                Collections.<File, JavaProjectDependency>emptyMap());
+    }
+
+    private static SourceSetIndex createDefaultIndex() {
+        File sharedJar = new File("libs/shared.jar").getAbsoluteFile();
+        File testJar = new File("libs/junit.jar").getAbsoluteFile();
+        File runtimeJar = new File("libs/runtime.jar").getAbsoluteFile();
+
+        JavaSourceSet main = createSourceSet(
+                JavaSourceSet.NAME_MAIN,
+                SourceIncludePatterns.create(Arrays.asList("**/generated/**"), Collections.<String>emptyList()),
+                Arrays.asList(sharedJar),
+                Arrays.asList(sharedJar, runtimeJar));
+        JavaSourceSet test = createSourceSet(
+                JavaSourceSet.NAME_TEST,
+                SourceIncludePatterns.ALLOW_ALL,
+                Arrays.asList(sharedJar, testJar, projectFile("build/classes/main")),
+                Arrays.asList(sharedJar, testJar, projectFile("build/classes/main")));
+
+        return SourceSetIndex.create(createModel(main, test));
+    }
+
+    private static String findSourceSetName(SourceSetIndex index, File file) {
+        JavaSourceSet result = index.tryFindSourceSet(file);
+        return result != null ? result.getName() : null;
+    }
+
+    @Test
+    public void testSourceFiles() {
+        SourceSetIndex index = createDefaultIndex();
+
+        assertEquals("main", findSourceSetName(index, projectFile("src/main/java/org/test/MyClass.java")));
+        assertEquals("main", findSourceSetName(index, projectFile("src/main/java2/MyClass.java")));
+        assertEquals("main", findSourceSetName(index, projectFile("src/main/java")));
+        assertEquals("main", findSourceSetName(index, projectFile("src/main/resources/my.properties")));
+        assertEquals("test", findSourceSetName(index, projectFile("src/test/java/org/test/MyClassTest.java")));
+        assertEquals("test", findSourceSetName(index, projectFile("src/test/resources/my.properties")));
+    }
+
+    @Test
+    public void testClassPathEntries() {
+        SourceSetIndex index = createDefaultIndex();
+
+        assertEquals("main", findSourceSetName(index, new File("libs/shared.jar").getAbsoluteFile()));
+        assertEquals("main", findSourceSetName(index, new File("libs/runtime.jar").getAbsoluteFile()));
+        assertEquals("test", findSourceSetName(index, new File("libs/junit.jar").getAbsoluteFile()));
+        assertEquals("test", findSourceSetName(index, projectFile("build/classes/main/org/test/MyClass.class")));
+    }
+
+    @Test
+    public void testExcludedFiles() {
+        SourceSetIndex index = createDefaultIndex();
+
+        assertNull(findSourceSetName(index, projectFile("src/main/java/generated/MyClass.java")));
+        assertEquals("main", findSourceSetName(index, projectFile("src/main/resources/generated/my.properties")));
+    }
+
+    @Test
+    public void testUnrelatedFiles() {
+        SourceSetIndex index = createDefaultIndex();
+
+        assertNull(findSourceSetName(index, projectFile("build.gradle")));
+        assertNull(findSourceSetName(index, projectFile("src/main")));
+        assertNull(findSourceSetName(index, new File("libs/other.jar").getAbsoluteFile()));
+    }
+
+    @Test
+    public void testFirstSourceSetWins() {
+        File sharedRoot = projectFile("src/shared");
+        JavaSourceSet main = createSourceSet(
+                JavaSourceSet.NAME_MAIN,
+                SourceIncludePatterns.ALLOW_ALL,
+                Collections.<File>emptyList(),
+                Collections.<File>emptyList());
+        JavaSourceSet test = createSourceSet(
+                JavaSourceSet.NAME_TEST,
+                SourceIncludePatterns.ALLOW_ALL,
+                Arrays.asList(sharedRoot),
+                Arrays.asList(sharedRoot));
+        JavaSourceSet other = createSourceSet(
+                "other",
+                SourceIncludePatterns.ALLOW_ALL,
+                Arrays.asList(projectFile("src")),
+                Arrays.asList(projectFile("src")));
+
+        SourceSetIndex index = SourceSetIndex.create(createModel(main, test, other));
+
+        assertEquals("main", findSourceSetName(index, projectFile("src/main/java/MyClass.java")));
+        assertEquals("test", findSourceSetName(index, projectFile("src/shared/MyClass.java")));
+        assertEquals("other", findSourceSetName(index, projectFile("src/unknown/MyClass.java")));
+    }
+
+    @Test
+    public void testNestedRootOfExcludedDir() {
+        // The root of the test sources is within an excluded directory
+        // of the main sources.
+        JavaSourceSet.Builder main = new JavaSourceSet.Builder(JavaSourceSet.NAME_MAIN, new JavaOutputDirs(
+                projectFile("build/classes/main"),
+                projectFile("build/resources/main"),
+                Collections.<File>emptySet()));
+        main.addSourceGroup(new JavaSourceGroup(
+                JavaSourceGroupName.JAVA,
+                Arrays.asList(projectFile("src")),
+                SourceIncludePatterns.create(Arrays.asList("test/**"), Collections.<String>emptyList())));
+
+        JavaSourceSet.Builder test = new JavaSourceSet.Builder(JavaSourceSet.NAME_TEST, new JavaOutputDirs(
+                projectFile("build/classes/test"),
+                projectFile("build/resources/test"),
+                Collections.<File>emptySet()));
+        test.addSourceGroup(new JavaSourceGroup(
+                JavaSourceGroupName.JAVA,
+                Arrays.asList(projectFile("src/test"))));
+
+        SourceSetIndex index = SourceSetIndex.create(createModel(main.create(), test.create()));
+
+        assertEquals("main", findSourceSetName(index, projectFile("src/org/test/MyClass.java")));
+        assertEquals("test", findSourceSetName(index, projectFile("src/test/org/test/MyClassTest.java")));
+    }
+}
@@ -0,0 +1,137 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+
+import static org.junit.Assert.*;
+
+public class LiveTestEventReaderTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File eventsFile;
+
+    @Before
+    public void setUp() throws IOException {
+        eventsFile = File.createTempFile("nb-test-events", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (!eventsFile.delete()) {
+            throw new IOException("Failed to remove " + eventsFile);
+        }
+    }
+
+    private void writeEvents(boolean append, String content) throws IOException {
+        try (OutputStream output = new FileOutputStream(eventsFile, append)) {
+            output.write(content.getBytes(UTF8));
+        }
+    }
+
+    @Test
+    public void testSplitFields() {
+        assertArrayEquals(new String[]{"test", "a\tb", "c\nd\\"},
+                LiveTestEventReader.splitFields("test\ta\\tb\tc\\nd\\\\"));
+        assertArrayEquals(new String[]{"end"}, LiveTestEventReader.splitFields("end"));
+        assertArrayEquals(new String[]{"suite", ""}, LiveTestEventReader.splitFields("suite\t"));
+    }
+
+    @Test
+    public void testReadIncrementally() throws IOException {
+        LiveTestEventReader reader = new LiveTestEventReader(eventsFile);
+
+        writeEvents(false, "start\n"
+                + "test\tmypackage.MyTest\ttestPass\tSUCCESS\t5\t\n"
+                + "output\tmypackage.MyTest\tStdOut\tHELLO\\n\n"
+                + "test\tmypackage.MyTest\ttestFail\tFAILURE\t7\t"
+                + "java.lang.AssertionError: failed\\n\\tat mypackage.MyTest.testFail(MyTest.java:10)\\n\n"
+                + "suite\tmypackage.MyTest\t20\n"
+                + "test\tmypackage.OtherTest\ttestSk");
+        List<TestXmlReport> suites = reader.readCompletedSuites();
+
+        assertEquals(1, suites.size());
+        TestXmlReport report = suites.get(0);
+        assertEquals("mypackage.MyTest", report.getSuiteName());
+        assertEquals(20, report.getSuiteTime());
+        assertEquals("HELLO\n", report.getStdOut());
+        assertNull(report.getStdErr());
+
+        List<TestXmlReport.TestcaseDef> testcases = report.getTestcases();
+        assertEquals(2, testcases.size());
+        assertEquals("testPass", testcases.get(0).getName());
+        assertEquals(Status.PASSED, testcases.get(0).getStatus());
+        assertEquals(5, testcases.get(0).getTimeMillis());
+        assertNull(testcases.get(0).getStackTrace());
+
+        assertEquals("testFail", testcases.get(1).getName());
+        assertEquals(Status.FAILED, testcases.get(1).getStatus());
+        assertArrayEquals(new String[]{
+            "java.lang.AssertionError: failed",
+            "mypackage.MyTest.testFail(MyTest.java:10)"
+        }, testcases.get(1).getStackTrace());
+
+        assertFalse(reader.isFinished());
+
+        writeEvents(true, "ipped\tSKIPPED\t0\t\n"
+                + "end\n");
+        suites = reader.readCompletedSuites();
+
+        assertTrue(reader.isFinished());
+        assertEquals(1, suites.size());
+        assertEquals("mypackage.OtherTest", suites.get(0).getSuiteName());
+        assertEquals("testSkipped", suites.get(0).getTestcases().get(0).getName());
+        assertEquals(Status.SKIPPED, suites.get(0).getTestcases().get(0).getStatus());
+
+        assertTrue(reader.readCompletedSuites().isEmpty());
+    }
+
+    @Test
+    public void testRewrittenFile() throws IOException {
+        LiveTestEventReader reader = new LiveTestEventReader(eventsFile);
+
+        writeEvents(false, "start\n"
+                + "test\tmypackage.MyTest\ttestWithLongName\tSUCCESS\t5\t\n"
+                + "suite\tmypackage.MyTest\t20\n"
+                + "end\n");
+        assertEquals(1, reader.readCompletedSuites().size());
+
+        writeEvents(false, "start\n"
+                + "test\tmypackage.A\tt\tSUCCESS\t1\t\n"
+                + "suite\tmypackage.A\t1\n");
+        List<TestXmlReport> suites = reader.readCompletedSuites();
+
+        assertFalse(reader.isFinished());
+        assertEquals(1, suites.size());
+        assertEquals("mypackage.A", suites.get(0).getSuiteName());
+    }
+
+    @Test
+    public void testTruncatedOutput() throws IOException {
+        LiveTestEventReader reader = new LiveTestEventReader(eventsFile, 5);
+
+        writeEvents(false, "start\n"
+                + "output\tmypackage.MyTest\tStdErr\t0123\n"
+                + "output\tmypackage.MyTest\tStdErr\t4567\n"
+                + "test\tmypackage.MyTest\ttest\tSUCCESS\t5\t\n"
+                + "suite\tmypackage.MyTest\t20\n");
+        List<TestXmlReport> suites = reader.readCompletedSuites();
+
+        assertEquals(1, suites.size());
+        assertEquals("01234\n... (the output was truncated)\n", suites.get(0).getStdErr());
+    }
+
+    @Test
+    public void testMissingFile() throws IOException {
+        LiveTestEventReader reader = new LiveTestEventReader(new File(eventsFile.getPath() + ".missing"));
+        assertTrue(reader.readCompletedSuites().isEmpty());
+        assertFalse(reader.isFinished());
+    }
+}
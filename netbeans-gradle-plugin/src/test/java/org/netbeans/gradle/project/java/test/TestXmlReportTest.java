@@ -0,0 +1,97 @@
+package org.netbeans.gradle.project.java.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import org.junit.Test;
+import org.netbeans.modules.gsf.testrunner.api.Status;
+
+import static org.junit.Assert.*;
+
+public class TestXmlReportTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static TestXmlReport parse(String content, int maxOutputLength) throws Exception {
+        File reportFile = File.createTempFile("TEST-", ".xml");
+        try {
+            try (OutputStream output = new FileOutputStream(reportFile)) {
+                output.write(content.getBytes(UTF8));
+            }
+
+            SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+            return TestXmlReport.parse(reportFile, parser, maxOutputLength);
+        } finally {
+            if (!reportFile.delete()) {
+                throw new IOException("Failed to remove " + reportFile);
+            }
+        }
+    }
+
+    private static String suite(String content) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<testsuite name=\"mypackage.MyTest\" tests=\"2\" time=\"0.5\">\n"
+                + content
+                + "</testsuite>\n";
+    }
+
+    @Test
+    public void testParseSuite() throws Exception {
+        TestXmlReport report = parse(suite(
+                "<testcase name=\"testPass\" classname=\"mypackage.MyTest\" time=\"0.1\"/>\n"
+                + "<testcase name=\"testFail\" classname=\"mypackage.MyTest\" time=\"0.2\">\n"
+                + "<failure message=\"failed\">java.lang.AssertionError: failed\r\n"
+                + "\tat mypackage.MyTest.testFail(MyTest.java:10)\r"
+                + "    at java.lang.Thread.run(Thread.java:745)\n"
+                + "</failure>\n"
+                + "</testcase>\n"
+                + "<system-out><![CDATA[HELLO\n]]></system-out>\n"
+                + "<system-err><![CDATA[]]></system-err>\n"), 1000);
+
+        assertEquals("mypackage.MyTest", report.getSuiteName());
+        assertEquals("HELLO\n", report.getStdOut());
+        assertEquals("", report.getStdErr());
+
+        List<TestXmlReport.TestcaseDef> testcases = report.getTestcases();
+        assertEquals(2, testcases.size());
+
+        assertEquals("testPass", testcases.get(0).getName());
+        assertEquals(Status.PASSED, testcases.get(0).getStatus());
+        assertNull(testcases.get(0).getStackTrace());
+
+        assertEquals("testFail", testcases.get(1).getName());
+        assertEquals(Status.FAILED, testcases.get(1).getStatus());
+        assertArrayEquals(new String[]{
+            "java.lang.AssertionError: failed",
+            "mypackage.MyTest.testFail(MyTest.java:10)",
+            "java.lang.Thread.run(Thread.java:745)"
+        }, testcases.get(1).getStackTrace());
+    }
+
+    @Test
+    public void testTruncatedOutput() throws Exception {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            output.append("0123456789");
+        }
+
+        TestXmlReport report = parse(suite(
+                "<system-out><![CDATA[" + output + "]]></system-out>\n"), 25);
+
+        String stdOut = report.getStdOut();
+        assertTrue(stdOut, stdOut.startsWith("0123456789012345678901234\n"));
+        assertTrue(stdOut, stdOut.contains("truncated"));
+    }
+
+    @Test
+    public void testExtractStackTrace() {
+        assertArrayEquals(new String[]{""},
+                TestXmlReport.extractStackTrace(new StringBuilder("  \n ")));
+        assertArrayEquals(new String[]{"message", "", "frame"},
+                TestXmlReport.extractStackTrace(new StringBuilder(" message\n\n  at frame  ")));
+    }
+}
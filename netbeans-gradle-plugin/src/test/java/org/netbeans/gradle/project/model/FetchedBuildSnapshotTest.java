@@ -0,0 +1,79 @@
+package org.netbeans.gradle.project.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FetchedBuildSnapshotTest {
+    private static ModelInputFingerprint fingerprint(String content) {
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        result.addString(content);
+        return result.create();
+    }
+
+    private static Map<String, ModelInputFingerprint> inputs(String... pathsAndContents) {
+        Map<String, ModelInputFingerprint> result = new HashMap<>();
+        for (int i = 0; i < pathsAndContents.length; i += 2) {
+            result.put(pathsAndContents[i], fingerprint(pathsAndContents[i + 1]));
+        }
+        return result;
+    }
+
+    private static Set<String> paths(String... paths) {
+        return new HashSet<>(Arrays.asList(paths));
+    }
+
+    private static Map<String, ModelInputFingerprint> fetchedInputs() {
+        return inputs(":", "root", ":app", "app", ":lib1", "lib1", ":lib2", "lib2", ":lib3", "lib3");
+    }
+
+    @Test
+    public void testOnlyMainProjectIsFetchedIfNothingChanged() {
+        Set<String> pathsToFetch = FetchedBuildSnapshot.tryGetPathsToFetch(
+                ":app", fetchedInputs(), fetchedInputs());
+        assertEquals(paths(":app"), pathsToFetch);
+    }
+
+    @Test
+    public void testChangedProjectsAreFetched() {
+        Map<String, ModelInputFingerprint> currentInputs = fetchedInputs();
+        currentInputs.put(":lib2", fingerprint("lib2-changed"));
+
+        Set<String> pathsToFetch = FetchedBuildSnapshot.tryGetPathsToFetch(
+                ":app", fetchedInputs(), currentInputs);
+        assertEquals(paths(":app", ":lib2"), pathsToFetch);
+    }
+
+    @Test
+    public void testRemovedProjectIsFetched() {
+        Map<String, ModelInputFingerprint> currentInputs = fetchedInputs();
+        currentInputs.remove(":lib3");
+
+        Set<String> pathsToFetch = FetchedBuildSnapshot.tryGetPathsToFetch(
+                ":lib1", fetchedInputs(), currentInputs);
+        assertEquals(paths(":lib1", ":lib3"), pathsToFetch);
+    }
+
+    @Test
+    public void testChangedRootProjectFetchesEverything() {
+        Map<String, ModelInputFingerprint> currentInputs = fetchedInputs();
+        currentInputs.put(":", fingerprint("root-changed"));
+
+        assertNull(FetchedBuildSnapshot.tryGetPathsToFetch(":app", fetchedInputs(), currentInputs));
+    }
+
+    @Test
+    public void testMostProjectsChangedFetchesEverything() {
+        Map<String, ModelInputFingerprint> currentInputs = fetchedInputs();
+        currentInputs.put(":lib1", fingerprint("lib1-changed"));
+        currentInputs.put(":lib2", fingerprint("lib2-changed"));
+        currentInputs.put(":lib3", fingerprint("lib3-changed"));
+
+        assertNull(FetchedBuildSnapshot.tryGetPathsToFetch(":app", fetchedInputs(), currentInputs));
+    }
+}
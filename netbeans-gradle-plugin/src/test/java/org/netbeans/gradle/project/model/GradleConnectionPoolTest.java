@@ -0,0 +1,201 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.gradle.tooling.ProjectConnection;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationSource;
+import org.jtrim.cancel.OperationCanceledException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class GradleConnectionPoolTest {
+    private static GradleConnectionPool.ConnectionKey key(String dir, Integer timeoutSec, FileTime wrapperTime) {
+        return new GradleConnectionPool.ConnectionKey(new File(dir), null, null, null, timeoutSec, wrapperTime);
+    }
+
+    private static GradleConnectionPool.ConnectionKey key(String dir) {
+        return key(dir, null, null);
+    }
+
+    private static GradleConnectionPool.PooledConnectionRef acquire(
+            GradleConnectionPool pool,
+            GradleConnectionPool.ConnectionKey key,
+            CountingFactory factory) {
+        return pool.acquireConnection(Cancellation.UNCANCELABLE_TOKEN, key, factory);
+    }
+
+    @Test
+    public void testSameKeySharesConnection() {
+        GradleConnectionPool pool = new GradleConnectionPool();
+        CountingFactory factory = new CountingFactory();
+
+        try (GradleConnectionPool.PooledConnectionRef ref1 = acquire(pool, key("root"), factory);
+                GradleConnectionPool.PooledConnectionRef ref2 = acquire(pool, key("root"), factory)) {
+            assertSame(ref1.getConnection(), ref2.getConnection());
+        }
+
+        try (GradleConnectionPool.PooledConnectionRef ref3 = acquire(pool, key("root"), factory)) {
+            assertSame(factory.getLastConnection(), ref3.getConnection());
+        }
+
+        assertEquals(1, factory.getConnectCount());
+        verify(factory.getLastConnection(), never()).close();
+    }
+
+    @Test
+    public void testCloseIdleConnections() {
+        GradleConnectionPool pool = new GradleConnectionPool();
+        CountingFactory factory = new CountingFactory();
+
+        ProjectConnection idleConnection;
+        try (GradleConnectionPool.PooledConnectionRef ref = acquire(pool, key("idle"), factory)) {
+            idleConnection = ref.getConnection();
+        }
+
+        try (GradleConnectionPool.PooledConnectionRef ref = acquire(pool, key("used"), factory)) {
+            pool.closeIdleConnections();
+
+            verify(idleConnection).close();
+            verify(ref.getConnection(), never()).close();
+        }
+
+        try (GradleConnectionPool.PooledConnectionRef ref = acquire(pool, key("idle"), factory)) {
+            assertNotSame(idleConnection, ref.getConnection());
+        }
+        assertEquals(3, factory.getConnectCount());
+    }
+
+    @Test
+    public void testChangedWrapperClosesIdleConnection() {
+        GradleConnectionPool pool = new GradleConnectionPool();
+        CountingFactory factory = new CountingFactory();
+
+        ProjectConnection oldConnection;
+        try (GradleConnectionPool.PooledConnectionRef ref
+                = acquire(pool, key("root", null, FileTime.fromMillis(1000)), factory)) {
+            oldConnection = ref.getConnection();
+        }
+
+        try (GradleConnectionPool.PooledConnectionRef ref
+                = acquire(pool, key("root", null, FileTime.fromMillis(2000)), factory)) {
+            assertNotSame(oldConnection, ref.getConnection());
+            verify(oldConnection).close();
+        }
+        assertEquals(2, factory.getConnectCount());
+    }
+
+    @Test(timeout = 20000)
+    public void testIdleConnectionIsEvicted() throws InterruptedException {
+        GradleConnectionPool pool = new GradleConnectionPool();
+        CountingFactory factory = new CountingFactory();
+
+        ProjectConnection connection;
+        try (GradleConnectionPool.PooledConnectionRef ref = acquire(pool, key("root", 1, null), factory)) {
+            connection = ref.getConnection();
+        }
+
+        verify(connection, timeout(10000)).close();
+
+        try (GradleConnectionPool.PooledConnectionRef ref = acquire(pool, key("root", 1, null), factory)) {
+            assertNotSame(connection, ref.getConnection());
+        }
+    }
+
+    @Test
+    public void testFailedConnectIsRetried() {
+        GradleConnectionPool pool = new GradleConnectionPool();
+        CountingFactory factory = new CountingFactory();
+
+        try {
+            pool.acquireConnection(Cancellation.UNCANCELABLE_TOKEN, key("root"), new GradleConnectionPool.ConnectionFactory() {
+                @Override
+                public ProjectConnection connect() {
+                    throw new IllegalStateException("Test failure");
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ex) {
+        }
+
+        try (GradleConnectionPool.PooledConnectionRef ref = acquire(pool, key("root"), factory)) {
+            assertSame(factory.getLastConnection(), ref.getConnection());
+        }
+        assertEquals(1, factory.getConnectCount());
+    }
+
+    @Test(timeout = 20000)
+    public void testCancelOnlyAffectsWaitingCaller() throws Exception {
+        final GradleConnectionPool pool = new GradleConnectionPool();
+        final CountDownLatch connectStarted = new CountDownLatch(1);
+        final CountDownLatch connectRelease = new CountDownLatch(1);
+        final ProjectConnection connection = mock(ProjectConnection.class);
+
+        final AtomicReference<ProjectConnection> firstResult = new AtomicReference<>(null);
+        Thread firstCaller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                GradleConnectionPool.ConnectionFactory factory = new GradleConnectionPool.ConnectionFactory() {
+                    @Override
+                    public ProjectConnection connect() {
+                        connectStarted.countDown();
+                        try {
+                            connectRelease.await();
+                        } catch (InterruptedException ex) {
+                            throw new AssertionError(ex);
+                        }
+                        return connection;
+                    }
+                };
+
+                try (GradleConnectionPool.PooledConnectionRef ref
+                        = pool.acquireConnection(Cancellation.UNCANCELABLE_TOKEN, key("root"), factory)) {
+                    firstResult.set(ref.getConnection());
+                }
+            }
+        });
+        firstCaller.start();
+        assertTrue(connectStarted.await(10, TimeUnit.SECONDS));
+
+        CancellationSource cancel = Cancellation.createCancellationSource();
+        cancel.getController().cancel();
+        try {
+            pool.acquireConnection(cancel.getToken(), key("root"), new CountingFactory());
+            fail("Expected OperationCanceledException");
+        } catch (OperationCanceledException ex) {
+        }
+
+        connectRelease.countDown();
+        firstCaller.join();
+
+        assertSame(connection, firstResult.get());
+        verify(connection, never()).close();
+    }
+
+    private static final class CountingFactory implements GradleConnectionPool.ConnectionFactory {
+        private final AtomicInteger connectCount = new AtomicInteger(0);
+        private volatile ProjectConnection lastConnection;
+
+        @Override
+        public ProjectConnection connect() {
+            connectCount.incrementAndGet();
+            ProjectConnection result = mock(ProjectConnection.class);
+            lastConnection = result;
+            return result;
+        }
+
+        public int getConnectCount() {
+            return connectCount.get();
+        }
+
+        public ProjectConnection getLastConnection() {
+            return lastConnection;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GradleModelCacheTest {
+    private static File projectDir(String name) {
+        return new File(new File("cache-test-root"), name);
+    }
+
+    private static NbGradleModel model(String name) {
+        NbGradleMultiProjectDef projectDef = NbGradleMultiProjectDef.createEmpty(projectDir(name));
+        return new NbGradleModel(new NbGenericModelInfo(projectDef, null), Collections.<String, Object>emptyMap());
+    }
+
+    private static NbGradleModel tryGet(GradleModelCache cache, String name) {
+        return cache.tryGet(projectDir(name), null);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyAccessedByCount() {
+        GradleModelCache cache = new GradleModelCache(2);
+
+        NbGradleModel modelA = model("a");
+        NbGradleModel modelB = model("b");
+        NbGradleModel modelC = model("c");
+
+        cache.replaceEntry(modelA);
+        cache.replaceEntry(modelB);
+        assertSame(modelA, tryGet(cache, "a"));
+
+        cache.replaceEntry(modelC);
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(modelA, tryGet(cache, "a"));
+        assertNull(tryGet(cache, "b"));
+        assertSame(modelC, tryGet(cache, "c"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyAccessedBySize() {
+        long modelSize = GradleModelCache.estimateSize(model("a"));
+        GradleModelCache cache = new GradleModelCache(10, 2 * modelSize + modelSize / 2);
+
+        NbGradleModel modelA = model("a");
+        NbGradleModel modelB = model("b");
+        NbGradleModel modelC = model("c");
+
+        cache.replaceEntry(modelA);
+        cache.replaceEntry(modelB);
+        assertEquals(2 * modelSize, cache.getEstimatedSize());
+
+        assertSame(modelA, tryGet(cache, "a"));
+        cache.replaceEntry(modelC);
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(2 * modelSize, cache.getEstimatedSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(tryGet(cache, "b"));
+    }
+
+    @Test
+    public void testKeepsMostRecentEntryOverSizeLimit() {
+        GradleModelCache cache = new GradleModelCache(10, 0);
+
+        NbGradleModel modelA = model("a");
+        NbGradleModel modelB = model("b");
+
+        cache.replaceEntry(modelA);
+        assertSame(modelA, tryGet(cache, "a"));
+
+        cache.replaceEntry(modelB);
+        assertNull(tryGet(cache, "a"));
+        assertSame(modelB, tryGet(cache, "b"));
+        assertEquals(GradleModelCache.estimateSize(modelB), cache.getEstimatedSize());
+    }
+
+    @Test
+    public void testReducingCapacityEvicts() {
+        GradleModelCache cache = new GradleModelCache(3);
+
+        cache.replaceEntry(model("a"));
+        cache.replaceEntry(model("b"));
+        cache.replaceEntry(model("c"));
+        assertNotNull(tryGet(cache, "a"));
+
+        cache.setMaxCapacity(1);
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(2, cache.getEvictionCount());
+        assertNotNull(tryGet(cache, "a"));
+    }
+
+    @Test
+    public void testReplacedEntryIsNotCountedTwice() {
+        GradleModelCache cache = new GradleModelCache(10);
+        long modelSize = GradleModelCache.estimateSize(model("a"));
+
+        cache.replaceEntry(model("a"));
+        NbGradleModel newModel = model("a");
+        cache.replaceEntry(newModel);
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(modelSize, cache.getEstimatedSize());
+        assertSame(newModel, tryGet(cache, "a"));
+    }
+
+    @Test
+    public void testHitAndMissCounters() {
+        GradleModelCache cache = new GradleModelCache(10);
+
+        assertNull(tryGet(cache, "a"));
+        cache.replaceEntry(model("a"));
+        assertNotNull(tryGet(cache, "a"));
+        assertNotNull(tryGet(cache, "a"));
+        assertNull(tryGet(cache, "b"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+}
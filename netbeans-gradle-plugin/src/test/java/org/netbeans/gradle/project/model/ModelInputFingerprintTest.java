@@ -0,0 +1,60 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.jtrim.cancel.Cancellation;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class ModelInputFingerprintTest {
+    private static ModelInputFingerprint fingerprint(Path file, String... args) throws IOException {
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        result.addStrings(Arrays.asList(args));
+        result.addFile(file);
+        return result.create();
+    }
+
+    @Test
+    public void testFingerprintDependsOnFileContent() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-fingerprint-test");
+        try {
+            Path buildScript = tmpDir.resolve("build.gradle");
+
+            ModelInputFingerprint missing = fingerprint(buildScript, "--offline");
+
+            Files.write(buildScript, new byte[0]);
+            ModelInputFingerprint empty = fingerprint(buildScript, "--offline");
+
+            Files.write(buildScript, "apply plugin: 'java'".getBytes(StringUtils.UTF8));
+            ModelInputFingerprint java1 = fingerprint(buildScript, "--offline");
+            ModelInputFingerprint java2 = fingerprint(buildScript, "--offline");
+            ModelInputFingerprint otherArgs = fingerprint(buildScript, "--offline", "-PmyProperty");
+
+            assertEquals(java1, java2);
+            assertEquals(java1, ModelInputFingerprint.fromBytes(java2.toBytes()));
+            assertFalse(missing.equals(empty));
+            assertFalse(empty.equals(java1));
+            assertFalse(java1.equals(otherArgs));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testStringBoundaries() {
+        ModelInputFingerprint.Builder builder1 = new ModelInputFingerprint.Builder();
+        builder1.addString("ab");
+        builder1.addString("c");
+
+        ModelInputFingerprint.Builder builder2 = new ModelInputFingerprint.Builder();
+        builder2.addString("a");
+        builder2.addString("bc");
+
+        assertFalse(builder1.create().equals(builder2.create()));
+    }
+}
@@ -0,0 +1,121 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.cancel.Cancellation;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class ModelInputSnapshotTest {
+    private static ModelInputFingerprint buildInputs() {
+        ModelInputFingerprint.Builder result = new ModelInputFingerprint.Builder();
+        result.addString("--offline");
+        return result.create();
+    }
+
+    private static void writeScript(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StringUtils.UTF8));
+    }
+
+    private static void setOldModifiedTime(Path file) throws IOException {
+        long oldTime = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(oldTime));
+    }
+
+    private static ModelInputFingerprint currentFingerprint(Path... files) throws IOException {
+        ModelInputFingerprint[] fileFingerprints = new ModelInputFingerprint[files.length];
+        for (int i = 0; i < files.length; i++) {
+            fileFingerprints[i] = ModelInputFingerprint.ofFile(files[i]);
+        }
+        return ModelInputSnapshot.combine(buildInputs(), Arrays.asList(fileFingerprints));
+    }
+
+    @Test
+    public void testScriptEditedDuringLoad() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-input-snapshot-test");
+        try {
+            Path buildScript = tmpDir.resolve("build.gradle");
+            writeScript(buildScript, "apply plugin: 'java'");
+            ModelInputFingerprint beforeEdit = currentFingerprint(buildScript);
+
+            ModelInputSnapshot snapshot = ModelInputSnapshot.capture(buildInputs(), Arrays.asList(buildScript));
+            writeScript(buildScript, "apply plugin: 'groovy'");
+
+            ModelInputFingerprint saved = snapshot.tryGetFingerprint(Arrays.asList(buildScript));
+            assertEquals(beforeEdit, saved);
+            assertFalse(saved.equals(currentFingerprint(buildScript)));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testNewScriptEditedDuringLoad() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-input-snapshot-test");
+        try {
+            Path buildScript = tmpDir.resolve("build.gradle");
+            writeScript(buildScript, "apply plugin: 'java'");
+
+            ModelInputSnapshot snapshot = ModelInputSnapshot.capture(
+                    buildInputs(),
+                    Collections.<Path>emptyList());
+            writeScript(buildScript, "apply plugin: 'groovy'");
+
+            assertNull(snapshot.tryGetFingerprint(Arrays.asList(buildScript)));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testNewScriptNotEditedDuringLoad() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-input-snapshot-test");
+        try {
+            Path buildScript = tmpDir.resolve("build.gradle");
+            Path missingFile = tmpDir.resolve("gradle.properties");
+            writeScript(buildScript, "apply plugin: 'java'");
+            setOldModifiedTime(buildScript);
+
+            ModelInputSnapshot snapshot = ModelInputSnapshot.capture(
+                    buildInputs(),
+                    Collections.<Path>emptyList());
+
+            assertEquals(
+                    currentFingerprint(buildScript, missingFile),
+                    snapshot.tryGetFingerprint(Arrays.asList(buildScript, missingFile)));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testRecentFileFingerprintsAreReused() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-input-snapshot-test");
+        try {
+            Path buildScript = tmpDir.resolve("build.gradle");
+            writeScript(buildScript, "apply plugin: 'java'");
+            ModelInputFingerprint original = ModelInputFingerprint.ofFile(buildScript);
+
+            RecentFileFingerprints reused = new RecentFileFingerprints(1, TimeUnit.HOURS);
+            RecentFileFingerprints notReused = new RecentFileFingerprints(0, TimeUnit.NANOSECONDS);
+            assertEquals(original, reused.getFingerprint(buildScript));
+            assertEquals(original, notReused.getFingerprint(buildScript));
+
+            writeScript(buildScript, "apply plugin: 'groovy'");
+            ModelInputFingerprint edited = ModelInputFingerprint.ofFile(buildScript);
+
+            assertEquals(original, reused.getFingerprint(buildScript));
+            assertEquals(edited, notReused.getFingerprint(buildScript));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.netbeans.gradle.project.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.file.Paths;
 import org.junit.Test;
 import org.netbeans.gradle.model.util.SerializationUtils;
@@ -21,4 +24,27 @@ public class NbGenericModelInfoTest {
                 source.getSettingsFile().toString(),
                 deserialized.getSettingsFile().toString());
     }
+
+    @Test
+    public void testCompactFormat() throws IOException {
+        NbGradleMultiProjectDef projectDef = createTestMultiProject();
+        NbGenericModelInfo source = new NbGenericModelInfo(projectDef, Paths.get("settings.gradle"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompactModelOutput output = new CompactModelOutput(bytes);
+        DefaultModelFormats.writeGenericInfo(source, output);
+        output.flush();
+
+        CompactModelInput input = new CompactModelInput(new ByteArrayInputStream(bytes.toByteArray()));
+        NbGenericModelInfo deserialized = DefaultModelFormats.readGenericInfo(input);
+
+        assertEquals(source.getProjectDir(), deserialized.getProjectDir());
+        assertEquals(source.getSettingsFile(), deserialized.getSettingsFile());
+        assertEquals(
+                source.getMainProject().getProjectFullName(),
+                deserialized.getMainProject().getProjectFullName());
+        assertEquals(
+                source.getProjectDef().getRootProject().getChildren().size(),
+                deserialized.getProjectDef().getRootProject().getChildren().size());
+    }
 }
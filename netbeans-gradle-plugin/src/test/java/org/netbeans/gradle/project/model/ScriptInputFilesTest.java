@@ -0,0 +1,92 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.jtrim.cancel.Cancellation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.netbeans.gradle.project.util.StringUtils;
+
+import static org.junit.Assert.*;
+
+public class ScriptInputFilesTest {
+    private Path rootDir;
+
+    @Before
+    public void setUp() throws IOException {
+        rootDir = Files.createTempDirectory("nb-script-inputs-test");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, rootDir);
+    }
+
+    private static Path writeFile(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StringUtils.UTF8));
+        return file;
+    }
+
+    @Test
+    public void testAppliedScriptsAreFoundTransitively() throws IOException {
+        Path projectDir = rootDir.resolve("subproject");
+        Path buildScript = writeFile(projectDir.resolve("build.gradle"),
+                "apply plugin: 'java'\n"
+                + "apply from: 'local.gradle'\n"
+                + "apply(from: rootProject.file(\"gradle/root.gradle\"))\n");
+        writeFile(projectDir.resolve("local.gradle"),
+                "apply from: \"$rootDir/gradle/shared.gradle\"\n");
+        writeFile(rootDir.resolve("gradle").resolve("shared.gradle"),
+                "apply from: file('local.gradle')\n");
+
+        assertEquals(
+                Arrays.asList(
+                        projectDir.resolve("local.gradle"),
+                        rootDir.resolve("gradle").resolve("root.gradle"),
+                        rootDir.resolve("gradle").resolve("shared.gradle")),
+                ScriptInputFiles.getAppliedScripts(buildScript, projectDir, rootDir));
+    }
+
+    @Test
+    public void testNoAppliedScripts() throws IOException {
+        Path buildScript = writeFile(rootDir.resolve("build.gradle"), "apply plugin: 'java'\n");
+
+        assertTrue(ScriptInputFiles.getAppliedScripts(buildScript, rootDir, rootDir).isEmpty());
+        assertTrue(ScriptInputFiles.getAppliedScripts(rootDir.resolve("missing.gradle"), rootDir, rootDir).isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRemoteScriptIsNotResolved() throws IOException {
+        Path buildScript = writeFile(rootDir.resolve("build.gradle"),
+                "apply from: 'https://example.com/shared.gradle'\n");
+        ScriptInputFiles.getAppliedScripts(buildScript, rootDir, rootDir);
+    }
+
+    @Test(expected = IOException.class)
+    public void testComputedScriptPathIsNotResolved() throws IOException {
+        Path buildScript = writeFile(rootDir.resolve("build.gradle"),
+                "apply from: \"${sharedDir}/shared.gradle\"\n");
+        ScriptInputFiles.getAppliedScripts(buildScript, rootDir, rootDir);
+    }
+
+    @Test
+    public void testBuildSrcFilesExcludeOutput() throws IOException {
+        Path buildSrcDir = rootDir.resolve("buildSrc");
+        Path buildSrcScript = writeFile(buildSrcDir.resolve("build.gradle"), "apply plugin: 'groovy'\n");
+        Path source = writeFile(buildSrcDir.resolve("src/main/groovy/build/MyTask.groovy"), "class MyTask { }\n");
+        writeFile(buildSrcDir.resolve("build/classes/main/MyTask.class"), "");
+        writeFile(buildSrcDir.resolve(".gradle/2.4/taskArtifacts/cache.properties"), "");
+
+        assertEquals(Arrays.asList(buildSrcScript, source), ScriptInputFiles.getBuildSrcFiles(rootDir));
+    }
+
+    @Test
+    public void testNoBuildSrc() throws IOException {
+        assertTrue(ScriptInputFiles.getBuildSrcFiles(rootDir).isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jtrim.cancel.Cancellation;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+
+import static org.junit.Assert.*;
+
+public class SingleFileModelCacheTest {
+    private static byte[] content(int length, int seed) {
+        byte[] result = new byte[length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte)(i * 31 + seed);
+        }
+        return result;
+    }
+
+    private static void write(SingleFileModelCache.ModelStore store, String key, byte[] content) throws IOException {
+        store.writeRecords(Collections.singletonMap(key, content));
+    }
+
+    private static List<Path> listFileNames(Path dir) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file: files) {
+                result.add(file.getFileName());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testAppendAndReload() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-model-store-test");
+        try {
+            Path storeFile = tmpDir.resolve("project-models.bin");
+
+            SingleFileModelCache.ModelStore store1 = new SingleFileModelCache.ModelStore(storeFile);
+            assertNull(store1.tryReadRecord(":app"));
+
+            Map<String, byte[]> records = new LinkedHashMap<>();
+            records.put(":app", content(100, 1));
+            records.put(":lib", content(200, 2));
+            store1.writeRecords(records);
+            write(store1, ":app", content(150, 3));
+
+            assertArrayEquals(content(150, 3), store1.tryReadRecord(":app"));
+            assertArrayEquals(content(200, 2), store1.tryReadRecord(":lib"));
+
+            SingleFileModelCache.ModelStore store2 = new SingleFileModelCache.ModelStore(storeFile);
+            assertArrayEquals(content(150, 3), store2.tryReadRecord(":app"));
+            assertArrayEquals(content(200, 2), store2.tryReadRecord(":lib"));
+            assertNull(store2.tryReadRecord(":other"));
+            assertEquals(Files.size(storeFile), store2.getStoreSize());
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testIgnoresPartiallyWrittenRecord() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-model-store-test");
+        try {
+            Path storeFile = tmpDir.resolve("project-models.bin");
+
+            SingleFileModelCache.ModelStore store1 = new SingleFileModelCache.ModelStore(storeFile);
+            write(store1, ":app", content(100, 1));
+            long validSize = Files.size(storeFile);
+            write(store1, ":lib", content(100, 2));
+
+            try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validSize + 20);
+            }
+
+            SingleFileModelCache.ModelStore store2 = new SingleFileModelCache.ModelStore(storeFile);
+            assertArrayEquals(content(100, 1), store2.tryReadRecord(":app"));
+            assertNull(store2.tryReadRecord(":lib"));
+
+            write(store2, ":lib", content(100, 3));
+
+            SingleFileModelCache.ModelStore store3 = new SingleFileModelCache.ModelStore(storeFile);
+            assertArrayEquals(content(100, 1), store3.tryReadRecord(":app"));
+            assertArrayEquals(content(100, 3), store3.tryReadRecord(":lib"));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-model-store-test");
+        try {
+            Path storeFile = tmpDir.resolve("project-models.bin");
+            int recordSize = 300 * 1024;
+
+            SingleFileModelCache.ModelStore store = new SingleFileModelCache.ModelStore(storeFile);
+            write(store, ":lib", content(1000, 0));
+
+            long maxSize = 0;
+            for (int i = 0; i < 10; i++) {
+                write(store, ":app", content(recordSize, i));
+                maxSize = Math.max(maxSize, Files.size(storeFile));
+
+                assertArrayEquals(content(recordSize, i), store.tryReadRecord(":app"));
+            }
+
+            // Without compaction the file would contain all the 10 records.
+            assertTrue(maxSize < 5 * recordSize);
+            assertEquals(Files.size(storeFile), store.getStoreSize());
+
+            SingleFileModelCache.ModelStore reloaded = new SingleFileModelCache.ModelStore(storeFile);
+            assertArrayEquals(content(recordSize, 9), reloaded.tryReadRecord(":app"));
+            assertArrayEquals(content(1000, 0), reloaded.tryReadRecord(":lib"));
+            assertEquals(Arrays.asList(storeFile.getFileName()), listFileNames(tmpDir));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+}
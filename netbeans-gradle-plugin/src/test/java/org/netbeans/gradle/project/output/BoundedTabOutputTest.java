@@ -0,0 +1,145 @@
+package org.netbeans.gradle.project.output;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.openide.util.Lookup;
+import org.openide.util.lookup.Lookups;
+import org.openide.windows.IOColorPrint;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BoundedTabOutputTest {
+    private static String repeat(char ch, int count) {
+        StringBuilder result = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            result.append(ch);
+        }
+        return result.toString();
+    }
+
+    private static InputOutput mockIo(PrintLog log) {
+        InputOutput io = mock(InputOutput.class, withSettings().extraInterfaces(Lookup.Provider.class));
+        when(io.getOut()).thenReturn(new TestOutputWriter(log));
+        when(io.getErr()).thenReturn(new TestOutputWriter(log));
+        when(((Lookup.Provider)io).getLookup()).thenReturn(Lookups.singleton(new TestColorPrint(log)));
+        return io;
+    }
+
+    @Test
+    public void testLinkIsStillALinkAfterSpill() throws IOException {
+        OutputListener listener = mock(OutputListener.class);
+        PrintLog log = new PrintLog();
+        InputOutput io = mockIo(log);
+
+        BoundedTabOutput output = new BoundedTabOutput(io, 100);
+        try {
+            OutputWriter out = output.getOut();
+            out.print(repeat('a', 80));
+            BoundedTabOutput.printLink(io, out, "Link.java:10", listener);
+            assertEquals(Arrays.asList("link:Link.java:10"), log.getLinks());
+            assertEquals(0, log.getResetCount());
+
+            out.print(repeat('b', 10));
+            assertEquals(1, log.getResetCount());
+
+            List<String> reprinted = log.getEventsAfterLastReset();
+            assertEquals(3, reprinted.size());
+            assertTrue(reprinted.get(0).startsWith("line:"));
+            assertEquals("link:Link.java:10", reprinted.get(1));
+            assertEquals("text:" + repeat('b', 10), reprinted.get(2));
+
+            assertEquals(Arrays.asList(listener, listener), log.getLinkListeners());
+        } finally {
+            output.close();
+        }
+    }
+
+    private static final class PrintLog {
+        private final List<String> events = new ArrayList<>();
+        private final List<OutputListener> linkListeners = new ArrayList<>();
+
+        public synchronized void add(String event) {
+            events.add(event);
+        }
+
+        public synchronized void addLink(CharSequence text, OutputListener listener) {
+            events.add("link:" + text);
+            linkListeners.add(listener);
+        }
+
+        public synchronized List<String> getLinks() {
+            List<String> result = new ArrayList<>();
+            for (String event: events) {
+                if (event.startsWith("link:")) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+
+        public synchronized List<OutputListener> getLinkListeners() {
+            return new ArrayList<>(linkListeners);
+        }
+
+        public synchronized int getResetCount() {
+            int result = 0;
+            for (String event: events) {
+                if ("reset".equals(event)) {
+                    result++;
+                }
+            }
+            return result;
+        }
+
+        public synchronized List<String> getEventsAfterLastReset() {
+            int resetIndex = events.lastIndexOf("reset");
+            return new ArrayList<>(events.subList(resetIndex + 1, events.size()));
+        }
+    }
+
+    private static final class TestColorPrint extends IOColorPrint {
+        private final PrintLog log;
+
+        public TestColorPrint(PrintLog log) {
+            this.log = log;
+        }
+
+        @Override
+        protected void print(CharSequence text, OutputListener listener, boolean important, Color color) {
+            log.addLink(text, listener);
+        }
+    }
+
+    private static final class TestOutputWriter extends OutputWriter {
+        private final PrintLog log;
+
+        public TestOutputWriter(PrintLog log) {
+            super(new StringWriter());
+            this.log = log;
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            log.add("text:" + s.substring(off, off + len));
+        }
+
+        @Override
+        public void println(String s, OutputListener l) {
+            log.add("line:" + s);
+        }
+
+        @Override
+        public void reset() {
+            log.add("reset");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.netbeans.gradle.project.output;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -168,13 +169,52 @@ public class IOTabMaintainerTest {
         assertEquals("tab1 #2", tabRef2.getTab().caption);
     }
 
+    @Test
+    public void testClosedTabIsReleased() {
+        IOTabMaintainer<Integer, Tab> maintainer = create();
+
+        Tab closedTab;
+        try (IOTabRef<Tab> tabRef = maintainer.getTab(1, "tab1")) {
+            closedTab = tabRef.getTab();
+        }
+
+        Tab otherTab;
+        try (IOTabRef<Tab> tabRef = maintainer.getTab(2, "tab2")) {
+            otherTab = tabRef.getTab();
+        }
+
+        closedTab.close();
+        assertEquals(0, closedTab.getReleaseCount());
+
+        IOTabRef<Tab> tabRef = maintainer.getTab(1, "tab1");
+        assertNotSame(closedTab, tabRef.getTab());
+        assertEquals(1, closedTab.getReleaseCount());
+
+        otherTab.close();
+        maintainer.getTab(3, "tab3");
+        maintainer.getTab(2, "tab2");
+        assertEquals(1, otherTab.getReleaseCount());
+        assertEquals(1, closedTab.getReleaseCount());
+    }
+
     private static final class Tab implements IOTabDef {
         public final String caption;
         private volatile boolean closed;
+        private final AtomicInteger releaseCount;
 
         public Tab(String caption) {
             this.caption = caption;
             this.closed = false;
+            this.releaseCount = new AtomicInteger(0);
+        }
+
+        public int getReleaseCount() {
+            return releaseCount.get();
+        }
+
+        @Override
+        public void release() {
+            releaseCount.incrementAndGet();
         }
 
         public void close() {
@@ -0,0 +1,57 @@
+package org.netbeans.gradle.project.output;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LineFeaturesTest {
+    private static void assertFeatures(String line, int expectedFeatures) {
+        assertEquals(line, expectedFeatures, LineFeatures.getFeatures(line));
+    }
+
+    @Test
+    public void testPlainLine() {
+        assertFeatures("", LineFeatures.NONE);
+        assertFeatures("BUILD SUCCESSFUL", LineFeatures.NONE);
+        assertFeatures("Total time: 1.5 secs", LineFeatures.COLON);
+    }
+
+    @Test
+    public void testStackFrame() {
+        assertFeatures("\tat com.foo.Bar.baz(Bar.java:42)",
+                LineFeatures.STACK_FRAME | LineFeatures.COLON);
+        assertFeatures("at the start", LineFeatures.NONE);
+        assertFeatures("look at", LineFeatures.NONE);
+        assertFeatures("that is", LineFeatures.NONE);
+    }
+
+    @Test
+    public void testUrl() {
+        assertFeatures("see http://www.gradle.org",
+                LineFeatures.URL_SEPARATOR | LineFeatures.COLON | LineFeatures.PATH_SEPARATOR);
+        assertFeatures("http:/", LineFeatures.COLON | LineFeatures.PATH_SEPARATOR);
+    }
+
+    @Test
+    public void testPath() {
+        assertFeatures("/home/user", LineFeatures.PATH_SEPARATOR);
+        assertFeatures("C:\\Users", LineFeatures.PATH_SEPARATOR | LineFeatures.COLON);
+    }
+
+    @Test
+    public void testPartOfLine() {
+        String line = "http://host x";
+        assertEquals(LineFeatures.NONE, LineFeatures.getFeatures(line, 0, 4));
+        assertEquals(LineFeatures.COLON, LineFeatures.getFeatures(line, 4, 5));
+        assertEquals(LineFeatures.PATH_SEPARATOR, LineFeatures.getFeatures(line, 5, line.length()));
+    }
+
+    @Test
+    public void testHasFeatures() {
+        int features = LineFeatures.COLON | LineFeatures.PATH_SEPARATOR;
+        assertTrue(LineFeatures.hasFeatures(features, LineFeatures.NONE));
+        assertTrue(LineFeatures.hasFeatures(features, LineFeatures.COLON));
+        assertTrue(LineFeatures.hasFeatures(features, features));
+        assertFalse(LineFeatures.hasFeatures(features, LineFeatures.COLON | LineFeatures.STACK_FRAME));
+    }
+}
@@ -0,0 +1,76 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OutputLinkPrinterTest {
+    private static final Runnable NO_ACTION = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private static OutputLinkFinder countingFinder(
+            final int requiredFeatures,
+            final String linkText,
+            final AtomicInteger callCount) {
+
+        return new OutputLinkFinder() {
+            @Override
+            public int getRequiredLineFeatures() {
+                return requiredFeatures;
+            }
+
+            @Override
+            public OutputLinkDef tryFindLink(String line) {
+                callCount.incrementAndGet();
+                int index = line.indexOf(linkText);
+                return index >= 0
+                        ? new OutputLinkDef(index, index + linkText.length(), NO_ACTION)
+                        : null;
+            }
+        };
+    }
+
+    @Test
+    public void testLineWithoutRequiredFeatures() {
+        AtomicInteger callCount = new AtomicInteger(0);
+        OutputLinkPrinter printer = new OutputLinkPrinter(
+                countingFinder(LineFeatures.URL_SEPARATOR, "://", callCount),
+                countingFinder(LineFeatures.STACK_FRAME, " at ", callCount));
+
+        assertNull(printer.tryConsumeLine("BUILD SUCCESSFUL"));
+        assertNull(printer.tryConsumeLine("C:\\Users"));
+        assertEquals(0, callCount.get());
+    }
+
+    @Test
+    public void testOnlyMatchingFindersAreCalled() {
+        AtomicInteger urlCallCount = new AtomicInteger(0);
+        AtomicInteger stackCallCount = new AtomicInteger(0);
+        OutputLinkPrinter printer = new OutputLinkPrinter(
+                countingFinder(LineFeatures.URL_SEPARATOR, "http://host", urlCallCount),
+                countingFinder(LineFeatures.STACK_FRAME, "Bar.java", stackCallCount));
+
+        SmartOutputHandler.LinePrinter linePrinter = printer.tryConsumeLine("see http://host");
+        assertNotNull(linePrinter);
+        assertTrue(linePrinter.resolve());
+
+        assertTrue(urlCallCount.get() > 0);
+        assertEquals(0, stackCallCount.get());
+    }
+
+    @Test
+    public void testNoLinkFound() {
+        AtomicInteger callCount = new AtomicInteger(0);
+        OutputLinkPrinter printer = new OutputLinkPrinter(
+                countingFinder(LineFeatures.NONE, "link", callCount));
+
+        SmartOutputHandler.LinePrinter linePrinter = printer.tryConsumeLine("plain");
+        assertNotNull(linePrinter);
+        assertFalse(linePrinter.resolve());
+        assertEquals(1, callCount.get());
+    }
+}
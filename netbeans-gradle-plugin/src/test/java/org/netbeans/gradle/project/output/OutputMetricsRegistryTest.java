@@ -0,0 +1,51 @@
+package org.netbeans.gradle.project.output;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OutputMetricsRegistryTest {
+    private static Set<ObjectName> findRegistered(String caption) throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        return server.queryNames(new ObjectName("org.netbeans.gradle:type=OutputTab,name="
+                + ObjectName.quote(caption) + ",*"), null);
+    }
+
+    @Test
+    public void testEnabledBySystemProperty() {
+        String prevValue = System.getProperty(OutputMetricsRegistry.ENABLED_PROPERTY);
+        try {
+            System.clearProperty(OutputMetricsRegistry.ENABLED_PROPERTY);
+            assertFalse(OutputMetricsRegistry.isEnabled());
+
+            System.setProperty(OutputMetricsRegistry.ENABLED_PROPERTY, "true");
+            assertTrue(OutputMetricsRegistry.isEnabled());
+        } finally {
+            if (prevValue != null) {
+                System.setProperty(OutputMetricsRegistry.ENABLED_PROPERTY, prevValue);
+            }
+            else {
+                System.clearProperty(OutputMetricsRegistry.ENABLED_PROPERTY);
+            }
+        }
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        String caption = "OutputMetricsRegistryTest.testUnregister";
+        OutputMetrics metrics = new OutputMetrics();
+
+        OutputMetricsRegistry.register(caption, metrics);
+        assertEquals(1, findRegistered(caption).size());
+
+        OutputMetricsRegistry.unregister(metrics);
+        assertTrue(findRegistered(caption).isEmpty());
+
+        // Unregistering again must be a no-op.
+        OutputMetricsRegistry.unregister(metrics);
+    }
+}
@@ -3,6 +3,7 @@ package org.netbeans.gradle.project.output;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
 import java.nio.charset.Charset;
 import org.junit.Test;
@@ -194,4 +195,42 @@ public class ReaderInputStreamTest {
         byte[] bytes = readAllBytesWithOffsets(reader, charCount);
         assertEquals(text, new String(bytes, charset));
     }
+
+    @Test
+    public void testReturnsWithoutWaitingForMoreChars() throws IOException {
+        Reader reader = new Reader() {
+            private boolean readOnce = false;
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                if (readOnce) {
+                    throw new AssertionError("Unexpected read.");
+                }
+                readOnce = true;
+
+                cbuf[off] = 'a';
+                cbuf[off + 1] = 'b';
+                return 2;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        ReaderInputStream input = new ReaderInputStream(reader, StringUtils.UTF8);
+        byte[] buffer = new byte[4096];
+        assertEquals(2, input.read(buffer));
+        assertEquals('a', buffer[0]);
+        assertEquals('b', buffer[1]);
+    }
+
+    @Test
+    public void testReplacesUnmappableChars() throws IOException {
+        Charset charset = Charset.forName("US-ASCII");
+        ReaderInputStream input = new ReaderInputStream(new StringReader("a\u00E9b"), charset);
+
+        byte[] bytes = readAllBytes(input, 1024);
+        assertEquals("a?b", new String(bytes, charset));
+    }
 }
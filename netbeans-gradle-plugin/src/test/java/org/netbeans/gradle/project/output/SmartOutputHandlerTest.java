@@ -0,0 +1,385 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.CleanupTask;
+import org.jtrim.concurrent.ManualTaskExecutor;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.jtrim.concurrent.TaskExecutor;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SmartOutputHandlerTest {
+    private static final String NL = System.lineSeparator();
+
+    private static String lines(String... lines) {
+        StringBuilder result = new StringBuilder();
+        for (String line: lines) {
+            result.append(line);
+            result.append(NL);
+        }
+        return result.toString();
+    }
+
+    private static SmartOutputHandler.Consumer decoratingConsumer(final String prefix) {
+        return new SmartOutputHandler.Consumer() {
+            @Override
+            public SmartOutputHandler.LinePrinter tryConsumeLine(final String line) {
+                if (!line.startsWith(prefix)) {
+                    return null;
+                }
+
+                return new SmartOutputHandler.LinePrinter() {
+                    @Override
+                    public boolean resolve() {
+                        return true;
+                    }
+
+                    @Override
+                    public void printLine(InputOutput ioParent, OutputWriter output) {
+                        output.println("[" + line + "]");
+                    }
+                };
+            }
+        };
+    }
+
+    private static SmartOutputHandler.Consumer hidingConsumer(final String prefix) {
+        return new SmartOutputHandler.Consumer() {
+            @Override
+            public SmartOutputHandler.LinePrinter tryConsumeLine(String line) {
+                return line.startsWith(prefix) ? SmartOutputHandler.NO_OUTPUT : null;
+            }
+        };
+    }
+
+    private static SmartOutputHandler createHandler(
+            CollectingOutputWriter output,
+            ManualTaskExecutor executor,
+            int maxQueuedLines,
+            SmartOutputHandler.Consumer... consumers) {
+        List<TaskOutputProcessor> visitors = Collections.emptyList();
+        return new SmartOutputHandler(
+                mock(InputOutput.class),
+                output,
+                visitors,
+                Arrays.asList(consumers),
+                executor,
+                maxQueuedLines);
+    }
+
+    @Test
+    public void testRecordsMetrics() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        OutputMetrics metrics = new OutputMetrics();
+
+        SmartOutputHandler.Consumer consumer = decoratingConsumer("link");
+        SmartOutputHandler handler = new SmartOutputHandler(
+                mock(InputOutput.class),
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                Arrays.asList(consumer),
+                executor,
+                metrics);
+
+        LineOutputWriter writer = new LineOutputWriter(handler, metrics);
+        writer.write("line1\nlink2\nline3\n");
+
+        assertEquals(3, metrics.getLineCount());
+        assertEquals(18, metrics.getCharCount());
+        assertEquals(3, metrics.getQueuedLines());
+        assertEquals(3, metrics.getMaxQueuedLines());
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(lines("line1", "[link2]", "line3"), output.getText());
+
+        assertEquals(0, metrics.getQueuedLines());
+        assertEquals(3, metrics.getMaxQueuedLines());
+        assertTrue(metrics.getMaxLatencyMillis() >= metrics.getAverageLatencyMillis());
+
+        String consumerKey = "consumer:" + consumer.getClass().getName();
+        assertTrue(metrics.getProcessorTimeMillis().containsKey(consumerKey));
+        assertTrue(metrics.getProcessorTimeMillis().containsKey("output:" + output.getClass().getName()));
+
+        double totalPercent = 0.0;
+        for (Double percent: metrics.getProcessorTimePercent().values()) {
+            totalPercent += percent;
+        }
+        assertEquals(100.0, totalPercent, 0.001);
+
+        metrics.reset();
+        assertEquals(0, metrics.getLineCount());
+        assertTrue(metrics.getProcessorTimeMillis().isEmpty());
+    }
+
+    @Test
+    public void testPrintsInOrder() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        SmartOutputHandler handler = createHandler(output, executor, 100,
+                hidingConsumer("hide"),
+                decoratingConsumer("link"));
+
+        handler.writeLine("line1");
+        handler.writeLine("link2");
+        handler.writeLine("hide3");
+        handler.writeLine("line4");
+        handler.endOfLines();
+
+        assertEquals("", output.getText());
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(lines("line1", "[link2]", "line4"), output.getText());
+    }
+
+    @Test
+    public void testVisitorsAreCalledImmediately() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        TaskOutputProcessor visitor = mock(TaskOutputProcessor.class);
+
+        SmartOutputHandler handler = new SmartOutputHandler(
+                mock(InputOutput.class),
+                output,
+                Arrays.asList(visitor),
+                Collections.<SmartOutputHandler.Consumer>emptyList(),
+                executor);
+
+        handler.writeLine("line1");
+        verify(visitor).processLine("line1");
+    }
+
+    @Test
+    public void testOverloadPrintsPlainText() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        SmartOutputHandler handler = createHandler(output, executor, 2,
+                decoratingConsumer("link"));
+
+        handler.writeLine("link1");
+        handler.writeLine("link2");
+        handler.writeLine("link3");
+        handler.writeLine("link4");
+        handler.endOfLines();
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(lines("[link1]", "[link2]", "link3", "link4"), output.getText());
+    }
+
+    @Test
+    public void testUnresolvedPrinterPrintsPlainText() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        SmartOutputHandler handler = createHandler(output, executor, 100,
+                new SmartOutputHandler.Consumer() {
+                    @Override
+                    public SmartOutputHandler.LinePrinter tryConsumeLine(String line) {
+                        return new SmartOutputHandler.LinePrinter() {
+                            @Override
+                            public boolean resolve() {
+                                return false;
+                            }
+
+                            @Override
+                            public void printLine(InputOutput ioParent, OutputWriter output) {
+                                throw new AssertionError("Unexpected printLine call.");
+                            }
+                        };
+                    }
+                });
+
+        handler.writeLine("line1");
+        handler.writeLine("line2");
+        handler.endOfLines();
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(lines("line1", "line2"), output.getText());
+    }
+
+    @Test
+    public void testOverloadKeepsOrderOfPlainText() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        SmartOutputHandler handler = createHandler(output, executor, 1,
+                hidingConsumer("hide"),
+                decoratingConsumer("link"));
+
+        handler.writeLine("link1");
+        handler.writeLine("line2");
+        handler.writeLine("hide3");
+        handler.writeLine("link4");
+        handler.writeLine("line5");
+        handler.endOfLines();
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(lines("[link1]", "line2", "link4", "line5"), output.getText());
+    }
+
+    @Test
+    public void testFailedResolvePrintsPlainText() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        ManualTaskExecutor executor = new ManualTaskExecutor(false);
+        SmartOutputHandler handler = createHandler(output, executor, 100,
+                new SmartOutputHandler.Consumer() {
+                    @Override
+                    public SmartOutputHandler.LinePrinter tryConsumeLine(String line) {
+                        return new SmartOutputHandler.LinePrinter() {
+                            @Override
+                            public boolean resolve() {
+                                throw new IllegalStateException("Test failure");
+                            }
+
+                            @Override
+                            public void printLine(InputOutput ioParent, OutputWriter output) {
+                                throw new AssertionError("Unexpected printLine call.");
+                            }
+                        };
+                    }
+                });
+
+        handler.writeLine("line1");
+        handler.writeLine("line2");
+        handler.endOfLines();
+
+        executor.executeCurrentlySubmitted();
+        assertEquals(lines("line1", "line2"), output.getText());
+    }
+
+    @Test
+    public void testTooMuchQueuedTextIsPrintedWhileWriting() throws IOException {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        SmartOutputHandler handler = new SmartOutputHandler(
+                mock(InputOutput.class),
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                Collections.<SmartOutputHandler.Consumer>emptyList(),
+                SyncTaskExecutor.getSimpleExecutor());
+
+        char[] longLineChars = new char[600 * 1024];
+        Arrays.fill(longLineChars, 'x');
+        String longLine = new String(longLineChars);
+
+        handler.writeLine(longLine);
+        handler.writeLine(longLine);
+        assertEquals("", output.getText());
+
+        handler.writeLine("line3");
+        assertEquals(lines(longLine, longLine), output.getText());
+
+        handler.endOfLines();
+        assertEquals(lines(longLine, longLine, "line3"), output.getText());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedFlushDoesNotBlockClose() throws Exception {
+        CollectingOutputWriter output = new CollectingOutputWriter() {
+            @Override
+            public void flush() {
+                throw new IllegalStateException("Test failure");
+            }
+        };
+        SmartOutputHandler handler = new SmartOutputHandler(
+                mock(InputOutput.class),
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                Collections.<SmartOutputHandler.Consumer>emptyList(),
+                new ThreadPerTaskExecutor());
+
+        handler.writeLine("line1");
+        handler.close();
+
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWaitsForOutput() throws Exception {
+        CollectingOutputWriter output = new CollectingOutputWriter();
+        SmartOutputHandler handler = new SmartOutputHandler(
+                mock(InputOutput.class),
+                output,
+                Collections.<TaskOutputProcessor>emptyList(),
+                Arrays.asList(decoratingConsumer("link")),
+                new ThreadPerTaskExecutor());
+
+        handler.writeLine("line1");
+        handler.writeLine("link2");
+        handler.close();
+
+        assertEquals(lines("line1", "[link2]"), output.getText());
+    }
+
+    private static final class ThreadPerTaskExecutor implements TaskExecutor {
+        @Override
+        public void execute(
+                final CancellationToken cancelToken,
+                final CancelableTask task,
+                final CleanupTask cleanupTask) {
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable error = null;
+                    try {
+                        task.execute(cancelToken);
+                    } catch (Throwable ex) {
+                        error = ex;
+                    }
+
+                    if (cleanupTask != null) {
+                        try {
+                            cleanupTask.cleanup(false, error);
+                        } catch (Throwable ex) {
+                            ex.printStackTrace();
+                        }
+                    }
+                }
+            });
+            thread.start();
+        }
+    }
+
+    private static class CollectingOutputWriter extends OutputWriter {
+        private final StringWriter text;
+
+        public CollectingOutputWriter() {
+            this(new StringWriter());
+        }
+
+        private CollectingOutputWriter(StringWriter text) {
+            super(text);
+            this.text = text;
+        }
+
+        public String getText() {
+            flush();
+            return text.toString();
+        }
+
+        @Override
+        public void println(String s) {
+            print(s);
+            print(NL);
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+            println(s);
+        }
+
+        @Override
+        public void reset() throws IOException {
+        }
+    }
+}
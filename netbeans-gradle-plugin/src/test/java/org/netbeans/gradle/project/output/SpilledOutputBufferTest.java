@@ -0,0 +1,171 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import org.junit.Test;
+import org.openide.windows.OutputListener;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SpilledOutputBufferTest {
+    private static String getAll(SpilledOutputBuffer buffer) throws IOException {
+        StringWriter result = new StringWriter();
+        buffer.writeAll(result);
+        return result.toString();
+    }
+
+    private static String getLast(SpilledOutputBuffer.Snapshot snapshot, long maxChars) throws IOException {
+        StringWriter result = new StringWriter();
+        snapshot.writeTo(result, maxChars);
+        return result.toString();
+    }
+
+    private static String repeat(char ch, int count) {
+        StringBuilder result = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            result.append(ch);
+        }
+        return result.toString();
+    }
+
+    private static String concat(List<SpilledOutputBuffer.Segment> segments) {
+        StringBuilder result = new StringBuilder();
+        for (SpilledOutputBuffer.Segment segment: segments) {
+            result.append(segment.getText());
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void testBelowLimit() throws IOException {
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(100)) {
+            assertFalse(buffer.append("line1\n", false));
+            assertFalse(buffer.append("line2\n", true));
+
+            assertEquals(12, buffer.getMemoryChars());
+            assertEquals(0, buffer.getSpilledChars());
+            assertEquals("line1\nline2\n", getAll(buffer));
+        }
+    }
+
+    @Test
+    public void testSpillMultipleTimes() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(20 * 1024)) {
+            int spillCount = 0;
+            for (int i = 0; i < 10000; i++) {
+                String line = "line " + i + "\n";
+                expected.append(line);
+
+                if (buffer.append(line, i % 3 == 0)) {
+                    List<SpilledOutputBuffer.Segment> remaining = buffer.spillOldest();
+                    assertTrue(buffer.getMemoryChars() <= 10 * 1024);
+                    assertTrue(expected.toString().endsWith(concat(remaining)));
+                    spillCount++;
+                }
+            }
+
+            assertTrue(spillCount > 1);
+            assertEquals(expected.length(), buffer.getSpilledChars() + buffer.getMemoryChars());
+            assertEquals(expected.toString(), getAll(buffer));
+        }
+    }
+
+    @Test
+    public void testSegmentsKeepTheOutputKind() throws IOException {
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(100)) {
+            buffer.append("out1\n", false);
+            buffer.append("out2\n", false);
+            buffer.append("err\n", true);
+            buffer.append("out3\n", false);
+
+            List<SpilledOutputBuffer.Segment> segments = buffer.spillOldest();
+            assertEquals(3, segments.size());
+            assertEquals("out1\nout2\n", segments.get(0).getText());
+            assertFalse(segments.get(0).isError());
+            assertEquals("err\n", segments.get(1).getText());
+            assertTrue(segments.get(1).isError());
+            assertEquals("out3\n", segments.get(2).getText());
+            assertFalse(segments.get(2).isError());
+        }
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(10)) {
+            buffer.append("0123456789ABCDEF", false);
+            buffer.append("GHIJ", true);
+            buffer.spillOldest();
+            assertEquals(16, buffer.getSpilledChars());
+
+            buffer.clear();
+            assertEquals(0, buffer.getSpilledChars());
+            assertEquals(0, buffer.getMemoryChars());
+            assertEquals("", getAll(buffer));
+
+            buffer.append("new", true);
+            assertEquals("new", getAll(buffer));
+        }
+    }
+
+    @Test
+    public void testLinksAreKeptAfterSpill() throws IOException {
+        OutputListener listener = mock(OutputListener.class);
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(100)) {
+            assertFalse(buffer.append(repeat('a', 80), false));
+            assertFalse(buffer.appendLink("Link.java:10", true, listener, true));
+            assertTrue(buffer.append(repeat('b', 10), true));
+
+            List<SpilledOutputBuffer.Segment> segments = buffer.spillOldest();
+            assertEquals(2, segments.size());
+
+            SpilledOutputBuffer.Segment link = segments.get(0);
+            assertEquals("Link.java:10", link.getText());
+            assertSame(listener, link.getListener());
+            assertTrue(link.isImportant());
+            assertTrue(link.isError());
+
+            SpilledOutputBuffer.Segment text = segments.get(1);
+            assertEquals(repeat('b', 10), text.getText());
+            assertNull(text.getListener());
+
+            assertEquals(repeat('a', 80) + "Link.java:10" + repeat('b', 10), getAll(buffer));
+        }
+    }
+
+    @Test
+    public void testSnapshotWritesOnlyTheLastChars() throws IOException {
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(10)) {
+            buffer.append("0123456789ABCDEF", false);
+            buffer.append("GHIJ", true);
+            buffer.spillOldest();
+            buffer.append("KL", false);
+
+            SpilledOutputBuffer.Snapshot snapshot = buffer.snapshot();
+            assertEquals(22, snapshot.getTotalChars());
+            assertEquals("0123456789ABCDEFGHIJKL", getLast(snapshot, Long.MAX_VALUE));
+            assertEquals("EFGHIJKL", getLast(snapshot, 8));
+            assertEquals("JKL", getLast(snapshot, 3));
+            assertEquals("", getLast(snapshot, 0));
+        }
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterOutput() throws IOException {
+        try (SpilledOutputBuffer buffer = new SpilledOutputBuffer(10)) {
+            buffer.append("0123456789ABCDEF", false);
+            buffer.append("GHIJ", true);
+            buffer.spillOldest();
+
+            SpilledOutputBuffer.Snapshot snapshot = buffer.snapshot();
+
+            buffer.append("KLMNOPQRSTUVWXYZ", false);
+            buffer.spillOldest();
+
+            assertEquals("0123456789ABCDEFGHIJ", getLast(snapshot, Long.MAX_VALUE));
+            assertEquals("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ", getAll(buffer));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.netbeans.gradle.project.output;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.openide.filesystems.FileObject;
+
+import static org.junit.Assert.*;
+
+public class StackTraceSourceCacheTest {
+    @Test
+    public void testLookupIsCached() {
+        CountingSourceFinder sourceFinder = new CountingSourceFinder();
+        StackTraceSourceCache cache = new StackTraceSourceCache(null, sourceFinder);
+
+        assertNull(cache.tryFindSourceFile("com/foo/", "Bar"));
+        assertNull(cache.tryFindSourceFile("com/foo/", "Bar"));
+
+        assertEquals(1, sourceFinder.getLookupCount());
+        assertEquals("com/foo/Bar.class", sourceFinder.getResourceNames().get(0));
+    }
+
+    @Test
+    public void testInvalidateDropsCachedLookup() {
+        CountingSourceFinder sourceFinder = new CountingSourceFinder();
+        StackTraceSourceCache cache = new StackTraceSourceCache(null, sourceFinder);
+
+        cache.tryFindSourceFile("com/foo/", "Bar");
+        cache.tryFindSourceFile("com/foo/", "Baz");
+        cache.invalidate();
+
+        cache.tryFindSourceFile("com/foo/", "Bar");
+        cache.tryFindSourceFile("com/foo/", "Baz");
+
+        assertEquals(4, sourceFinder.getLookupCount());
+    }
+
+    @Test
+    public void testLookupDuringClassPathChangeIsNotCached() {
+        final StackTraceSourceCache[] cacheRef = new StackTraceSourceCache[1];
+        CountingSourceFinder sourceFinder = new CountingSourceFinder() {
+            @Override
+            public FileObject tryFindSourceFile(String resourceName, String path) {
+                FileObject result = super.tryFindSourceFile(resourceName, path);
+                if (getLookupCount() == 1) {
+                    // The class paths change while the first lookup is
+                    // in progress.
+                    cacheRef[0].invalidate();
+                }
+                return result;
+            }
+        };
+        StackTraceSourceCache cache = new StackTraceSourceCache(null, sourceFinder);
+        cacheRef[0] = cache;
+
+        cache.tryFindSourceFile("com/foo/", "Bar");
+        cache.tryFindSourceFile("com/foo/", "Bar");
+        cache.tryFindSourceFile("com/foo/", "Bar");
+
+        assertEquals(2, sourceFinder.getLookupCount());
+    }
+
+    private static class CountingSourceFinder implements StackTraceSourceCache.SourceFinder {
+        private final List<String> resourceNames = new ArrayList<>();
+
+        @Override
+        public FileObject tryFindSourceFile(String resourceName, String path) {
+            resourceNames.add(resourceName);
+            return null;
+        }
+
+        public int getLookupCount() {
+            return resourceNames.size();
+        }
+
+        public List<String> getResourceNames() {
+            return resourceNames;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WriterOutputStreamTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Contains characters encoded on 2, 3 and 4 bytes in UTF-8.
+    private static final String MULTI_BYTE_TEXT = "árvíztűrő 日本語 😀 €";
+
+    private static String writeInChunks(String text, Charset charset, int... chunkLengths) throws IOException {
+        StringWriter result = new StringWriter();
+        WriterOutputStream output = new WriterOutputStream(result, charset);
+
+        byte[] bytes = text.getBytes(charset);
+
+        int chunkIndex = 0;
+        int offset = 0;
+        while (offset < bytes.length) {
+            int length = Math.min(bytes.length - offset, chunkLengths[chunkIndex]);
+            chunkIndex = (chunkIndex + 1) % chunkLengths.length;
+
+            if (length == 1) {
+                output.write(bytes[offset]);
+            }
+            else {
+                output.write(bytes, offset, length);
+            }
+            offset += length;
+        }
+
+        output.close();
+        return result.toString();
+    }
+
+    private static void testWriteInChunks(String text, int... chunkLengths) throws IOException {
+        assertEquals(text, writeInChunks(text, UTF8, chunkLengths));
+    }
+
+    @Test
+    public void testSingleChunk() throws IOException {
+        testWriteInChunks(MULTI_BYTE_TEXT, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testSingleByteChunks() throws IOException {
+        testWriteInChunks(MULTI_BYTE_TEXT, 1);
+    }
+
+    @Test
+    public void testCharactersSplitBetweenChunks() throws IOException {
+        testWriteInChunks(MULTI_BYTE_TEXT, 2);
+        testWriteInChunks(MULTI_BYTE_TEXT, 3);
+        testWriteInChunks(MULTI_BYTE_TEXT, 1, 2, 3, 4, 5);
+        testWriteInChunks(MULTI_BYTE_TEXT, 5, 4, 3, 2, 1);
+    }
+
+    @Test
+    public void testLongText() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(MULTI_BYTE_TEXT);
+        }
+
+        testWriteInChunks(text.toString(), 7, 8192, 3);
+    }
+
+    @Test
+    public void testIncompleteCharacterAtClose() throws IOException {
+        StringWriter result = new StringWriter();
+        WriterOutputStream output = new WriterOutputStream(result, UTF8);
+
+        byte[] euroSign = "€".getBytes(UTF8);
+        output.write('a');
+        output.write(euroSign, 0, euroSign.length - 1);
+        output.close();
+
+        String str = result.toString();
+        assertEquals(2, str.length());
+        assertEquals('a', str.charAt(0));
+    }
+
+    @Test
+    public void testLineOutput() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        LineOutputWriter writer = new LineOutputWriter(new LineOutputWriter.Handler() {
+            @Override
+            public void writeLine(String line) {
+                lines.add(line);
+            }
+
+            @Override
+            public void endOfLines() {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        WriterOutputStream output = new WriterOutputStream(writer, UTF8);
+        byte[] bytes = ("line1\r\n" + MULTI_BYTE_TEXT + "\rline3\n\nlast").getBytes(UTF8);
+        for (byte b: bytes) {
+            output.write(b);
+        }
+        output.close();
+
+        assertEquals(Arrays.asList("line1", MULTI_BYTE_TEXT, "line3", "", "last"), lines);
+    }
+}
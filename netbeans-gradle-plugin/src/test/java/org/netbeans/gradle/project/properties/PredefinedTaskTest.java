@@ -116,6 +116,20 @@ public class PredefinedTaskTest {
         assertEquals(arguments, commandTemplate.getArguments());
         assertEquals(jvmArguments, commandTemplate.getJvmArguments());
         assertTrue(commandTemplate.isBlocking());
+        assertNull(commandTemplate.getStandardInputFile());
+    }
+
+    @Test
+    public void testToCommandTemplateWithStandardInputFile() {
+        List<PredefinedTask.Name> taskNames = createTaskNames(false, "run");
+        List<String> noArgs = Collections.emptyList();
+
+        PredefinedTask task = new PredefinedTask("DISPLAY-NAME", taskNames, noArgs, noArgs, false, "input.txt");
+        assertEquals("input.txt", task.getStandardInputFile());
+        assertEquals("input.txt", task.toCommandTemplate().getStandardInputFile());
+
+        PredefinedTask taskWithoutInput = new PredefinedTask("DISPLAY-NAME", taskNames, noArgs, noArgs, false);
+        assertFalse(task.equals(taskWithoutInput));
     }
 
     private static List<GradleTaskID> gradleTasks(String projectFullName, String... names) {
@@ -0,0 +1,73 @@
+package org.netbeans.gradle.project.properties;
+
+import java.lang.ref.WeakReference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WeakValueHashMapTest {
+    private static void collect(WeakReference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("Value was not collected.", ref.get());
+    }
+
+    @Test
+    public void testKeepsReferencedValues() {
+        WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+        Object value1 = new Object();
+        Object value2 = new Object();
+
+        map.put("key1", value1);
+        map.put("key2", value2);
+
+        assertSame(value1, map.get("key1"));
+        assertSame(value2, map.get("key2"));
+        assertEquals(2, map.size());
+
+        assertSame(value1, map.remove("key1"));
+        assertNull(map.get("key1"));
+        assertEquals(1, map.size());
+    }
+
+    @Test(timeout = 30000)
+    public void testRemovesCollectedValues() throws InterruptedException {
+        WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+        Object value = new Object();
+        WeakReference<Object> valueRef = new WeakReference<>(value);
+
+        map.put("key", value);
+        value = null;
+        collect(valueRef);
+
+        assertNull(map.get("key"));
+        for (int i = 0; i < 100 && !map.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test(timeout = 60000)
+    public void testNewValueSurvivesCollectedValueOfSameKey() throws InterruptedException {
+        WeakValueHashMap<String, Object> map = new WeakValueHashMap<>();
+
+        // The reference of a collected value might only be enqueued after a
+        // new value was added with the same key. This is timing dependent, so
+        // it is attempted multiple times.
+        Object value = new Object();
+        map.put("key", value);
+        for (int i = 0; i < 200; i++) {
+            value = null;
+            System.gc();
+
+            Object newValue = new Object();
+            map.put("key", newValue);
+            value = newValue;
+
+            Thread.sleep(1);
+            assertSame(value, map.get("key"));
+        }
+    }
+}
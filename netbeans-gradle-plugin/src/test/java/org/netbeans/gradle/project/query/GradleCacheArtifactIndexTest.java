@@ -0,0 +1,168 @@
+package org.netbeans.gradle.project.query;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jtrim.cancel.Cancellation;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.NbFileUtils;
+
+import static org.junit.Assert.*;
+
+public class GradleCacheArtifactIndexTest {
+    private static File addArtifact(File filesDir, String hash, String fileName) throws IOException {
+        File versionDir = new File(new File(new File(filesDir, "org.test"), "my-lib"), "1.0");
+        File hashDir = new File(versionDir, hash);
+        Files.createDirectories(hashDir.toPath());
+
+        File result = new File(hashDir, fileName);
+        Files.write(result.toPath(), new byte[0]);
+        return result;
+    }
+
+    private static File setupCache(Path tmpDir) throws IOException {
+        File filesDir = GradleCacheArtifactIndex.getFilesDir(tmpDir.toFile());
+        addArtifact(filesDir, "hash1", "my-lib-1.0.jar");
+        addArtifact(filesDir, "hash2", "my-lib-1.0-sources.jar");
+        addArtifact(filesDir, "hash3", "my-lib-1.0.pom");
+        return filesDir;
+    }
+
+    private static File getBinary(File filesDir) {
+        return new File(filesDir, "org.test/my-lib/1.0/hash1/my-lib-1.0.jar");
+    }
+
+    @Test
+    public void testFindArtifacts() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-artifact-index-test");
+        try {
+            File filesDir = setupCache(tmpDir);
+            File binary = getBinary(filesDir);
+
+            GradleCacheArtifactIndex index = new GradleCacheArtifactIndex(filesDir);
+            assertFalse(index.isIndexed(binary));
+
+            assertTrue(index.update());
+            assertTrue(index.isIndexed(binary));
+            assertEquals(
+                    new File(filesDir, "org.test/my-lib/1.0/hash2/my-lib-1.0-sources.jar"),
+                    index.tryFindArtifact(binary, "my-lib-1.0-sources.jar"));
+            assertNull(index.tryFindArtifact(binary, "my-lib-1.0-javadoc.jar"));
+            assertNull(index.tryFindArtifact(binary, "my-lib-1.0.pom"));
+
+            assertFalse(index.isIndexed(new File(tmpDir.toFile(), "my-lib-1.0.jar")));
+            assertFalse(index.update());
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-artifact-index-test");
+        try {
+            File filesDir = setupCache(tmpDir);
+            File binary = getBinary(filesDir);
+
+            GradleCacheArtifactIndex index = new GradleCacheArtifactIndex(filesDir);
+            index.update();
+
+            File javadoc = addArtifact(filesDir, "hash4", "my-lib-1.0-javadoc.jar");
+            File versionDir = javadoc.getParentFile().getParentFile();
+            // The time resolution of the file system might be too coarse.
+            assertTrue(versionDir.setLastModified(versionDir.lastModified() + 10000));
+
+            assertTrue(index.update());
+            assertEquals(javadoc, index.tryFindArtifact(binary, "my-lib-1.0-javadoc.jar"));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testFindArtifactAddedAfterUpdate() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-artifact-index-test");
+        try {
+            File filesDir = setupCache(tmpDir);
+            File binary = getBinary(filesDir);
+
+            GradleCacheArtifactIndex index = new GradleCacheArtifactIndex(filesDir);
+            index.update();
+            assertNull(index.tryFindArtifact(binary, "my-lib-1.0-javadoc.jar"));
+
+            File javadoc = addArtifact(filesDir, "hash4", "my-lib-1.0-javadoc.jar");
+            File versionDir = javadoc.getParentFile().getParentFile();
+            // The time resolution of the file system might be too coarse.
+            assertTrue(versionDir.setLastModified(versionDir.lastModified() + 10000));
+
+            // Found without updating the whole index.
+            assertEquals(javadoc, index.tryFindArtifact(binary, "my-lib-1.0-javadoc.jar"));
+
+            // The refreshed directory must be reported, so that the index is saved.
+            assertTrue(index.update());
+            assertFalse(index.update());
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testRefreshVersionDirAddedAfterUpdate() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-artifact-index-test");
+        try {
+            File filesDir = setupCache(tmpDir);
+
+            GradleCacheArtifactIndex index = new GradleCacheArtifactIndex(filesDir);
+            index.update();
+
+            File binary = new File(filesDir, "org.test/my-lib/2.0/hash5/my-lib-2.0.jar");
+            Files.createDirectories(binary.getParentFile().toPath());
+            Files.write(binary.toPath(), new byte[0]);
+            File sources = new File(filesDir, "org.test/my-lib/2.0/hash6/my-lib-2.0-sources.jar");
+            Files.createDirectories(sources.getParentFile().toPath());
+            Files.write(sources.toPath(), new byte[0]);
+
+            assertFalse(index.isIndexed(binary));
+            index.refreshVersionDirOf(binary);
+            assertTrue(index.isIndexed(binary));
+            assertEquals(sources, index.tryFindArtifact(binary, "my-lib-2.0-sources.jar"));
+
+            // Not existing directories are not indexed.
+            File missingBinary = new File(filesDir, "org.test/my-lib/3.0/hash7/my-lib-3.0.jar");
+            index.refreshVersionDirOf(missingBinary);
+            assertFalse(index.isIndexed(missingBinary));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        Path tmpDir = Files.createTempDirectory("nb-artifact-index-test");
+        try {
+            File filesDir = setupCache(tmpDir);
+            File binary = getBinary(filesDir);
+            Path storeFile = tmpDir.resolve("index.bin");
+
+            GradleCacheArtifactIndex index1 = new GradleCacheArtifactIndex(filesDir);
+            index1.update();
+            index1.writeTo(storeFile);
+
+            GradleCacheArtifactIndex index2 = new GradleCacheArtifactIndex(filesDir);
+            assertTrue(index2.readFrom(storeFile));
+            assertTrue(index2.isIndexed(binary));
+            assertEquals(
+                    index1.tryFindArtifact(binary, "my-lib-1.0-sources.jar"),
+                    index2.tryFindArtifact(binary, "my-lib-1.0-sources.jar"));
+            // Nothing has changed since the index was saved.
+            assertFalse(index2.update());
+
+            GradleCacheArtifactIndex otherIndex = new GradleCacheArtifactIndex(new File(tmpDir.toFile(), "other"));
+            assertFalse(otherIndex.readFrom(storeFile));
+            assertFalse(otherIndex.readFrom(tmpDir.resolve("missing.bin")));
+        } finally {
+            NbFileUtils.deleteDirectory(Cancellation.UNCANCELABLE_TOKEN, tmpDir);
+        }
+    }
+}
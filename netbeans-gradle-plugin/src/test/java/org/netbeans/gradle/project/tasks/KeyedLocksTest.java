@@ -0,0 +1,104 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationSource;
+import org.jtrim.cancel.OperationCanceledException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyedLocksTest {
+    private static Thread lockInThread(
+            final KeyedLocks locks,
+            final Object key,
+            final CountDownLatch acquiredLatch) {
+
+        Thread result = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                KeyedLocks.KeyLock keyLock = locks.lock(Cancellation.UNCANCELABLE_TOKEN, key);
+                try {
+                    acquiredLatch.countDown();
+                } finally {
+                    locks.unlock(keyLock);
+                }
+            }
+        });
+        result.start();
+        return result;
+    }
+
+    @Test(timeout = 20000)
+    public void testDifferentKeysAreIndependent() throws Exception {
+        KeyedLocks locks = new KeyedLocks();
+
+        KeyedLocks.KeyLock lockA = locks.lock(Cancellation.UNCANCELABLE_TOKEN, "root-a");
+        try {
+            CountDownLatch acquiredB = new CountDownLatch(1);
+            Thread thread = lockInThread(locks, "root-b", acquiredB);
+
+            assertTrue(acquiredB.await(10, TimeUnit.SECONDS));
+            thread.join();
+        } finally {
+            locks.unlock(lockA);
+        }
+
+        assertEquals(0, locks.getRetainedLockCount());
+    }
+
+    @Test(timeout = 20000)
+    public void testSameKeyIsExclusive() throws Exception {
+        KeyedLocks locks = new KeyedLocks();
+
+        CountDownLatch acquiredA = new CountDownLatch(1);
+        Thread thread;
+
+        KeyedLocks.KeyLock lockA = locks.lock(Cancellation.UNCANCELABLE_TOKEN, "root-a");
+        try {
+            thread = lockInThread(locks, "root-a", acquiredA);
+            assertFalse(acquiredA.await(200, TimeUnit.MILLISECONDS));
+        } finally {
+            locks.unlock(lockA);
+        }
+
+        assertTrue(acquiredA.await(10, TimeUnit.SECONDS));
+        thread.join();
+
+        assertEquals(0, locks.getRetainedLockCount());
+    }
+
+    @Test(timeout = 20000)
+    public void testCanceledWait() throws Exception {
+        final KeyedLocks locks = new KeyedLocks();
+        final CancellationSource cancel = Cancellation.createCancellationSource();
+        final AtomicReference<Throwable> errorRef = new AtomicReference<>(null);
+
+        KeyedLocks.KeyLock lockA = locks.lock(Cancellation.UNCANCELABLE_TOKEN, "root-a");
+        try {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        locks.lock(cancel.getToken(), "root-a");
+                    } catch (Throwable ex) {
+                        errorRef.set(ex);
+                    }
+                }
+            });
+            thread.start();
+
+            cancel.getController().cancel();
+            thread.join();
+
+            assertTrue(errorRef.get() instanceof OperationCanceledException);
+            assertEquals(1, locks.getRetainedLockCount());
+        } finally {
+            locks.unlock(lockA);
+        }
+
+        assertEquals(0, locks.getRetainedLockCount());
+    }
+}
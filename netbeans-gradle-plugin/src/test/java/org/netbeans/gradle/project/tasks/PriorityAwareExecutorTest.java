@@ -9,6 +9,7 @@ import org.jtrim.concurrent.ManualTaskExecutor;
 import org.junit.Test;
 import org.mockito.InOrder;
 
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 public class PriorityAwareExecutorTest {
@@ -104,4 +105,132 @@ public class PriorityAwareExecutorTest {
         inOrder.verify(task2).execute(any(CancellationToken.class));
         inOrder.verify(cleanup2).cleanup(eq(false), isNull(Throwable.class));
     }
+
+    @Test
+    public void testMultipleLanes() throws Exception {
+        ManualTaskExecutor wrapped = new ManualTaskExecutor(false);
+        PriorityAwareExecutor executor = new PriorityAwareExecutor(wrapped, 3);
+
+        CancelableTask task1 = mock(CancelableTask.class);
+        CancelableTask task2 = mock(CancelableTask.class);
+        CancelableTask task3 = mock(CancelableTask.class);
+        CancelableTask task4 = mock(CancelableTask.class);
+
+        executor.getExecutor(2).execute(Cancellation.UNCANCELABLE_TOKEN, task4, null);
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, task2, null);
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, task3, null);
+        executor.getExecutor(0).execute(Cancellation.UNCANCELABLE_TOKEN, task1, null);
+
+        wrapped.executeCurrentlySubmitted();
+
+        InOrder inOrder = inOrder(task1, task2, task3, task4);
+
+        inOrder.verify(task1).execute(any(CancellationToken.class));
+        inOrder.verify(task2).execute(any(CancellationToken.class));
+        inOrder.verify(task3).execute(any(CancellationToken.class));
+        inOrder.verify(task4).execute(any(CancellationToken.class));
+    }
+
+    @Test
+    public void testLaneStatistics() throws Exception {
+        ManualTaskExecutor wrapped = new ManualTaskExecutor(false);
+        PriorityAwareExecutor executor = new PriorityAwareExecutor(wrapped, 3);
+
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, mock(CancelableTask.class), null);
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, mock(CancelableTask.class), null);
+        executor.getExecutor(2).execute(Cancellation.UNCANCELABLE_TOKEN, mock(CancelableTask.class), null);
+
+        assertEquals(0, executor.getLaneStatistics(0).getQueueDepth());
+        assertEquals(2, executor.getLaneStatistics(1).getQueueDepth());
+        assertEquals(1, executor.getLaneStatistics(2).getQueueDepth());
+
+        wrapped.executeCurrentlySubmitted();
+
+        for (int lane = 0; lane < executor.getLaneCount(); lane++) {
+            PriorityAwareExecutor.LaneStatistics statistics = executor.getLaneStatistics(lane);
+            assertEquals(0, statistics.getQueueDepth());
+            assertEquals(0, statistics.getOldestWaitTimeMs());
+        }
+
+        assertEquals(0, executor.getLaneStatistics(0).getStartedTaskCount());
+        assertEquals(2, executor.getLaneStatistics(1).getStartedTaskCount());
+        assertEquals(1, executor.getLaneStatistics(2).getStartedTaskCount());
+    }
+
+    @Test
+    public void testRaisePriority() throws Exception {
+        ManualTaskExecutor wrapped = new ManualTaskExecutor(false);
+        PriorityAwareExecutor executor = new PriorityAwareExecutor(wrapped, 3);
+
+        CancelableTask task1 = mock(CancelableTask.class);
+        CancelableTask task2 = mock(CancelableTask.class);
+        CancelableTask task3 = mock(CancelableTask.class);
+
+        PriorityAwareExecutor.PromotableExecutor promotable = executor.newPromotableExecutor(2);
+        promotable.execute(Cancellation.UNCANCELABLE_TOKEN, task3, null);
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, task2, null);
+        promotable.raisePriority(0);
+        promotable.execute(Cancellation.UNCANCELABLE_TOKEN, task1, null);
+
+        assertEquals(2, executor.getLaneStatistics(0).getQueueDepth());
+        assertEquals(1, executor.getLaneStatistics(1).getQueueDepth());
+        assertEquals(0, executor.getLaneStatistics(2).getQueueDepth());
+
+        wrapped.executeCurrentlySubmitted();
+
+        InOrder inOrder = inOrder(task1, task2, task3);
+
+        inOrder.verify(task3).execute(any(CancellationToken.class));
+        inOrder.verify(task1).execute(any(CancellationToken.class));
+        inOrder.verify(task2).execute(any(CancellationToken.class));
+    }
+
+    @Test
+    public void testLoweringPriorityIsIgnored() throws Exception {
+        ManualTaskExecutor wrapped = new ManualTaskExecutor(false);
+        PriorityAwareExecutor executor = new PriorityAwareExecutor(wrapped, 3);
+
+        CancelableTask task1 = mock(CancelableTask.class);
+        CancelableTask task2 = mock(CancelableTask.class);
+
+        PriorityAwareExecutor.PromotableExecutor promotable = executor.newPromotableExecutor(0);
+        promotable.execute(Cancellation.UNCANCELABLE_TOKEN, task1, null);
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, task2, null);
+        promotable.raisePriority(2);
+
+        assertEquals(1, executor.getLaneStatistics(0).getQueueDepth());
+        assertEquals(0, executor.getLaneStatistics(2).getQueueDepth());
+
+        wrapped.executeCurrentlySubmitted();
+
+        InOrder inOrder = inOrder(task1, task2);
+
+        inOrder.verify(task1).execute(any(CancellationToken.class));
+        inOrder.verify(task2).execute(any(CancellationToken.class));
+    }
+
+    @Test
+    public void testRaisePriorityOfCanceledTask() throws Exception {
+        ManualTaskExecutor wrapped = new ManualTaskExecutor(false);
+        PriorityAwareExecutor executor = new PriorityAwareExecutor(wrapped, 2);
+
+        CancelableTask task1 = mock(CancelableTask.class);
+        CancelableTask task2 = mock(CancelableTask.class);
+        CleanupTask cleanup1 = mock(CleanupTask.class);
+
+        CancellationSource cancel1 = Cancellation.createCancellationSource();
+
+        PriorityAwareExecutor.PromotableExecutor promotable = executor.newPromotableExecutor(1);
+        promotable.execute(cancel1.getToken(), task1, cleanup1);
+        executor.getExecutor(1).execute(Cancellation.UNCANCELABLE_TOKEN, task2, null);
+
+        cancel1.getController().cancel();
+        promotable.raisePriority(0);
+
+        wrapped.executeCurrentlySubmitted();
+
+        verifyZeroInteractions(task1);
+        verify(cleanup1).cleanup(eq(true), isNull(Throwable.class));
+        verify(task2).execute(any(CancellationToken.class));
+    }
 }
@@ -0,0 +1,74 @@
+package org.netbeans.gradle.project.tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.gradle.tooling.BuildLauncher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StandardInputFileTest {
+    private File inputFile;
+
+    @Before
+    public void setUp() throws IOException {
+        inputFile = File.createTempFile("nb-std-input", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (!inputFile.delete()) {
+            throw new IOException("Failed to remove " + inputFile);
+        }
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int readCount = input.read(buffer);
+        while (readCount >= 0) {
+            result.write(buffer, 0, readCount);
+            readCount = input.read(buffer);
+        }
+        return result.toByteArray();
+    }
+
+    @Test
+    public void testFileContentIsPassedToTheBuild() throws IOException {
+        byte[] content = new byte[3 * 8192 + 17];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte)i;
+        }
+        try (OutputStream output = new FileOutputStream(inputFile)) {
+            output.write(content);
+        }
+
+        BuildLauncher buildLauncher = mock(BuildLauncher.class);
+        try (InputStream stdIn = StandardInputFile.setStandardInput(buildLauncher, inputFile)) {
+            ArgumentCaptor<InputStream> inputArg = ArgumentCaptor.forClass(InputStream.class);
+            verify(buildLauncher).setStandardInput(inputArg.capture());
+
+            assertSame(stdIn, inputArg.getValue());
+            assertArrayEquals(content, readAll(inputArg.getValue()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingFileIsNotPassedToTheBuild() throws IOException {
+        BuildLauncher buildLauncher = mock(BuildLauncher.class);
+        File missingFile = new File(inputFile.getPath() + ".missing");
+        try {
+            StandardInputFile.setStandardInput(buildLauncher, missingFile);
+        } finally {
+            verifyZeroInteractions(buildLauncher);
+        }
+    }
+}
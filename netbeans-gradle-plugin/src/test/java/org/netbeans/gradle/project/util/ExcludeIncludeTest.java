@@ -8,6 +8,7 @@ import java.util.HashSet;
 import java.util.Set;
 import org.junit.Assert;
 import org.junit.Test;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
 
 
 public class ExcludeIncludeTest {
@@ -194,4 +195,50 @@ public class ExcludeIncludeTest {
         assertExclude(excludes, includes, "include", "root2", "subdir", "file1");
         assertExclude(excludes, includes, "include", "root1", "test", "file1");
     }
+
+    @Test
+    public void testWildcardsInFileName() {
+        Set<String> excludes = asSet("**/*Test?.java");
+        Set<String> includes = asSet("**/*.java");
+
+        assertInclude(excludes, includes, "Main.java");
+        assertInclude(excludes, includes, "root1", "Main.java");
+        assertInclude(excludes, includes, "root1", "MyTest.java");
+
+        assertExclude(excludes, includes, "include", "Main.txt");
+        assertExclude(excludes, includes, "include", "root1", "MyTest1.java");
+        assertExclude(excludes, includes, "include", "root1", "root2", "MyTestA.java");
+    }
+
+    @Test
+    public void testDirectoryPattern() {
+        Set<String> excludes = asSet("test/");
+        Set<String> includes = Collections.emptySet();
+
+        assertInclude(excludes, includes, "root1", "test", "file1");
+        assertInclude(excludes, includes, "test");
+
+        assertExclude(excludes, includes, "include", "test", "file1");
+        assertExclude(excludes, includes, "include", "test", "subdir", "file1");
+    }
+
+    @Test
+    public void testGlobSpecificSyntax() {
+        Set<String> excludes = Collections.emptySet();
+        Set<String> includes = asSet("{root1,root2}/*");
+
+        assertInclude(excludes, includes, "root1", "file1");
+        assertInclude(excludes, includes, "root2", "file1");
+
+        assertExclude(excludes, includes, "include", "root3", "file1");
+        assertExclude(excludes, includes, "include", "root1", "subdir", "file1");
+    }
+
+    @Test
+    public void testMatchersAreShared() {
+        SourceIncludePatterns patterns1 = SourceIncludePatterns.create(asSet("**/test/*"), asSet("root1/**"));
+        SourceIncludePatterns patterns2 = SourceIncludePatterns.create(asSet("**/test/*"), asSet("root1/**"));
+
+        Assert.assertSame(ExcludeInclude.getMatcher(patterns1), ExcludeInclude.getMatcher(patterns2));
+    }
 }
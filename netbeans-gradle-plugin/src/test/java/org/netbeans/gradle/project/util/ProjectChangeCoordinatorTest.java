@@ -0,0 +1,170 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import org.jtrim.concurrent.GenericUpdateTaskExecutor;
+import org.jtrim.concurrent.ManualTaskExecutor;
+import org.jtrim.concurrent.UpdateTaskExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProjectChangeCoordinatorTest {
+    // Failures of the notifications are only logged by the coordinator, so
+    // the thread of the notifications must be verified by the test thread.
+    private final AtomicInteger notificationsOutsideEdt = new AtomicInteger(0);
+
+    @After
+    public void checkNotificationThread() {
+        assertEquals("Notifications run outside the EDT", 0, notificationsOutsideEdt.get());
+    }
+
+    private static void waitForEdt() throws Exception {
+        // The notifications are submitted to the EDT before this task.
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+
+    private Runnable counterTask(final AtomicInteger counter) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (!SwingUtilities.isEventDispatchThread()) {
+                    notificationsOutsideEdt.incrementAndGet();
+                }
+                counter.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    public void testFireWithoutBatch() throws Exception {
+        ProjectChangeCoordinator coordinator = new ProjectChangeCoordinator();
+        AtomicInteger counter = new AtomicInteger(0);
+
+        coordinator.fireEventually(counterTask(counter));
+        waitForEdt();
+
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testFireInBatch() throws Exception {
+        ProjectChangeCoordinator coordinator = new ProjectChangeCoordinator();
+        AtomicInteger counter1 = new AtomicInteger(0);
+        AtomicInteger counter2 = new AtomicInteger(0);
+        Runnable task1 = counterTask(counter1);
+        Runnable task2 = counterTask(counter2);
+
+        CloseableAction.Ref batchRef = coordinator.startBatch();
+        coordinator.fireEventually(task1);
+        coordinator.fireEventually(task2);
+        coordinator.fireEventually(task1);
+        waitForEdt();
+
+        assertEquals(0, counter1.get());
+        assertEquals(0, counter2.get());
+
+        batchRef.close();
+        waitForEdt();
+
+        assertEquals(1, counter1.get());
+        assertEquals(1, counter2.get());
+    }
+
+    @Test
+    public void testNestedBatches() throws Exception {
+        ProjectChangeCoordinator coordinator = new ProjectChangeCoordinator();
+        AtomicInteger counter = new AtomicInteger(0);
+
+        CloseableAction.Ref batchRef1 = coordinator.startBatch();
+        CloseableAction.Ref batchRef2 = coordinator.startBatch();
+        coordinator.fireEventually(counterTask(counter));
+
+        batchRef1.close();
+        // Closing the same batch multiple times has no effect.
+        batchRef1.close();
+        waitForEdt();
+        assertEquals(0, counter.get());
+
+        batchRef2.close();
+        waitForEdt();
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testPendingUpdate() throws Exception {
+        ProjectChangeCoordinator coordinator = new ProjectChangeCoordinator();
+        ProjectChangeCoordinator.PendingUpdate pendingUpdate = new ProjectChangeCoordinator.PendingUpdate(coordinator);
+        AtomicInteger counter = new AtomicInteger(0);
+
+        CloseableAction.Ref batchRef = coordinator.startBatch();
+        pendingUpdate.updateScheduled();
+        pendingUpdate.updateScheduled();
+        batchRef.close();
+
+        CloseableAction.Ref updateRef = pendingUpdate.updateStarted();
+        coordinator.fireEventually(counterTask(counter));
+        waitForEdt();
+        assertEquals(0, counter.get());
+
+        updateRef.close();
+        waitForEdt();
+        assertEquals(1, counter.get());
+
+        // No update is pending anymore.
+        pendingUpdate.updateStarted().close();
+        coordinator.fireEventually(counterTask(counter));
+        waitForEdt();
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    public void testPendingUpdateKeepsBatchOpenUntilUpdateCompletes() throws Exception {
+        // Mimics the class path and source updates of a project reload: The
+        // update is scheduled during the reload but runs (possibly merged
+        // with later updates) on a background executor after the reload.
+        final ProjectChangeCoordinator coordinator = new ProjectChangeCoordinator();
+        final ProjectChangeCoordinator.PendingUpdate pendingUpdate
+                = new ProjectChangeCoordinator.PendingUpdate(coordinator);
+        ManualTaskExecutor backgroundExecutor = new ManualTaskExecutor(false);
+        UpdateTaskExecutor updateExecutor = new GenericUpdateTaskExecutor(backgroundExecutor);
+
+        AtomicInteger reloadCounter = new AtomicInteger(0);
+        final AtomicInteger updateCounter = new AtomicInteger(0);
+        final AtomicInteger updateRuns = new AtomicInteger(0);
+        final Runnable updateNotification = counterTask(updateCounter);
+        Runnable updateTask = new Runnable() {
+            @Override
+            public void run() {
+                try (CloseableAction.Ref batchRef = pendingUpdate.updateStarted()) {
+                    updateRuns.incrementAndGet();
+                    coordinator.fireEventually(updateNotification);
+                }
+            }
+        };
+
+        CloseableAction.Ref reloadRef = coordinator.startBatch();
+        coordinator.fireEventually(counterTask(reloadCounter));
+        for (int i = 0; i < 2; i++) {
+            pendingUpdate.updateScheduled();
+            updateExecutor.execute(updateTask);
+        }
+        reloadRef.close();
+        waitForEdt();
+
+        assertEquals(0, reloadCounter.get());
+        assertEquals(0, updateCounter.get());
+
+        backgroundExecutor.executeCurrentlySubmitted();
+        waitForEdt();
+
+        assertEquals(1, updateRuns.get());
+        assertEquals(1, reloadCounter.get());
+        assertEquals(1, updateCounter.get());
+    }
+}